@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import entities.ActiveParking;
+import entities.ParkingHistory;
+import entities.Reservation;
+import entities.Subscriber;
+import repository.InMemoryParkingRepository;
+import response.DailySubscriberCount;
+import response.ParkingDurationRecord;
+import tools.DatasetGenerator;
+
+/**
+ * BenchmarkData builds the fixtures shared by the benchmarks.
+ * Everything is generated from a fixed seed so that runs are comparable, and the
+ * subscribers use the same IDs / codes as tools.DatasetGenerator.
+ * The InMemoryParkingRepository stands in for the database: it applies the same business
+ * rules as mysqlConnection without any I/O.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Builds an in-memory lot.
+     * @param spots        The number of parking spots.
+     * @param subscribers  The number of registered subscribers (index 0..subscribers-1).
+     * @param parked       How many of the first subscribers currently have a car parked.
+     * @param reservations How many of the following subscribers have a reservation for tomorrow.
+     * @return The seeded repository.
+     */
+    static InMemoryParkingRepository repository(int spots, int subscribers, int parked, int reservations) {
+        InMemoryParkingRepository repository = new InMemoryParkingRepository();
+        repository.addParkingSpots(spots);
+        for (int i = 0; i < subscribers; i++) {
+            repository.addSubscriber(new Subscriber(DatasetGenerator.subscriberId(i), "Subscriber " + i,
+                    "user" + i + "@bpark.test", "0500000000", String.format("%08d", i),
+                    DatasetGenerator.subscriptionCode(i), 0, "4580000000000000"));
+        }
+        for (int i = 0; i < parked; i++) {
+            repository.createNewActiveParking(new Subscriber(DatasetGenerator.subscriberId(i), DatasetGenerator.subscriptionCode(i)));
+        }
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        for (int i = 0; i < reservations; i++) {
+            String id = DatasetGenerator.subscriberId(parked + i);
+            int spot = 1 + (i % spots);
+            LocalTime entry = LocalTime.of(6 + i % 12, (i * 7) % 60);
+            repository.insertReservationAndUpdateSpot(id, repository.generateUniqueParkingCode(id, spot),
+                    tomorrow, entry, tomorrow, entry.plusHours(4), spot);
+        }
+        return repository;
+    }
+
+    static List<Reservation> reservations(int count) {
+        Random random = new Random(SEED);
+        List<Reservation> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime entry = LocalDateTime.now().plusHours(1 + random.nextInt(24 * 7)).withSecond(0).withNano(0);
+            LocalDateTime exit = entry.plusHours(4);
+            list.add(new Reservation(i + 1, DatasetGenerator.subscriberId(random.nextInt(10_000)),
+                    String.format("BPARK%04d", random.nextInt(10_000)), entry.toLocalDate(), entry.toLocalTime(),
+                    exit.toLocalDate(), exit.toLocalTime(), 1 + random.nextInt(100)));
+        }
+        return list;
+    }
+
+    static List<ActiveParking> activeParkings(int count) {
+        Random random = new Random(SEED);
+        List<ActiveParking> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime entry = LocalDateTime.now().minusMinutes(random.nextInt(240)).withSecond(0).withNano(0);
+            LocalDateTime exit = entry.plusHours(4);
+            list.add(new ActiveParking(String.format("BPARK%04d", random.nextInt(10_000)), 100_000_000 + random.nextInt(10_000),
+                    entry.toLocalDate().toString(), entry.toLocalTime().toString(),
+                    exit.toLocalDate().toString(), exit.toLocalTime().toString(),
+                    String.valueOf(1 + random.nextInt(100)), random.nextInt(5) == 0));
+        }
+        return list;
+    }
+
+    static List<ParkingHistory> history(int count) {
+        Random random = new Random(SEED);
+        List<ParkingHistory> list = new ArrayList<>(count);
+        LocalDateTime start = LocalDateTime.now().minusYears(1).withSecond(0).withNano(0);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime entry = start.plusMinutes(random.nextInt(365 * 24 * 60));
+            LocalDateTime exit = entry.plusMinutes(30 + random.nextInt(8 * 60));
+            list.add(new ParkingHistory(i + 1, DatasetGenerator.subscriberId(0), String.format("%08d", random.nextInt(100_000_000)),
+                    entry.toLocalDate(), entry.toLocalTime(), exit.toLocalDate(), exit.toLocalTime()));
+        }
+        return list;
+    }
+
+    static List<ParkingDurationRecord> parkingDurationReport() {
+        Random random = new Random(SEED);
+        List<ParkingDurationRecord> list = new ArrayList<>(31);
+        for (int day = 1; day <= 31; day++) {
+            list.add(new ParkingDurationRecord(day, 20_000 + random.nextInt(20_000), random.nextInt(2_000), random.nextInt(5_000)));
+        }
+        return list;
+    }
+
+    static List<DailySubscriberCount> memberStatusReport() {
+        Random random = new Random(SEED);
+        List<DailySubscriberCount> list = new ArrayList<>(31);
+        for (int day = 1; day <= 31; day++) {
+            list.add(new DailySubscriberCount(day, 100 + random.nextInt(400)));
+        }
+        return list;
+    }
+
+    /**
+     * Replaces System.out with a stream that drops everything (the server logs every request).
+     * @return The original System.out, to be restored after the benchmark.
+     */
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return original;
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entities.Subscriber;
+import ocsf.server.ConnectionToClient;
+import ocsf.server.LoopbackConnection;
+import repository.InMemoryParkingRepository;
+import request.LoginRequest;
+import serverSide.EchoServer;
+import tools.DatasetGenerator;
+
+/**
+ * Measures EchoServer.handleMessageFromClient for read-only requests: the dispatch on the
+ * message type and command string, the repository call and the serialization of the reply
+ * onto a loopback connection. The in-memory repository is used as the database.
+ * The server's console logging is silenced so it does not dominate the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CommandDispatchBenchmark {
+
+    @Param({ "availability", "login-terminal", "login-app", "reservations", "history", "site-activity-unchanged",
+            "site-activity", "unknown" })
+    public String command;
+
+    private EchoServer server;
+    private ConnectionToClient connection;
+    private Object message;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setup() throws IOException {
+        originalOut = BenchmarkData.silenceStdout();
+        InMemoryParkingRepository repository = BenchmarkData.repository(200, 1000, 100, 50);
+        // Give subscriber 0 some parking history (the first 100 subscribers are parked)
+        String id = DatasetGenerator.subscriberId(0);
+        for (int i = 0; i < 20; i++) {
+            String code = repository.getActiveParkings().stream()
+                    .filter(ap -> String.valueOf(ap.getSubscriberId()).equals(id))
+                    .findFirst().get().getParkingCode();
+            repository.processPickupRequest(code);
+            repository.createNewActiveParking(new Subscriber(id, DatasetGenerator.subscriptionCode(0)));
+        }
+        server = new EchoServer(0, repository);
+        connection = LoopbackConnection.open(server);
+        String code = DatasetGenerator.subscriptionCode(0);
+        message = switch (command) {
+            case "availability" -> "CHECK_PARKING_AVAILABILITY";
+            case "login-terminal" -> new LoginRequest(id, code, "terminal");
+            case "login-app" -> new LoginRequest(id, code, "app");
+            case "reservations" -> "GET_RESERVATIONS|" + DatasetGenerator.subscriberId(100);
+            case "history" -> "GET_PARKING_HISTORY|" + id;
+            case "site-activity-unchanged" -> "GET_SITE_ACTIVITY|" + repository.getSiteActivity().getVersion();
+            case "site-activity" -> "GET_SITE_ACTIVITY|-1";
+            default -> "NO_SUCH_COMMAND";
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        connection.close();
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public void dispatch() {
+        server.handleMessageFromClient(message, connection);
+    }
+}
@@ -0,0 +1,55 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdbc.mysqlConnection;
+import repository.InMemoryParkingRepository;
+
+/**
+ * Measures parking code generation: the raw generator of mysqlConnection, and
+ * generateUniqueParkingCode against a lot that already holds a number of codes.
+ * Codes have 4 digits, so retries grow quickly as the lot approaches 10,000 codes in use.
+ * The uniqueness checks run against the in-memory repository (two map lookups per try);
+ * with MySQL every try costs two queries, so the retry count is what matters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParkingCodeBenchmark {
+
+    /** Number of parking codes already in use (one parked car each). */
+    @Param({ "0", "1000", "5000", "9000" })
+    public int codesInUse;
+
+    private InMemoryParkingRepository repository;
+
+    @Setup
+    public void setup() {
+        repository = BenchmarkData.repository(codesInUse + 1, codesInUse, codesInUse, 0);
+    }
+
+    @Benchmark
+    public String generateParkingCode() {
+        return mysqlConnection.generateParkingCode("123456789", 42);
+    }
+
+    @Benchmark
+    public String generateUniqueParkingCode() {
+        return repository.generateUniqueParkingCode("123456789", 42);
+    }
+}
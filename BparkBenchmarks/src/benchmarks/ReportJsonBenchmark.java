@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdbc.mysqlConnection;
+import response.DailySubscriberCount;
+import response.ParkingDurationRecord;
+
+/**
+ * Measures the Gson encoding / decoding of the monthly reports stored in monthly_reports.data,
+ * using the same helpers as mysqlConnection (one row per day of a 31-day month).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReportJsonBenchmark {
+
+    private List<ParkingDurationRecord> parkingDuration;
+    private List<DailySubscriberCount> memberStatus;
+    private String parkingDurationJson;
+    private String memberStatusJson;
+
+    @Setup
+    public void setup() {
+        parkingDuration = BenchmarkData.parkingDurationReport();
+        memberStatus = BenchmarkData.memberStatusReport();
+        parkingDurationJson = mysqlConnection.encodeReport(parkingDuration);
+        memberStatusJson = mysqlConnection.encodeReport(memberStatus);
+    }
+
+    @Benchmark
+    public String encodeParkingDuration() {
+        return mysqlConnection.encodeReport(parkingDuration);
+    }
+
+    @Benchmark
+    public List<ParkingDurationRecord> decodeParkingDuration() {
+        return mysqlConnection.decodeParkingDurationReport(parkingDurationJson);
+    }
+
+    @Benchmark
+    public String encodeMemberStatus() {
+        return mysqlConnection.encodeReport(memberStatus);
+    }
+
+    @Benchmark
+    public List<DailySubscriberCount> decodeMemberStatus() {
+        return mysqlConnection.decodeMemberStatusReport(memberStatusJson);
+    }
+}
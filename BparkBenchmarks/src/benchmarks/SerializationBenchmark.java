@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entities.ParkingHistory;
+import response.GetSiteActivityResponse;
+
+/**
+ * Measures Java serialization (the OCSF wire format) of the two largest replies:
+ * the site activity sent to the management screens and a subscriber's parking history.
+ * Every call uses a new stream, so the class descriptors are written each time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    /** Number of reservations and of active parkings in the site activity / rows in the history. */
+    @Param({ "10", "100", "1000" })
+    public int rows;
+
+    private GetSiteActivityResponse siteActivity;
+    private List<ParkingHistory> history;
+    private byte[] siteActivityBytes;
+    private byte[] historyBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        siteActivity = new GetSiteActivityResponse(BenchmarkData.reservations(rows), BenchmarkData.activeParkings(rows), 1);
+        history = BenchmarkData.history(rows);
+        siteActivityBytes = serialize(siteActivity);
+        historyBytes = serialize(history);
+    }
+
+    @Benchmark
+    public byte[] writeSiteActivity() throws IOException {
+        return serialize(siteActivity);
+    }
+
+    @Benchmark
+    public Object readSiteActivity() throws IOException, ClassNotFoundException {
+        return deserialize(siteActivityBytes);
+    }
+
+    @Benchmark
+    public byte[] writeHistory() throws IOException {
+        return serialize(history);
+    }
+
+    @Benchmark
+    public Object readHistory() throws IOException, ClassNotFoundException {
+        return deserialize(historyBytes);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
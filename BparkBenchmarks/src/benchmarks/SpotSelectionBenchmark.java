@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jdbc.SpotSelector;
+import policy.ParkingPolicy;
+
+/**
+ * Measures the drop-off spot choice of createNewActiveParking (SpotSelector) on its own,
+ * for lots of different sizes and different shares of spots blocked by an upcoming reservation.
+ * Blocked spots are the first ones tried, which is the worst case for the scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SpotSelectionBenchmark {
+
+    @Param({ "100", "1000" })
+    public int spots;
+
+    /** Share of the available spots that have a reservation starting within the blocking window. */
+    @Param({ "0.0", "0.5", "0.95" })
+    public double blockedShare;
+
+    private List<Integer> availableSpots;
+    private Map<Integer, List<LocalDateTime>> reservationStarts;
+    private LocalDateTime now;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkData.SEED);
+        now = LocalDateTime.now();
+        availableSpots = new ArrayList<>(spots);
+        reservationStarts = new HashMap<>();
+        int blocked = (int) (spots * blockedShare);
+        for (int spot = 1; spot <= spots; spot++) {
+            availableSpots.add(spot);
+            List<LocalDateTime> starts = new ArrayList<>();
+            // Every spot also has reservations later in the week, which never block
+            starts.add(now.plusDays(1 + random.nextInt(6)));
+            if (spot <= blocked) {
+                starts.add(now.plusMinutes(random.nextInt((int) SpotSelector.blockingMinutes(ParkingPolicy.DEFAULT))));
+            }
+            reservationStarts.put(spot, starts);
+        }
+    }
+
+    @Benchmark
+    public int selectDropoffSpot() {
+        return SpotSelector.selectDropoffSpot(availableSpots, reservationStarts::get, ParkingPolicy.DEFAULT, now);
+    }
+}
@@ -0,0 +1,51 @@
+package ocsf.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * LoopbackConnection creates a real ConnectionToClient for benchmarks that call
+ * AbstractServer.handleMessageFromClient directly.
+ * The connection is backed by a loopback socket whose other end discards every byte, so
+ * sendToClient serializes and writes replies exactly as it does for a real client.
+ *
+ * It lives in the ocsf.server package because the ConnectionToClient constructor is package-private.
+ */
+public final class LoopbackConnection {
+
+    private LoopbackConnection() {
+    }
+
+    /**
+     * Opens a connection to a discarding peer.
+     * @param server The server the connection belongs to (it is never listening).
+     * @return The connection, ready for sendToClient.
+     * @throws IOException if the loopback socket cannot be opened.
+     */
+    public static ConnectionToClient open(AbstractServer server) throws IOException {
+        try (ServerSocket listener = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            Socket peer = new Socket(InetAddress.getLoopbackAddress(), listener.getLocalPort());
+            // The connection reads an object stream header from the peer before it is ready
+            new ObjectOutputStream(peer.getOutputStream()).flush();
+            Thread drain = new Thread(() -> discard(peer), "loopback-drain");
+            drain.setDaemon(true);
+            drain.start();
+            return new ConnectionToClient(null, listener.accept(), server);
+        }
+    }
+
+    private static void discard(Socket peer) {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = peer.getInputStream()) {
+            while (in.read(buffer) >= 0) {
+                // drop the replies
+            }
+        } catch (IOException e) {
+            // connection closed
+        }
+    }
+}
@@ -5,6 +5,9 @@ import response.*;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import controller.BaseController;
 import controller.ClientController;
@@ -16,6 +19,9 @@ import entities.Reservation;
 import entities.Subscriber;
 import interfaces.ChatIF;
 import javafx.application.Platform;
+import logging.Log;
+import logging.Logger;
+import request.IdempotentRequest;
 
 /**
  * ChatClient represents the client-side connection to the server in the BPARK system.
@@ -24,6 +30,8 @@ import javafx.application.Platform;
  */
 public class ChatClient extends AbstractClient {
 
+    private static final Logger log = Log.getLogger(ChatClient.class);
+
     private ChatIF clientUI;
     private static ChatClient instance;
     
@@ -32,6 +40,24 @@ public class ChatClient extends AbstractClient {
     
     String parkingCode = "1";
 
+    /** The last site activity received, re-displayed when the server reports it unchanged. */
+    private volatile GetSiteActivityResponse lastSiteActivity;
+
+    /** How often the connection is checked while a state-changing request waits for its answer. */
+    private static final long MUTATION_CHECK_MILLIS = 5000;
+
+    /** The number of times a state-changing request is sent at most (the first send and the resends after reconnecting). */
+    private static final int MUTATION_MAX_SENDS = 3;
+
+    /** The state-changing request still waiting for the reply with its key (null if none). */
+    private volatile IdempotentRequest pendingMutation;
+
+    private final ScheduledExecutorService retryTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "request-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Constructs a ChatClient and opens a connection to the server.
      *
@@ -66,6 +92,17 @@ public class ChatClient extends AbstractClient {
         this.controller = controller;
     }
 
+    /**
+     * Returns the version of the last site activity received from the server.
+     * Sent with GET_SITE_ACTIVITY so the server can skip resending unchanged data.
+     *
+     * @return The known version, or -1 if no site activity was received yet.
+     */
+    public long getSiteActivityVersion() {
+        GetSiteActivityResponse last = lastSiteActivity;
+        return last == null ? -1 : last.getVersion();
+    }
+
     
     /**
      * Handles incoming messages from the server and delegates them based on type.
@@ -75,7 +112,15 @@ public class ChatClient extends AbstractClient {
      */
     @Override
     public void handleMessageFromServer(Object msg) {
-        System.out.println("== Received from server: " + msg.getClass());
+        log.debug("Received from server", "type", msg == null ? "null" : msg.getClass().getSimpleName());
+        if (msg instanceof IdempotentReply reply) {
+            // Only the reply with the same key answers the pending request
+            IdempotentRequest pending = pendingMutation;
+            if (pending != null && pending.getKey().equals(reply.getKey())) {
+                pendingMutation = null;
+            }
+            msg = reply.getPayload();
+        }
 
         try {
             if (msg instanceof PasswordResetResponse resp) {
@@ -96,8 +141,7 @@ public class ChatClient extends AbstractClient {
                 handleListMessage(list);
             }
         } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Exception in handleMessageFromServer: " + e.getMessage());
+            log.error("Exception in handleMessageFromServer", e);
         }
     }
 
@@ -196,6 +240,12 @@ public class ChatClient extends AbstractClient {
                 ClientController.getInstance().refreshReservationList();
             });
             case "UPDATE_FAILED" -> Platform.runLater(() -> ClientController.getInstance().showPopup("Update failed. Please try again."));
+            case "SITE_ACTIVITY_UNCHANGED" -> {
+                GetSiteActivityResponse last = lastSiteActivity;
+                if (last != null) {
+                    handleSiteActivity(last);
+                }
+            }
             default -> {
                 if (message.startsWith("SUBSCRIBER_INFO:")) {
                     String info = message.substring("SUBSCRIBER_INFO:".length());
@@ -252,6 +302,7 @@ public class ChatClient extends AbstractClient {
      * @param response The GetSiteActivityResponse object.
      */
     private void handleSiteActivity(GetSiteActivityResponse response) {
+        lastSiteActivity = response;
         List<Reservation> future = response.getFutureReservations();
         List<ActiveParking> active = response.getActiveParkings();
         Platform.runLater(() -> ManagementController.getInstance().displaySiteActivity(future, active));
@@ -342,6 +393,48 @@ public class ChatClient extends AbstractClient {
         }
     }
 
+    /**
+     * Sends a request that changes the server's state (drop-off, pickup, reservation, cancellation, ...)
+     * with an idempotency key. Until the reply with that key arrives, the connection is checked every
+     * MUTATION_CHECK_MILLIS; if it was lost, the client reconnects and sends the same request again.
+     * Nothing is resent on a live connection: TCP already delivers the request, and a slow answer is
+     * still on its way. The server answers a resent request with the reply of the first one, so a
+     * retry never drops off, picks up or cancels twice.
+     *
+     * @param request The request to send.
+     * @throws IOException if the request cannot be sent.
+     */
+    public void sendMutation(Object request) throws IOException {
+        IdempotentRequest wrapped = new IdempotentRequest(request);
+        pendingMutation = wrapped;
+        sendToServer(wrapped);
+        scheduleRetry(wrapped, 1);
+    }
+
+    private void scheduleRetry(IdempotentRequest request, int sends) {
+        if (sends >= MUTATION_MAX_SENDS) {
+            return;
+        }
+        retryTimer.schedule(() -> {
+            if (pendingMutation != request) {
+                return; // answered, or replaced by a newer request
+            }
+            if (isConnected()) {
+                scheduleRetry(request, sends); // still waiting on a live connection
+                return;
+            }
+            log.warn("Connection lost before the answer, reconnecting and resending request", "attempt", sends + 1);
+            try {
+                openConnection();
+                sendToServer(request);
+            } catch (IOException e) {
+                log.error("Could not resend request", e);
+            }
+            // Also retried after a failed reconnect: the server may be back by then
+            scheduleRetry(request, sends + 1);
+        }, MUTATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Closes the connection to the server and terminates the application.
      */
@@ -27,6 +27,8 @@ import clientSide.ChatClient;
 import entities.ParkingHistory;
 import entities.Reservation;
 import entities.Subscriber;
+import logging.Log;
+import logging.Logger;
 
 /**
  * ClientController manages the flow, logic, and UI interaction for the client-side
@@ -43,6 +45,8 @@ import entities.Subscriber;
  */
 public class ClientController implements BaseController {
 
+    private static final Logger log = Log.getLogger(ClientController.class);
+
     private ChatClient client;
     private Subscriber currentSubscriber;
     private boolean isLoggedIn = false;
@@ -388,7 +392,7 @@ public class ClientController implements BaseController {
      * @param subscriber the Subscriber object containing the user's data
      */
     public void setSubscriber(Subscriber subscriber) {
-    	 System.out.println("Subscriber received: " + subscriber.getFull_name()); // 🔍 Debug
+        log.debug("Subscriber received", "id", subscriber.getSubscriber_id());
         this.currentSubscriber = subscriber;
         isLoggedIn = true;
 
@@ -564,7 +568,7 @@ public class ClientController implements BaseController {
 
         showConfirmationPopup(message, () -> {
             try {
-                client.sendToServer("CANCEL_RESERVATION|" + selected.getReservationId());
+                client.sendMutation("CANCEL_RESERVATION|" + selected.getReservationId());
             } catch (IOException e) {
                 e.printStackTrace();
                 showPopup("Error sending cancel request.");
@@ -708,7 +712,7 @@ public class ClientController implements BaseController {
                     date,
                     time
                 );
-                client.sendToServer(updateRequest);
+                client.sendMutation(updateRequest);
                 reservationBeingEdited = null;
             } else {
                 Reservation newReservation = new Reservation(
@@ -716,7 +720,7 @@ public class ClientController implements BaseController {
                     date,
                     time
                 );
-                client.sendToServer(newReservation);
+                client.sendMutation(newReservation);
             }
 
             dateField.clear();
@@ -736,7 +740,11 @@ public class ClientController implements BaseController {
     @FXML
     private void handleExtend() {
         if (currentSubscriber != null) {
-            client.sendToServerSafe("EXTEND_PARKING|" + currentSubscriber.getSubscriber_id());
+            try {
+                client.sendMutation("EXTEND_PARKING|" + currentSubscriber.getSubscriber_id());
+            } catch (IOException e) {
+                showPopup("Failed to send message: " + e.getMessage());
+            }
         } else {
             showPopup("Subscriber not loaded.");
         }
@@ -9,6 +9,8 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import java.io.IOException;
 import clientSide.ChatClient;
+import logging.Log;
+import logging.Logger;
 
 /**
  * Controller for the main welcome screen.
@@ -17,6 +19,8 @@ import clientSide.ChatClient;
  */
 public class MainWelcomeController {
 
+    private static final Logger log = Log.getLogger(MainWelcomeController.class);
+
     @FXML
     private VBox mainMenu;
 
@@ -95,7 +99,7 @@ public class MainWelcomeController {
             Parent root = loader.load();
 
             ManagementController controller = loader.getController();
-            System.out.println("[DEBUG] client before setClient: " + client);
+            log.debug("Opening management screen", "client", client);
             controller.setClient(client);
             client.setController(controller);
             controller.showLoginScreen();
@@ -37,6 +37,8 @@ import clientSide.ChatClient;
 import entities.ActiveParking;
 import entities.ParkingHistory;
 import entities.Reservation;
+import logging.Log;
+import logging.Logger;
 
 
 
@@ -56,6 +58,8 @@ import entities.Reservation;
  * It also implements the BaseController interface for consistency across controller types.
  */
 public class ManagementController implements BaseController{
+
+    private static final Logger log = Log.getLogger(ManagementController.class);
  
     private final Stack<Pane> navigationStack = new Stack<>();
     private ChatClient client;
@@ -276,7 +280,7 @@ public class ManagementController implements BaseController{
     private void handleViewSiteActivity() {
         navigateTo(siteActivityView);
         try {
-            client.sendToServer("GET_SITE_ACTIVITY");
+            client.sendToServer("GET_SITE_ACTIVITY|" + client.getSiteActivityVersion());
         } catch (IOException e) {
             showPopup("Failed to fetch site activity.");
             e.printStackTrace();
@@ -1107,10 +1111,8 @@ public class ManagementController implements BaseController{
 
             double maxHours = 0;
             for (ParkingDurationRecord record : records) {
-            	System.out.println("Day: " + record.getDayOfMonth() +
-                        ", Actual: " + record.getDuration() +
-                        ", Late: " + record.getLateDuration() +
-                        ", Extended: " + record.getExtendedDuration());
+            	log.debug("Parking duration record", "day", record.getDayOfMonth(), "actual", record.getDuration(),
+                        "late", record.getLateDuration(), "extended", record.getExtendedDuration());
 
                 String label = String.valueOf(record.getDayOfMonth());
 
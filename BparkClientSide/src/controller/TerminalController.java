@@ -21,6 +21,8 @@ import java.util.Stack;
 
 import clientSide.ChatClient;
 import entities.Subscriber;
+import logging.Log;
+import logging.Logger;
 
 
 /**
@@ -40,6 +42,8 @@ import entities.Subscriber;
  * It also supports both subscriber-side logic (such as drop-off with reservation) and error handling scenarios.
  */
 public class TerminalController implements BaseController {
+
+    private static final Logger log = Log.getLogger(TerminalController.class);
  
     /**
      * Predefined subscriber ID used for simulating a successful login via scanner.
@@ -201,7 +205,7 @@ public class TerminalController implements BaseController {
         Subscriber fakeSub = new Subscriber("notRealID","notRealPW");
         subscribers[0] = realSub;
         subscribers[1] = fakeSub;
-        System.out.println("the index was: " + index);
+        log.debug("Simulated scan", "index", index);
         if(index == 0 ) 
         {
         	currentSubscriber = realSub;
@@ -351,7 +355,7 @@ public class TerminalController implements BaseController {
     @FXML
     private void handleDropoffClick() {
         try {
-            client.sendToServer(currentSubscriber);
+            client.sendMutation(currentSubscriber);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -536,7 +540,7 @@ public class TerminalController implements BaseController {
     @FXML
     private void handleSendParkingCode() {
     	lastResetType = "pcode";
-        System.out.println(">>> handleSendParkingCode - lastResetType = " + lastResetType);
+        log.debug("Sending parking code reset", "type", lastResetType);
 
         String emailInput = parkingCodeEmailField.getText().trim();
         if (emailInput.isEmpty()) {
@@ -633,7 +637,7 @@ public class TerminalController implements BaseController {
         }
         
         try {
-        	client.sendToServer("ACTIVATE_RESERVATION_CODE|" + reservationCode);
+        	client.sendMutation("ACTIVATE_RESERVATION_CODE|" + reservationCode);
         } catch (IOException e) {
             e.printStackTrace();
             showPopup("Failed to send reservation code to server.");
@@ -723,7 +727,7 @@ public class TerminalController implements BaseController {
          }
          
          try {
-        	    client.sendToServer("CHECK_PICKUP_CODE|" + code);
+        	    client.sendMutation("CHECK_PICKUP_CODE|" + code);
          } catch (IOException e) {
              e.printStackTrace();
              showPopup("Failed to send pickup code to server.");
@@ -808,8 +812,7 @@ public class TerminalController implements BaseController {
      */
     public void handlePasswordResetResponse(PasswordResetResponse resp) {
         Platform.runLater(() -> {
-            System.out.println(">>> handlePasswordResetResponse - lastResetType = " + lastResetType);
-            System.out.println(">>> Server message: " + resp.getMessage());
+            log.debug("Password reset response", "type", lastResetType, "message", resp.getMessage());
             if ("pcode".equals(lastResetType)) {
                 targetLabel = parkingCodeMessage;
             } else {
@@ -0,0 +1,74 @@
+package clock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * TimeSource is the server's single source of the current time.
+ *
+ * Every business rule that depends on "now" (drop-off and pickup times, towing after 4/8 hours,
+ * reservation expiry after 15 minutes, the month a report belongs to) reads it from here, and
+ * the SQL statements receive it as a bound parameter instead of calling NOW(). By default this
+ * is the system clock; tests and tools.SimulationRunner install a VirtualClock to run hours or
+ * months of parking activity in seconds.
+ *
+ * Durations that are measured rather than simulated (request latency, cache TTLs, pool waits)
+ * keep using System.nanoTime / currentTimeMillis.
+ */
+public final class TimeSource {
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    private TimeSource() {
+    }
+
+    /** @return The clock in use. */
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock used by the server.
+     * @param newClock The clock, e.g. a VirtualClock.
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+    }
+
+    /** Restores the system clock. */
+    public static void reset() {
+        clock = Clock.systemDefaultZone();
+    }
+
+    /** @return The current date and time. */
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /** @return The current date. */
+    public static LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /** @return The current month. */
+    public static YearMonth currentMonth() {
+        return YearMonth.now(clock);
+    }
+
+    /**
+     * Converts a period of clock time into the real time it takes, for scheduling timers:
+     * under a VirtualClock running 1000x faster, one minute passes in 60 ms.
+     * @param duration The period in clock time.
+     * @return The period in real milliseconds (at least 1).
+     */
+    public static long toRealMillis(Duration duration) {
+        Clock current = clock;
+        if (current instanceof VirtualClock virtual) {
+            return virtual.toRealMillis(duration);
+        }
+        return Math.max(1, duration.toMillis());
+    }
+}
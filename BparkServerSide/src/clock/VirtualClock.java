@@ -0,0 +1,106 @@
+package clock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * VirtualClock is a Clock that starts at a chosen time and runs at a chosen speed.
+ *
+ * With a speed of 1000, one real second advances the clock by 1000 seconds (a day passes in
+ * about 86 seconds). With a speed of 0 the clock stands still and only moves when advance(...)
+ * is called, which makes a simulation fully deterministic. Both can be combined: advance(...)
+ * adds to the time that has passed.
+ */
+public final class VirtualClock extends Clock {
+
+    private final ZoneId zone;
+    private final Instant start;
+    private final long realStartNanos;
+    private final double speed;
+    /** Nanoseconds added by advance(...). */
+    private final AtomicLong advancedNanos;
+
+    /**
+     * Creates a clock.
+     * @param start The time the clock shows now (in the system time zone).
+     * @param speed How many clock seconds pass per real second (0 = only advance(...) moves it).
+     */
+    public VirtualClock(LocalDateTime start, double speed) {
+        this(ZoneId.systemDefault(), start.atZone(ZoneId.systemDefault()).toInstant(), System.nanoTime(), speed, new AtomicLong());
+    }
+
+    private VirtualClock(ZoneId zone, Instant start, long realStartNanos, double speed, AtomicLong advancedNanos) {
+        if (speed < 0) {
+            throw new IllegalArgumentException("speed must be >= 0: " + speed);
+        }
+        this.zone = zone;
+        this.start = start;
+        this.realStartNanos = realStartNanos;
+        this.speed = speed;
+        this.advancedNanos = advancedNanos;
+    }
+
+    /**
+     * Moves the clock forward.
+     * @param duration How far to move it.
+     */
+    public void advance(Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("A clock cannot move backwards: " + duration);
+        }
+        advancedNanos.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * Moves the clock forward to the given time; does nothing if it is already past it.
+     * @param time The time to move to (in the clock's time zone).
+     */
+    public void advanceTo(LocalDateTime time) {
+        Duration gap = Duration.between(instant(), time.atZone(zone).toInstant());
+        if (!gap.isNegative()) {
+            advance(gap);
+        }
+    }
+
+    /** @return How many clock seconds pass per real second (0 if only advance(...) moves the clock). */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @param duration A period in clock time.
+     * @return The real milliseconds it takes to pass (at least 1); the clock period itself if the clock does not run by itself.
+     */
+    public long toRealMillis(Duration duration) {
+        if (speed == 0) {
+            return Math.max(1, duration.toMillis());
+        }
+        return Math.max(1, (long) (duration.toMillis() / speed));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId newZone) {
+        // The copy shares the start, the real start and the advanced time, so both show the same instant
+        return newZone.equals(zone) ? this : new VirtualClock(newZone, start, realStartNanos, speed, advancedNanos);
+    }
+
+    @Override
+    public Instant instant() {
+        long elapsed = speed == 0 ? 0 : (long) ((System.nanoTime() - realStartNanos) * speed);
+        return start.plusNanos(elapsed + advancedNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock[" + LocalDateTime.ofInstant(instant(), zone) + ", speed=" + speed + "]";
+    }
+}
@@ -12,6 +12,12 @@ import jakarta.mail.internet.MimeMessage;
 import java.io.UnsupportedEncodingException;
 import java.util.Properties;
 
+import logging.Log;
+import logging.Logger;
+import metrics.ServerMetrics;
+import tracing.Span;
+import tracing.Tracer;
+
 /**
  * Sends various email notifications via Gmail SMTP using Jakarta Mail API.
  * This class is responsible for configuring the mail session and sending
@@ -20,6 +26,8 @@ import java.util.Properties;
  */
 public class NotificationController {
 
+    private static final Logger log = Log.getLogger(NotificationController.class);
+
 	/**
 	 * Configuration constants for Gmail SMTP.
 	 */
@@ -36,8 +44,6 @@ public class NotificationController {
      * using Gmail SMTP with TLS authentication.
      */
     public NotificationController() {
-        System.out.println("[EmailSender] <init> called (common)");  
-
         String host = "smtp.gmail.com";
         String port = "587";
 
@@ -60,6 +66,32 @@ public class NotificationController {
         session.setDebug(true);  // JavaMail Debug  
     }
 
+    /**
+     * Sends a message through SMTP and records the send time and outcome in the server metrics
+     * (and as an "smtp" span of the current trace).
+     *
+     * @param msg  The message to send.
+     * @param type The kind of e-mail, used as the metrics label.
+     * @throws MessagingException If the message cannot be sent.
+     */
+    private void send(Message msg, String type) throws MessagingException {
+        Span span = Tracer.startSpan("smtp", type);
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            Transport.send(msg);
+            failed = false;
+        } finally {
+            ServerMetrics.emailCompleted(type, System.nanoTime() - startNanos, failed);
+            if (span != null) {
+                if (failed) {
+                    span.fail();
+                }
+                span.end();
+            }
+        }
+    }
+
     /**
      * Sends a password reset email to a subscriber.
      *
@@ -84,12 +116,10 @@ public class NotificationController {
                 SENDER_NAME
             );
 
-            System.out.println("[EmailSender] → Transport.send()");   
-            Transport.send(msg);
-            System.out.println("[EmailSender] Email sent successfully to " + toEmail);
+            send(msg, "password");
+            log.info("Password email sent", "to", toEmail);
         } catch (MessagingException e) {
-            System.err.println("[EmailSender] Failed to send email to " + toEmail);
-            e.printStackTrace();
+            log.error("Failed to send password email", e, "to", toEmail);
             throw e;
         }
     }
@@ -118,12 +148,10 @@ public class NotificationController {
                 SENDER_NAME
             );
 
-            System.out.println("[EmailSender] → Transport.send() (ParkingCode)");
-            Transport.send(msg);
-            System.out.println("[EmailSender] Parking code email sent successfully to " + toEmail);
+            send(msg, "parking_code");
+            log.info("Parking code email sent", "to", toEmail);
         } catch (MessagingException e) {
-            System.err.println("[EmailSender] Failed to send parking code email to " + toEmail);
-            e.printStackTrace();
+            log.error("Failed to send parking code email", e, "to", toEmail);
             throw e;
         }
     }
@@ -160,12 +188,10 @@ public class NotificationController {
                 SENDER_NAME
             );
 
-            System.out.println("[EmailSender] → Transport.send() (TowingNotice)");
-            Transport.send(msg);
-            System.out.println("[EmailSender] Towing email sent successfully to " + toEmail);
+            send(msg, "towing_notice");
+            log.info("Towing email sent", "to", toEmail);
         } catch (MessagingException e) {
-            System.err.println("[EmailSender] Failed to send towing notice email to " + toEmail);
-            e.printStackTrace();
+            log.error("Failed to send towing notice email", e, "to", toEmail);
             throw e;
         }
     }
@@ -202,12 +228,10 @@ public class NotificationController {
                 SENDER_NAME
             );
 
-            System.out.println("[EmailSender] → Transport.send() (TowingWithLateCharge)");
-            Transport.send(msg);
-            System.out.println("[EmailSender] Combined towing + late charge email sent successfully to " + toEmail);
+            send(msg, "towing_late_charge");
+            log.info("Combined towing + late charge email sent", "to", toEmail);
         } catch (MessagingException e) {
-            System.err.println("[EmailSender] Failed to send towing + late charge email to " + toEmail);
-            e.printStackTrace();
+            log.error("Failed to send towing + late charge email", e, "to", toEmail);
             throw e;
         }
     }
@@ -8,7 +8,19 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import clock.TimeSource;
+import jdbc.HistoryPartitionManager;
+import jdbc.OccupancyTracker;
+import jdbc.SiteActivitySnapshot;
 import jdbc.mysqlConnection;
+import jfr.FlightEvents;
+import jfr.SchedulerJobEvent;
+import logging.Log;
+import logging.Logger;
+import metrics.ServerMetrics;
+import tracing.Span;
+import tracing.Tracer;
+import repository.ParkingRepository;
 
 /**
  * SchedulerTasks is responsible for initiating background tasks that run periodically.
@@ -17,6 +29,8 @@ import jdbc.mysqlConnection;
  * Cleaning up expired reservations that were not used.
  */
 public class SchedulerController {
+
+    private static final Logger log = Log.getLogger(SchedulerController.class);
 	
 	/**
 	 * A single-threaded scheduled executor used to run the monthly report generator task
@@ -30,13 +44,61 @@ public class SchedulerController {
      * This includes:
      * Vehicle towing check (runs every minute).
      * Expired reservation cleanup (runs every minute).
+     * Occupancy counter reconciliation (runs every 5 minutes).
+     * parking_history partition maintenance and archival (runs daily).
+     * The periods are in TimeSource time: under a VirtualClock running 1000x, the towing check runs every 60 ms.
      */
     public static void startAll() {
         startTowingCheck(); 
         startExpiredReservationCleaner();
+        startOccupancyReconciler();
+        startHistoryMaintenance();
         startMonthlyParkingReportGenerator();
     }   
        
+    /**
+     * Starts the towing check and the expired reservation cleanup against the given
+     * repository instead of the database. Used when the server runs on a storage other
+     * than MySQL (e.g. the in-memory repository), where the database-only tasks
+     * (occupancy reconciliation, history maintenance, stored monthly reports) do not apply.
+     * @param repository The storage the server is using.
+     */
+    public static void startRepositoryTasks(ParkingRepository repository) {
+        Timer timer = new Timer(true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                runJob("towing_check", repository::checkAndTowVehicles);
+                runJob("expired_reservations", repository::removeExpiredReservations);
+            }
+        }, 0, TimeSource.toRealMillis(Duration.ofMinutes(1))); // every minute
+    }
+
+    /**
+     * Runs one execution of a scheduled job as its own trace and records its duration and
+     * outcome in the server metrics and as a JFR event. An exception is recorded and then rethrown, as before.
+     * @param job  The job name used in the metrics.
+     * @param body The work of the job.
+     */
+    private static void runJob(String job, Runnable body) {
+        Span trace = Tracer.startTrace("job", job);
+        SchedulerJobEvent event = FlightEvents.beginJob(job);
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            body.run();
+            failed = false;
+        } finally {
+            FlightEvents.endJob(event, failed);
+            ServerMetrics.jobCompleted(job, System.nanoTime() - startNanos, failed);
+            if (trace != null) {
+                if (failed) {
+                    trace.fail();
+                }
+                trace.end();
+            }
+        }
+    }
+
     /**
      * Starts the recurring task that checks for vehicles that overstayed
      * their parking duration and should be towed.
@@ -46,9 +108,9 @@ public class SchedulerController {
         Timer timer = new Timer(true);
         timer.scheduleAtFixedRate(new TimerTask() {
             public void run() {
-            	mysqlConnection.checkAndTowVehicles();
+            	runJob("towing_check", mysqlConnection::checkAndTowVehicles);
             }
-        }, 0, 60 * 1000); // every minute
+        }, 0, TimeSource.toRealMillis(Duration.ofMinutes(1))); // every minute
   }
 
     /**
@@ -60,11 +122,43 @@ public class SchedulerController {
         Timer timer = new Timer(true);
         timer.scheduleAtFixedRate(new TimerTask() {
             public void run() {
-                mysqlConnection.removeExpiredReservations(); 
+                runJob("expired_reservations", mysqlConnection::removeExpiredReservations);
             }
-        }, 0, 60 * 1000);
+        }, 0, TimeSource.toRealMillis(Duration.ofMinutes(1)));
     }
     
+    /**
+     * Starts the recurring task that reloads the in-memory occupancy counters and the
+     * site activity snapshot from the database, correcting any drift from writes made
+     * outside the server.
+     * Invokes OccupancyTracker.reconcile() and SiteActivitySnapshot.reload() every 5 minutes.
+     */
+    private static void startOccupancyReconciler() {
+        Timer timer = new Timer(true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                runJob("occupancy_reconcile", () -> {
+                    OccupancyTracker.getInstance().reconcile();
+                    SiteActivitySnapshot.getInstance().reload();
+                });
+            }
+        }, 0, TimeSource.toRealMillis(Duration.ofMinutes(5)));
+    }
+
+    /**
+     * Starts the recurring task that maintains the parking_history partitions:
+     * creates partitions for the coming months and archives months older than the retention period.
+     * Invokes HistoryPartitionManager.maintain() one minute after startup and then once a day.
+     */
+    private static void startHistoryMaintenance() {
+        Timer timer = new Timer(true);
+        timer.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                runJob("history_maintenance", HistoryPartitionManager::maintain);
+            }
+        }, TimeSource.toRealMillis(Duration.ofMinutes(1)), TimeSource.toRealMillis(Duration.ofDays(1)));
+    }
+
     /**
      * Initializes the scheduling of the monthly report generator task.
      * This task is designed to run exactly on the 1st day of each month at 01:00 AM.
@@ -77,16 +171,13 @@ public class SchedulerController {
     private static void startMonthlyParkingReportGenerator() {
     	
         Runnable reportTask = () -> {
-        	System.out.println("Monthly report task triggered at: " + LocalDateTime.now());
-        	
-            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime now = TimeSource.now();
             int year = now.minusMonths(1).getYear();
             int month = now.minusMonths(1).getMonthValue();
 
-            System.out.println("Generating monthly reports for " + month + "/" + year);
-            mysqlConnection.generateAndStoreParkingDurationReport();
-            mysqlConnection.generateAndStoreMemberStatusReport();
-            System.out.println("Monthly reports generated");
+            log.info("Generating monthly reports", "year", year, "month", month);
+            runJob("monthly_reports", mysqlConnection::generateAndStoreMonthlyReports);
+            log.info("Monthly reports generated", "year", year, "month", month);
             
             scheduleNextMonthlyReport(SchedulerController::startMonthlyParkingReportGenerator);
         };
@@ -103,7 +194,7 @@ public class SchedulerController {
      * @param task The Runnable to be executed at the scheduled time.
      */
     private static void scheduleNextMonthlyReport(Runnable task) {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = TimeSource.now();
         LocalDateTime nextRun = now.withDayOfMonth(1)
                                    .plusMonths(1)
                                    .withHour(1)
@@ -111,9 +202,9 @@ public class SchedulerController {
                                    .withSecond(0)
                                    .withNano(0);
 
-        long delay = Duration.between(now, nextRun).toMillis();
+        long delay = TimeSource.toRealMillis(Duration.between(now, nextRun));
         scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
-        System.out.println("Next report scheduled for: " + nextRun);
+        log.info("Next monthly report scheduled", "at", nextRun);
 
     }
 }
@@ -3,6 +3,8 @@ package controller;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
+import jdbc.SubscriberCache;
+import metrics.MetricsHttpServer;
 import serverSide.EchoServer;
 
 /**
@@ -26,6 +28,8 @@ public class ServerController {
 
     private EchoServer echoServer;
 
+    private MetricsHttpServer metricsServer;
+
     /**
      * Called when the "Connect EchoServer" button is pressed.
      * Starts the server on a separate thread and updates the UI.
@@ -33,6 +37,7 @@ public class ServerController {
     @FXML
     private void handleConnect() {
         new Thread(() -> {
+            metricsServer = MetricsHttpServer.startQuietly("127.0.0.1", MetricsHttpServer.DEFAULT_PORT);
             echoServer = new EchoServer(5555);
             try {
                 appendInfo("Starting server on port 5555...");
@@ -40,7 +45,11 @@ public class ServerController {
                 appendInfo("Server is now listening.");
             } catch (Exception e) {
                 appendInfo("Failed to start server: " + e.getMessage());
+                return;
             }
+            // Off the accept loop: clients can connect while the schema is migrated
+            appendInfo(echoServer.initializeStorage() ? "Database schema is up to date."
+                    : "Database could not be initialized; some requests may fail.");
         }).start();
 
         connectButton.setVisible(false);
@@ -65,13 +74,19 @@ public class ServerController {
 
     /**
      * Called when the "Show Info" button is pressed.
-     * Displays information about currently connected clients.
+     * Displays information about currently connected clients and the subscriber cache,
+     * and where the full metrics can be read.
      */
     @FXML
     private void handleShowInfo() {
         String info = echoServer.getAllClientsInfo();
         textArea.setText("");
         textArea.appendText(info + "\n");
+        textArea.appendText(SubscriberCache.getInstance().getStats() + "\n");
+        if (metricsServer != null) {
+            textArea.appendText("Metrics: http://127.0.0.1:" + MetricsHttpServer.DEFAULT_PORT + "/metrics\n");
+            textArea.appendText("Slowest requests: http://127.0.0.1:" + MetricsHttpServer.DEFAULT_PORT + "/traces\n");
+        }
     }
 
     /**
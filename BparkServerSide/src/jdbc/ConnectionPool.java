@@ -3,8 +3,16 @@ package jdbc;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import logging.Log;
+import logging.Logger;
 
 /**
  * ConnectionPool is a manual implementation of a simple connection pooling mechanism.
@@ -12,6 +20,8 @@ import java.util.Queue;
  * This version is suitable for small-scale applications like BPARK.
  */
 public class ConnectionPool {
+
+    private static final Logger log = Log.getLogger(ConnectionPool.class);
      
     // Singleton instance of the pool
     private static ConnectionPool instance;
@@ -19,33 +29,87 @@ public class ConnectionPool {
     // Queue holding reusable Connection objects
     private final Queue<Connection> connectionPool = new LinkedList<>();
 
+    // Settings used when the singleton is created (can be replaced through configure(...))
+    private static String configuredUrl = "jdbc:mysql://localhost:3306/bpark?serverTimezone=Asia/Jerusalem&useSSL=false";
+    private static String configuredUser = "root";
+    private static String configuredPassword = "Aa123456";
+    private static int configuredInitialSize = 5;
+    private static int configuredMaxSize = 6;
+
     // The maximum number of connections allowed in the pool
-    private final int MAX_POOL_SIZE = 6;
+    private final int MAX_POOL_SIZE;
 
     // Database credentials and connection URL
-    private final String URL = "jdbc:mysql://localhost:3306/bpark?serverTimezone=Asia/Jerusalem&useSSL=false";
-    private final String USER = "root";
-    private final String PASSWORD = "Aa123456";
+    private final String URL;
+    private final String USER;
+    private final String PASSWORD;
 
     /**
      * Private constructor to prevent direct instantiation.
-     * Loads the JDBC driver and initializes the pool with 5 connections.
+     * Loads the JDBC driver and initializes the pool with the configured number of connections.
+     * The initial connections are opened in parallel, so warm-up costs roughly one
+     * connection handshake instead of one handshake per connection.
      */
     private ConnectionPool() {
+        URL = configuredUrl;
+        USER = configuredUser;
+        PASSWORD = configuredPassword;
+        MAX_POOL_SIZE = configuredMaxSize;
+
         try {
             // Load the JDBC driver for MySQL
             Class.forName("com.mysql.cj.jdbc.Driver");
-            System.out.println("Driver loaded successfully.");
+            log.info("Driver loaded");
         } catch (ClassNotFoundException e) {
             e.printStackTrace(); // Print error if the driver class isn't found
         }
 
-        // Pre-populate the pool with 5 initial connections
-        for (int i = 0; i < 5; i++) {
-            connectionPool.add(createConnection());
+        // Pre-populate the pool with the initial connections, opened concurrently
+        int initialSize = Math.min(configuredInitialSize, MAX_POOL_SIZE);
+        if (initialSize > 0) {
+            ExecutorService opener = Executors.newFixedThreadPool(initialSize);
+            try {
+                List<Future<Connection>> pending = new ArrayList<>();
+                for (int i = 0; i < initialSize; i++) {
+                    pending.add(opener.submit(this::createConnection));
+                }
+                for (Future<Connection> future : pending) {
+                    try {
+                        connectionPool.add(future.get());
+                    } catch (Exception e) {
+                        // A failed warm-up connection is not fatal: getConnection() opens one on demand
+                        log.warn("Failed to open initial connection", "cause", e.getMessage());
+                    }
+                }
+            } finally {
+                opener.shutdown();
+            }
         }
 
-        System.out.println("Initialized connection pool with " + connectionPool.size() + " connections.");
+        log.info("Initialized connection pool", "connections", connectionPool.size());
+    }
+
+    /**
+     * Replaces the database settings used by the pool.
+     * Must be called before the first call to getInstance(); later calls have no effect
+     * on a pool that was already created.
+     *
+     * @param url         The JDBC URL of the BPARK database.
+     * @param user        The database user name.
+     * @param password    The database password.
+     * @param initialSize The number of connections opened when the pool is created.
+     * @param maxSize     The maximum number of idle connections kept in the pool.
+     */
+    public static synchronized void configure(String url, String user, String password, int initialSize, int maxSize) {
+        if (instance != null) {
+            log.warn("ConnectionPool already initialized, ignoring new settings");
+            return;
+        }
+        configuredUrl = url;
+        configuredUser = user;
+        configuredPassword = password;
+        configuredInitialSize = Math.max(0, initialSize);
+        configuredMaxSize = Math.max(1, maxSize);
     }
 
     /**
@@ -67,7 +131,7 @@ public class ConnectionPool {
     private Connection createConnection() {
         try {
             Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-            System.out.println("Connection created and added to pool.");
+            log.debug("Connection created");
             return conn;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -82,12 +146,12 @@ public class ConnectionPool {
      */
     public synchronized Connection getConnection() {
         if (connectionPool.isEmpty()) {
-            System.out.println("Pool empty, creating new connection.");
+            log.debug("Pool empty, creating new connection");
             return createConnection(); // fallback if pool is exhausted
         }
 
         Connection conn = connectionPool.poll(); // Take one from the front of the queue
-        System.out.println("Connection retrieved from pool. Remaining: " + connectionPool.size());
+        log.debug("Connection retrieved from pool", "remaining", connectionPool.size());
         return conn;
     }
 
@@ -99,7 +163,7 @@ public class ConnectionPool {
     public synchronized void releaseConnection(Connection conn) {
         if (conn != null && connectionPool.size() < MAX_POOL_SIZE) {
             connectionPool.offer(conn); // Add to the back of the queue
-            System.out.println("Connection released back to pool. Current size: " + connectionPool.size());
+            log.debug("Connection released back to pool", "size", connectionPool.size());
         } else {
             try {
                 conn.close(); // If pool is full, release the resource completely
@@ -122,6 +186,6 @@ public class ConnectionPool {
             }
         }
         connectionPool.clear(); // Remove all from the queue
-        System.out.println("Connection pool closed.");
+        log.info("Connection pool closed");
     }
 }
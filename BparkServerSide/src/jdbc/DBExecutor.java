@@ -3,11 +3,18 @@ package jdbc;
 import java.sql.Connection;
 import java.util.function.Consumer;
 import java.util.function.Function;
+
+import metrics.ServerMetrics;
+import tracing.Span;
+import tracing.Tracer;
    
 /**
  * DBExecutor provides utility methods to simplify database access using a connection pool.
  * It ensures that connections are properly acquired from the pool and released after use,
  * minimizing boilerplate and reducing the risk of resource leaks.
+ * Every operation is recorded in the server metrics (pool wait, run time, failures), and
+ * inside a traced request it also appears in the trace with one span per SQL statement.
+ * Every statement is timed and reported to the SlowQueryLog under the calling method.
  */
 public class DBExecutor {    
 
@@ -21,21 +28,43 @@ public class DBExecutor {
      */
     public static <T> T execute(Function<Connection, T> action) {
         Connection conn = null;
+        String caller = callerName();
+        // Inside a traced request: one "db" span per operation, with the pool wait and every statement under it
+        Span span = Tracer.startSpan("db", caller);
+        long startNanos = System.nanoTime();
+        long acquiredNanos = startNanos;
+        boolean failed = false;
         try {
             // Acquire a connection from the pool
-            conn = mysqlConnection.connectToDB();
+            Span acquire = Tracer.startSpan("db.acquire", null);
+            try {
+                conn = mysqlConnection.connectToDB();
+            } finally {
+                if (acquire != null) {
+                    acquire.end();
+                }
+            }
+            acquiredNanos = System.nanoTime();
 
-            // Run the given function and return the result
-            return action.apply(conn);
+            // Run the given function and return the result (every statement is timed for the SlowQueryLog)
+            return action.apply(InstrumentedConnection.wrap(conn, caller));
 
         } catch (Exception e) {
             // Print any exception that occurred during execution
+            failed = true;
+            if (span != null) {
+                span.fail();
+            }
             e.printStackTrace();
             return null;
 
         } finally {
             // Always release the connection back to the pool
             ConnectionPool.getInstance().releaseConnection(conn);
+            ServerMetrics.dbOperationCompleted(acquiredNanos - startNanos, System.nanoTime() - acquiredNanos, failed);
+            if (span != null) {
+                span.end();
+            }
         }
     }
 
@@ -46,21 +75,24 @@ public class DBExecutor {
      * @param action A lambda function that receives a Connection and performs an action.
      */
     public static void executeVoid(Consumer<Connection> action) {
-        Connection conn = null;
-        try {
-            // Acquire a connection from the pool
-            conn = mysqlConnection.connectToDB();
-
+        execute(conn -> {
             // Run the given action with the acquired connection
             action.accept(conn);
+            return null;
+        });
+    }
 
-        } catch (Exception e) {
-            // Print any exception that occurred during execution
-            e.printStackTrace();
-
-        } finally {
-            // Always release the connection back to the pool
-            ConnectionPool.getInstance().releaseConnection(conn);
-        }
+    /**
+     * Returns the method that asked for the database operation (e.g. "mysqlConnection.processPickupRequest"),
+     * skipping DBExecutor and GroupCommitter themselves and the lambdas passed to them.
+     * @return The calling class and method.
+     */
+    static String callerName() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().equals(DBExecutor.class.getName())
+                        && !f.getClassName().equals(GroupCommitter.class.getName()) && !f.getMethodName().startsWith("lambda$"))
+                .findFirst()
+                .map(f -> f.getClassName().substring(f.getClassName().lastIndexOf('.') + 1) + "." + f.getMethodName())
+                .orElse("unknown"));
     }
 }
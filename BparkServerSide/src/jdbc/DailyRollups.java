@@ -0,0 +1,314 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import response.DailyReportRow;
+import response.DailySubscriberCount;
+import response.ParkingDurationRecord;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * DailyRollups maintains pre-aggregated, per-day totals of finished parking sessions so
+ * that monthly reports read about 31 rows instead of scanning a month of parking_history.
+ *
+ * Tables (created by SchemaMigrator, version 2, when the server starts):
+ * - parking_daily_rollups: one row per entry date with the summed duration, late and
+ *   extended minutes, the number of sessions and the number of distinct subscribers.
+ * - parking_daily_subscribers: the (day, subscriber) pairs seen so far, used to keep the
+ *   distinct-subscriber count exact.
+ * - parking_rollup_months: months whose rollups were rebuilt from parking_history.
+ *
+ * How it works:
+ * - Every row written to parking_history (pickup, towed pickup, tow finalization) is also
+ *   added to the rollup of its entry date, on the same connection and in the same transaction.
+ * - The first time a month is read, its rollups are rebuilt from parking_history once,
+ *   so history written before the rollups existed is included.
+ * - Duration is computed exactly like the original report query:
+ *   TIMESTAMPDIFF(MINUTE, entry_time, exit_time).
+ */
+public class DailyRollups {
+
+    private static final Logger log = Log.getLogger(DailyRollups.class);
+
+    // Months already rebuilt from parking_history (first day of month)
+    private static final Set<LocalDate> rebuiltMonths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Returns the report duration of a session: the minutes between entry and exit time of day,
+     * matching TIMESTAMPDIFF(MINUTE, entry_time, exit_time) on the stored TIME columns.
+     *
+     * @param entryTime The entry time.
+     * @param exitTime  The exit time.
+     * @return The duration in minutes (negative if the session crossed midnight, as in the SQL).
+     */
+    public static int reportDuration(LocalTime entryTime, LocalTime exitTime) {
+        return (int) ChronoUnit.MINUTES.between(entryTime.withNano(0), exitTime.withNano(0));
+    }
+
+    /**
+     * Adds a finished session to the rollup of its entry date. Must be called on the connection
+     * (and inside the transaction) that inserts the matching parking_history row.
+     *
+     * @param conn         The connection used for the history insert.
+     * @param subscriberId The subscriber of the session.
+     * @param entryDate    The entry date (the rollup day).
+     * @param duration     The session duration, see reportDuration(...).
+     * @param late         The late minutes recorded in history.
+     * @param extended     The extended minutes recorded in history.
+     * @throws SQLException if the rollup cannot be updated.
+     */
+    public static void recordSession(Connection conn, String subscriberId, LocalDate entryDate,
+            int duration, int late, int extended) throws SQLException {
+        String upsert = """
+            INSERT INTO parking_daily_rollups (day, total_duration, late_duration, extended_duration, sessions, distinct_subscribers)
+            VALUES (?, ?, ?, ?, 1, 0)
+            ON DUPLICATE KEY UPDATE
+                total_duration = total_duration + VALUES(total_duration),
+                late_duration = late_duration + VALUES(late_duration),
+                extended_duration = extended_duration + VALUES(extended_duration),
+                sessions = sessions + 1
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(upsert)) {
+            stmt.setDate(1, Date.valueOf(entryDate));
+            stmt.setLong(2, duration);
+            stmt.setLong(3, late);
+            stmt.setLong(4, extended);
+            stmt.executeUpdate();
+        }
+        if (subscriberId == null) {
+            return;
+        }
+        int added;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT IGNORE INTO parking_daily_subscribers (day, subscriber_id) VALUES (?, ?)")) {
+            stmt.setDate(1, Date.valueOf(entryDate));
+            stmt.setString(2, subscriberId);
+            added = stmt.executeUpdate();
+        }
+        if (added > 0) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE parking_daily_rollups SET distinct_subscribers = distinct_subscribers + 1 WHERE day = ?")) {
+                stmt.setDate(1, Date.valueOf(entryDate));
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the rollups of a month from parking_history, once per month.
+     * The month is read in a single streamed pass by the MonthlyReportEngine.
+     *
+     * @param conn  An open connection.
+     * @param month The month to rebuild.
+     * @throws SQLException if the rebuild fails (the transaction is rolled back).
+     */
+    static void ensureMonthBuilt(Connection conn, YearMonth month) throws SQLException {
+        LocalDate first = month.atDay(1);
+        if (rebuiltMonths.contains(first)) {
+            return;
+        }
+        try (PreparedStatement check = conn.prepareStatement(
+                "SELECT 1 FROM parking_rollup_months WHERE month_start = ?")) {
+            check.setDate(1, Date.valueOf(first));
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    rebuiltMonths.add(first);
+                    return;
+                }
+            }
+        }
+
+        Date from = Date.valueOf(first);
+        Date to = Date.valueOf(month.plusMonths(1).atDay(1));
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for (String table : new String[] { "parking_daily_rollups", "parking_daily_subscribers" }) {
+                try (PreparedStatement del = conn.prepareStatement(
+                        "DELETE FROM " + table + " WHERE day >= ? AND day < ?")) {
+                    del.setDate(1, from);
+                    del.setDate(2, to);
+                    del.executeUpdate();
+                }
+            }
+            // One streamed pass over the month feeds both the totals and the subscriber sets
+            ParkingDurationAggregator durations = new ParkingDurationAggregator();
+            MemberStatusAggregator members = new MemberStatusAggregator();
+            long rows = MonthlyReportEngine.run(conn, month, durations, members);
+
+            try (PreparedStatement ins = conn.prepareStatement("""
+                    INSERT INTO parking_daily_rollups
+                        (day, total_duration, late_duration, extended_duration, sessions, distinct_subscribers)
+                    VALUES (?, ?, ?, ?, ?, ?)
+                """)) {
+                for (Map.Entry<LocalDate, long[]> e : durations.getTotalsPerDay().entrySet()) {
+                    long[] t = e.getValue();
+                    Set<String> subscribers = members.getSubscribersPerDay().get(e.getKey());
+                    ins.setDate(1, Date.valueOf(e.getKey()));
+                    ins.setLong(2, t[0]);
+                    ins.setLong(3, t[1]);
+                    ins.setLong(4, t[2]);
+                    ins.setLong(5, t[3]);
+                    ins.setInt(6, subscribers == null ? 0 : subscribers.size());
+                    ins.addBatch();
+                }
+                ins.executeBatch();
+            }
+            try (PreparedStatement ins = conn.prepareStatement(
+                    "INSERT IGNORE INTO parking_daily_subscribers (day, subscriber_id) VALUES (?, ?)")) {
+                for (Map.Entry<LocalDate, Set<String>> e : members.getSubscribersPerDay().entrySet()) {
+                    for (String subscriberId : e.getValue()) {
+                        ins.setDate(1, Date.valueOf(e.getKey()));
+                        ins.setString(2, subscriberId);
+                        ins.addBatch();
+                    }
+                }
+                ins.executeBatch();
+            }
+            try (PreparedStatement mark = conn.prepareStatement(
+                    "INSERT IGNORE INTO parking_rollup_months (month_start) VALUES (?)")) {
+                mark.setDate(1, from);
+                mark.executeUpdate();
+            }
+            conn.commit();
+            rebuiltMonths.add(first);
+            log.info("Rebuilt rollups", "month", month, "historyRows", rows);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Reads the rollup rows of a range of days that lies within one month, rebuilding
+     * the month from parking_history first if it was never rolled up.
+     *
+     * @param conn An open connection.
+     * @param from The first day to read (inclusive).
+     * @param to   The first day not to read (exclusive); must not be after the first day of the next month.
+     * @return One row per day with at least one session, ordered by day.
+     * @throws SQLException if the rollups cannot be built or read.
+     */
+    static List<DailyReportRow> loadDays(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        ensureMonthBuilt(conn, YearMonth.from(from));
+        List<DailyReportRow> rows = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("""
+                SELECT day, total_duration, late_duration, extended_duration, sessions, distinct_subscribers
+                FROM parking_daily_rollups
+                WHERE day >= ? AND day < ?
+                ORDER BY day
+            """)) {
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new DailyReportRow(
+                            rs.getDate("day").toLocalDate(),
+                            rs.getLong("total_duration"),
+                            rs.getLong("late_duration"),
+                            rs.getLong("extended_duration"),
+                            rs.getInt("sessions"),
+                            rs.getInt("distinct_subscribers")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the parking duration report of a month from the rollups.
+     * Only days with at least one session are included, ordered by day.
+     *
+     * @param year  The report year.
+     * @param month The report month (1–12).
+     * @return The daily records, or null if the rollups could not be read.
+     */
+    public static List<ParkingDurationRecord> loadParkingDuration(int year, int month) {
+        YearMonth ym = YearMonth.of(year, month);
+        return DBExecutor.execute(conn -> {
+            List<ParkingDurationRecord> records = new ArrayList<>();
+            try {
+                ensureMonthBuilt(conn, ym);
+                try (PreparedStatement stmt = conn.prepareStatement("""
+                        SELECT day, total_duration, late_duration, extended_duration
+                        FROM parking_daily_rollups
+                        WHERE day >= ? AND day < ?
+                        ORDER BY day
+                    """)) {
+                    stmt.setDate(1, Date.valueOf(ym.atDay(1)));
+                    stmt.setDate(2, Date.valueOf(ym.plusMonths(1).atDay(1)));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            records.add(new ParkingDurationRecord(
+                                    rs.getDate("day").toLocalDate().getDayOfMonth(),
+                                    (int) rs.getLong("total_duration"),
+                                    (int) rs.getLong("late_duration"),
+                                    (int) rs.getLong("extended_duration")));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+            return records;
+        });
+    }
+
+    /**
+     * Returns the member status report of a month from the rollups:
+     * the number of distinct subscribers per day, for every day of the month.
+     *
+     * @param year  The report year.
+     * @param month The report month (1–12).
+     * @return One DailySubscriberCount per day, or null if the rollups could not be read.
+     */
+    public static List<DailySubscriberCount> loadMemberStatus(int year, int month) {
+        YearMonth ym = YearMonth.of(year, month);
+        return DBExecutor.execute(conn -> {
+            Map<Integer, Integer> countPerDay = new HashMap<>();
+            try {
+                ensureMonthBuilt(conn, ym);
+                try (PreparedStatement stmt = conn.prepareStatement("""
+                        SELECT day, distinct_subscribers
+                        FROM parking_daily_rollups
+                        WHERE day >= ? AND day < ?
+                    """)) {
+                    stmt.setDate(1, Date.valueOf(ym.atDay(1)));
+                    stmt.setDate(2, Date.valueOf(ym.plusMonths(1).atDay(1)));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            countPerDay.put(rs.getDate("day").toLocalDate().getDayOfMonth(), rs.getInt("distinct_subscribers"));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+            List<DailySubscriberCount> report = new ArrayList<>();
+            for (int day = 1; day <= ym.lengthOfMonth(); day++) {
+                report.add(new DailySubscriberCount(day, countPerDay.getOrDefault(day, 0)));
+            }
+            return report;
+        });
+    }
+}
@@ -0,0 +1,323 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import logging.Log;
+import logging.Logger;
+import metrics.ServerMetrics;
+import tracing.Span;
+import tracing.Tracer;
+
+/**
+ * GroupCommitter runs the gate operations (drop-off, pickup) as transactions and, when enabled,
+ * commits the ones that arrive together in one shared transaction.
+ *
+ * At opening time many terminals drop off at once and the database waits on commits (a disk
+ * flush each), not on the statements. With db.group.commit.millis > 0 the operations are queued
+ * and run by the "group-commit" thread:
+ * - The first queued operation opens a window of db.group.commit.millis; every operation queued
+ *   before it closes (at most db.group.commit.max) joins the batch.
+ * - The batch runs on one connection, one operation after the other, each behind a savepoint:
+ *   an operation that fails is rolled back alone and its terminal gets the error.
+ * - One commit ends the batch. Every caller is then released with its own result, and the
+ *   operation's after-commit actions (ParkingEvents, OccupancyTracker) run on the caller's thread.
+ * - If the shared commit fails (deadlock, lost connection) the batch is rolled back and each
+ *   operation is retried in a transaction of its own.
+ *
+ * The operations of a batch see each other's changes (same transaction), so two drop-offs in one
+ * batch never get the same spot. With the default (0) every operation is its own transaction on
+ * the caller's thread.
+ *
+ * Example (in mysqlConnection):
+ *   return GroupCommitter.execute((conn, afterCommit) -> insertActiveParking(conn, subscriber, afterCommit));
+ */
+public final class GroupCommitter {
+
+    private static final Logger log = Log.getLogger(GroupCommitter.class);
+
+    public static final int DEFAULT_MAX_BATCH = 32;
+
+    /**
+     * One gate operation: statements run on the given connection without committing.
+     * @param <T> The result returned to the terminal.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        /**
+         * @param conn        The connection of the transaction (do not commit or roll back).
+         * @param afterCommit Actions to run only once the transaction is committed.
+         * @return The result of the operation.
+         * @throws SQLException if a statement fails; the operation is rolled back.
+         */
+        T run(Connection conn, List<Runnable> afterCommit) throws SQLException;
+    }
+
+    /**
+     * An operation waiting in the queue for its batch.
+     */
+    private static final class Pending<T> {
+        final Work<T> work;
+        final String caller;
+        final List<Runnable> afterCommit = new ArrayList<>();
+        final CompletableFuture<T> done = new CompletableFuture<>();
+        volatile Span span; // the caller's db.groupCommit span, continued on the committer thread
+        T value;
+
+        Pending(Work<T> work, String caller) {
+            this.work = work;
+            this.caller = caller;
+        }
+
+        void runIn(Connection conn) throws SQLException {
+            Span previous = Tracer.resume(span);
+            try {
+                value = work.run(InstrumentedConnection.wrap(conn, caller), afterCommit);
+            } finally {
+                Tracer.resume(previous);
+            }
+        }
+
+        void retryAlone() {
+            afterCommit.clear();
+            Span previous = Tracer.resume(span);
+            try {
+                done.complete(runAlone(work, caller, afterCommit));
+            } catch (SQLException | RuntimeException e) {
+                done.completeExceptionally(e);
+            } finally {
+                Tracer.resume(previous);
+            }
+        }
+    }
+
+    private static GroupCommitter instance; // null = every operation commits alone
+
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+
+    private GroupCommitter(int windowMillis, int maxBatch) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = Math.max(1, maxBatch);
+        Thread committer = new Thread(this::commitLoop, "group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Enables group commit. Must be called before the first gate operation; later calls are ignored.
+     * @param windowMillis How long the first operation of a batch waits for others (0 = disabled).
+     * @param maxBatch     The largest number of operations committed together.
+     */
+    public static synchronized void configure(int windowMillis, int maxBatch) {
+        if (instance != null) {
+            log.warn("GroupCommitter already started, ignoring new settings");
+            return;
+        }
+        if (windowMillis > 0) {
+            instance = new GroupCommitter(windowMillis, maxBatch);
+            log.info("Group commit enabled", "windowMillis", windowMillis, "maxBatch", maxBatch);
+        }
+    }
+
+    private static synchronized GroupCommitter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Runs a gate operation as a transaction (shared with concurrent operations if group commit
+     * is enabled) and, once it is committed, its after-commit actions on this thread.
+     * @param <T>  The result type.
+     * @param work The operation.
+     * @return The result of the operation.
+     * @throws SQLException if the operation or its commit failed (nothing of it was saved).
+     */
+    public static <T> T execute(Work<T> work) throws SQLException {
+        String caller = DBExecutor.callerName();
+        GroupCommitter committer = getInstance();
+        List<Runnable> afterCommit;
+        T value;
+        if (committer == null) {
+            afterCommit = new ArrayList<>();
+            value = runAlone(work, caller, afterCommit);
+        } else {
+            Pending<T> pending = new Pending<>(work, caller);
+            value = committer.submit(pending);
+            afterCommit = pending.afterCommit;
+        }
+        for (Runnable action : afterCommit) {
+            action.run();
+        }
+        return value;
+    }
+
+    private <T> T submit(Pending<T> pending) throws SQLException {
+        Span span = Tracer.startSpan("db.groupCommit", pending.caller);
+        long startNanos = System.nanoTime();
+        pending.span = span;
+        queue.add(pending);
+        try {
+            return pending.done.join();
+        } catch (CompletionException e) {
+            if (span != null) {
+                span.fail();
+            }
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        } finally {
+            ServerMetrics.groupCommitWaited(System.nanoTime() - startNanos);
+            if (span != null) {
+                span.end();
+            }
+        }
+    }
+
+    private void commitLoop() {
+        List<Pending<?>> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    Pending<?> next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group commit failed", e, "operations", batch.size());
+                for (Pending<?> pending : batch) {
+                    pending.done.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Runs a batch in one transaction and releases its callers.
+     */
+    private void commit(List<Pending<?>> batch) {
+        long startNanos = System.nanoTime();
+        boolean fallback = false;
+        Connection conn = mysqlConnection.connectToDB();
+        if (conn == null) {
+            SQLException e = new SQLException("No database connection");
+            batch.forEach(pending -> pending.done.completeExceptionally(e));
+            return;
+        }
+        List<Pending<?>> applied = new ArrayList<>(batch.size());
+        try {
+            conn.setAutoCommit(false);
+            for (Pending<?> pending : batch) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    pending.runIn(conn);
+                    conn.releaseSavepoint(savepoint);
+                    applied.add(pending);
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback(savepoint);
+                    pending.done.completeExceptionally(e);
+                }
+            }
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                log.warn("Batched commit failed, retrying the operations one by one",
+                        "operations", applied.size(), "error", e.getMessage());
+                conn.rollback();
+                fallback = true;
+            }
+        } catch (SQLException e) {
+            // The connection itself failed: nothing of the batch was committed
+            log.error("Group commit failed", e, "operations", batch.size());
+            try {
+                conn.rollback();
+            } catch (SQLException ignored) {
+                // the retries below use other connections
+            }
+            fallback = true;
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                log.error("Could not restore auto-commit on the batch connection", e);
+            }
+            ConnectionPool.getInstance().releaseConnection(conn);
+        }
+        for (Pending<?> pending : fallback ? batch : applied) {
+            if (!fallback) {
+                completeWithValue(pending);
+            } else if (!pending.done.isDone()) {
+                pending.retryAlone();
+            }
+        }
+        ServerMetrics.groupCommitCompleted(batch.size(), System.nanoTime() - startNanos, fallback);
+    }
+
+    private static <T> void completeWithValue(Pending<T> pending) {
+        pending.done.complete(pending.value);
+    }
+
+    /**
+     * Runs one operation in a transaction of its own.
+     */
+    private static <T> T runAlone(Work<T> work, String caller, List<Runnable> afterCommit) throws SQLException {
+        Span span = Tracer.startSpan("db", caller);
+        long startNanos = System.nanoTime();
+        long acquiredNanos = startNanos;
+        boolean failed = true;
+        Connection conn = null;
+        try {
+            conn = mysqlConnection.connectToDB();
+            acquiredNanos = System.nanoTime();
+            if (conn == null) {
+                throw new SQLException("No database connection");
+            }
+            conn.setAutoCommit(false);
+            try {
+                T value = work.run(InstrumentedConnection.wrap(conn, caller), afterCommit);
+                conn.commit();
+                failed = false;
+                return value;
+            } catch (SQLException | RuntimeException e) {
+                afterCommit.clear();
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } finally {
+            if (conn != null) {
+                ConnectionPool.getInstance().releaseConnection(conn);
+            }
+            ServerMetrics.dbOperationCompleted(acquiredNanos - startNanos, System.nanoTime() - acquiredNanos, failed);
+            if (span != null) {
+                if (failed) {
+                    span.fail();
+                }
+                span.end();
+            }
+        }
+    }
+}
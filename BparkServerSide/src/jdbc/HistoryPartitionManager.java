@@ -0,0 +1,296 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import clock.TimeSource;
+import logging.Log;
+import logging.Logger;
+
+/**
+ * HistoryPartitionManager keeps parking_history small and time-partitioned.
+ *
+ * How it works:
+ * - parking_history is RANGE-partitioned by month on TO_DAYS(entry_date), with one
+ *   partition per month (pYYYYMM) and a catch-all pmax partition. Queries that filter
+ *   on entry_date only touch the partitions of the requested months.
+ * - MySQL requires the partitioning column in every unique key, so the primary key
+ *   becomes (history_id, entry_date). history_id stays AUTO_INCREMENT and unique.
+ * - The table is converted once, by schema migration 5 (partitionTable): the key change and
+ *   the partitioning are one ALTER TABLE, so the table is copied once and either fully
+ *   converted or left as it was.
+ * - maintain() is run daily by the scheduler and never repartitions the table:
+ *   1. Splits pmax so there is always a partition for the next few months.
+ *   2. Moves months older than the retention period to parking_history_archive:
+ *      their daily rollups are built first (so reports keep working), the rows are
+ *      copied with INSERT IGNORE (safe to repeat) and the partition is dropped.
+ * - If the table could not be partitioned (e.g. it has foreign keys), the same archival
+ *   is done with batched DELETEs instead of dropping partitions.
+ */
+public class HistoryPartitionManager {
+
+    private static final Logger log = Log.getLogger(HistoryPartitionManager.class);
+
+    private static final String TABLE = "parking_history";
+    private static final String ARCHIVE_TABLE = "parking_history_archive";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final int DELETE_BATCH_SIZE = 10_000;
+
+    // Months kept in parking_history (older months are archived)
+    private static volatile int retentionMonths = 24;
+
+    // Months for which empty partitions are created in advance
+    private static volatile int monthsAhead = 3;
+
+    // MySQL errors meaning the table cannot be partitioned as it is defined
+    private static final Set<Integer> NOT_PARTITIONABLE = Set.of(
+            1503, // a unique key does not include the partitioning column
+            1506  // foreign keys are not supported with partitioning
+    );
+
+    /**
+     * Sets the retention and look-ahead periods. Called once at startup from the server configuration.
+     *
+     * @param retention Months of history kept in parking_history (at least 1).
+     * @param ahead     Months of future partitions created in advance (at least 1).
+     */
+    public static void configure(int retention, int ahead) {
+        retentionMonths = Math.max(1, retention);
+        monthsAhead = Math.max(1, ahead);
+    }
+
+    /**
+     * Returns the first entry date still kept in parking_history.
+     * Queries on the hot table can use it as a lower bound so old partitions are pruned.
+     *
+     * @return The first day of the oldest retained month.
+     */
+    public static LocalDate getRetentionStart() {
+        return TimeSource.currentMonth().minusMonths(retentionMonths - 1L).atDay(1);
+    }
+
+    /**
+     * Runs the maintenance job: creates future partitions and archives months older than
+     * the retention period.
+     */
+    public static void maintain() {
+        DBExecutor.executeVoid(conn -> {
+            try {
+                long start = System.nanoTime();
+                ensureArchiveTable(conn);
+                boolean partitioned = !listPartitions(conn, TABLE).isEmpty();
+                if (partitioned) {
+                    addFuturePartitions(conn);
+                }
+                int archived = archiveOldMonths(conn, partitioned);
+                log.info("Maintenance done", "ms", (System.nanoTime() - start) / 1_000_000,
+                        "partitioned", partitioned, "archivedMonths", archived);
+            } catch (SQLException e) {
+                log.error("Maintenance failed", e);
+            }
+        });
+    }
+
+    private static void ensureArchiveTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " LIKE " + TABLE);
+            if (!listPartitions(conn, ARCHIVE_TABLE).isEmpty()) {
+                // LIKE copies the partitioning; the archive is a plain table
+                stmt.execute("ALTER TABLE " + ARCHIVE_TABLE + " REMOVE PARTITIONING");
+            }
+        }
+    }
+
+    /**
+     * Returns the partitions of a table in order (empty if the table is not partitioned).
+     */
+    private static List<String> listPartitions(Connection conn, String table) throws SQLException {
+        List<String> names = new ArrayList<>();
+        String sql = """
+            SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+        """;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Converts parking_history to a monthly partitioned table if it is not partitioned yet.
+     * Run once by SchemaMigrator (migration 5). A table that cannot be partitioned is left
+     * unchanged and archived with DELETE.
+     *
+     * @param conn The migration connection.
+     * @throws SQLException if the conversion failed for another reason.
+     */
+    static void partitionTable(Connection conn) throws SQLException {
+        if (!listPartitions(conn, TABLE).isEmpty()) {
+            return;
+        }
+        YearMonth first = TimeSource.currentMonth();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MIN(entry_date) FROM " + TABLE)) {
+            if (rs.next() && rs.getDate(1) != null) {
+                first = YearMonth.from(rs.getDate(1).toLocalDate());
+            }
+        }
+        YearMonth last = TimeSource.currentMonth().plusMonths(monthsAhead);
+
+        StringBuilder ddl = new StringBuilder("ALTER TABLE " + TABLE
+                + " DROP PRIMARY KEY, ADD PRIMARY KEY (history_id, entry_date) PARTITION BY RANGE (TO_DAYS(entry_date)) (");
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            ddl.append(partitionDefinition(m)).append(", ");
+        }
+        ddl.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl.toString());
+            log.info("Partitioned table by month", "table", TABLE, "from", first, "to", last);
+        } catch (SQLException e) {
+            if (!NOT_PARTITIONABLE.contains(e.getErrorCode())) {
+                throw e;
+            }
+            log.warn("Could not partition table, archiving with DELETE instead", "table", TABLE, "cause", e.getMessage());
+        }
+    }
+
+    private static String partitionDefinition(YearMonth month) {
+        return "PARTITION " + month.atDay(1).format(PARTITION_NAME)
+                + " VALUES LESS THAN (TO_DAYS('" + month.plusMonths(1).atDay(1) + "'))";
+    }
+
+    /**
+     * Splits pmax so that a partition exists for every month up to monthsAhead from now.
+     */
+    private static void addFuturePartitions(Connection conn) throws SQLException {
+        List<YearMonth> months = listMonthlyPartitions(conn);
+        YearMonth newest = months.isEmpty() ? null : months.get(months.size() - 1);
+        YearMonth target = TimeSource.currentMonth().plusMonths(monthsAhead);
+        YearMonth next = newest == null ? TimeSource.currentMonth() : newest.plusMonths(1);
+        if (next.isAfter(target)) {
+            return;
+        }
+        StringBuilder ddl = new StringBuilder("ALTER TABLE " + TABLE + " REORGANIZE PARTITION pmax INTO (");
+        for (YearMonth m = next; !m.isAfter(target); m = m.plusMonths(1)) {
+            ddl.append(partitionDefinition(m)).append(", ");
+        }
+        ddl.append("PARTITION pmax VALUES LESS THAN MAXVALUE)");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl.toString());
+        }
+        log.info("Added partitions", "from", next, "to", target);
+    }
+
+    /**
+     * Splits the oldest monthly partition so that every month from {@code first} on has its own
+     * partition. A table partitioned while empty starts at the month of the migration, so
+     * tools.DatasetGenerator calls this before loading months of past history; otherwise all of
+     * them would land in that first partition. Does nothing if the table is not partitioned or
+     * already starts at or before {@code first}.
+     *
+     * @param conn  The connection to use.
+     * @param first The oldest month that needs its own partition.
+     * @throws SQLException if the partitions could not be reorganized.
+     */
+    public static void addPastPartitions(Connection conn, YearMonth first) throws SQLException {
+        List<YearMonth> months = listMonthlyPartitions(conn);
+        if (months.isEmpty() || !months.get(0).isAfter(first)) {
+            return;
+        }
+        YearMonth oldest = months.get(0);
+        StringBuilder ddl = new StringBuilder("ALTER TABLE " + TABLE + " REORGANIZE PARTITION "
+                + oldest.atDay(1).format(PARTITION_NAME) + " INTO (");
+        for (YearMonth m = first; m.isBefore(oldest); m = m.plusMonths(1)) {
+            ddl.append(partitionDefinition(m)).append(", ");
+        }
+        ddl.append(partitionDefinition(oldest)).append(")");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl.toString());
+        }
+        log.info("Added partitions", "from", first, "to", oldest.minusMonths(1));
+    }
+
+    /**
+     * Returns the months of the monthly (pYYYYMM) partitions, oldest first.
+     */
+    private static List<YearMonth> listMonthlyPartitions(Connection conn) throws SQLException {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : listPartitions(conn, TABLE)) {
+            if (name.matches("p\\d{6}")) {
+                months.add(YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5))));
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    /**
+     * Moves every month older than the retention period to the archive table.
+     *
+     * @return The number of months archived.
+     */
+    private static int archiveOldMonths(Connection conn, boolean partitioned) throws SQLException {
+        LocalDate cutoff = getRetentionStart();
+        List<YearMonth> months = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT DISTINCT YEAR(entry_date), MONTH(entry_date) FROM " + TABLE + " WHERE entry_date < ?")) {
+            stmt.setDate(1, Date.valueOf(cutoff));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    months.add(YearMonth.of(rs.getInt(1), rs.getInt(2)));
+                }
+            }
+        }
+        List<String> partitions = partitioned ? listPartitions(conn, TABLE) : List.of();
+
+        for (YearMonth month : months) {
+            // Reports of archived months are served from the rollups, so build them while the rows are here
+            DailyRollups.ensureMonthBuilt(conn, month);
+
+            Date from = Date.valueOf(month.atDay(1));
+            Date to = Date.valueOf(month.plusMonths(1).atDay(1));
+            try (PreparedStatement copy = conn.prepareStatement(
+                    "INSERT IGNORE INTO " + ARCHIVE_TABLE + " SELECT * FROM " + TABLE + " WHERE entry_date >= ? AND entry_date < ?")) {
+                copy.setDate(1, from);
+                copy.setDate(2, to);
+                copy.executeUpdate();
+            }
+
+            String partition = month.atDay(1).format(PARTITION_NAME);
+            if (partitions.contains(partition)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition);
+                }
+            } else {
+                // Rows outside a monthly partition (or an unpartitioned table): delete in batches
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM " + TABLE + " WHERE entry_date >= ? AND entry_date < ? LIMIT " + DELETE_BATCH_SIZE)) {
+                    delete.setDate(1, from);
+                    delete.setDate(2, to);
+                    while (delete.executeUpdate() > 0) {
+                        // keep deleting until the month is empty
+                    }
+                }
+            }
+            log.info("Archived month", "month", month);
+        }
+        return months.size();
+    }
+}
@@ -0,0 +1,140 @@
+package jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import tracing.Span;
+import tracing.Tracer;
+
+/**
+ * InstrumentedConnection wraps a JDBC Connection so that every statement executed through it
+ * is timed. Each execution is reported to the SlowQueryLog (with the calling method and the
+ * types of its bind parameters) and, inside a traced request, becomes an "sql" span of the
+ * trace (see tracing.Tracer) with the SQL text as detail. COMMIT and ROLLBACK are recorded
+ * the same way, since each is a round trip.
+ *
+ * The wrapping uses dynamic proxies, so mysqlConnection keeps using the plain JDBC interfaces.
+ * DBExecutor wraps the connection of every operation and always returns the original
+ * connection to the pool.
+ */
+final class InstrumentedConnection implements InvocationHandler {
+
+    private static final int MAX_SQL_LENGTH = 200;
+
+    private final Connection target;
+    private final String caller;
+
+    private InstrumentedConnection(Connection target, String caller) {
+        this.target = target;
+        this.caller = caller;
+    }
+
+    /**
+     * Wraps a connection.
+     * @param conn   The pooled connection.
+     * @param caller The method the statements are run for (e.g. mysqlConnection.processPickupRequest).
+     * @return A connection that times every statement, or null if conn is null.
+     */
+    static Connection wrap(Connection conn, String caller) {
+        if (conn == null) {
+            return null;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new InstrumentedConnection(conn, caller));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("commit") || name.equals("rollback")) {
+            return timed(target, method, args, name.toUpperCase(), List.of());
+        }
+        Object result = call(target, method, args);
+        if (result instanceof CallableStatement statement) {
+            return wrapStatement(statement, CallableStatement.class, (String) args[0]);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return wrapStatement(statement, PreparedStatement.class, (String) args[0]);
+        }
+        if (result instanceof Statement statement) {
+            return wrapStatement(statement, Statement.class, null);
+        }
+        return result;
+    }
+
+    private Object wrapStatement(Statement statement, Class<? extends Statement> type, String sql) {
+        // Types of the bound parameters by position (e.g. [String, Int, Date]), never the values
+        List<String> paramTypes = new ArrayList<>();
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("execute")) {
+                        // Plain statements receive their SQL in execute(sql) / executeUpdate(sql)
+                        String text = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                        return timed(statement, method, args, text, paramTypes);
+                    }
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                        bind(paramTypes, index, name.equals("setNull") ? "NULL" : name.substring(3));
+                    } else if (name.equals("clearParameters")) {
+                        paramTypes.clear();
+                    }
+                    return call(statement, method, args);
+                });
+    }
+
+    private static void bind(List<String> paramTypes, int index, String type) {
+        while (paramTypes.size() < index) {
+            paramTypes.add("?");
+        }
+        paramTypes.set(index - 1, type);
+    }
+
+    /**
+     * Calls the method, timing it as one statement.
+     */
+    private Object timed(Object target, Method method, Object[] args, String sql, List<String> paramTypes) throws Throwable {
+        Span span = Tracer.isTracing() ? Tracer.startSpan("sql", shorten(sql)) : null;
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = call(target, method, args);
+            failed = false;
+            return result;
+        } finally {
+            SlowQueryLog.record(sql, caller, System.nanoTime() - startNanos, paramTypes, failed);
+            if (span != null) {
+                if (failed) {
+                    span.fail();
+                }
+                span.end();
+            }
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Collapses whitespace (text blocks span several lines) and truncates long statements.
+     */
+    static String shorten(String sql) {
+        if (sql == null) {
+            return "(batch)";
+        }
+        String flat = sql.strip().replaceAll("\\s+", " ");
+        return flat.length() > MAX_SQL_LENGTH ? flat.substring(0, MAX_SQL_LENGTH) + "..." : flat;
+    }
+}
@@ -0,0 +1,49 @@
+package jdbc;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import response.DailySubscriberCount;
+
+/**
+ * Aggregates the member status report: the distinct subscribers that parked on each entry day.
+ */
+public class MemberStatusAggregator implements ReportAggregator {
+
+    private final Map<LocalDate, Set<String>> subscribersPerDay = new TreeMap<>();
+
+    @Override
+    public void accept(MonthlyReportEngine.HistoryRow row) {
+        if (row.getSubscriberId() != null) {
+            subscribersPerDay.computeIfAbsent(row.getEntryDate(), d -> new HashSet<>()).add(row.getSubscriberId());
+        }
+    }
+
+    /**
+     * Returns the distinct subscribers per entry day, ordered by date.
+     * @return The subscribers seen on each day.
+     */
+    public Map<LocalDate, Set<String>> getSubscribersPerDay() {
+        return subscribersPerDay;
+    }
+
+    /**
+     * Returns the member status report for a month: one count for every day of the month.
+     * @param month The month the rows belong to.
+     * @return The daily subscriber counts.
+     */
+    public List<DailySubscriberCount> getReport(YearMonth month) {
+        List<DailySubscriberCount> report = new ArrayList<>();
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            Set<String> subscribers = subscribersPerDay.get(month.atDay(day));
+            report.add(new DailySubscriberCount(day, subscribers == null ? 0 : subscribers.size()));
+        }
+        return report;
+    }
+}
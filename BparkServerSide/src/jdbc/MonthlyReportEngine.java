@@ -0,0 +1,121 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * MonthlyReportEngine reads the parking_history rows of a period once and feeds every
+ * row to any number of ReportAggregators, so all reports of a month are built in one pass.
+ *
+ * How it works:
+ * - The rows are selected with range predicates on entry_date (an index on entry_date can be used).
+ * - The result set is streamed with a server-side cursor (fetch size Integer.MIN_VALUE in
+ *   MySQL Connector/J), so memory stays bounded regardless of how many rows the month has.
+ * - A single HistoryRow object is reused for every row; aggregators keep only their totals.
+ * - Durations are computed in SQL exactly as in the original report query:
+ *   TIMESTAMPDIFF(MINUTE, entry_time, exit_time).
+ *
+ * While the rows are being streamed the connection cannot run other statements,
+ * so aggregators must not use the connection.
+ */
+public class MonthlyReportEngine {
+
+    private static final String STREAM_QUERY = """
+        SELECT subscriber_id, entry_date,
+               COALESCE(TIMESTAMPDIFF(MINUTE, entry_time, exit_time), 0) AS duration,
+               COALESCE(late_duration, 0) AS late_duration,
+               COALESCE(extended_duration, 0) AS extended_duration
+        FROM parking_history
+        WHERE entry_date >= ? AND entry_date < ?
+    """;
+
+    /**
+     * One streamed parking_history row. The same instance is refilled for every row.
+     */
+    public static final class HistoryRow {
+        private String subscriberId;
+        private LocalDate entryDate;
+        private int duration;
+        private int lateDuration;
+        private int extendedDuration;
+
+        /** @return The subscriber of the session. */
+        public String getSubscriberId() {
+            return subscriberId;
+        }
+
+        /** @return The entry date of the session. */
+        public LocalDate getEntryDate() {
+            return entryDate;
+        }
+
+        /** @return The duration in minutes, as TIMESTAMPDIFF(MINUTE, entry_time, exit_time). */
+        public int getDuration() {
+            return duration;
+        }
+
+        /** @return The late duration in minutes (0 if none). */
+        public int getLateDuration() {
+            return lateDuration;
+        }
+
+        /** @return The extended duration in minutes (0 if none). */
+        public int getExtendedDuration() {
+            return extendedDuration;
+        }
+    }
+
+    /**
+     * Streams the parking_history rows of a month once through the given aggregators.
+     *
+     * @param conn        An open connection (not used by anything else during the call).
+     * @param month       The month to read (by entry date).
+     * @param aggregators The aggregators to feed.
+     * @return The number of rows read.
+     * @throws SQLException if the query fails.
+     */
+    public static long run(Connection conn, YearMonth month, ReportAggregator... aggregators) throws SQLException {
+        return run(conn, month.atDay(1), month.plusMonths(1).atDay(1), aggregators);
+    }
+
+    /**
+     * Streams the parking_history rows with from <= entry_date < to once through the given aggregators.
+     *
+     * @param conn        An open connection (not used by anything else during the call).
+     * @param from        The first entry date to include.
+     * @param to          The first entry date to exclude.
+     * @param aggregators The aggregators to feed.
+     * @return The number of rows read.
+     * @throws SQLException if the query fails.
+     */
+    public static long run(Connection conn, LocalDate from, LocalDate to, ReportAggregator... aggregators) throws SQLException {
+        long rows = 0;
+        HistoryRow row = new HistoryRow();
+        try (PreparedStatement stmt = conn.prepareStatement(STREAM_QUERY,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J streams row by row instead of buffering the whole result
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            stmt.setDate(1, Date.valueOf(from));
+            stmt.setDate(2, Date.valueOf(to));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    row.subscriberId = rs.getString(1);
+                    row.entryDate = rs.getDate(2).toLocalDate();
+                    row.duration = rs.getInt(3);
+                    row.lateDuration = rs.getInt(4);
+                    row.extendedDuration = rs.getInt(5);
+                    for (ReportAggregator aggregator : aggregators) {
+                        aggregator.accept(row);
+                    }
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,405 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import logging.Log;
+import logging.Logger;
+import policy.ParkingPolicy;
+
+/**
+ * OccupancyTracker keeps live, in-memory counters of the parking lot state so that
+ * occupancy checks do not need a COUNT(*) query on every request.
+ *
+ * It holds:
+ * - The status of every parking spot (available / occupied / reserved) and the
+ *   derived totals per status.
+ * - An index of reservations by entry time ("time buckets"), used to count
+ *   reservations overlapping a requested time window.
+ *
+ * Every state-changing method in mysqlConnection reports its change here after the
+ * database write succeeds. Because other writers (or a failed report) could still make
+ * the counters drift, reconcile() reloads the authoritative state from the database;
+ * SchedulerController runs it periodically. Changes reported while the tables are being
+ * read are kept and applied again on top of the reloaded state, as the read may have
+ * missed them.
+ */
+public class OccupancyTracker {
+
+    private static final Logger log = Log.getLogger(OccupancyTracker.class);
+
+    // Singleton instance of the tracker
+    private static OccupancyTracker instance;
+
+    // Spot number -> current status, as last written to parking_spots
+    private final Map<Integer, String> spotStatus = new HashMap<>();
+
+    // Reservation ID -> reserved slot, and entry time -> IDs of the reservations starting then
+    private final Map<Integer, ReservedSlot> reservationsById = new HashMap<>();
+    private final Map<String, Integer> reservationIdByCode = new HashMap<>();
+    private final NavigableMap<LocalDateTime, Set<Integer>> reservationsByEntry = new TreeMap<>();
+
+    // The longest reservation indexed since the last reload, in minutes (bounds the overlap lookback)
+    private long longestReservationMinutes = 0;
+
+    private volatile boolean loaded = false;
+
+    // Reloads in progress, and the changes reported since the oldest of them started
+    private int reloading = 0;
+    private final List<Runnable> changesDuringReload = new ArrayList<>();
+
+    private volatile int total;
+    private volatile int available;
+    private volatile int occupied;
+    private volatile int reserved;
+
+    /**
+     * A reservation as seen by the tracker: its code and time window.
+     */
+    private static class ReservedSlot {
+        final String parkingCode;
+        final LocalDateTime entry;
+        final LocalDateTime exit;
+
+        ReservedSlot(String parkingCode, LocalDateTime entry, LocalDateTime exit) {
+            this.parkingCode = parkingCode;
+            this.entry = entry;
+            this.exit = exit;
+        }
+    }
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private OccupancyTracker() {
+    }
+
+    /**
+     * Returns the singleton instance of the OccupancyTracker.
+     * @return The shared tracker.
+     */
+    public static synchronized OccupancyTracker getInstance() {
+        if (instance == null) {
+            instance = new OccupancyTracker();
+        }
+        return instance;
+    }
+
+    /**
+     * Makes sure the tracker was loaded from the database at least once.
+     * @return true if the tracker holds valid state, false if loading failed.
+     */
+    public boolean ensureLoaded() {
+        return loaded || reconcile();
+    }
+
+    /**
+     * Reloads spot statuses and reservations from the database and replaces the in-memory state.
+     * Any drift found against the previous counters is logged.
+     *
+     * @return true if the state was reloaded, false if the database could not be read.
+     */
+    public boolean reconcile() {
+        synchronized (this) {
+            reloading++;
+        }
+        try {
+            Boolean ok = DBExecutor.execute(conn -> {
+                try {
+                    Map<Integer, String> spots = loadSpots(conn);
+                    Map<Integer, ReservedSlot> reservations = loadReservations(conn);
+                    replaceState(spots, reservations);
+                    return true;
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    return false;
+                }
+            });
+            return ok != null && ok;
+        } finally {
+            synchronized (this) {
+                if (--reloading == 0) {
+                    changesDuringReload.clear();
+                }
+            }
+        }
+    }
+
+    private Map<Integer, String> loadSpots(Connection conn) throws SQLException {
+        Map<Integer, String> spots = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT spot_number, status FROM parking_spots");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                spots.put(rs.getInt("spot_number"), rs.getString("status"));
+            }
+        }
+        return spots;
+    }
+
+    private Map<Integer, ReservedSlot> loadReservations(Connection conn) throws SQLException {
+        Map<Integer, ReservedSlot> reservations = new HashMap<>();
+        String sql = "SELECT reservation_id, parking_code, entry_date, entry_time, exit_date, exit_time FROM reservations";
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                LocalDateTime entry = LocalDateTime.of(rs.getDate("entry_date").toLocalDate(), rs.getTime("entry_time").toLocalTime());
+                LocalDateTime exit = LocalDateTime.of(rs.getDate("exit_date").toLocalDate(), rs.getTime("exit_time").toLocalTime());
+                reservations.put(rs.getInt("reservation_id"), new ReservedSlot(rs.getString("parking_code"), entry, exit));
+            }
+        }
+        return reservations;
+    }
+
+    private synchronized void replaceState(Map<Integer, String> spots, Map<Integer, ReservedSlot> reservations) {
+        int oldAvailable = available;
+        int oldOccupied = occupied;
+        int oldReservations = reservationsById.size();
+
+        spotStatus.clear();
+        spotStatus.putAll(spots);
+        reservationsById.clear();
+        reservationIdByCode.clear();
+        reservationsByEntry.clear();
+        longestReservationMinutes = 0;
+        for (Map.Entry<Integer, ReservedSlot> e : reservations.entrySet()) {
+            indexReservation(e.getKey(), e.getValue());
+        }
+        recount();
+        // Every change is a "set to" (status, window, removal), so one the read already saw is harmless
+        for (Runnable change : changesDuringReload) {
+            change.run();
+        }
+
+        if (loaded && (oldAvailable != available || oldOccupied != occupied || oldReservations != reservationsById.size())) {
+            log.warn("Reconciled drift", "available", oldAvailable + "->" + available,
+                    "occupied", oldOccupied + "->" + occupied,
+                    "reservations", oldReservations + "->" + reservationsById.size());
+        }
+        loaded = true;
+    }
+
+    private void recount() {
+        int a = 0, o = 0, r = 0;
+        for (String status : spotStatus.values()) {
+            if ("available".equalsIgnoreCase(status)) a++;
+            else if ("occupied".equalsIgnoreCase(status)) o++;
+            else if ("reserved".equalsIgnoreCase(status)) r++;
+        }
+        total = spotStatus.size();
+        available = a;
+        occupied = o;
+        reserved = r;
+    }
+
+    private void indexReservation(int reservationId, ReservedSlot slot) {
+        reservationsById.put(reservationId, slot);
+        if (slot.parkingCode != null) {
+            reservationIdByCode.put(slot.parkingCode, reservationId);
+        }
+        reservationsByEntry.computeIfAbsent(slot.entry, k -> new HashSet<>()).add(reservationId);
+        longestReservationMinutes = Math.max(longestReservationMinutes, Duration.between(slot.entry, slot.exit).toMinutes());
+    }
+
+    /**
+     * Applies a reported change, and keeps it for the reloads in progress.
+     */
+    private void apply(Runnable change) {
+        if (reloading > 0) {
+            changesDuringReload.add(change);
+        }
+        if (loaded) {
+            change.run();
+        }
+    }
+
+    private void unindexReservation(int reservationId) {
+        ReservedSlot slot = reservationsById.remove(reservationId);
+        if (slot == null) {
+            return;
+        }
+        if (slot.parkingCode != null) {
+            reservationIdByCode.remove(slot.parkingCode);
+        }
+        Set<Integer> bucket = reservationsByEntry.get(slot.entry);
+        if (bucket != null) {
+            bucket.remove(reservationId);
+            if (bucket.isEmpty()) {
+                reservationsByEntry.remove(slot.entry);
+            }
+        }
+    }
+
+    /**
+     * Records a new status written to parking_spots.
+     *
+     * @param spotNumber The spot that changed.
+     * @param newStatus  The new status ("available", "occupied" or "reserved").
+     */
+    public synchronized void spotStatusChanged(int spotNumber, String newStatus) {
+        apply(() -> {
+            String old = spotStatus.put(spotNumber, newStatus);
+            adjust(old, -1);
+            adjust(newStatus, +1);
+            if (old == null) {
+                total = spotStatus.size();
+            }
+        });
+    }
+
+    private void adjust(String status, int delta) {
+        if (status == null) return;
+        if ("available".equalsIgnoreCase(status)) available += delta;
+        else if ("occupied".equalsIgnoreCase(status)) occupied += delta;
+        else if ("reserved".equalsIgnoreCase(status)) reserved += delta;
+    }
+
+    /**
+     * Records a reservation inserted into the reservations table.
+     *
+     * @param reservationId The generated reservation ID.
+     * @param parkingCode   The reservation code.
+     * @param entryDate     The reservation start date.
+     * @param entryTime     The reservation start time.
+     * @param exitDate      The reservation end date.
+     * @param exitTime      The reservation end time.
+     */
+    public synchronized void reservationAdded(int reservationId, String parkingCode,
+            LocalDate entryDate, LocalTime entryTime, LocalDate exitDate, LocalTime exitTime) {
+        ReservedSlot slot = new ReservedSlot(parkingCode,
+                LocalDateTime.of(entryDate, entryTime), LocalDateTime.of(exitDate, exitTime));
+        apply(() -> {
+            unindexReservation(reservationId);
+            indexReservation(reservationId, slot);
+        });
+    }
+
+    /**
+     * Records a change to the time window of an existing reservation.
+     *
+     * @param reservationId The reservation that was moved.
+     * @param entryDate     The new start date.
+     * @param entryTime     The new start time.
+     * @param exitDate      The new end date.
+     * @param exitTime      The new end time.
+     */
+    public synchronized void reservationRescheduled(int reservationId,
+            LocalDate entryDate, LocalTime entryTime, LocalDate exitDate, LocalTime exitTime) {
+        LocalDateTime entry = LocalDateTime.of(entryDate, entryTime);
+        LocalDateTime exit = LocalDateTime.of(exitDate, exitTime);
+        apply(() -> {
+            ReservedSlot old = reservationsById.get(reservationId);
+            String code = old != null ? old.parkingCode : null;
+            unindexReservation(reservationId);
+            indexReservation(reservationId, new ReservedSlot(code, entry, exit));
+        });
+    }
+
+    /**
+     * Records the removal of a reservation (cancelled, expired or activated).
+     * @param reservationId The removed reservation ID.
+     */
+    public synchronized void reservationRemoved(int reservationId) {
+        apply(() -> unindexReservation(reservationId));
+    }
+
+    /**
+     * Records the removal of a reservation identified by its parking code.
+     * @param parkingCode The code of the removed reservation.
+     */
+    public synchronized void reservationRemovedByCode(String parkingCode) {
+        if (parkingCode == null) {
+            return;
+        }
+        apply(() -> {
+            Integer id = reservationIdByCode.get(parkingCode);
+            if (id != null) {
+                unindexReservation(id);
+            }
+        });
+    }
+
+    /**
+     * Counts reservations whose window, including the possible extension (ParkingPolicy),
+     * overlaps [start, end). This matches the SQL used by getOverlappingReservationCount.
+     * Only buckets starting less than the longest reservation plus the extension before the
+     * window are examined (the policy's session length, or a longer reservation made under an
+     * earlier policy); the exact overlap test is done per reservation.
+     *
+     * @param start The start of the requested window.
+     * @param end   The end of the requested window.
+     * @return The number of overlapping reservations.
+     */
+    public synchronized int countOverlappingReservations(LocalDateTime start, LocalDateTime end) {
+        ParkingPolicy policy = ParkingPolicy.getCurrent();
+        long extensionMinutes = policy.getExtensionMinutes();
+        long lookbackMinutes = Math.max(policy.getSessionMinutes(), longestReservationMinutes) + extensionMinutes;
+        int count = 0;
+        for (Set<Integer> bucket : reservationsByEntry.subMap(start.minusMinutes(lookbackMinutes), false, end, false).values()) {
+            for (Integer id : bucket) {
+                if (reservationsById.get(id).exit.plusMinutes(extensionMinutes).isAfter(start)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns how many reservations start in each hour of the given day.
+     *
+     * @param date The day to summarize.
+     * @return An array of 24 counts, index = hour of day.
+     */
+    public synchronized int[] getReservationsPerHour(LocalDate date) {
+        int[] perHour = new int[24];
+        LocalDateTime from = date.atStartOfDay();
+        for (Map.Entry<LocalDateTime, Set<Integer>> e : reservationsByEntry.subMap(from, true, from.plusDays(1), false).entrySet()) {
+            perHour[e.getKey().getHour()] += e.getValue().size();
+        }
+        return perHour;
+    }
+
+    /** @return true once the tracker was loaded from the database. */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** @return The total number of parking spots. */
+    public int getTotal() {
+        return total;
+    }
+
+    /** @return The number of spots with status 'available'. */
+    public int getAvailable() {
+        return available;
+    }
+
+    /** @return The number of spots with status 'occupied'. */
+    public int getOccupied() {
+        return occupied;
+    }
+
+    /** @return The number of spots with status 'reserved'. */
+    public int getReserved() {
+        return reserved;
+    }
+
+    /** @return The number of reservations currently tracked. */
+    public synchronized int getReservationCount() {
+        return reservationsById.size();
+    }
+}
@@ -0,0 +1,50 @@
+package jdbc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import response.ParkingDurationRecord;
+
+/**
+ * Aggregates the parking duration report: per entry day, the summed parking duration,
+ * late duration and extended duration (in minutes), plus the number of sessions.
+ */
+public class ParkingDurationAggregator implements ReportAggregator {
+
+    // Entry date -> {duration, late, extended, sessions}
+    private final Map<LocalDate, long[]> totalsPerDay = new TreeMap<>();
+
+    @Override
+    public void accept(MonthlyReportEngine.HistoryRow row) {
+        long[] totals = totalsPerDay.computeIfAbsent(row.getEntryDate(), d -> new long[4]);
+        totals[0] += row.getDuration();
+        totals[1] += row.getLateDuration();
+        totals[2] += row.getExtendedDuration();
+        totals[3]++;
+    }
+
+    /**
+     * Returns the per-day totals keyed by entry date, ordered by date.
+     * Each value is {duration, late, extended, sessions}.
+     * @return The totals per day.
+     */
+    public Map<LocalDate, long[]> getTotalsPerDay() {
+        return totalsPerDay;
+    }
+
+    /**
+     * Returns the report records, one per day that had at least one session, ordered by day.
+     * @return The parking duration records.
+     */
+    public List<ParkingDurationRecord> getRecords() {
+        List<ParkingDurationRecord> records = new ArrayList<>();
+        for (Map.Entry<LocalDate, long[]> e : totalsPerDay.entrySet()) {
+            long[] t = e.getValue();
+            records.add(new ParkingDurationRecord(e.getKey().getDayOfMonth(), (int) t[0], (int) t[1], (int) t[2]));
+        }
+        return records;
+    }
+}
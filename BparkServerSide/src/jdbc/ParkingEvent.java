@@ -0,0 +1,197 @@
+package jdbc;
+
+import java.time.LocalDateTime;
+
+import clock.TimeSource;
+
+/**
+ * ParkingEvent describes one committed change to the parking lot state
+ * (a drop-off, pickup, reservation change, towing, etc.).
+ *
+ * Events are created by mysqlConnection after the corresponding database write
+ * succeeded and are delivered to every registered ParkingStateListener through
+ * ParkingEvents.publish(...). Fields that do not apply to an event type are null
+ * (or 0 for numeric fields).
+ */
+public class ParkingEvent {
+
+    /**
+     * The kinds of state transitions reported by the server.
+     */
+    public enum Type {
+        /** A subscriber parked without a reservation. */
+        DROPOFF,
+        /** A reservation was activated at the terminal and became an active parking. */
+        RESERVATION_ACTIVATED,
+        /** An active parking was extended by 4 hours. */
+        EXTENDED,
+        /** A vehicle was picked up and the active parking ended. */
+        PICKUP,
+        /** An overstaying vehicle was towed and the active parking ended. */
+        TOWED,
+        /** A towed vehicle was released to its owner. */
+        TOWED_PICKUP,
+        /** A towed vehicle that was never collected was finalized into history. */
+        TOW_FINALIZED,
+        /** A new reservation was created. */
+        RESERVATION_CREATED,
+        /** An existing reservation was moved to a different date/time. */
+        RESERVATION_RESCHEDULED,
+        /** A reservation was cancelled by the subscriber. */
+        RESERVATION_CANCELLED,
+        /** A reservation expired because the subscriber did not arrive in time. */
+        RESERVATION_EXPIRED
+    }
+
+    private final Type type;
+    private final LocalDateTime occurredAt;
+    private final String parkingCode;
+    private final int reservationId;
+    private final String subscriberId;
+    private final int parkingSpot;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    /**
+     * Constructs a ParkingEvent. Prefer the static factory methods, which document
+     * which fields are filled for each event type.
+     *
+     * @param type          The kind of transition.
+     * @param parkingCode   The parking/reservation code involved (may be null).
+     * @param reservationId The reservation ID involved (0 if not applicable).
+     * @param subscriberId  The subscriber involved (may be null).
+     * @param parkingSpot   The parking spot involved (0 if not known).
+     * @param start         The entry time of the parking/reservation (may be null).
+     * @param end           The (expected) exit time of the parking/reservation (may be null).
+     */
+    public ParkingEvent(Type type, String parkingCode, int reservationId, String subscriberId,
+                        int parkingSpot, LocalDateTime start, LocalDateTime end) {
+        this(type, TimeSource.now(), parkingCode, reservationId, subscriberId, parkingSpot, start, end);
+    }
+
+    /**
+     * Constructs a ParkingEvent that happened at a known time (an event read back from the
+     * journal.EventJournal).
+     *
+     * @param type          The kind of transition.
+     * @param occurredAt    The time of the transition.
+     * @param parkingCode   The parking/reservation code involved (may be null).
+     * @param reservationId The reservation ID involved (0 if not applicable).
+     * @param subscriberId  The subscriber involved (may be null).
+     * @param parkingSpot   The parking spot involved (0 if not known).
+     * @param start         The entry time of the parking/reservation (may be null).
+     * @param end           The (expected) exit time of the parking/reservation (may be null).
+     */
+    public ParkingEvent(Type type, LocalDateTime occurredAt, String parkingCode, int reservationId, String subscriberId,
+                        int parkingSpot, LocalDateTime start, LocalDateTime end) {
+        this.type = type;
+        this.occurredAt = occurredAt;
+        this.parkingCode = parkingCode;
+        this.reservationId = reservationId;
+        this.subscriberId = subscriberId;
+        this.parkingSpot = parkingSpot;
+        this.start = start;
+        this.end = end;
+    }
+
+    /** @return A DROPOFF event for a new active parking. */
+    public static ParkingEvent dropoff(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime expectedExit) {
+        return new ParkingEvent(Type.DROPOFF, parkingCode, 0, subscriberId, spot, entry, expectedExit);
+    }
+
+    /** @return A RESERVATION_ACTIVATED event; the reservation with this code became an active parking. */
+    public static ParkingEvent reservationActivated(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime expectedExit) {
+        return new ParkingEvent(Type.RESERVATION_ACTIVATED, parkingCode, 0, subscriberId, spot, entry, expectedExit);
+    }
+
+    /** @return An EXTENDED event carrying the new expected exit time. */
+    public static ParkingEvent extended(String parkingCode, LocalDateTime newExpectedExit) {
+        return new ParkingEvent(Type.EXTENDED, parkingCode, 0, null, 0, null, newExpectedExit);
+    }
+
+    /** @return A PICKUP event for an active parking that ended normally. */
+    public static ParkingEvent pickup(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime exit) {
+        return new ParkingEvent(Type.PICKUP, parkingCode, 0, subscriberId, spot, entry, exit);
+    }
+
+    /** @return A TOWED event for an active parking removed by the towing check. */
+    public static ParkingEvent towed(String parkingCode, String subscriberId, int spot, LocalDateTime entry) {
+        return new ParkingEvent(Type.TOWED, parkingCode, 0, subscriberId, spot, entry, null);
+    }
+
+    /** @return A TOWED_PICKUP event for a towed vehicle collected by its owner. */
+    public static ParkingEvent towedPickup(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime exit) {
+        return new ParkingEvent(Type.TOWED_PICKUP, parkingCode, 0, subscriberId, spot, entry, exit);
+    }
+
+    /** @return A TOW_FINALIZED event for a towed vehicle that was never collected. */
+    public static ParkingEvent towFinalized(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime exit) {
+        return new ParkingEvent(Type.TOW_FINALIZED, parkingCode, 0, subscriberId, spot, entry, exit);
+    }
+
+    /** @return A RESERVATION_CREATED event. */
+    public static ParkingEvent reservationCreated(int reservationId, String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime exit) {
+        return new ParkingEvent(Type.RESERVATION_CREATED, parkingCode, reservationId, subscriberId, spot, entry, exit);
+    }
+
+    /** @return A RESERVATION_RESCHEDULED event carrying the new time window. */
+    public static ParkingEvent reservationRescheduled(int reservationId, LocalDateTime entry, LocalDateTime exit) {
+        return new ParkingEvent(Type.RESERVATION_RESCHEDULED, null, reservationId, null, 0, entry, exit);
+    }
+
+    /** @return A RESERVATION_CANCELLED event (identified by ID, code, or both). */
+    public static ParkingEvent reservationCancelled(int reservationId, String parkingCode, int spot) {
+        return new ParkingEvent(Type.RESERVATION_CANCELLED, parkingCode, reservationId, null, spot, null, null);
+    }
+
+    /** @return A RESERVATION_EXPIRED event. */
+    public static ParkingEvent reservationExpired(int reservationId, int spot) {
+        return new ParkingEvent(Type.RESERVATION_EXPIRED, null, reservationId, null, spot, null, null);
+    }
+
+    /** @return The kind of transition. */
+    public Type getType() {
+        return type;
+    }
+
+    /** @return The time the event was created. */
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    /** @return The parking/reservation code, or null. */
+    public String getParkingCode() {
+        return parkingCode;
+    }
+
+    /** @return The reservation ID, or 0. */
+    public int getReservationId() {
+        return reservationId;
+    }
+
+    /** @return The subscriber ID, or null. */
+    public String getSubscriberId() {
+        return subscriberId;
+    }
+
+    /** @return The parking spot, or 0. */
+    public int getParkingSpot() {
+        return parkingSpot;
+    }
+
+    /** @return The entry time, or null. */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /** @return The (expected) exit time, or null. */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return type + "[code=" + parkingCode + ", reservation=" + reservationId + ", subscriber=" + subscriberId
+                + ", spot=" + parkingSpot + ", start=" + start + ", end=" + end + "]";
+    }
+}
@@ -0,0 +1,49 @@
+package jdbc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * ParkingEvents delivers committed parking state transitions from mysqlConnection
+ * to the in-memory views that follow them (for example SiteActivitySnapshot).
+ * A failing listener is logged and does not affect the other listeners or the caller.
+ */
+public class ParkingEvents {
+
+    private static final Logger log = Log.getLogger(ParkingEvents.class);
+
+    private static final List<ParkingStateListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a listener for all future events.
+     * @param listener The listener to add.
+     */
+    public static void addListener(ParkingStateListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     * @param listener The listener to remove.
+     */
+    public static void removeListener(ParkingStateListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Delivers an event to every registered listener.
+     * @param event The committed transition.
+     */
+    public static void publish(ParkingEvent event) {
+        for (ParkingStateListener listener : listeners) {
+            try {
+                listener.onParkingEvent(event);
+            } catch (Exception e) {
+                log.error("Listener failed", e, "event", event);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package jdbc;
+
+/**
+ * Receives parking lot state transitions published through ParkingEvents.
+ * Implementations must be thread-safe: events are delivered on the thread that
+ * performed the database change (client handler threads and scheduler threads).
+ */
+public interface ParkingStateListener {
+
+    /**
+     * Called after a state change was committed to the database.
+     * @param event The committed transition.
+     */
+    void onParkingEvent(ParkingEvent event);
+}
@@ -0,0 +1,196 @@
+package jdbc;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import clock.TimeSource;
+import response.DailyReportRow;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * RangeReportGenerator builds reports over arbitrary date ranges on demand.
+ *
+ * How it works:
+ * - The range is split into calendar-month chunks by a fork-join task.
+ * - Each chunk runs on its own pooled connection (DBExecutor): if the month was never
+ *   rolled up (e.g. the scheduler missed it), it is rebuilt from parking_history in one
+ *   streamed pass; then the month's daily rollup rows are read.
+ * - The chunk results are concatenated in date order.
+ * - Rollup rows are keyed by entry date but written at pickup (or towed pickup), which can be
+ *   days later. A range is therefore only cached if it ends before the oldest entry date of
+ *   the cars still parked or towed: no session of such a range can be added anymore. (The
+ *   least recently used range is evicted once the cache is full.)
+ *
+ * Parallelism is bounded so a large request does not take every pooled connection.
+ */
+public class RangeReportGenerator {
+
+    private static final Logger log = Log.getLogger(RangeReportGenerator.class);
+
+    // Chunks run at most this many at a time, each holding one pooled connection
+    private static final int PARALLELISM = 4;
+
+    /** The longest range a report may cover, in months (longer requests are rejected). */
+    public static final int MAX_RANGE_MONTHS = 24;
+
+    // Number of settled-range reports kept in memory
+    private static final int MAX_CACHED_RANGES = 64;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+
+    private static final Map<String, List<DailyReportRow>> cache =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<DailyReportRow>> eldest) {
+                    return size() > MAX_CACHED_RANGES;
+                }
+            };
+
+    /**
+     * Fork-join task computing the rows of [from, to) by splitting it into months.
+     */
+    private static class RangeTask extends RecursiveTask<List<DailyReportRow>> {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDate from;
+        private final LocalDate to;
+
+        RangeTask(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<DailyReportRow> compute() {
+            LocalDate nextMonth = YearMonth.from(from).plusMonths(1).atDay(1);
+            if (!to.isAfter(nextMonth)) {
+                return loadChunk(from, to);
+            }
+            // Split at the month boundary closest to the middle of the range
+            LocalDate middle = from.plusDays(ChronoUnit.DAYS.between(from, to) / 2);
+            LocalDate split = YearMonth.from(middle).atDay(1);
+            if (!split.isAfter(from)) {
+                split = nextMonth;
+            }
+            RangeTask left = new RangeTask(from, split);
+            RangeTask right = new RangeTask(split, to);
+            left.fork();
+            List<DailyReportRow> rows = new ArrayList<>(right.compute());
+            rows.addAll(0, left.join());
+            return rows;
+        }
+    }
+
+    /**
+     * Returns the first entry date that may still get sessions: the oldest entry date of the
+     * cars parked or towed, or today if there are none.
+     *
+     * @return The date, or null if it could not be read (nothing is cached then).
+     */
+    private static LocalDate openSessionsSince() {
+        return DBExecutor.execute(conn -> {
+            LocalDate today = TimeSource.today();
+            String sql = """
+                SELECT LEAST(COALESCE((SELECT MIN(entry_date) FROM active_parkings), ?),
+                             COALESCE((SELECT MIN(entry_date) FROM towed_vehicles), ?))
+            """;
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setDate(1, Date.valueOf(today));
+                stmt.setDate(2, Date.valueOf(today));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? rs.getDate(1).toLocalDate() : today;
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+
+    private static List<DailyReportRow> loadChunk(LocalDate from, LocalDate to) {
+        List<DailyReportRow> rows = DBExecutor.execute(conn -> {
+            try {
+                return DailyRollups.loadDays(conn, from, to);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+        if (rows == null) {
+            throw new IllegalStateException("Could not load report rows for " + from + " to " + to);
+        }
+        return rows;
+    }
+
+    /**
+     * Generates the report for the given range of entry dates. A range ending in the future is
+     * cut at today (there are no sessions after it), and a range longer than MAX_RANGE_MONTHS is
+     * rejected, so one request cannot fan out over years of months.
+     *
+     * @param from The first day (inclusive).
+     * @param to   The last day (inclusive).
+     * @return One row per day with at least one session, ordered by date,
+     *         or null if the range is invalid or too long, or a chunk could not be loaded.
+     */
+    public static List<DailyReportRow> generate(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            return null;
+        }
+        LocalDate today = TimeSource.today();
+        if (to.isAfter(today)) {
+            to = today;
+        }
+        if (to.isBefore(from)) {
+            return null;
+        }
+        if (!to.isBefore(from.plusMonths(MAX_RANGE_MONTHS))) {
+            log.warn("Rejected range report", "from", from, "to", to, "maxMonths", MAX_RANGE_MONTHS);
+            return null;
+        }
+        String key = from + "|" + to;
+        if (to.isBefore(today)) {
+            synchronized (cache) {
+                List<DailyReportRow> cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+        // Read before the rows: a session picked up after this is outside a range cached below
+        LocalDate openSince = openSessionsSince();
+        boolean settled = openSince != null && to.isBefore(openSince);
+
+        long start = System.nanoTime();
+        List<DailyReportRow> rows;
+        try {
+            rows = POOL.invoke(new RangeTask(from, to.plusDays(1)));
+        } catch (RuntimeException e) {
+            log.error("Failed to generate report", "key", key, "cause", e.getMessage());
+            return null;
+        }
+        log.info("Generated range report", "from", from, "to", to, "daysWithActivity", rows.size(),
+                "ms", (System.nanoTime() - start) / 1_000_000);
+
+        if (settled) {
+            rows = Collections.unmodifiableList(rows);
+            synchronized (cache) {
+                cache.put(key, rows);
+            }
+        }
+        return rows;
+    }
+}
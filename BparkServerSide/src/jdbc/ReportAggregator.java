@@ -0,0 +1,19 @@
+package jdbc;
+
+/**
+ * A ReportAggregator receives the parking_history rows streamed by the
+ * MonthlyReportEngine and accumulates one report from them.
+ * Several aggregators can be fed by the same pass over the table, so adding a new
+ * report does not add another scan.
+ *
+ * The row object passed to accept(...) is reused by the engine for the next row,
+ * so implementations must copy any values they want to keep.
+ */
+public interface ReportAggregator {
+
+    /**
+     * Adds one parking_history row to the report.
+     * @param row The current row (only valid during this call).
+     */
+    void accept(MonthlyReportEngine.HistoryRow row);
+}
@@ -0,0 +1,125 @@
+package jdbc;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReportCache keeps decoded monthly reports in memory, keyed by (report type, year, month).
+ *
+ * Monthly reports are generated once for a month that has already ended and never change
+ * afterwards, so a report that was stored in monthly_reports can be cached without expiry.
+ * The cache is filled in two ways:
+ * - When the scheduler generates a report (the freshly built records are cached directly).
+ * - On the first manager request for a stored report (the JSON is decoded once).
+ * Reports that are not found are not cached, so a month generated later is still picked up.
+ * Cached lists are unmodifiable and safe to share between clients.
+ */
+public class ReportCache {
+
+    /** Report type used for parking duration reports in monthly_reports. */
+    public static final String PARKING_DURATION = "ParkingDuration";
+
+    /** Report type used for member status reports in monthly_reports. */
+    public static final String MEMBER_STATUS = "member_status";
+
+    // Singleton instance of the cache
+    private static final ReportCache instance = new ReportCache();
+
+    private final ConcurrentHashMap<Key, List<?>> reports = new ConcurrentHashMap<>();
+
+    /**
+     * Identifies one stored report.
+     */
+    private static final class Key {
+        final String type;
+        final int year;
+        final int month;
+
+        Key(String type, int year, int month) {
+            this.type = type;
+            this.year = year;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return year == other.year && month == other.month && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, year, month);
+        }
+    }
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private ReportCache() {
+    }
+
+    /**
+     * Returns the singleton instance of the ReportCache.
+     * @return The shared cache.
+     */
+    public static ReportCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns a cached report.
+     *
+     * @param <T>   The record type of the report.
+     * @param type  The report type (PARKING_DURATION or MEMBER_STATUS).
+     * @param year  The report year.
+     * @param month The report month (1–12).
+     * @return The cached unmodifiable list, or null if the report is not cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(String type, int year, int month) {
+        return (List<T>) reports.get(new Key(type, year, month));
+    }
+
+    /**
+     * Caches a report. Empty or null reports are ignored.
+     *
+     * @param <T>     The record type of the report.
+     * @param type    The report type (PARKING_DURATION or MEMBER_STATUS).
+     * @param year    The report year.
+     * @param month   The report month (1–12).
+     * @param records The decoded report records.
+     * @return The unmodifiable list that was cached (or the given list if it was not cached).
+     */
+    public <T> List<T> put(String type, int year, int month, List<T> records) {
+        if (records == null || records.isEmpty()) {
+            return records;
+        }
+        List<T> frozen = Collections.unmodifiableList(records);
+        reports.put(new Key(type, year, month), frozen);
+        return frozen;
+    }
+
+    /**
+     * Removes a cached report, e.g. if it is regenerated.
+     *
+     * @param type  The report type.
+     * @param year  The report year.
+     * @param month The report month (1–12).
+     */
+    public void invalidate(String type, int year, int month) {
+        reports.remove(new Key(type, year, month));
+    }
+
+    /**
+     * Returns the number of reports currently cached.
+     * @return The cache size.
+     */
+    public int size() {
+        return reports.size();
+    }
+}
@@ -0,0 +1,295 @@
+package jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * SchemaMigrator creates and upgrades the BPARK database schema on startup.
+ *
+ * How it works:
+ * - The schema is described by an ordered list of versioned migrations defined below.
+ * - The versions already applied are recorded in the schema_version table; every
+ *   migration with a higher version is applied in order and then recorded.
+ * - Statements are written so they can run against a database that was created by hand:
+ *   tables use CREATE TABLE IF NOT EXISTS, and "already exists" errors for columns and
+ *   indexes (duplicate column / duplicate key name) are ignored.
+ * - migrate() runs once per server process; later calls return immediately.
+ *
+ * To change the schema, append a new migration with the next version number.
+ * Never edit a migration that was already released.
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = Log.getLogger(SchemaMigrator.class);
+
+    // MySQL error codes that mean "this object already exists / is already gone"
+    private static final Set<Integer> IGNORED_ERRORS = Set.of(
+            1050, // table already exists
+            1060, // duplicate column name
+            1061, // duplicate key name
+            1068, // multiple primary key defined
+            1091  // can't drop; check that column/key exists
+    );
+
+    private static volatile boolean migrated = false;
+
+    /**
+     * A migration step that needs code (e.g. DDL built from the data), run after the statements.
+     */
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * One schema version: a description and the statements that bring the schema to it.
+     */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String[] statements;
+        final Step step;
+
+        Migration(int version, String description, String... statements) {
+            this(version, description, null, statements);
+        }
+
+        Migration(int version, String description, Step step, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+            this.statements = statements;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Core tables",
+            """
+            CREATE TABLE IF NOT EXISTS subscribers (
+                subscriber_id VARCHAR(20) NOT NULL PRIMARY KEY,
+                full_name VARCHAR(100),
+                email VARCHAR(100),
+                phone VARCHAR(20),
+                vehicle_number1 VARCHAR(20),
+                subscription_code VARCHAR(20),
+                late_count INT NOT NULL DEFAULT 0,
+                credit_card VARCHAR(32)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS employees (
+                username VARCHAR(50) NOT NULL PRIMARY KEY,
+                password VARCHAR(100) NOT NULL,
+                role VARCHAR(20) NOT NULL,
+                email VARCHAR(100)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_spots (
+                spot_number INT NOT NULL PRIMARY KEY,
+                status VARCHAR(20) NOT NULL DEFAULT 'available'
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS active_parkings (
+                parking_code VARCHAR(20) NOT NULL PRIMARY KEY,
+                subscriber_id VARCHAR(20) NOT NULL,
+                entry_date DATE NOT NULL,
+                entry_time TIME NOT NULL,
+                expected_exit_date DATE NOT NULL,
+                expected_exit_time TIME NOT NULL,
+                parking_spot INT NOT NULL,
+                extended BOOLEAN NOT NULL DEFAULT FALSE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS reservations (
+                reservation_id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                subscriber_id VARCHAR(20) NOT NULL,
+                parking_code VARCHAR(20) NOT NULL,
+                entry_date DATE NOT NULL,
+                entry_time TIME NOT NULL,
+                exit_date DATE NOT NULL,
+                exit_time TIME NOT NULL,
+                parking_spot INT NOT NULL
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_history (
+                history_id INT NOT NULL AUTO_INCREMENT,
+                subscriber_id VARCHAR(20) NOT NULL,
+                vehicle_number VARCHAR(20),
+                entry_date DATE NOT NULL,
+                entry_time TIME NOT NULL,
+                exit_date DATE NOT NULL,
+                exit_time TIME NOT NULL,
+                parking_spot INT,
+                late_duration INT DEFAULT 0,
+                extended_duration INT DEFAULT 0,
+                PRIMARY KEY (history_id, entry_date)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS towed_vehicles (
+                parking_code VARCHAR(20) NOT NULL PRIMARY KEY,
+                subscriber_id VARCHAR(20) NOT NULL,
+                vehicle_number VARCHAR(20),
+                parking_spot INT,
+                entry_date DATE NOT NULL,
+                entry_time TIME NOT NULL,
+                towed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                email_sent BOOLEAN NOT NULL DEFAULT FALSE
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS monthly_reports (
+                report_id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                report_type VARCHAR(50) NOT NULL,
+                year INT NOT NULL,
+                month INT NOT NULL,
+                data LONGTEXT,
+                created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """
+        ),
+        new Migration(2, "Daily report rollups",
+            """
+            CREATE TABLE IF NOT EXISTS parking_daily_rollups (
+                day DATE NOT NULL PRIMARY KEY,
+                total_duration BIGINT NOT NULL DEFAULT 0,
+                late_duration BIGINT NOT NULL DEFAULT 0,
+                extended_duration BIGINT NOT NULL DEFAULT 0,
+                sessions INT NOT NULL DEFAULT 0,
+                distinct_subscribers INT NOT NULL DEFAULT 0
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_daily_subscribers (
+                day DATE NOT NULL,
+                subscriber_id VARCHAR(20) NOT NULL,
+                PRIMARY KEY (day, subscriber_id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS parking_rollup_months (
+                month_start DATE NOT NULL PRIMARY KEY,
+                rebuilt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )
+            """
+        ),
+        new Migration(3, "Generated entry/exit timestamps",
+            "ALTER TABLE reservations ADD COLUMN entry_ts DATETIME AS (TIMESTAMP(entry_date, entry_time)) STORED",
+            "ALTER TABLE reservations ADD COLUMN exit_ts DATETIME AS (TIMESTAMP(exit_date, exit_time)) STORED",
+            "ALTER TABLE active_parkings ADD COLUMN entry_ts DATETIME AS (TIMESTAMP(entry_date, entry_time)) STORED"
+        ),
+        new Migration(4, "Indexes for hot predicates",
+            "CREATE INDEX idx_reservations_spot ON reservations (parking_spot)",
+            "CREATE INDEX idx_reservations_subscriber_entry ON reservations (subscriber_id, entry_date, entry_time)",
+            "CREATE INDEX idx_reservations_code ON reservations (parking_code)",
+            "CREATE INDEX idx_reservations_entry_ts ON reservations (entry_ts)",
+            "CREATE INDEX idx_reservations_exit_ts ON reservations (exit_ts)",
+            "CREATE INDEX idx_active_subscriber ON active_parkings (subscriber_id)",
+            "CREATE INDEX idx_active_spot ON active_parkings (parking_spot)",
+            "CREATE INDEX idx_active_entry_ts ON active_parkings (entry_ts)",
+            "CREATE INDEX idx_history_subscriber ON parking_history (subscriber_id, entry_date)",
+            "CREATE INDEX idx_history_entry_date ON parking_history (entry_date)",
+            "CREATE INDEX idx_towed_towed_at ON towed_vehicles (towed_at)",
+            "CREATE INDEX idx_subscribers_email ON subscribers (email)",
+            "CREATE INDEX idx_spots_status ON parking_spots (status)",
+            "CREATE INDEX idx_reports_type_period ON monthly_reports (report_type, year, month)",
+            "CREATE INDEX idx_employees_email ON employees (email)"
+        ),
+        new Migration(5, "Monthly partitions of parking_history",
+            HistoryPartitionManager::partitionTable,
+            // Created before the partitioning so that LIKE gives a plain table
+            "CREATE TABLE IF NOT EXISTS parking_history_archive LIKE parking_history"
+        )
+    );
+
+    /**
+     * Applies all pending migrations. Safe to call more than once; only the first
+     * successful call does any work.
+     *
+     * @return true if the schema is up to date, false if a migration failed.
+     */
+    public static synchronized boolean migrate() {
+        if (migrated) {
+            return true;
+        }
+        Boolean ok = DBExecutor.execute(conn -> {
+            try {
+                applyPending(conn);
+                return true;
+            } catch (SQLException e) {
+                log.error("Migration failed", e);
+                return false;
+            }
+        });
+        migrated = ok != null && ok;
+        return migrated;
+    }
+
+    private static void applyPending(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INT NOT NULL PRIMARY KEY,
+                    description VARCHAR(200) NOT NULL,
+                    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+        int current = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            if (rs.next()) {
+                current = rs.getInt(1);
+            }
+        }
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= current) {
+                continue;
+            }
+            long start = System.nanoTime();
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.statements) {
+                    try {
+                        stmt.execute(sql);
+                    } catch (SQLException e) {
+                        if (!IGNORED_ERRORS.contains(e.getErrorCode())) {
+                            throw e;
+                        }
+                    }
+                }
+            }
+            if (migration.step != null) {
+                migration.step.apply(conn);
+            }
+            try (PreparedStatement record = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                record.setInt(1, migration.version);
+                record.setString(2, migration.description);
+                record.executeUpdate();
+            }
+            log.info("Applied migration", "version", migration.version, "description", migration.description,
+                    "ms", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Returns the highest schema version defined in code.
+     * @return The latest version number.
+     */
+    public static int getLatestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+}
@@ -0,0 +1,287 @@
+package jdbc;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import clock.TimeSource;
+import entities.ActiveParking;
+import entities.Reservation;
+import response.GetSiteActivityResponse;
+
+/**
+ * SiteActivitySnapshot is an in-memory, versioned view of the data shown on the
+ * manager's site activity screen: all active parkings and all future reservations.
+ *
+ * How it works:
+ * - On first use the view is loaded from the database (active_parkings and reservations).
+ * - After that it is kept up to date by ParkingEvents published by mysqlConnection
+ *   for every drop-off, pickup, reservation, cancellation, towing and expiry.
+ * - The response sent to managers is built once and reused until the data changes
+ *   or a listed reservation stops being "future"; every rebuilt response gets a new version.
+ * - Clients that already hold the current version get a short "unchanged" answer instead.
+ *   Versions start from the process start time (see initialVersion()), so a version a client
+ *   got from a previous server process is never taken for a current one.
+ * - reload() re-reads the tables and is run periodically to correct any drift.
+ */
+public class SiteActivitySnapshot implements ParkingStateListener {
+
+    // Singleton instance of the snapshot
+    private static SiteActivitySnapshot instance;
+
+    private final Map<String, ActiveParking> activeByCode = new LinkedHashMap<>();
+    private final Map<Integer, Reservation> reservationsById = new HashMap<>();
+
+    private boolean loaded = false;
+    // Reloads in progress; events are buffered from the start of the oldest until the last ends
+    private int loading = 0;
+    private final List<ParkingEvent> eventsDuringLoad = new ArrayList<>();
+
+    // Cached response and the point in time at which its "future" filter goes stale
+    private GetSiteActivityResponse cachedResponse;
+    private LocalDateTime cachedValidUntil;
+    private long version = initialVersion();
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private SiteActivitySnapshot() {
+    }
+
+    /**
+     * Returns the singleton instance and registers it for parking events on first use.
+     * @return The shared snapshot.
+     */
+    public static synchronized SiteActivitySnapshot getInstance() {
+        if (instance == null) {
+            instance = new SiteActivitySnapshot();
+            ParkingEvents.addListener(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the current site activity, loading it from the database on first use.
+     *
+     * @return The response to send to the manager, or null if the view could not be loaded.
+     */
+    public GetSiteActivityResponse getResponse() {
+        if (!isLoaded() && !reload()) {
+            return null;
+        }
+        synchronized (this) {
+            LocalDateTime now = TimeSource.now();
+            if (cachedResponse == null || (cachedValidUntil != null && !now.isBefore(cachedValidUntil))) {
+                buildResponse(now);
+            }
+            return cachedResponse;
+        }
+    }
+
+    /**
+     * Returns the first site activity version of this process: the wall-clock start time in
+     * seconds in the high bits, leaving 2^24 versions per process before it could reach the
+     * versions of a process started a second later. The virtual clock is not used, as it may
+     * restart at the same time.
+     * @return A version no earlier server process has handed out.
+     */
+    public static long initialVersion() {
+        return (System.currentTimeMillis() / 1000) << 24;
+    }
+
+    /**
+     * Returns the version of the response currently served.
+     * @return The current version (initialVersion() before the first response was built).
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    private void buildResponse(LocalDateTime now) {
+        List<Reservation> future = new ArrayList<>();
+        for (Reservation r : reservationsById.values()) {
+            if (LocalDateTime.of(r.getEntryDate(), r.getEntryTime()).isAfter(now)) {
+                future.add(r);
+            }
+        }
+        future.sort(Comparator.comparing(Reservation::getEntryDate).thenComparing(Reservation::getEntryTime));
+
+        // The response must be rebuilt once the earliest listed reservation is no longer in the future
+        cachedValidUntil = future.isEmpty() ? null
+                : LocalDateTime.of(future.get(0).getEntryDate(), future.get(0).getEntryTime());
+        version++;
+        cachedResponse = new GetSiteActivityResponse(future, new ArrayList<>(activeByCode.values()), version);
+    }
+
+    private void invalidateResponse() {
+        cachedResponse = null;
+    }
+
+    /**
+     * Reloads the view from the database. Events that arrive while the tables are
+     * being read are applied again after the reload, so no change is lost; with overlapping
+     * reloads the buffer is kept until the last of them has finished.
+     *
+     * @return true if the view was reloaded, false if the database could not be read.
+     */
+    public boolean reload() {
+        synchronized (this) {
+            loading++;
+        }
+        List<Reservation> reservations = loadAllReservations();
+        List<ActiveParking> active = mysqlConnection.getActiveParkings();
+
+        synchronized (this) {
+            loading--;
+            if (reservations == null || active == null) {
+                if (loading == 0) {
+                    eventsDuringLoad.clear();
+                }
+                return false;
+            }
+            activeByCode.clear();
+            for (ActiveParking ap : active) {
+                activeByCode.put(ap.getParkingCode(), ap);
+            }
+            reservationsById.clear();
+            for (Reservation r : reservations) {
+                reservationsById.put(r.getReservationId(), r);
+            }
+            for (ParkingEvent event : eventsDuringLoad) {
+                apply(event);
+            }
+            if (loading == 0) {
+                eventsDuringLoad.clear();
+            }
+            loaded = true;
+            invalidateResponse();
+            return true;
+        }
+    }
+
+    private List<Reservation> loadAllReservations() {
+        return DBExecutor.execute(conn -> {
+            List<Reservation> list = new ArrayList<>();
+            String sql = """
+                SELECT reservation_id, subscriber_id, parking_code, entry_date, entry_time,
+                       exit_date, exit_time, parking_spot
+                FROM reservations
+            """;
+            try (java.sql.PreparedStatement stmt = conn.prepareStatement(sql);
+                 java.sql.ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    list.add(new Reservation(
+                        rs.getInt("reservation_id"),
+                        rs.getString("subscriber_id"),
+                        rs.getString("parking_code"),
+                        rs.getDate("entry_date").toLocalDate(),
+                        rs.getTime("entry_time").toLocalTime(),
+                        rs.getDate("exit_date").toLocalDate(),
+                        rs.getTime("exit_time").toLocalTime(),
+                        rs.getInt("parking_spot")
+                    ));
+                }
+            } catch (java.sql.SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Applies a committed parking event to the view.
+     * @param event The committed transition.
+     */
+    @Override
+    public synchronized void onParkingEvent(ParkingEvent event) {
+        if (loading > 0) {
+            eventsDuringLoad.add(event);
+        }
+        if (loaded) {
+            apply(event);
+        }
+    }
+
+    private void apply(ParkingEvent event) {
+        switch (event.getType()) {
+            case DROPOFF, RESERVATION_ACTIVATED -> {
+                if (event.getType() == ParkingEvent.Type.RESERVATION_ACTIVATED) {
+                    removeReservationByCode(event.getParkingCode());
+                }
+                activeByCode.put(event.getParkingCode(), new ActiveParking(
+                    event.getParkingCode(),
+                    parseSubscriberId(event.getSubscriberId()),
+                    Date.valueOf(event.getStart().toLocalDate()).toString(),
+                    Time.valueOf(event.getStart().toLocalTime()).toString(),
+                    Date.valueOf(event.getEnd().toLocalDate()).toString(),
+                    Time.valueOf(event.getEnd().toLocalTime()).toString(),
+                    String.valueOf(event.getParkingSpot()),
+                    false
+                ));
+            }
+            case EXTENDED -> {
+                ActiveParking ap = activeByCode.get(event.getParkingCode());
+                if (ap != null) {
+                    activeByCode.put(ap.getParkingCode(), new ActiveParking(
+                        ap.getParkingCode(), ap.getSubscriberId(), ap.getEntryDate(), ap.getEntryTime(),
+                        Date.valueOf(event.getEnd().toLocalDate()).toString(),
+                        Time.valueOf(event.getEnd().toLocalTime()).toString(),
+                        ap.getParkingSpot(), true));
+                }
+            }
+            case PICKUP, TOWED -> activeByCode.remove(event.getParkingCode());
+            case RESERVATION_CREATED -> reservationsById.put(event.getReservationId(), new Reservation(
+                    event.getReservationId(), event.getSubscriberId(), event.getParkingCode(),
+                    event.getStart().toLocalDate(), Time.valueOf(event.getStart().toLocalTime()).toLocalTime(),
+                    event.getEnd().toLocalDate(), Time.valueOf(event.getEnd().toLocalTime()).toLocalTime(),
+                    event.getParkingSpot()));
+            case RESERVATION_RESCHEDULED -> {
+                Reservation old = reservationsById.get(event.getReservationId());
+                if (old != null) {
+                    reservationsById.put(old.getReservationId(), new Reservation(
+                        old.getReservationId(), old.getSubscriberId(), old.getParkingCode(),
+                        event.getStart().toLocalDate(), Time.valueOf(event.getStart().toLocalTime()).toLocalTime(),
+                        event.getEnd().toLocalDate(), Time.valueOf(event.getEnd().toLocalTime()).toLocalTime(),
+                        old.getParkingSpot()));
+                }
+            }
+            case RESERVATION_CANCELLED, RESERVATION_EXPIRED -> {
+                if (event.getReservationId() != 0) {
+                    reservationsById.remove(event.getReservationId());
+                } else {
+                    removeReservationByCode(event.getParkingCode());
+                }
+            }
+            default -> {
+                // Towed-vehicle releases do not change the site activity view
+                return;
+            }
+        }
+        invalidateResponse();
+    }
+
+    private void removeReservationByCode(String parkingCode) {
+        if (parkingCode != null) {
+            reservationsById.values().removeIf(r -> parkingCode.equals(r.getParkingCode()));
+        }
+    }
+
+    private static int parseSubscriberId(String subscriberId) {
+        try {
+            return Integer.parseInt(subscriberId);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
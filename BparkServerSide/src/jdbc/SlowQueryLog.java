@@ -0,0 +1,236 @@
+package jdbc;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * SlowQueryLog receives the timing of every statement run through DBExecutor.
+ *
+ * Statements are grouped by fingerprint: the SQL with literals replaced by '?' and whitespace
+ * collapsed, so the same query with different values counts as one. For each fingerprint it
+ * keeps the number of executions, total / max time, errors and the mysqlConnection methods
+ * that ran it; topByTotalTime(n) lists the statements that cost the most overall.
+ *
+ * A statement slower than the threshold (db.slow.query.millis) is logged as a WARN "Slow query"
+ * record with the calling method and the shape of its bind parameters (types only, never values):
+ *
+ *   ms=312.4 caller=mysqlConnection.processPickupRequest params=[String] failed=false sql=SELECT ... WHERE parking_code = ?
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = Log.getLogger(SlowQueryLog.class);
+
+    /** Default threshold above which a statement is logged. */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+    /**
+     * Fingerprints are cached per SQL string and totalled per fingerprint; the statements are
+     * constants, so both maps stay small. Past this many, new ones are not cached, and their
+     * totals go to the OTHER_STATEMENTS entry.
+     */
+    private static final int MAX_CACHED_FINGERPRINTS = 10_000;
+
+    /** The fingerprint under which statements beyond MAX_CACHED_FINGERPRINTS are totalled. */
+    public static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static volatile long thresholdNanos = DEFAULT_THRESHOLD_MILLIS * 1_000_000;
+
+    private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private static final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Totals of one fingerprint.
+     */
+    public static final class QueryStats {
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final Set<String> callers = ConcurrentHashMap.newKeySet();
+
+        QueryStats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /** @return The normalized SQL. */
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        /** @return The number of executions. */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /** @return The total execution time in nanoseconds. */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /** @return The slowest execution in nanoseconds. */
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /** @return The number of executions that threw. */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        /** @return The methods that ran this statement. */
+        public Set<String> getCallers() {
+            return callers;
+        }
+    }
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * Sets the threshold above which statements are logged.
+     * @param millis The threshold in milliseconds (0 logs every statement, a negative value none).
+     */
+    public static void configure(long millis) {
+        thresholdNanos = millis < 0 ? Long.MAX_VALUE : millis * 1_000_000;
+    }
+
+    /**
+     * Records one executed statement.
+     * @param sql        The SQL text as prepared.
+     * @param caller     The method that asked for the database operation.
+     * @param nanos      The execution time.
+     * @param paramTypes The types of the bound parameters, in order (may be empty).
+     * @param failed     True if the statement threw.
+     */
+    static void record(String sql, String caller, long nanos, List<String> paramTypes, boolean failed) {
+        String fingerprint = fingerprint(sql);
+        QueryStats s = stats.get(fingerprint);
+        if (s == null) {
+            s = stats.computeIfAbsent(stats.size() < MAX_CACHED_FINGERPRINTS ? fingerprint : OTHER_STATEMENTS,
+                    QueryStats::new);
+        }
+        s.count.increment();
+        s.totalNanos.add(nanos);
+        if (failed) {
+            s.errors.increment();
+        }
+        if (nanos > s.maxNanos.get()) {
+            s.maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+        s.callers.add(caller);
+
+        if (nanos >= thresholdNanos) {
+            log.warn("Slow query", "ms", Math.round(nanos / 1e5) / 10.0, "caller", caller, "params", paramTypes,
+                    "failed", failed, "sql", fingerprint);
+        }
+    }
+
+    /**
+     * Normalizes a statement: string and numeric literals become '?', lists of placeholders
+     * collapse to IN (...), whitespace is collapsed and keywords keep their original case.
+     * @param sql The SQL text.
+     * @return The fingerprint.
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "(batch)";
+        }
+        String cached = fingerprints.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String fingerprint = normalize(sql);
+        if (fingerprints.size() < MAX_CACHED_FINGERPRINTS) {
+            fingerprints.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        int n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"') {
+                // Quoted literal (with '' or \' escapes)
+                int j = i + 1;
+                while (j < n) {
+                    char d = sql.charAt(j);
+                    if (d == '\\') {
+                        j += 2;
+                        continue;
+                    }
+                    if (d == c) {
+                        if (j + 1 < n && sql.charAt(j + 1) == c) {
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                out.append('?');
+                i = j + 1;
+            } else if (Character.isDigit(c) && (out.length() == 0 || !isWordChar(out.charAt(out.length() - 1)))) {
+                // Number not part of an identifier (e.g. keep t1, replace 241)
+                int j = i;
+                while (j < n && (Character.isDigit(sql.charAt(j)) || sql.charAt(j) == '.')) {
+                    j++;
+                }
+                out.append('?');
+                i = j;
+            } else if (Character.isWhitespace(c)) {
+                if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+                    out.append(' ');
+                }
+                i++;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString().trim().replaceAll("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)", "(?...)");
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * @param limit The maximum number of statements to return.
+     * @return The statements with the highest total execution time, highest first.
+     */
+    public static List<QueryStats> topByTotalTime(int limit) {
+        List<QueryStats> list = new ArrayList<>(stats.values());
+        list.sort(Comparator.comparingLong(QueryStats::getTotalNanos).reversed());
+        return list.subList(0, Math.min(limit, list.size()));
+    }
+
+    /**
+     * Renders topByTotalTime(limit) as a table.
+     * @param limit The maximum number of statements to show.
+     * @return The report text.
+     */
+    public static String report(int limit) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%12s %9s %10s %10s %7s  %s%n", "total ms", "count", "avg ms", "max ms", "errors", "statement / callers"));
+        for (QueryStats s : topByTotalTime(limit)) {
+            long count = Math.max(1, s.getCount());
+            out.append(String.format("%12.1f %9d %10.3f %10.3f %7d  %s%n", s.getTotalNanos() / 1e6, s.getCount(),
+                    s.getTotalNanos() / 1e6 / count, s.getMaxNanos() / 1e6, s.getErrors(), s.getFingerprint()));
+            out.append(String.format("%53s  <- %s%n", "", String.join(", ", s.getCallers())));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package jdbc;
+
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import policy.ParkingPolicy;
+
+/**
+ * SpotSelector holds the rule that picks the spot for a car dropped off without a reservation.
+ * It has no database access: the caller supplies the available spots and the start times of
+ * the reservations on each spot, so the same rule is used by mysqlConnection, the in-memory
+ * repository and the benchmarks.
+ *
+ * A walk-in car may stay a session plus one extension and a reserved car may arrive up to the
+ * arrival window early, so a spot is skipped if one of its reservations starts within that time
+ * from now (8 hours 15 minutes with the default ParkingPolicy: 4 h + 4 h + 15 min).
+ */
+public final class SpotSelector {
+
+    private SpotSelector() {
+    }
+
+    /**
+     * @param policy The parking rules.
+     * @return Minutes from the drop-off during which a reservation on the spot blocks it.
+     */
+    public static long blockingMinutes(ParkingPolicy policy) {
+        return (long) policy.getSessionMinutes() + policy.getExtensionMinutes() + policy.getArrivalWindowMinutes();
+    }
+
+    /**
+     * @param policy The parking rules.
+     * @param now    The drop-off time.
+     * @return The latest reservation start that still blocks a spot for this drop-off.
+     */
+    public static LocalDateTime blockingLimit(ParkingPolicy policy, LocalDateTime now) {
+        return now.plusMinutes(blockingMinutes(policy));
+    }
+
+    /**
+     * Chooses the first available spot that has no reservation starting by the blocking limit.
+     *
+     * @param availableSpots    The available spots, in the order they should be tried (ascending spot number).
+     * @param reservationStarts Returns the reservation start times of a spot (null if it has none).
+     * @param policy            The parking rules (session, extension and arrival window).
+     * @param now               The drop-off time.
+     * @return The chosen spot number, or -1 if every available spot is blocked.
+     */
+    public static int selectDropoffSpot(Iterable<Integer> availableSpots,
+            IntFunction<? extends Iterable<LocalDateTime>> reservationStarts, ParkingPolicy policy, LocalDateTime now) {
+        LocalDateTime limit = blockingLimit(policy, now);
+        for (Integer spot : availableSpots) {
+            if (!isBlocked(reservationStarts.apply(spot), limit)) {
+                return spot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isBlocked(Iterable<LocalDateTime> starts, LocalDateTime limit) {
+        if (starts == null) {
+            return false;
+        }
+        for (LocalDateTime start : starts) {
+            if (!start.isAfter(limit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+package jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import entities.Subscriber;
+
+import logging.Log;
+import logging.Logger;
+
+/**
+ * SubscriberCache is a bounded in-memory cache of rows from the subscribers table.
+ * Subscriber data changes rarely, while login, drop-off and pickup read it on every request,
+ * so mysqlConnection reads through this cache before going to the database.
+ *
+ * How it works:
+ * - Entries are kept in access order and the least recently used entry is evicted
+ *   once the cache holds more than the configured maximum.
+ * - Every entry expires after a fixed time-to-live, which bounds staleness in case
+ *   the table is changed outside the server.
+ * - Methods in mysqlConnection that modify a subscriber call invalidate(...) so
+ *   the next read loads the fresh row.
+ * - get() returns a copy and put() stores one, so callers never share the cached instance.
+ * - Hit, miss, eviction and invalidation counts are kept for monitoring.
+ */
+public class SubscriberCache {
+
+    private static final Logger log = Log.getLogger(SubscriberCache.class);
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final int DEFAULT_TTL_SECONDS = 5 * 60;
+
+    // Singleton instance of the cache
+    private static SubscriberCache instance;
+
+    // Settings used when the singleton is created
+    private static int configuredMaxEntries = DEFAULT_MAX_ENTRIES;
+    private static long configuredTtlMillis = DEFAULT_TTL_SECONDS * 1000L;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Access-ordered map so iteration order is least recently used first
+    private final LinkedHashMap<String, CachedSubscriber> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * A cached subscriber together with the time it stops being valid.
+     */
+    private static class CachedSubscriber {
+        final Subscriber subscriber;
+        final long expiresAt;
+
+        CachedSubscriber(Subscriber subscriber, long expiresAt) {
+            this.subscriber = subscriber;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Private constructor to prevent direct instantiation.
+     */
+    private SubscriberCache() {
+        this.maxEntries = configuredMaxEntries;
+        this.ttlMillis = configuredTtlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedSubscriber> eldest) {
+                if (size() > SubscriberCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the singleton instance of the SubscriberCache.
+     * @return The shared cache.
+     */
+    public static synchronized SubscriberCache getInstance() {
+        if (instance == null) {
+            instance = new SubscriberCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Replaces the cache limits (subscriber.cache.* in ServerConfig). Must be called before the
+     * first call to getInstance().
+     *
+     * @param maxEntries The maximum number of subscribers kept in memory.
+     * @param ttlSeconds How long (in seconds) a cached subscriber stays valid.
+     */
+    public static synchronized void configure(int maxEntries, long ttlSeconds) {
+        if (instance != null) {
+            log.warn("SubscriberCache already initialized, ignoring new settings");
+            return;
+        }
+        configuredMaxEntries = Math.max(1, maxEntries);
+        configuredTtlMillis = Math.max(0, ttlSeconds) * 1000L;
+    }
+
+    /**
+     * Returns the cached subscriber with the given ID.
+     *
+     * @param subscriberId The subscriber ID to look up.
+     * @return A copy of the cached Subscriber (callers may keep or change it), or null if it
+     *         is not cached or has expired.
+     */
+    public synchronized Subscriber get(String subscriberId) {
+        if (subscriberId == null) {
+            return null;
+        }
+        CachedSubscriber cached = entries.get(subscriberId);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (cached.expiresAt < System.currentTimeMillis()) {
+            entries.remove(subscriberId);
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(cached.subscriber);
+    }
+
+    /**
+     * Stores a subscriber loaded from the database.
+     *
+     * @param subscriber The subscriber to cache (ignored if null).
+     */
+    public synchronized void put(Subscriber subscriber) {
+        if (subscriber == null || subscriber.getSubscriber_id() == null) {
+            return;
+        }
+        entries.put(subscriber.getSubscriber_id(),
+                new CachedSubscriber(copy(subscriber), System.currentTimeMillis() + ttlMillis));
+    }
+
+    /**
+     * Copies a subscriber, so the cached instance is never shared with callers.
+     */
+    private static Subscriber copy(Subscriber s) {
+        return new Subscriber(s.getSubscriber_id(), s.getFull_name(), s.getEmail(), s.getPhone(),
+                s.getVehicle_number1(), s.getSubscription_code(), s.getLateCount(), s.getCredit_card());
+    }
+
+    /**
+     * Removes a subscriber from the cache. Called after any change to its row.
+     *
+     * @param subscriberId The ID of the subscriber that changed.
+     */
+    public synchronized void invalidate(String subscriberId) {
+        if (subscriberId != null && entries.remove(subscriberId) != null) {
+            invalidations++;
+        }
+    }
+
+    /**
+     * Removes all cached subscribers.
+     */
+    public synchronized void clear() {
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of subscribers currently cached.
+     * @return The cache size.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** @return The number of lookups answered from the cache. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** @return The number of lookups that had to go to the database. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     * @return The hit rate between 0.0 and 1.0 (0.0 if there were no lookups yet).
+     */
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Returns a one-line summary of the cache statistics.
+     * @return The formatted statistics.
+     */
+    public synchronized String getStats() {
+        return String.format("Subscriber cache: size=%d/%d, hits=%d, misses=%d, hit rate=%.1f%%, evictions=%d, invalidations=%d",
+                entries.size(), maxEntries, hits, misses, getHitRate() * 100, evictions, invalidations);
+    }
+}
@@ -5,6 +5,7 @@ import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.Duration;
@@ -29,7 +30,11 @@ import controller.NotificationController;
 import entities.ActiveParking;
 import entities.ParkingHistory;
 import entities.Reservation;
+import clock.TimeSource;
 import entities.Subscriber;
+import logging.Log;
+import logging.Logger;
+import policy.ParkingPolicy;
 import response.DailySubscriberCount;
 import response.ParkingDurationRecord;
 
@@ -57,6 +62,13 @@ import response.ParkingDurationRecord;
  */
 public class mysqlConnection {
 
+	private static final Logger log = Log.getLogger(mysqlConnection.class);
+
+	// Shared Gson instance and report list types used to encode/decode monthly reports (Gson is thread-safe)
+	private static final Gson GSON = new Gson();
+	private static final Type PARKING_DURATION_LIST_TYPE = new TypeToken<List<ParkingDurationRecord>>() {}.getType();
+	private static final Type MEMBER_STATUS_LIST_TYPE = new TypeToken<List<DailySubscriberCount>>() {}.getType();
+
     /**
      * Retrieves a database connection from the connection pool.
      * This method delegates the request to the ConnectionPool singleton,
@@ -68,14 +80,36 @@ public class mysqlConnection {
 		return ConnectionPool.getInstance().getConnection();
 	}
 
+	/**
+	 * Prepares a statement whose parameters are all points in time, in order.
+	 * The current time comes from TimeSource and is bound as a parameter (instead of calling
+	 * NOW() in SQL), so the statements follow a VirtualClock as well as the system clock.
+	 *
+	 * @param conn  The connection.
+	 * @param sql   The statement with one ? per time.
+	 * @param times The values of the parameters.
+	 * @return The prepared statement, ready to execute.
+	 * @throws SQLException if the statement cannot be prepared.
+	 */
+	private static PreparedStatement prepareWithTime(Connection conn, String sql, LocalDateTime... times) throws SQLException {
+		PreparedStatement stmt = conn.prepareStatement(sql);
+		for (int i = 0; i < times.length; i++) {
+			stmt.setTimestamp(i + 1, Timestamp.valueOf(times[i]));
+		}
+		return stmt;
+	}
+
 	/**
 	 * Checks if a subscriber with the given ID number already exists in the
-	 * database.
+	 * database. A subscriber found in the SubscriberCache is answered without a query.
 	 *
 	 * @param idNumber The subscriber's ID number.
 	 * @return true if the subscriber exists, false otherwise.
 	 */
 	public static boolean doesSubscriberExist(String idNumber) {
+		if (SubscriberCache.getInstance().get(idNumber) != null) {
+			return true;
+		}
 		return DBExecutor.execute(conn -> {
 			String query = "SELECT 1 FROM subscribers WHERE subscriber_id = ?";
 
@@ -122,7 +156,7 @@ public class mysqlConnection {
 				String fullName = firstName + " " + lastName; // Combine first and last name
 				String subscriptionCode = generateSubscriptionCode(); // Generate a random subscription code
 
-				System.out.println("Registering subscriber: " + idNumber);
+				log.info("Registering subscriber", "id", idNumber);
 
 				// Set all query parameters
 				stmt.setString(1, idNumber);
@@ -136,15 +170,15 @@ public class mysqlConnection {
 				// Execute the INSERT query
 				int rows = stmt.executeUpdate();
 
-				System.out.println("Rows inserted: " + rows);
+				// Drop any stale cached row for this ID
+				SubscriberCache.getInstance().invalidate(idNumber);
 
 				// Return true if at least one row was inserted
 				return rows > 0;
 
 			} catch (SQLException e) {
 				// Log any SQL exceptions and return false
-				System.out.println("SQL ERROR: " + e.getMessage());
-				e.printStackTrace();
+				log.error("Could not register subscriber", e, "id", idNumber);
 				return false;
 			}
 		});
@@ -161,57 +195,52 @@ public class mysqlConnection {
 	 * @return A formatted string with subscriber details or an error message.
 	 */
 	public static String getSubscriberInfo(String subscriberId) {
-	    return DBExecutor.execute(conn -> {
-	        StringBuilder sb = new StringBuilder();
-	        String query = "SELECT * FROM subscribers WHERE subscriber_id = ?";
-
-	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-	            // Set the ID parameter in the SQL query
-	            stmt.setString(1, subscriberId);
-
-	            // Execute the query
-	            ResultSet rs = stmt.executeQuery();
-
-	            if (rs.next()) {
-	                // Append subscriber details line by line
-	                sb.append("Subscriber ID: ").append(rs.getString("subscriber_id")).append("\n");
-	                sb.append("Full Name: ").append(rs.getString("full_name")).append("\n");
-	                sb.append("Email: ").append(rs.getString("email")).append("\n");
-	                sb.append("Phone: ").append(rs.getString("phone")).append("\n");
-	                sb.append("Vehicle #1: ").append(rs.getString("vehicle_number1")).append("\n");
-	                sb.append("Subscription Code: ").append(rs.getString("subscription_code")).append("\n");
-	                sb.append("Late Count: ").append(rs.getString("late_count")).append("\n");
-	                sb.append("Credit Card: ").append(rs.getString("credit_card")).append("\n");
-	            } else {
-	                // If no subscriber found with the given ID
-	                sb.append("Subscriber not found.");
+	    Subscriber subscriber = getSubscriberById(subscriberId);
+	    if (subscriber == null) {
+	        // Distinguish "no such subscriber" from a database failure
+	        Boolean exists = DBExecutor.execute(conn -> {
+	            try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM subscribers WHERE subscriber_id = ?")) {
+	                stmt.setString(1, subscriberId);
+	                try (ResultSet rs = stmt.executeQuery()) {
+	                    return rs.next();
+	                }
+	            } catch (SQLException e) {
+	                e.printStackTrace();
+	                return null;
 	            }
+	        });
+	        return exists == null ? "Error accessing the database." : "Subscriber not found.";
+	    }
 
-	            rs.close(); // Close the ResultSet explicitly
-
-	        } catch (SQLException e) {
-	            // Log the error and return a general failure message
-	            e.printStackTrace();
-	            sb.append("Error accessing the database.");
-	        }
-
-	        // Return the final constructed message
-	        return sb.toString();
-	    });
+	    // Append subscriber details line by line
+	    StringBuilder sb = new StringBuilder();
+	    sb.append("Subscriber ID: ").append(subscriber.getSubscriber_id()).append("\n");
+	    sb.append("Full Name: ").append(subscriber.getFull_name()).append("\n");
+	    sb.append("Email: ").append(subscriber.getEmail()).append("\n");
+	    sb.append("Phone: ").append(subscriber.getPhone()).append("\n");
+	    sb.append("Vehicle #1: ").append(subscriber.getVehicle_number1()).append("\n");
+	    sb.append("Subscription Code: ").append(subscriber.getSubscription_code()).append("\n");
+	    sb.append("Late Count: ").append(subscriber.getLateCount()).append("\n");
+	    sb.append("Credit Card: ").append(subscriber.getCredit_card()).append("\n");
+	    return sb.toString();
 	}
 
 	/**
 	 * Retrieves subscriber information from the database using a subscriber ID.
-	 * This method queries the subscribers table and constructs a Subscriber object
-	 * with all relevant fields if a matching record is found. If no record is found
-	 * or an error occurs, the method returns null.
+	 * This method first checks the SubscriberCache; on a miss it queries the subscribers
+	 * table, constructs a Subscriber object with all relevant fields and caches it.
+	 * If no record is found or an error occurs, the method returns null.
 	 * 
 	 * @param id The unique ID of the subscriber to retrieve.
 	 * @return A Subscriber object containing the subscriber’s details, or null if
 	 *         no such subscriber exists or an exception occurred.
 	 */
 	public static Subscriber getSubscriberById(String id) {
-	    return DBExecutor.execute(conn -> {
+	    Subscriber cached = SubscriberCache.getInstance().get(id);
+	    if (cached != null) {
+	        return cached;
+	    }
+	    Subscriber loaded = DBExecutor.execute(conn -> {
 	        String query = "SELECT * FROM subscribers WHERE subscriber_id = ?";
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
 	            // Set the subscriber ID in the prepared statement
@@ -239,6 +268,11 @@ public class mysqlConnection {
 	        // Return null if subscriber not found or error occurred
 	        return null;
 	    });
+	    // Only cache under the canonical ID, so invalidation by ID always finds the entry
+	    if (loaded != null && loaded.getSubscriber_id().equals(id)) {
+	        SubscriberCache.getInstance().put(loaded);
+	    }
+	    return loaded;
 	}
 
 	/**
@@ -259,6 +293,8 @@ public class mysqlConnection {
 	            stmt.setString(3, id);
 	            // Execute the UPDATE query
 	            int rows = stmt.executeUpdate();
+	            // The cached copy no longer matches the table
+	            SubscriberCache.getInstance().invalidate(id);
 	            // Return true if at least one row was updated
 	            return rows > 0;
 	        } catch (SQLException e) {
@@ -313,6 +349,9 @@ public class mysqlConnection {
 	 * queries the parking_history table in the database using the provided
 	 * subscriber ID, and constructs a list of ParkingHistory objects representing
 	 * the subscriber's past parking sessions.
+	 * Months older than the retention period are read from parking_history_archive. Each table
+	 * is bounded by the retention start, so MySQL prunes the partitions outside it and a month
+	 * that is being archived (copied, not yet dropped) is read from the hot table only.
 	 * 
 	 * @param subscriberId The ID of the subscriber whose history is to be
 	 *                     retrieved.
@@ -322,10 +361,16 @@ public class mysqlConnection {
 	public static List<ParkingHistory> getHistoryForSubscriber(String subscriberId) {
 	    return DBExecutor.execute(conn -> {
 	        List<ParkingHistory> historyList = new ArrayList<>();
-	        String query = "SELECT * FROM parking_history WHERE subscriber_id = ?";
+	        String columns = "history_id, subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time";
+	        String query = "SELECT " + columns + " FROM parking_history WHERE subscriber_id = ? AND entry_date >= ? "
+	                + "UNION ALL SELECT " + columns + " FROM parking_history_archive WHERE subscriber_id = ? AND entry_date < ?";
+	        Date retentionStart = Date.valueOf(HistoryPartitionManager.getRetentionStart());
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-	            // Set the subscriber ID in the prepared statement
+	            // Set the subscriber ID and the retention bound of each table in the prepared statement
 	            stmt.setString(1, subscriberId);
+	            stmt.setDate(2, retentionStart);
+	            stmt.setString(3, subscriberId);
+	            stmt.setDate(4, retentionStart);
 	            // Execute the query
 	            ResultSet rs = stmt.executeQuery();
 	            while (rs.next()) {
@@ -418,118 +463,130 @@ public class mysqlConnection {
 	 * @return Result string indicating outcome ("SUCCESS", "SENT_TOWED_VEHICLE_MSG", or "FATAL_ERROR").
 	 */
 	public static String processPickupRequest(String parkingCode) {
+	    try {
+	        return GroupCommitter.execute((conn, afterCommit) -> pickupInTransaction(conn, parkingCode, afterCommit));
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	        return "FAILURE";
+	    }
+	}
+
+	/**
+	 * The statements of processPickupRequest, run without committing in the transaction given by
+	 * GroupCommitter. The OccupancyTracker update and the ParkingEvent are left for after the commit.
+	 */
+	private static String pickupInTransaction(Connection conn, String parkingCode, List<Runnable> afterCommit) throws SQLException {
 	    String query = "SELECT * FROM active_parkings WHERE parking_code = ? FOR UPDATE";
 	    int extendedDuration=0;
-	    try (Connection conn = connectToDB()) {
-	        conn.setAutoCommit(false);
-
-	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-	            stmt.setString(1, parkingCode);
-	            ResultSet rs = stmt.executeQuery();
-
-	            if (rs.next()) {
-	                String subscriberId = rs.getString("subscriber_id");
-	                int parkingSpot = rs.getInt("parking_spot");
-	                LocalDate entryDate = rs.getDate("entry_date").toLocalDate();
-	                LocalTime entryTime = rs.getTime("entry_time").toLocalTime();
-	                LocalDate exitDate = LocalDate.now();
-	                LocalTime exitTime = LocalTime.now();
-	                String vehicleNumber = null;
-	                boolean isExtended = rs.getString("extended").equalsIgnoreCase("1");
-	                if (isExtended)
-	                {
-	                	long minutesTotal = ChronoUnit.MINUTES.between(LocalDateTime.of(entryDate, entryTime),LocalDateTime.of(exitDate, exitTime));
-	                	extendedDuration = (int) Math.max(minutesTotal - 240, 0);
-	               }
-	                try (PreparedStatement vehicleStmt = conn.prepareStatement("SELECT vehicle_number1 FROM subscribers WHERE subscriber_id = ?")) {
-	                    vehicleStmt.setString(1, subscriberId);
-	                    ResultSet vehicleRs = vehicleStmt.executeQuery();
-	                    if (vehicleRs.next()) {
-	                        vehicleNumber = vehicleRs.getString("vehicle_number1");
-	                    }
-	                }
+	    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+	        stmt.setString(1, parkingCode);
+	        ResultSet rs = stmt.executeQuery();
+
+	        if (rs.next()) {
+	            String subscriberId = rs.getString("subscriber_id");
+	            int parkingSpot = rs.getInt("parking_spot");
+	            LocalDate entryDate = rs.getDate("entry_date").toLocalDate();
+	            LocalTime entryTime = rs.getTime("entry_time").toLocalTime();
+	            LocalDateTime exitAt = TimeSource.now();
+	            LocalDate exitDate = exitAt.toLocalDate();
+	            LocalTime exitTime = exitAt.toLocalTime();
+	            String vehicleNumber = null;
+	            boolean isExtended = rs.getString("extended").equalsIgnoreCase("1");
+	            if (isExtended)
+	            {
+	            	long minutesTotal = ChronoUnit.MINUTES.between(LocalDateTime.of(entryDate, entryTime),LocalDateTime.of(exitDate, exitTime));
+	            	extendedDuration = (int) Math.max(minutesTotal - ParkingPolicy.getCurrent().getSessionMinutes(), 0);
+	           }
+	            Subscriber owner = getSubscriberById(subscriberId);
+	            if (owner != null) {
+	                vehicleNumber = owner.getVehicle_number1();
+	            }
 
-	                String insertHistory = "INSERT INTO parking_history (subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time, parking_spot,extended_duration) VALUES (?, ?, ?, ?, ?, ?, ?,?)";
-	                try (PreparedStatement historyStmt = conn.prepareStatement(insertHistory)) {
-	                    historyStmt.setString(1, subscriberId);
-	                    historyStmt.setString(2, vehicleNumber);
-	                    historyStmt.setDate(3, Date.valueOf(entryDate));
-	                    historyStmt.setTime(4, Time.valueOf(entryTime));
-	                    historyStmt.setDate(5, Date.valueOf(exitDate));
-	                    historyStmt.setTime(6, Time.valueOf(exitTime));
-	                    historyStmt.setInt(7, parkingSpot);
-	                    historyStmt.setInt(8, extendedDuration);
-	                    historyStmt.executeUpdate();
-	                }
+	            String insertHistory = "INSERT INTO parking_history (subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time, parking_spot,extended_duration) VALUES (?, ?, ?, ?, ?, ?, ?,?)";
+	            try (PreparedStatement historyStmt = conn.prepareStatement(insertHistory)) {
+	                historyStmt.setString(1, subscriberId);
+	                historyStmt.setString(2, vehicleNumber);
+	                historyStmt.setDate(3, Date.valueOf(entryDate));
+	                historyStmt.setTime(4, Time.valueOf(entryTime));
+	                historyStmt.setDate(5, Date.valueOf(exitDate));
+	                historyStmt.setTime(6, Time.valueOf(exitTime));
+	                historyStmt.setInt(7, parkingSpot);
+	                historyStmt.setInt(8, extendedDuration);
+	                historyStmt.executeUpdate();
+	            }
+	            DailyRollups.recordSession(conn, subscriberId, entryDate,
+	                    DailyRollups.reportDuration(entryTime, exitTime), 0, extendedDuration);
 
-	                try (PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM active_parkings WHERE parking_code = ?")) {
-	                    deleteStmt.setString(1, parkingCode);
-	                    deleteStmt.executeUpdate();
-	                }
+	            try (PreparedStatement deleteStmt = conn.prepareStatement("DELETE FROM active_parkings WHERE parking_code = ?")) {
+	                deleteStmt.setString(1, parkingCode);
+	                deleteStmt.executeUpdate();
+	            }
 
-	                updateParkingSpotStatus(parkingSpot, "available");
-	                conn.commit();
-	                return "SUCCESS";
-	            } else {
-	                String towedQuery = "SELECT * FROM towed_vehicles WHERE parking_code = ? FOR UPDATE";
-	                try (PreparedStatement towedStmt = conn.prepareStatement(towedQuery)) {
-	                    towedStmt.setString(1, parkingCode);
-	                    ResultSet towedRs = towedStmt.executeQuery();
-
-	                    if (towedRs.next()) {
-	                        String subscriberId = towedRs.getString("subscriber_id");
-	                        String vehicleNumber = towedRs.getString("vehicle_number");
-	                        int parkingSpot = towedRs.getInt("parking_spot");
-	                        Date entryDate = towedRs.getDate("entry_date");
-	                        Time entryTime = towedRs.getTime("entry_time");
-	                        Timestamp towedAt = towedRs.getTimestamp("towed_at");
-
-	                        LocalDate exitDate = LocalDate.now();
-	                        LocalTime exitTime = LocalTime.now();
-
-	                        long minutesLate = ChronoUnit.MINUTES.between(towedAt.toInstant(), Instant.now());
-	                        int lateDuration = (int) Math.max(minutesLate, 1);
-
-	                        String insertHistory = """
-	                            INSERT INTO parking_history 
-	                            (subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time, late_duration, parking_spot) 
-	                            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-	                        """;
-	                        try (PreparedStatement insertStmt = conn.prepareStatement(insertHistory)) {
-	                            insertStmt.setString(1, subscriberId);
-	                            insertStmt.setString(2, vehicleNumber);
-	                            insertStmt.setDate(3, entryDate);
-	                            insertStmt.setTime(4, entryTime);
-	                            insertStmt.setDate(5, Date.valueOf(exitDate));
-	                            insertStmt.setTime(6, Time.valueOf(exitTime));
-	                            insertStmt.setInt(7, lateDuration);
-	                            insertStmt.setInt(8, parkingSpot);
-	                            insertStmt.executeUpdate();
-	                        }
+	            // The spot is freed in the same transaction (the row lock is taken by the UPDATE itself)
+	            try (PreparedStatement spotStmt = conn.prepareStatement("UPDATE parking_spots SET status = 'available' WHERE spot_number = ?")) {
+	                spotStmt.setInt(1, parkingSpot);
+	                spotStmt.executeUpdate();
+	            }
+	            afterCommit.add(() -> {
+	                OccupancyTracker.getInstance().spotStatusChanged(parkingSpot, "available");
+	                ParkingEvents.publish(ParkingEvent.pickup(parkingCode, subscriberId, parkingSpot,
+	                        LocalDateTime.of(entryDate, entryTime), LocalDateTime.of(exitDate, exitTime)));
+	            });
+	            return "SUCCESS";
+	        } else {
+	            String towedQuery = "SELECT * FROM towed_vehicles WHERE parking_code = ? FOR UPDATE";
+	            try (PreparedStatement towedStmt = conn.prepareStatement(towedQuery)) {
+	                towedStmt.setString(1, parkingCode);
+	                ResultSet towedRs = towedStmt.executeQuery();
+
+	                if (towedRs.next()) {
+	                    String subscriberId = towedRs.getString("subscriber_id");
+	                    String vehicleNumber = towedRs.getString("vehicle_number");
+	                    int parkingSpot = towedRs.getInt("parking_spot");
+	                    Date entryDate = towedRs.getDate("entry_date");
+	                    Time entryTime = towedRs.getTime("entry_time");
+	                    Timestamp towedAt = towedRs.getTimestamp("towed_at");
+
+	                    LocalDateTime exitAt = TimeSource.now();
+	                    LocalDate exitDate = exitAt.toLocalDate();
+	                    LocalTime exitTime = exitAt.toLocalTime();
+
+	                    long minutesLate = ChronoUnit.MINUTES.between(towedAt.toLocalDateTime(), exitAt);
+	                    int lateDuration = (int) Math.max(minutesLate, 1);
+
+	                    String insertHistory = """
+	                        INSERT INTO parking_history 
+	                        (subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time, late_duration, parking_spot) 
+	                        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+	                    """;
+	                    try (PreparedStatement insertStmt = conn.prepareStatement(insertHistory)) {
+	                        insertStmt.setString(1, subscriberId);
+	                        insertStmt.setString(2, vehicleNumber);
+	                        insertStmt.setDate(3, entryDate);
+	                        insertStmt.setTime(4, entryTime);
+	                        insertStmt.setDate(5, Date.valueOf(exitDate));
+	                        insertStmt.setTime(6, Time.valueOf(exitTime));
+	                        insertStmt.setInt(7, lateDuration);
+	                        insertStmt.setInt(8, parkingSpot);
+	                        insertStmt.executeUpdate();
+	                    }
+	                    DailyRollups.recordSession(conn, subscriberId, entryDate.toLocalDate(),
+	                            DailyRollups.reportDuration(entryTime.toLocalTime(), exitTime), lateDuration, 0);
 
-	                        try (PreparedStatement deleteStmt = conn.prepareStatement(
-	                                "DELETE FROM towed_vehicles WHERE parking_code = ?")) {
-	                            deleteStmt.setString(1, parkingCode);
-	                            deleteStmt.executeUpdate();
-	                        }
-	                        conn.commit();
-	                        return "SENT_TOWED_VEHICLE_MSG";
-	                    } else {
-	                        conn.rollback();
-	                        return "FATAL_ERROR"; 
+	                    try (PreparedStatement deleteStmt = conn.prepareStatement(
+	                            "DELETE FROM towed_vehicles WHERE parking_code = ?")) {
+	                        deleteStmt.setString(1, parkingCode);
+	                        deleteStmt.executeUpdate();
 	                    }
+	                    afterCommit.add(() -> ParkingEvents.publish(ParkingEvent.towedPickup(parkingCode, subscriberId,
+	                            parkingSpot, LocalDateTime.of(entryDate.toLocalDate(), entryTime.toLocalTime()),
+	                            LocalDateTime.of(exitDate, exitTime))));
+	                    return "SENT_TOWED_VEHICLE_MSG";
+	                } else {
+	                    return "FATAL_ERROR";
 	                }
 	            }
-	        } catch (SQLException inner) {
-	            conn.rollback();
-	            throw inner;
-	        } finally {
-	            conn.setAutoCommit(true);
 	        }
-
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	        return "FAILURE";
 	    }
 	}
 
@@ -572,10 +629,10 @@ public class mysqlConnection {
 	                Time orderEntryTime = rs.getTime("entry_time");
 	                LocalDateTime reservationTime = LocalDateTime.of(
 	                        orderEntryDate.toLocalDate(), orderEntryTime.toLocalTime());
-	                LocalDateTime now = LocalDateTime.now();
+	                LocalDateTime now = TimeSource.now();
 
 	                Duration duration = Duration.between(now, reservationTime);
-	                if (duration.toMinutes() > 15) {
+	                if (duration.toMinutes() > ParkingPolicy.getCurrent().getArrivalWindowMinutes()) {
 	                    conn.rollback();
 	                    return "ARRIVE_EARLY";
 	                }
@@ -583,8 +640,8 @@ public class mysqlConnection {
 
 	                String subscriberId = rs.getString("subscriber_id");
 	                int parkingSpot = rs.getInt("parking_spot");
-	                LocalDateTime now1 = LocalDateTime.now();
-	                LocalDateTime expectedExitDateTime = now1.plusHours(4);
+	                LocalDateTime now1 = now;
+	                LocalDateTime expectedExitDateTime = now1.plusMinutes(ParkingPolicy.getCurrent().getSessionMinutes());
 	                LocalDate entryDate = now1.toLocalDate();
 	                LocalTime entryTime = now1.toLocalTime();
 	                LocalDate expectedExitDate = expectedExitDateTime.toLocalDate();
@@ -617,6 +674,10 @@ public class mysqlConnection {
 	                }
 
 	                conn.commit();  
+	                OccupancyTracker.getInstance().spotStatusChanged(parkingSpot, "occupied");
+	                OccupancyTracker.getInstance().reservationRemovedByCode(parkingCode);
+	                ParkingEvents.publish(ParkingEvent.reservationActivated(parkingCode, subscriberId, parkingSpot,
+	                        LocalDateTime.of(entryDate, entryTime), expectedExitDateTime));
 	                return "SUCCESS";
 
 	            } catch (SQLException innerEx) {
@@ -659,6 +720,7 @@ public class mysqlConnection {
 	                updateStmt.executeUpdate();
 	            }
 	            conn.commit(); // End transaction
+	            OccupancyTracker.getInstance().spotStatusChanged(parkingSpot, newStatus);
 
 	        } catch (SQLException e) {
 	            e.printStackTrace();
@@ -692,6 +754,8 @@ public class mysqlConnection {
 	        try (PreparedStatement stmt = conn.prepareStatement(deleteQuery)) {
 	            stmt.setString(1, parkingCode);   // Set the parking code to identify which reservation to delete
 	            stmt.executeUpdate();             // Execute the deletion
+	            OccupancyTracker.getInstance().reservationRemovedByCode(parkingCode);
+	            ParkingEvents.publish(ParkingEvent.reservationCancelled(0, parkingCode, 0));
 	        } catch (SQLException e) {
 	            e.printStackTrace();              // Log error if the deletion fails
 	        }
@@ -705,6 +769,8 @@ public class mysqlConnection {
      * Verifies the login credentials of a subscriber against the database.
      * This method checks whether there exists a subscriber in the database
      * whose  subscriber_id and  subscription_code match the given input.
+     * A subscriber found in the SubscriberCache is verified without a query
+     * (case-insensitive, like the column collation).
      * It uses a prepared SQL statement to prevent SQL injection.
      * @param ID   the subscriber's ID to authenticate
      * @param code the subscriber's subscription code
@@ -712,6 +778,10 @@ public class mysqlConnection {
      *         false otherwise or if a database error occurs
      */
 	public static boolean checkLogin(String ID, String code) {
+	    Subscriber cached = SubscriberCache.getInstance().get(ID);
+	    if (cached != null) {
+	        return code != null && code.equalsIgnoreCase(cached.getSubscription_code());
+	    }
 	    return DBExecutor.execute(conn -> {
 	        String query = "SELECT * FROM subscribers WHERE subscriber_id = ? AND subscription_code = ?";
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -798,10 +868,16 @@ public class mysqlConnection {
 
 	/**
 	 * Returns the total number of parking spots in the system.
+	 * The value is served from the OccupancyTracker counters; the COUNT(*) query
+	 * is only used if the tracker could not be loaded.
 	 * 
 	 * @return total count of all parking spots
 	 */
 	public static int getTotalParkingSpots() {
+	    OccupancyTracker tracker = OccupancyTracker.getInstance();
+	    if (tracker.ensureLoaded()) {
+	        return tracker.getTotal();
+	    }
 	    return DBExecutor.execute(conn -> {
 	        int count = 0;
 	        String query = "SELECT COUNT(*) FROM parking_spots";
@@ -821,10 +897,16 @@ public class mysqlConnection {
 
 	/**
 	 * Returns the number of available (free) parking spots.
+	 * The value is served from the OccupancyTracker counters; the COUNT(*) query
+	 * is only used if the tracker could not be loaded.
 	 * 
 	 * @return count of available spots
 	 */
 	public static int getAvailableSpotsCount() {
+	    OccupancyTracker tracker = OccupancyTracker.getInstance();
+	    if (tracker.ensureLoaded()) {
+	        return tracker.getAvailable();
+	    }
 	    return DBExecutor.execute(conn -> {
 	        int count = 0;
 	        String query = "SELECT COUNT(*) FROM parking_spots WHERE status = 'available'";
@@ -838,8 +920,7 @@ public class mysqlConnection {
 	            // Log SQL error and keep count as 0
 	            e.printStackTrace();
 	        }
-	        // Print the result for debugging
-	        System.out.println(count);
+	        log.debug("Available spots", "count", count);
 	        // Return the final count
 	        return count;
 	    });
@@ -860,13 +941,11 @@ public class mysqlConnection {
 	                int spot = rs.getInt("spot_number");
 	                return spot;
 	            } else {
-	                // No available spot found – print debug info
-	                System.out.println("No rows returned from query.");
+	                log.warn("No available spot found");
 	            }
 	        } catch (SQLException e) {
 	            // Log the SQL error
-	            System.out.println("SQL Exception while searching for available spot:");
-	            e.printStackTrace();
+	            log.error("SQL exception while searching for an available spot", e);
 	        }
 	        // If we reach here, no spot was found or an error occurred
 	        throw new RuntimeException("No available parking spots found.");
@@ -894,9 +973,10 @@ public class mysqlConnection {
 	            conn.setAutoCommit(false);
 	            
 	            // Step 2: Insert the reservation into the reservations table
+	            int reservationId = 0;
 	            try (PreparedStatement insert = conn.prepareStatement(
 	                    "INSERT INTO reservations (subscriber_id, parking_code, entry_date, entry_time, exit_date, exit_time, parking_spot) " +
-	                    "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+	                    "VALUES (?, ?, ?, ?, ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
 	                insert.setString(1, subscriberId);
 	                insert.setString(2, code);
 	                insert.setDate(3, java.sql.Date.valueOf(entryDate));
@@ -905,15 +985,23 @@ public class mysqlConnection {
 	                insert.setTime(6, java.sql.Time.valueOf(exitTime));
 	                insert.setInt(7, spotNumber);
 	                insert.executeUpdate();
+	                try (ResultSet keys = insert.getGeneratedKeys()) {
+	                    if (keys.next()) {
+	                        reservationId = keys.getInt(1);
+	                    }
+	                }
 	            }
 	            // Step 3: Commit the transaction
 	            conn.commit();
+	            OccupancyTracker.getInstance().reservationAdded(reservationId, code, entryDate, entryTime, exitDate, exitTime);
+	            ParkingEvents.publish(ParkingEvent.reservationCreated(reservationId, code, subscriberId, spotNumber,
+	                    LocalDateTime.of(entryDate, entryTime), LocalDateTime.of(exitDate, exitTime)));
 	        } catch (SQLException e) {
 	            // In case of error, rollback changes
 	            try {
 	                conn.rollback();
 	            } catch (SQLException rollbackEx) {
-	                System.err.println("Failed to rollback transaction: " + rollbackEx.getMessage());
+	                log.error("Failed to rollback transaction", "cause", rollbackEx.getMessage());
 	            }
 	            e.printStackTrace();
 	        } finally {
@@ -941,8 +1029,8 @@ public class mysqlConnection {
 	        List<ActiveParking> result = new ArrayList<>();
 	        String query = "SELECT * FROM active_parkings WHERE subscriber_id = ?";
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
-	            // Set the subscriber ID in the query
-	            stmt.setInt(1, subscriberId);
+	            // Bind as a string: subscriber_id is a VARCHAR, and comparing it to a number prevents index use
+	            stmt.setString(1, String.valueOf(subscriberId));
 	            // Execute the query
 	            ResultSet rs = stmt.executeQuery();
 	            // Build the result list from the result set
@@ -1038,8 +1126,8 @@ public class mysqlConnection {
 	                LocalTime exitTime = rs.getTime("expected_exit_time").toLocalTime();
 	                LocalDateTime exitDateTime = LocalDateTime.of(exitDate, exitTime);
 
-	                // Add 4 hours
-	                LocalDateTime newExitDateTime = exitDateTime.plusHours(4);
+	                // Add the extension (4 hours)
+	                LocalDateTime newExitDateTime = exitDateTime.plusMinutes(ParkingPolicy.getCurrent().getExtensionMinutes());
 
 	                // Split back to date and time
 	                LocalDate newExitDate = newExitDateTime.toLocalDate();
@@ -1056,6 +1144,7 @@ public class mysqlConnection {
 	                    ap.setExpectedExitDate(newExitDate.toString());
 	                    ap.setExpectedExitTime(newExitTime.toString());
 	                    conn.commit();
+	                    ParkingEvents.publish(ParkingEvent.extended(ap.getParkingCode(), newExitDateTime));
 	                    return true;
 	                } else {
 	                    conn.rollback();
@@ -1138,99 +1227,89 @@ public class mysqlConnection {
 	 *         occurred during processing.
 	 */
 	public static String createNewActiveParking(Subscriber subscriber) {
-	    return DBExecutor.execute(conn -> {
-	        try {
-	            // Step 1: Check if the subscriber already has an active parking session
-	            String checkIfParkedQuery = "SELECT 1 FROM active_parkings WHERE subscriber_id = ?";
-	            try (PreparedStatement checkStmt = conn.prepareStatement(checkIfParkedQuery)) {
-	                checkStmt.setString(1, subscriber.getSubscriber_id());
-	                ResultSet rs = checkStmt.executeQuery();
-	                if (rs.next()) {
-	                    return "CAR_ALREADY_PARKED";
-	                }
-	            }
-	            
-	         // Step 2: Check for an available parking spot
-	            int parkingSpot = -1;
-	            LocalDateTime now = LocalDateTime.now();
-	            LocalDateTime nowPlusGrace = now.plusHours(8).plusMinutes(15);
-	            String availableSpotsQuery = "SELECT spot_number FROM parking_spots WHERE status = 'available' ORDER BY spot_number ASC";
-	            try (PreparedStatement spotStmt = conn.prepareStatement(availableSpotsQuery);
-	                 ResultSet spotResult = spotStmt.executeQuery()) {
-
-	                while (spotResult.next()) {
-	                    int candidateSpot = spotResult.getInt("spot_number");
-
-	                    String reservationQuery = "SELECT entry_date, entry_time FROM reservations WHERE parking_spot = ?";
-	                    try (PreparedStatement resStmt = conn.prepareStatement(reservationQuery)) {
-	                        resStmt.setInt(1, candidateSpot);
-	                        ResultSet resRs = resStmt.executeQuery();
-
-	                        boolean skipThisSpot = false;
-
-	                        while (resRs.next()) {
-	                            LocalDate resDate = resRs.getDate("entry_date").toLocalDate();
-	                            LocalTime resTime = resRs.getTime("entry_time").toLocalTime();
-	                            LocalDateTime reservationTime = LocalDateTime.of(resDate, resTime);
-
-	                            if (!reservationTime.isAfter(nowPlusGrace)) {	
-	                                skipThisSpot = true;
-	                                break;
-	                            }
-	                        }
-
-	                        if (!skipThisSpot) {
-	                            parkingSpot = candidateSpot;
-	                            break;
-	                        }
-	                    }
-	                }
+	    try {
+	        return GroupCommitter.execute((conn, afterCommit) -> insertActiveParking(conn, subscriber, afterCommit));
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	        return "ERROR";
+	    }
+	}
 
-	                if (parkingSpot == -1) {
-	                    return "NO_SPOTS_AVAILABLE";
-	                }
-	            }
-	            // Step 3: Generate unique parking code (after collecting existing codes)
-	            List<String> existingCodes = new ArrayList<>();
-	            String existingCodesQuery = "SELECT parking_code FROM active_parkings";
-	            try (PreparedStatement codeStmt = conn.prepareStatement(existingCodesQuery)) {
-	                ResultSet codeResults = codeStmt.executeQuery();
-	                while (codeResults.next()) {
-	                    existingCodes.add(codeResults.getString("parking_code"));
-	                }
-	            }
-	            String newParkingCode = generateUniqueParkingCode(subscriber.getSubscriber_id(), parkingSpot);
-	            // Step 4: Calculate entry and expected exit times
-	            LocalDateTime now1 = LocalDateTime.now();
-	            LocalDateTime expectedExit = now1.plusHours(4);
-	            // Step 5: Insert new active parking record
-	            String insertQuery = "INSERT INTO active_parkings "
-	                    + "(parking_code, subscriber_id, entry_date, entry_time, expected_exit_date, expected_exit_time, parking_spot, extended) "
-	                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-	            try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-	                insertStmt.setString(1, newParkingCode);
-	                insertStmt.setString(2, subscriber.getSubscriber_id());
-	                insertStmt.setDate(3, Date.valueOf(now1.toLocalDate()));
-	                insertStmt.setTime(4, Time.valueOf(now1.toLocalTime()));
-	                insertStmt.setDate(5, Date.valueOf(expectedExit.toLocalDate()));
-	                insertStmt.setTime(6, Time.valueOf(expectedExit.toLocalTime()));
-	                insertStmt.setInt(7, parkingSpot);
-	                insertStmt.setInt(8, 0); // extended = false
-
-	                insertStmt.executeUpdate();
-	            }
-	            // Step 6: Update the parking spot status to 'occupied'
-	            String updateSpotQuery = "UPDATE parking_spots SET status = 'occupied' WHERE spot_number = ?";
-	            try (PreparedStatement updateStmt = conn.prepareStatement(updateSpotQuery)) {
-	                updateStmt.setInt(1, parkingSpot);
-	                updateStmt.executeUpdate();
-	            }
-	            return "SUCSESSFUL_PARKING" + newParkingCode;
-	        } catch (SQLException e) {
-	            e.printStackTrace();
-	            return "ERROR";
+	/**
+	 * The statements of createNewActiveParking, run without committing in the transaction given by
+	 * GroupCommitter (a drop-off batched with others sees their spots as taken). The OccupancyTracker
+	 * update and the ParkingEvent are left for after the commit.
+	 */
+	private static String insertActiveParking(Connection conn, Subscriber subscriber, List<Runnable> afterCommit) throws SQLException {
+	    // Step 1: Check if the subscriber already has an active parking session
+	    String checkIfParkedQuery = "SELECT 1 FROM active_parkings WHERE subscriber_id = ?";
+	    try (PreparedStatement checkStmt = conn.prepareStatement(checkIfParkedQuery)) {
+	        checkStmt.setString(1, subscriber.getSubscriber_id());
+	        ResultSet rs = checkStmt.executeQuery();
+	        if (rs.next()) {
+	            return "CAR_ALREADY_PARKED";
 	        }
+	    }
+	    
+	    // Step 2: Check for an available parking spot (the choice itself is made by SpotSelector)
+	    LocalDateTime now = TimeSource.now();
+	    ParkingPolicy policy = ParkingPolicy.getCurrent();
+	    List<Integer> availableSpots = new ArrayList<>();
+	    String availableSpotsQuery = "SELECT spot_number FROM parking_spots WHERE status = 'available' ORDER BY spot_number ASC";
+	    try (PreparedStatement spotStmt = conn.prepareStatement(availableSpotsQuery);
+	         ResultSet spotResult = spotStmt.executeQuery()) {
+	        while (spotResult.next()) {
+	            availableSpots.add(spotResult.getInt("spot_number"));
+	        }
+	    }
+	    // Only reservations starting before the blocking limit can rule a spot out; read them in one query
+	    Map<Integer, List<LocalDateTime>> blockingStarts = new HashMap<>();
+	    String reservationQuery = "SELECT parking_spot, entry_date, entry_time FROM reservations WHERE entry_ts <= ?";
+	    try (PreparedStatement resStmt = conn.prepareStatement(reservationQuery)) {
+	        resStmt.setTimestamp(1, Timestamp.valueOf(SpotSelector.blockingLimit(policy, now)));
+	        ResultSet resRs = resStmt.executeQuery();
+	        while (resRs.next()) {
+	            LocalDateTime reservationTime = LocalDateTime.of(resRs.getDate("entry_date").toLocalDate(),
+	                    resRs.getTime("entry_time").toLocalTime());
+	            blockingStarts.computeIfAbsent(resRs.getInt("parking_spot"), k -> new ArrayList<>()).add(reservationTime);
+	        }
+	    }
+	    int parkingSpot = SpotSelector.selectDropoffSpot(availableSpots, blockingStarts::get, policy, now);
+	    if (parkingSpot == -1) {
+	        return "NO_SPOTS_AVAILABLE";
+	    }
+	    // Step 3: Generate unique parking code (uniqueness is checked per candidate code)
+	    String newParkingCode = generateUniqueParkingCode(subscriber.getSubscriber_id(), parkingSpot);
+	    // Step 4: Calculate entry and expected exit times
+	    LocalDateTime now1 = TimeSource.now();
+	    LocalDateTime expectedExit = now1.plusMinutes(policy.getSessionMinutes());
+	    // Step 5: Insert new active parking record
+	    String insertQuery = "INSERT INTO active_parkings "
+	            + "(parking_code, subscriber_id, entry_date, entry_time, expected_exit_date, expected_exit_time, parking_spot, extended) "
+	            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+	    try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
+	        insertStmt.setString(1, newParkingCode);
+	        insertStmt.setString(2, subscriber.getSubscriber_id());
+	        insertStmt.setDate(3, Date.valueOf(now1.toLocalDate()));
+	        insertStmt.setTime(4, Time.valueOf(now1.toLocalTime()));
+	        insertStmt.setDate(5, Date.valueOf(expectedExit.toLocalDate()));
+	        insertStmt.setTime(6, Time.valueOf(expectedExit.toLocalTime()));
+	        insertStmt.setInt(7, parkingSpot);
+	        insertStmt.setInt(8, 0); // extended = false
+
+	        insertStmt.executeUpdate();
+	    }
+	    // Step 6: Update the parking spot status to 'occupied'
+	    String updateSpotQuery = "UPDATE parking_spots SET status = 'occupied' WHERE spot_number = ?";
+	    try (PreparedStatement updateStmt = conn.prepareStatement(updateSpotQuery)) {
+	        updateStmt.setInt(1, parkingSpot);
+	        updateStmt.executeUpdate();
+	    }
+	    afterCommit.add(() -> {
+	        OccupancyTracker.getInstance().spotStatusChanged(parkingSpot, "occupied");
+	        ParkingEvents.publish(ParkingEvent.dropoff(newParkingCode, subscriber.getSubscriber_id(), parkingSpot, now1, expectedExit));
 	    });
+	    return "SUCSESSFUL_PARKING" + newParkingCode;
 	}
 	/**
 	 * Generates a unique parking code for a new active parking entry.
@@ -1343,9 +1422,9 @@ public class mysqlConnection {
 	public static boolean updateReservationDateTime(int reservationId, LocalDate newDate, LocalTime newTime) {
 	    return DBExecutor.execute(conn -> {
 	        String query = "UPDATE reservations SET entry_date = ?, entry_time = ?, exit_date = ?, exit_time = ? WHERE reservation_id = ?";
-	        // Calculate new exit date and time as 4 hours after the new entry
+	        // Calculate new exit date and time as one session (4 hours) after the new entry
 	        LocalDateTime entryDateTime = LocalDateTime.of(newDate, newTime);
-	        LocalDateTime exitDateTime = entryDateTime.plusHours(4);
+	        LocalDateTime exitDateTime = entryDateTime.plusMinutes(ParkingPolicy.getCurrent().getSessionMinutes());
 	        LocalDate newExitDate = exitDateTime.toLocalDate();
 	        LocalTime newExitTime = exitDateTime.toLocalTime();
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
@@ -1357,6 +1436,10 @@ public class mysqlConnection {
 	            stmt.setInt(5, reservationId);
 	            // Execute the update and return whether any rows were affected
 	            int rows = stmt.executeUpdate();
+	            if (rows > 0) {
+	                OccupancyTracker.getInstance().reservationRescheduled(reservationId, newDate, newTime, newExitDate, newExitTime);
+	                ParkingEvents.publish(ParkingEvent.reservationRescheduled(reservationId, entryDateTime, exitDateTime));
+	            }
 	            return rows > 0;
 	        } catch (SQLException e) {
 	            // Print the stack trace and return false on failure
@@ -1411,6 +1494,9 @@ public class mysqlConnection {
 	            }
 
 	            conn.commit(); // All operations succeeded, commit the transaction
+	            OccupancyTracker.getInstance().reservationRemoved(reservationId);
+	            OccupancyTracker.getInstance().spotStatusChanged(spotNumber, "available");
+	            ParkingEvents.publish(ParkingEvent.reservationCancelled(reservationId, null, spotNumber));
 	            return true;
 	        } catch (SQLException e) {
 	            e.printStackTrace();
@@ -1439,15 +1525,15 @@ public class mysqlConnection {
 	public static List<Reservation> getFutureReservations() {
 	    return DBExecutor.execute(conn -> {
 	        List<Reservation> futureReservations = new ArrayList<>();
-	        // SQL query to select future reservations by comparing entry date/time to NOW()
+	        // SQL query to select future reservations by comparing the indexed entry timestamp to the current time
 	        String sql = """
 	            SELECT reservation_id, subscriber_id, parking_code, entry_date, entry_time,
 	                   exit_date, exit_time, parking_spot
 	            FROM reservations
-	            WHERE TIMESTAMP(entry_date, entry_time) > NOW()
+	            WHERE entry_ts > ?
 	        """;
 	        try (
-	            PreparedStatement stmt = conn.prepareStatement(sql);
+	            PreparedStatement stmt = prepareWithTime(conn, sql, TimeSource.now());
 	            ResultSet rs = stmt.executeQuery()
 	        ) {
 	            // Iterate through the result set and construct Reservation objects
@@ -1574,12 +1660,12 @@ public class mysqlConnection {
 	            SELECT reservation_id, subscriber_id, parking_code, entry_date, entry_time,
 	                   exit_date, exit_time, parking_spot
 	            FROM reservations
-	            WHERE TIMESTAMP(entry_date, entry_time) > NOW()
-	            ORDER BY entry_date, entry_time
+	            WHERE entry_ts > ?
+	            ORDER BY entry_ts
 	        """;
 
 	        try (
-	            PreparedStatement stmt = conn.prepareStatement(reservSql);
+	            PreparedStatement stmt = prepareWithTime(conn, reservSql, TimeSource.now());
 	            ResultSet rs = stmt.executeQuery()
 	        ) {
 	            result.add("=== Upcoming Reservations ===");
@@ -1615,6 +1701,7 @@ public class mysqlConnection {
 	 * exceeded their allowed parking time based on whether they extended their parking:
 	 * Vehicles with {extended = TRUE} are towed after 8 hours (480 minutes).
 	 * Vehicles with {extended = FALSE} are towed after 4 hours (240 minutes).
+	 * (Both limits and the one-minute grace come from ParkingPolicy.)
 	 *
 	 * For each such vehicle:
 	 * - It is inserted into the towed_vehicles table.
@@ -1642,14 +1729,13 @@ public class mysqlConnection {
 	                   ap.parking_spot, ap.extended, s.vehicle_number1, s.email
 	            FROM active_parkings ap
 	            JOIN subscribers s ON ap.subscriber_id = s.subscriber_id
-	            WHERE (
-	                (ap.extended = TRUE AND TIMESTAMPDIFF(MINUTE, TIMESTAMP(ap.entry_date, ap.entry_time), NOW()) > 480)
-	                OR
-	                (ap.extended = FALSE AND TIMESTAMPDIFF(MINUTE, TIMESTAMP(ap.entry_date, ap.entry_time), NOW()) > 240)
-	            )
+	            WHERE ap.entry_ts <= ?
+	              AND (ap.extended = FALSE OR ap.entry_ts <= ?)
 	        """;
 
-	        try (PreparedStatement stmt = conn.prepareStatement(query);
+	        LocalDateTime now = TimeSource.now();
+	        ParkingPolicy policy = ParkingPolicy.getCurrent();
+	        try (PreparedStatement stmt = prepareWithTime(conn, query, now.minusMinutes(policy.towAfterMinutes(false)), now.minusMinutes(policy.towAfterMinutes(true)));
 	             ResultSet rs = stmt.executeQuery()) {
 
 	            while (rs.next()) {
@@ -1663,8 +1749,8 @@ public class mysqlConnection {
 
 	                try (PreparedStatement insertStmt = conn.prepareStatement("""
 	                    INSERT INTO towed_vehicles 
-	                    (parking_code, subscriber_id, vehicle_number, parking_spot, entry_date, entry_time) 
-	                    VALUES (?, ?, ?, ?, ?, ?)
+	                    (parking_code, subscriber_id, vehicle_number, parking_spot, entry_date, entry_time, towed_at) 
+	                    VALUES (?, ?, ?, ?, ?, ?, ?)
 	                """)) {
 	                    insertStmt.setString(1, parkingCode);
 	                    insertStmt.setString(2, subscriberId);
@@ -1672,6 +1758,7 @@ public class mysqlConnection {
 	                    insertStmt.setInt(4, spot);
 	                    insertStmt.setDate(5, entryDate);
 	                    insertStmt.setTime(6, entryTime);
+	                    insertStmt.setTimestamp(7, Timestamp.valueOf(now));
 	                    insertStmt.executeUpdate();
 	                }
 
@@ -1682,6 +1769,8 @@ public class mysqlConnection {
 	                }
 
 	                updateParkingSpotStatus(spot, "available");
+	                ParkingEvents.publish(ParkingEvent.towed(parkingCode, subscriberId, spot,
+	                        LocalDateTime.of(entryDate.toLocalDate(), entryTime.toLocalTime())));
 
 	                boolean sentCombinedEmail = false;
 
@@ -1699,8 +1788,7 @@ public class mysqlConnection {
 	                                new NotificationController().sendTowingWithLateChargeEmail(email, vehicleNumber, spot);
 	                                sentCombinedEmail = true;
 	                            } catch (Exception e) {
-	                                System.err.println("[EmailSender] Failed to send combined towing/late email.");
-	                                e.printStackTrace();
+	                                log.error("Failed to send combined towing/late email", e, "to", email);
 	                            }
 
 	                            try (PreparedStatement resetLate = conn.prepareStatement("""
@@ -1709,6 +1797,7 @@ public class mysqlConnection {
 	                                resetLate.setString(1, subscriberId);
 	                                resetLate.executeUpdate();
 	                            }
+	                            SubscriberCache.getInstance().invalidate(subscriberId);
 	                        } else {
 	                            try (PreparedStatement incLate = conn.prepareStatement("""
 	                                UPDATE subscribers SET late_count = late_count + 1 WHERE subscriber_id = ?
@@ -1716,6 +1805,7 @@ public class mysqlConnection {
 	                                incLate.setString(1, subscriberId);
 	                                incLate.executeUpdate();
 	                            }
+	                            SubscriberCache.getInstance().invalidate(subscriberId);
 	                        }
 	                    }
 	                }
@@ -1732,8 +1822,7 @@ public class mysqlConnection {
 	                            updateStmt.executeUpdate();
 	                        }
 	                    } catch (Exception e) {
-	                        System.err.println("[Towing] Failed to send email to: " + email);
-	                        e.printStackTrace();
+	                        log.error("Failed to send towing email", e, "to", email);
 	                    }
 	                }
 	            }
@@ -1766,9 +1855,10 @@ public class mysqlConnection {
         DBExecutor.executeVoid(conn -> {
             String query = """
                 SELECT * FROM towed_vehicles 
-                WHERE towed_at < NOW() - INTERVAL 24 HOUR """;
+                WHERE towed_at < ? """;
 
-            try (PreparedStatement stmt = conn.prepareStatement(query);
+            LocalDateTime now = TimeSource.now();
+            try (PreparedStatement stmt = prepareWithTime(conn, query, now.minusHours(24));
                  ResultSet rs = stmt.executeQuery()) {
 
                 while (rs.next()) {
@@ -1778,8 +1868,8 @@ public class mysqlConnection {
                     int parkingSpot = rs.getInt("parking_spot");
                     Date entryDate = rs.getDate("entry_date");
                     Time entryTime = rs.getTime("entry_time");
-                    LocalDate exitDate = LocalDate.now();
-                    LocalTime exitTime = LocalTime.now();
+                    LocalDate exitDate = now.toLocalDate();
+                    LocalTime exitTime = now.toLocalTime();
                     String insertHistory = """
                         INSERT INTO parking_history 
                         (subscriber_id, vehicle_number, entry_date, entry_time, exit_date, exit_time, late_duration, parking_spot) 
@@ -1797,11 +1887,16 @@ public class mysqlConnection {
                         insertStmt.setInt(8, parkingSpot);
                         insertStmt.executeUpdate();
                     }
+                    DailyRollups.recordSession(conn, subscriberId, entryDate.toLocalDate(),
+                            DailyRollups.reportDuration(entryTime.toLocalTime(), exitTime), 1440, 0);
                     try (PreparedStatement deleteStmt = conn.prepareStatement(
                             "DELETE FROM towed_vehicles WHERE parking_code = ?")) {
                         deleteStmt.setString(1, parkingCode);
                         deleteStmt.executeUpdate();
                     }
+                    ParkingEvents.publish(ParkingEvent.towFinalized(parkingCode, subscriberId, parkingSpot,
+                            LocalDateTime.of(entryDate.toLocalDate(), entryTime.toLocalTime()),
+                            LocalDateTime.of(exitDate, exitTime)));
                 }
 
             } catch (SQLException e) {
@@ -1822,12 +1917,17 @@ public class mysqlConnection {
 	 * @return The number of overlapping reservations found within the specified time window.
 	 */
 	public static int getOverlappingReservationCount(LocalDate date, LocalTime startTime, int durationHours) {
+	    OccupancyTracker tracker = OccupancyTracker.getInstance();
+	    if (tracker.ensureLoaded()) {
+	        LocalDateTime windowStart = LocalDateTime.of(date, startTime);
+	        return tracker.countOverlappingReservations(windowStart, windowStart.plusHours(durationHours));
+	    }
 	    return DBExecutor.execute(conn -> {
 	    	String query = """
 	    		    SELECT COUNT(*) AS overlap_count
 	    		    FROM reservations
-	    		    WHERE TIMESTAMP(entry_date, entry_time) < ?
-	    		      AND TIMESTAMP(DATE_ADD(exit_date, INTERVAL 4 HOUR), exit_time) > ?
+	    		    WHERE entry_ts < ?
+	    		      AND exit_ts > ?
 	    		""";
 
 
@@ -1836,7 +1936,8 @@ public class mysqlConnection {
 
 	        try (PreparedStatement stmt = conn.prepareStatement(query)) {
 	            stmt.setTimestamp(1, Timestamp.valueOf(end));
-	            stmt.setTimestamp(2, Timestamp.valueOf(start));
+	            // exit + possible extension (4 hours) > start, kept sargable on exit_ts
+	            stmt.setTimestamp(2, Timestamp.valueOf(start.minusMinutes(ParkingPolicy.getCurrent().getExtensionMinutes())));
 
 	            try (ResultSet rs = stmt.executeQuery()) {
 	                if (rs.next()) {
@@ -1867,10 +1968,11 @@ public class mysqlConnection {
 	        String selectQuery = """
 	            SELECT reservation_id, parking_spot
 	            FROM reservations
-	            WHERE TIMESTAMP(entry_date, entry_time) < NOW() - INTERVAL 15 MINUTE
+	            WHERE entry_ts < ?
 	        """;
 
-	        try (PreparedStatement selectStmt = conn.prepareStatement(selectQuery);
+	        try (PreparedStatement selectStmt = prepareWithTime(conn, selectQuery,
+				TimeSource.now().minusMinutes(ParkingPolicy.getCurrent().getArrivalWindowMinutes()));
 	             ResultSet rs = selectStmt.executeQuery()) {
 
 	            while (rs.next()) {
@@ -1882,6 +1984,8 @@ public class mysqlConnection {
 	                    deleteStmt.setInt(1, reservationId);
 	                    deleteStmt.executeUpdate();
 	                }
+	                OccupancyTracker.getInstance().reservationRemoved(reservationId);
+	                ParkingEvents.publish(ParkingEvent.reservationExpired(reservationId, spot));
 	            }
 
 	        } catch (SQLException e) {
@@ -1891,88 +1995,115 @@ public class mysqlConnection {
 	}
 
 	
-	 /**
-     * Generates and stores a monthly parking duration report for the previous month.
-     * This method performs the following steps:
-     * Queries the parking_history table to calculate daily totals for: 
-     * actual parking duration (in minutes),late duration,extended duration grouped by day of the month.
-     * Converts the result into a list of ParkingDurationRecord objects.
-     * Serializes the data to JSON using Gson.
-     * Inserts the report into the monthly_reports table, with report type "ParkingDuration".
-     * The method targets the *previous* calendar month and assumes all required data
-     * already exists in the parking_history table for that period.
-     * This task is usually scheduled to run at the beginning of each month as part of
-     * the controller.SchedulerController.
-     */
-	public static void generateAndStoreParkingDurationReport() {
-	    YearMonth lastMonth = YearMonth.now().minusMonths(1);
-	    int year = lastMonth.getYear();
-	    int month = lastMonth.getMonthValue();
-
-	    DBExecutor.executeVoid(conn -> {
-	        List<ParkingDurationRecord> records = new ArrayList<>();
-
-	        String selectQuery = "SELECT " +
-	                "DAY(entry_date) AS day, " +
-	                "SUM(TIMESTAMPDIFF(MINUTE, entry_time, exit_time)) AS duration, " +
-	                "SUM(late_duration) AS lateDuration, " +
-	                "SUM(extended_duration) AS extendedDuration " +
-	                "FROM parking_history " +
-	                "WHERE YEAR(entry_date) = ? AND MONTH(entry_date) = ? " +
-	                "GROUP BY day " +
-	                "ORDER BY day";
-
-	        try (PreparedStatement stmt = conn.prepareStatement(selectQuery)) {
-	            stmt.setInt(1, year);
-	            stmt.setInt(2, month);
+	/**
+	 * Encodes the rows of a monthly report as the JSON stored in monthly_reports.data.
+	 *
+	 * @param report The report rows (ParkingDurationRecord or DailySubscriberCount).
+	 * @return The JSON text.
+	 */
+	public static String encodeReport(List<?> report) {
+		return GSON.toJson(report);
+	}
 
-	            try (ResultSet rs = stmt.executeQuery()) {
-	                while (rs.next()) {
-	                    int day = rs.getInt("day");
-	                    int duration = rs.getInt("duration");
-	                    int late = rs.getInt("lateDuration");
-	                    int extended = rs.getInt("extendedDuration");
+	/**
+	 * Decodes a stored parking duration report.
+	 *
+	 * @param json The JSON read from monthly_reports.data.
+	 * @return The report rows.
+	 */
+	public static List<ParkingDurationRecord> decodeParkingDurationReport(String json) {
+		return GSON.fromJson(json, PARKING_DURATION_LIST_TYPE);
+	}
 
-	                    records.add(new ParkingDurationRecord(day, duration, late, extended));
-	                }
-	            }
+	/**
+	 * Decodes a stored member status report.
+	 *
+	 * @param json The JSON read from monthly_reports.data.
+	 * @return The report rows.
+	 */
+	public static List<DailySubscriberCount> decodeMemberStatusReport(String json) {
+		return GSON.fromJson(json, MEMBER_STATUS_LIST_TYPE);
+	}
 
-	            Gson gson = new Gson();
-	            String jsonData = gson.toJson(records);
+	/**
+	 * Generates and stores all monthly reports of the previous month in one step.
+	 * The month's parking_history rows are read at most once: if the daily rollups of the
+	 * month do not exist yet they are rebuilt in a single streamed pass (MonthlyReportEngine)
+	 * that feeds both the duration and the member status aggregators. Both reports are then
+	 * built from the rollups and stored in monthly_reports in one transaction.
+	 */
+	public static void generateAndStoreMonthlyReports() {
+	    YearMonth lastMonth = TimeSource.currentMonth().minusMonths(1);
+	    int year = lastMonth.getYear();
+	    int month = lastMonth.getMonthValue();
 
-	            String insertQuery = "INSERT INTO monthly_reports (report_type, month, year, data) VALUES (?, ?, ?, ?)";
+	    List<ParkingDurationRecord> durations = DailyRollups.loadParkingDuration(year, month);
+	    List<DailySubscriberCount> members = DailyRollups.loadMemberStatus(year, month);
+	    if (durations == null || members == null) {
+	        log.error("Error generating monthly reports: daily rollups could not be read", "year", year, "month", month);
+	        return;
+	    }
 
+	    DBExecutor.executeVoid(conn -> {
+	        String insertQuery = "INSERT INTO monthly_reports (report_type, month, year, data) VALUES (?, ?, ?, ?)";
+	        try {
+	            conn.setAutoCommit(false);
 	            try (PreparedStatement insertStmt = conn.prepareStatement(insertQuery)) {
-	                insertStmt.setString(1, "ParkingDuration");
+	                insertStmt.setString(1, ReportCache.PARKING_DURATION);
 	                insertStmt.setInt(2, month);
 	                insertStmt.setInt(3, year);
-	                insertStmt.setString(4, jsonData);
-	                insertStmt.executeUpdate();
-	                System.out.println("Stored ParkingDuration report for " + month + "/" + year);
+	                insertStmt.setString(4, encodeReport(durations));
+	                insertStmt.addBatch();
+	                insertStmt.setString(1, ReportCache.MEMBER_STATUS);
+	                insertStmt.setInt(2, month);
+	                insertStmt.setInt(3, year);
+	                insertStmt.setString(4, encodeReport(members));
+	                insertStmt.addBatch();
+	                insertStmt.executeBatch();
 	            }
-
+	            conn.commit();
+	            log.info("Stored ParkingDuration and member_status reports", "year", year, "month", month);
+	            ReportCache.getInstance().put(ReportCache.PARKING_DURATION, year, month, durations);
+	            ReportCache.getInstance().put(ReportCache.MEMBER_STATUS, year, month, members);
 	        } catch (SQLException e) {
-	            System.err.println("Error generating report: " + e.getMessage());
-	            e.printStackTrace();
+	            log.error("Error generating monthly reports", e, "year", year, "month", month);
+	            try {
+	                conn.rollback();
+	            } catch (SQLException ex) {
+	                ex.printStackTrace();
+	            }
+	        } finally {
+	            try {
+	                conn.setAutoCommit(true);
+	            } catch (SQLException e) {
+	                e.printStackTrace();
+	            }
 	        }
 	    });
 	}
 
     /**
      * Loads a stored parking duration report for a specific month and year.
-     * This method queries the  monthly_reports table for a report with:
+     * Reports already decoded once are returned from the ReportCache.
+     * Otherwise this method queries the  monthly_reports table for a report with:
      * report_type = 'ParkingDuration', the specified year and code month.
      * If a matching report is found, the method:
      * Retrieves the JSON-encoded report data from the data column.
      * Deserializes it into a list of ParkingDurationRecord objects using Gson.
      * Returns the resulting list.
+     * If no report was stored (the current month, or a month the scheduler missed) it is built
+     * on demand from the daily rollups; the current month gives month-to-date figures.
      * @param year  the year of the report to load
      * @param month the month of the report to load (1–12)
      * @return a list of ParkingDurationRecord objects representing the report,
      *         or an empty list if no report is found or a database error occurs
      */
 	public static List<ParkingDurationRecord> loadParkingDurationReport(int year, int month) {
-        return DBExecutor.execute(conn -> {
+        List<ParkingDurationRecord> cached = ReportCache.getInstance().get(ReportCache.PARKING_DURATION, year, month);
+        if (cached != null) {
+            return cached;
+        }
+        List<ParkingDurationRecord> loaded = DBExecutor.execute(conn -> {
             List<ParkingDurationRecord> records = new ArrayList<>();
             String sql = "SELECT data FROM monthly_reports WHERE report_type = 'ParkingDuration' AND year = ? AND month = ?";
             
@@ -1983,9 +2114,7 @@ public class mysqlConnection {
 
                 if (rs.next()) {
                     String json = rs.getString("data");
-                    Gson gson = new Gson();
-                    Type listType = new TypeToken<List<ParkingDurationRecord>>() {}.getType();
-                    records = gson.fromJson(json, listType);
+                    records = decodeParkingDurationReport(json);
                 }
 
             } catch (SQLException e) {
@@ -1994,72 +2123,27 @@ public class mysqlConnection {
 
             return records;
         });
+        YearMonth requested = YearMonth.of(year, month);
+        if ((loaded == null || loaded.isEmpty()) && !requested.isAfter(TimeSource.currentMonth())) {
+            // No stored report (current month, or a month the scheduler missed): build it from the rollups
+            List<ParkingDurationRecord> generated = DailyRollups.loadParkingDuration(year, month);
+            if (generated == null) {
+                return new ArrayList<>();
+            }
+            // Only a closed month can be cached; the current month still changes
+            return requested.equals(TimeSource.currentMonth()) ? generated
+                    : ReportCache.getInstance().put(ReportCache.PARKING_DURATION, year, month, generated);
+        }
+        return ReportCache.getInstance().put(ReportCache.PARKING_DURATION, year, month, loaded);
     }
 
 	
-	/**
-	 * Generates and stores a monthly member status report as a JSON string in the database.
-	 *
-	 * @param year  The year for which the report is generated.
-	 * @param month The month for which the report is generated.
-	 */
-	public static void generateAndStoreMemberStatusReport() {
-		YearMonth lastMonth = YearMonth.now().minusMonths(1);
-	    int year = lastMonth.getYear();
-	    int month = lastMonth.getMonthValue();
-	    
-	    String sql = """
-	        SELECT entry_date, COUNT(DISTINCT subscriber_id) AS active_subscribers
-	        FROM parking_history
-	        WHERE MONTH(entry_date) = ? AND YEAR(entry_date) = ?
-	        GROUP BY entry_date ORDER BY entry_date
-	    """;
-
-	    DBExecutor.executeVoid(conn -> {
-	        List<DailySubscriberCount> report = new ArrayList<>();
-
-	        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-	            stmt.setInt(1, month);
-	            stmt.setInt(2, year);
-
-	            ResultSet rs = stmt.executeQuery();
-	            Map<Integer, Integer> countPerDay = new HashMap<>();
-
-	            while (rs.next()) {
-	                LocalDate date = rs.getDate("entry_date").toLocalDate();
-	                countPerDay.put(date.getDayOfMonth(), rs.getInt("active_subscribers"));
-	            }
-
-	            int daysInMonth = YearMonth.of(year, month).lengthOfMonth();
-	            for (int day = 1; day <= daysInMonth; day++) {
-	                int count = countPerDay.getOrDefault(day, 0);
-	                report.add(new DailySubscriberCount(day, count));
-	            }
-
-	            Gson gson = new Gson();
-	            String json = gson.toJson(report);
-
-	            String insertSql = """
-	                INSERT INTO monthly_reports (report_type, year, month, data)
-	                VALUES ('member_status', ?, ?, ?)
-	            """;
-
-	            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-	                insertStmt.setInt(1, year);
-	                insertStmt.setInt(2, month);
-	                insertStmt.setString(3, json);
-	                insertStmt.executeUpdate();
-	            }
-
-	        } catch (Exception e) {
-	            e.printStackTrace();
-	        }
-	    });
-	}
-
 	/**
 	 * Loads a saved member status report from the database for a specific year and month.
-	 * The report is stored as JSON in the "monthly_reports" table.
+	 * The report is stored as JSON in the "monthly_reports" table; once decoded it is
+	 * kept in the ReportCache and served from memory.
+	 * If no report was stored (the current month, or a month the scheduler missed) it is built
+	 * on demand from the daily rollups; the current month gives month-to-date figures.
 	 *
 	 * @param year  The year of the report.
 	 * @param month The month of the report.
@@ -2071,7 +2155,12 @@ public class mysqlConnection {
 	        WHERE report_type = 'member_status' AND year = ? AND month = ?
 	    """;
 
-	    return DBExecutor.execute(conn -> {
+	    List<DailySubscriberCount> cached = ReportCache.getInstance().get(ReportCache.MEMBER_STATUS, year, month);
+	    if (cached != null) {
+	        return cached;
+	    }
+
+	    List<DailySubscriberCount> loaded = DBExecutor.execute(conn -> {
 	    	try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 	    	    stmt.setInt(1, year);
 	    	    stmt.setInt(2, month);
@@ -2082,9 +2171,7 @@ public class mysqlConnection {
 
 	    	        if (jsonData != null && !jsonData.isEmpty()) {
 	    	            try {
-	    	                Gson gson = new Gson();
-	    	                Type listType = new TypeToken<List<DailySubscriberCount>>() {}.getType();
-	    	                return gson.fromJson(jsonData, listType);
+	    	                return decodeMemberStatusReport(jsonData);
 	    	            } catch (Exception parseEx) {
 	    	                parseEx.printStackTrace();
 	    	            }
@@ -2096,6 +2183,18 @@ public class mysqlConnection {
 
 	        return Collections.emptyList();
 	    });
+	    YearMonth requested = YearMonth.of(year, month);
+	    if ((loaded == null || loaded.isEmpty()) && !requested.isAfter(TimeSource.currentMonth())) {
+	        // No stored report (current month, or a month the scheduler missed): build it from the rollups
+	        List<DailySubscriberCount> generated = DailyRollups.loadMemberStatus(year, month);
+	        if (generated == null) {
+	            return Collections.emptyList();
+	        }
+	        // Only a closed month can be cached; the current month still changes
+	        return requested.equals(TimeSource.currentMonth()) ? generated
+	                : ReportCache.getInstance().put(ReportCache.MEMBER_STATUS, year, month, generated);
+	    }
+	    return ReportCache.getInstance().put(ReportCache.MEMBER_STATUS, year, month, loaded);
 	}
 
 
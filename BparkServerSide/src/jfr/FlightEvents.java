@@ -0,0 +1,156 @@
+package jfr;
+
+import jdbc.ParkingEvent;
+import jdbc.ParkingEvents;
+
+/**
+ * FlightEvents emits the server's Java Flight Recorder events, so a recording of a production
+ * server shows each gate operation, scheduled job and report next to the GC pauses, lock
+ * contention and I/O the JVM records in the same timeline.
+ *
+ * The events cost almost nothing when no recording is running: begin...() returns an event
+ * that is never committed. A recording is started with the usual JVM option, e.g.
+ *
+ *   -XX:StartFlightRecording=settings=profile,maxage=6h,disk=true,filename=bpark.jfr
+ *
+ * While a gate operation or job is in progress on a thread, the ParkingEvents published on that
+ * thread fill in the subscriber and spot of the operation, or are counted for the job.
+ */
+public final class FlightEvents implements jdbc.ParkingStateListener {
+
+    private static final ThreadLocal<GateOperationEvent> currentGate = new ThreadLocal<>();
+    private static final ThreadLocal<SchedulerJobEvent> currentJob = new ThreadLocal<>();
+
+    static {
+        ParkingEvents.addListener(new FlightEvents());
+    }
+
+    private FlightEvents() {
+    }
+
+    /**
+     * Starts timing a gate operation.
+     * @param operation    The operation (DROPOFF, ACTIVATE_RESERVATION, PICKUP, EXTEND, EXTEND_TERMINAL).
+     * @param subscriberId The subscriber, if the request names one (may be null).
+     * @return The event, to be passed to endGate.
+     */
+    public static GateOperationEvent beginGate(String operation, String subscriberId) {
+        GateOperationEvent event = new GateOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.subscriberId = subscriberId;
+            event.begin();
+            currentGate.set(event);
+        }
+        return event;
+    }
+
+    /**
+     * Ends a gate operation and commits it if a recording wants it.
+     * @param event   The event returned by beginGate.
+     * @param outcome The reply sent to the client; only the part before '|' is recorded.
+     */
+    public static void endGate(GateOperationEvent event, String outcome) {
+        if (event.isEnabled()) {
+            currentGate.remove();
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcome(outcome);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts timing one run of a scheduled job.
+     * @param job The job name used in the metrics.
+     * @return The event, to be passed to endJob.
+     */
+    public static SchedulerJobEvent beginJob(String job) {
+        SchedulerJobEvent event = new SchedulerJobEvent();
+        if (event.isEnabled()) {
+            event.job = job;
+            event.begin();
+            currentJob.set(event);
+        }
+        return event;
+    }
+
+    /**
+     * Ends one run of a scheduled job.
+     * @param event  The event returned by beginJob.
+     * @param failed True if the job threw.
+     */
+    public static void endJob(SchedulerJobEvent event, boolean failed) {
+        if (event.isEnabled()) {
+            currentJob.remove();
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = failed ? "FAILED" : "OK";
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts timing a report requested by a client.
+     * @param report The report type (e.g. PARKING_DURATION).
+     * @param period The period it covers (e.g. 2025-06, or from..to).
+     * @return The event, to be passed to endReport.
+     */
+    public static ReportGenerationEvent beginReport(String report, String period) {
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        if (event.isEnabled()) {
+            event.report = report;
+            event.period = period;
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Ends a report.
+     * @param event The event returned by beginReport.
+     * @param rows  The number of rows in the report, or -1 if it could not be produced.
+     */
+    public static void endReport(ReportGenerationEvent event, int rows) {
+        if (event.isEnabled()) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.rows = Math.max(rows, 0);
+                event.outcome = rows < 0 ? "FAILED" : "OK";
+                event.commit();
+            }
+        }
+    }
+
+    private static String outcome(String reply) {
+        if (reply == null) {
+            return "null";
+        }
+        int end = reply.indexOf('|');
+        return end >= 0 ? reply.substring(0, end) : reply;
+    }
+
+    @Override
+    public void onParkingEvent(ParkingEvent parkingEvent) {
+        GateOperationEvent gate = currentGate.get();
+        if (gate != null) {
+            if (parkingEvent.getSubscriberId() != null) {
+                gate.subscriberId = parkingEvent.getSubscriberId();
+            }
+            if (parkingEvent.getParkingSpot() != 0) {
+                gate.parkingSpot = parkingEvent.getParkingSpot();
+            }
+        }
+        SchedulerJobEvent job = currentJob.get();
+        if (job != null) {
+            job.stateChanges++;
+            if (parkingEvent.getType() == ParkingEvent.Type.TOWED) {
+                job.towedVehicles++;
+            } else if (parkingEvent.getType() == ParkingEvent.Type.RESERVATION_EXPIRED) {
+                job.expiredReservations++;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One gate operation handled by EchoServer: a drop-off, reservation activation, pickup or extension.
+ * The event duration is the time from receiving the request to sending the reply.
+ * Subscriber and spot are filled from the request or from the ParkingEvent the operation
+ * published; they are empty / 0 when the operation was rejected before that.
+ */
+@Name("bpark.GateOperation")
+@Label("Gate Operation")
+@Category({ "BPark", "Gate" })
+@Description("Drop-off, reservation activation, pickup or extension handled by the server")
+@StackTrace(false)
+public final class GateOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Subscriber")
+    String subscriberId;
+
+    @Label("Parking Spot")
+    int parkingSpot;
+
+    @Label("Outcome")
+    @Description("The reply sent to the client, without codes or times")
+    String outcome;
+}
@@ -0,0 +1,28 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One report produced for a management client (parking duration, member status or a date range).
+ */
+@Name("bpark.ReportGeneration")
+@Label("Report Generation")
+@Category({ "BPark", "Reports" })
+@StackTrace(false)
+public final class ReportGenerationEvent extends jdk.jfr.Event {
+
+    @Label("Report")
+    String report;
+
+    @Label("Period")
+    String period;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Outcome")
+    String outcome;
+}
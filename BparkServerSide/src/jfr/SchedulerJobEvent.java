@@ -0,0 +1,36 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One run of a scheduled job (towing check, expired reservations, monthly reports, ...).
+ * The counts are the parking state changes the run published, so a slow towing sweep can
+ * be told apart from one that towed many vehicles.
+ */
+@Name("bpark.SchedulerJob")
+@Label("Scheduler Job")
+@Category({ "BPark", "Scheduler" })
+@Description("One run of a job of SchedulerController")
+@StackTrace(false)
+public final class SchedulerJobEvent extends jdk.jfr.Event {
+
+    @Label("Job")
+    String job;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Vehicles Towed")
+    int towedVehicles;
+
+    @Label("Reservations Expired")
+    int expiredReservations;
+
+    @Label("State Changes")
+    @Description("All parking events published during the run")
+    int stateChanges;
+}
@@ -0,0 +1,109 @@
+package journal;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import jdbc.ParkingEvent;
+
+/**
+ * EventCodec converts ParkingEvents to the binary payload of a journal record and back.
+ *
+ * Payload layout (big-endian):
+ *   long   sequence
+ *   string type name (stable if the enum is reordered)
+ *   long   occurredAt
+ *   string parkingCode
+ *   int    reservationId
+ *   string subscriberId
+ *   int    parkingSpot
+ *   long   start
+ *   long   end
+ *
+ * Strings are a short length (-1 for null) followed by UTF-8 bytes; times are epoch
+ * milliseconds of the local date-time read as UTC (Long.MIN_VALUE for null).
+ */
+final class EventCodec {
+
+    /** Largest payload accepted; real events are well under 200 bytes. */
+    static final int MAX_PAYLOAD_BYTES = 4096;
+
+    private static final long NULL_TIME = Long.MIN_VALUE;
+
+    private EventCodec() {
+    }
+
+    /**
+     * Writes the payload of one event.
+     * @param sequence The sequence number of the event.
+     * @param event    The event.
+     * @param out      The buffer, positioned where the payload starts.
+     */
+    static void encode(long sequence, ParkingEvent event, ByteBuffer out) {
+        out.putLong(sequence);
+        putString(out, event.getType().name());
+        putTime(out, event.getOccurredAt());
+        putString(out, event.getParkingCode());
+        out.putInt(event.getReservationId());
+        putString(out, event.getSubscriberId());
+        out.putInt(event.getParkingSpot());
+        putTime(out, event.getStart());
+        putTime(out, event.getEnd());
+    }
+
+    /**
+     * Reads the payload of one record.
+     * @param in The payload (position to limit).
+     * @return The entry.
+     * @throws IllegalArgumentException if the payload is not a valid event.
+     */
+    static JournalEntry decode(ByteBuffer in) {
+        try {
+            long sequence = in.getLong();
+            ParkingEvent.Type type = ParkingEvent.Type.valueOf(getString(in));
+            LocalDateTime occurredAt = getTime(in);
+            String parkingCode = getString(in);
+            int reservationId = in.getInt();
+            String subscriberId = getString(in);
+            int parkingSpot = in.getInt();
+            LocalDateTime start = getTime(in);
+            LocalDateTime end = getTime(in);
+            return new JournalEntry(sequence, new ParkingEvent(type, occurredAt, parkingCode, reservationId,
+                    subscriberId, parkingSpot, start, end));
+        } catch (BufferUnderflowException | NullPointerException e) {
+            throw new IllegalArgumentException("Truncated journal record", e);
+        }
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putTime(ByteBuffer out, LocalDateTime time) {
+        out.putLong(time == null ? NULL_TIME : time.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static LocalDateTime getTime(ByteBuffer in) {
+        long millis = in.getLong();
+        return millis == NULL_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
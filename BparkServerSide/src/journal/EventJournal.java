@@ -0,0 +1,368 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jdbc.ParkingEvent;
+import jdbc.ParkingStateListener;
+import logging.Log;
+import logging.Logger;
+
+/**
+ * EventJournal is the append-only log of every parking lot state transition (drop-off,
+ * extension, pickup, towing, reservation changes), in the order they were published.
+ *
+ * Registered as a ParkingEvents listener, it appends each event to the current segment file
+ * (memory-mapped, so an append is a copy into the page cache, see JournalSegment) and rolls
+ * to a new segment when the current one is full. The mapped pages are written to disk every
+ * flushMillis milliseconds by the "journal" thread (or after every event if flushMillis is 0),
+ * so a crash of the machine loses at most that much; a crash of the process loses nothing.
+ *
+ * Every snapshotEvery events the state (JournalState) is written as a snapshot on the same
+ * thread, so opening the journal replays only the events after the newest snapshot. Segments
+ * are never deleted: they are the audit trail that tools.JournalTool reads.
+ *
+ * Example:
+ *   EventJournal journal = EventJournal.open(Path.of("journal"), EventJournal.DEFAULT_SEGMENT_BYTES,
+ *           EventJournal.DEFAULT_SNAPSHOT_EVERY, EventJournal.DEFAULT_FLUSH_MILLIS);
+ *   repository.restore(journal.snapshotState());
+ *   ParkingEvents.addListener(journal);
+ */
+public final class EventJournal implements ParkingStateListener, Closeable {
+
+    private static final Logger log = Log.getLogger(EventJournal.class);
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+    public static final int DEFAULT_SNAPSHOT_EVERY = 100_000;
+    public static final long DEFAULT_FLUSH_MILLIS = 1000;
+
+    /**
+     * What JournalTool verify reports for one segment file.
+     */
+    public static final class SegmentInfo {
+        private final Path path;
+        private final long firstSequence;
+        private final long lastSequence;
+        private final int records;
+        private final long bytesUsed;
+        private final long size;
+        private final boolean damaged;
+
+        SegmentInfo(Path path, long firstSequence, long lastSequence, int records, long bytesUsed, long size,
+                    boolean damaged) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.lastSequence = lastSequence;
+            this.records = records;
+            this.bytesUsed = bytesUsed;
+            this.size = size;
+            this.damaged = damaged;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getFirstSequence() {
+            return firstSequence;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public long getBytesUsed() {
+            return bytesUsed;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /** @return true if the records stop at a damaged one rather than at the end of the data. */
+        public boolean isDamaged() {
+            return damaged;
+        }
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int snapshotEvery;
+    private final boolean forceEveryEvent;
+    private final JournalState state;
+    private final ByteBuffer scratch = ByteBuffer.allocate(EventCodec.MAX_PAYLOAD_BYTES);
+    private final ScheduledExecutorService background;
+
+    private JournalSegment segment;
+    // Bytes of the current segment already written to disk
+    private int flushedPosition;
+    private long lastSequence;
+    private int sinceSnapshot;
+    private boolean closed;
+
+    private EventJournal(Path dir, int segmentBytes, int snapshotEvery, long flushMillis, JournalState state,
+                         JournalSegment segment) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.snapshotEvery = snapshotEvery;
+        this.forceEveryEvent = flushMillis <= 0;
+        this.state = state;
+        this.segment = segment;
+        this.flushedPosition = segment.getPosition();
+        this.lastSequence = state.getSequence();
+        this.background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal");
+            t.setDaemon(true);
+            return t;
+        });
+        if (!forceEveryEvent) {
+            background.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Opens the journal in a directory (created if needed), rebuilding its state from the newest
+     * snapshot and the events after it, and continues the last segment.
+     * @param dir           The journal directory.
+     * @param segmentBytes  The size of each segment file.
+     * @param snapshotEvery The number of events between two snapshots.
+     * @param flushMillis   How often the appended events are written to disk (0 = after every event).
+     * @return The open journal.
+     * @throws IOException if the journal cannot be read, or is damaged before its last segment.
+     */
+    public static EventJournal open(Path dir, int segmentBytes, int snapshotEvery, long flushMillis) throws IOException {
+        long startNanos = System.nanoTime();
+        Files.createDirectories(dir);
+        JournalState state = JournalState.recover(dir);
+        List<Path> segments = segments(dir);
+        JournalSegment segment = null;
+        if (!segments.isEmpty()) {
+            segment = JournalSegment.open(segments.get(segments.size() - 1), true, null);
+            if (segment.getLastSequence() > state.getSequence()) {
+                segment.close();
+                throw new IOException("Journal " + dir + " is damaged before event " + (state.getSequence() + 1)
+                        + "; check it with tools.JournalTool verify");
+            }
+            if (segment.getLastSequence() < state.getSequence()) {
+                // The snapshot reached the disk but the last mapped pages did not
+                log.warn("Journal ends before its snapshot, starting a new segment",
+                        "journalEnd", segment.getLastSequence(), "snapshot", state.getSequence());
+                segment.close();
+                segment = null;
+            }
+        }
+        if (segment == null) {
+            segment = JournalSegment.create(dir, state.getSequence() + 1, segmentBytes);
+        }
+        log.info("Journal opened", "dir", dir, "events", state.getSequence(), "segments", Math.max(1, segments.size()),
+                "ms", (System.nanoTime() - startNanos) / 1_000_000);
+        return new EventJournal(dir, segmentBytes, snapshotEvery, flushMillis, state, segment);
+    }
+
+    /**
+     * Appends one event.
+     * @param event The state transition.
+     * @return Its sequence number.
+     * @throws IOException if the journal is closed or a new segment cannot be created.
+     */
+    public synchronized long append(ParkingEvent event) throws IOException {
+        if (closed) {
+            throw new IOException("Journal is closed");
+        }
+        long sequence = lastSequence + 1;
+        scratch.clear();
+        try {
+            EventCodec.encode(sequence, event, scratch);
+        } catch (BufferOverflowException e) {
+            throw new IOException("Event too large for the journal: " + event, e);
+        }
+        scratch.flip();
+        if (!segment.append(sequence, scratch)) {
+            segment.force();
+            segment.close();
+            segment = JournalSegment.create(dir, sequence, segmentBytes);
+            flushedPosition = 0;
+            if (!segment.append(sequence, scratch)) {
+                throw new IOException("Event larger than a journal segment: " + event);
+            }
+        }
+        if (forceEveryEvent) {
+            segment.force(flushedPosition, segment.getPosition());
+            flushedPosition = segment.getPosition();
+        }
+        lastSequence = sequence;
+        state.apply(new JournalEntry(sequence, event));
+        if (++sinceSnapshot >= snapshotEvery) {
+            sinceSnapshot = 0;
+            JournalState copy = state.copy();
+            background.execute(() -> writeSnapshot(copy));
+        }
+        return sequence;
+    }
+
+    /**
+     * Journals an event published through ParkingEvents. A failure is logged: the change is
+     * already committed and the caller should not see an error for it.
+     */
+    @Override
+    public void onParkingEvent(ParkingEvent event) {
+        try {
+            append(event);
+        } catch (IOException e) {
+            log.error("Could not journal event", e, "event", event);
+        }
+    }
+
+    /**
+     * Writes the appended events to disk. Only the range written since the last flush is forced,
+     * and outside the lock, so appends are not held up by the disk write.
+     */
+    public void flush() {
+        JournalSegment target;
+        int from;
+        int to;
+        synchronized (this) {
+            if (closed || flushedPosition == segment.getPosition()) {
+                return;
+            }
+            target = segment;
+            from = flushedPosition;
+            to = segment.getPosition();
+        }
+        target.force(from, to);
+        synchronized (this) {
+            if (segment == target && flushedPosition < to) {
+                flushedPosition = to;
+            }
+        }
+    }
+
+    /** @return The sequence number of the last event appended (0 if none). */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /** @return A copy of the state at the end of the journal. */
+    public synchronized JournalState snapshotState() {
+        return state.copy();
+    }
+
+    private void writeSnapshot(JournalState snapshot) {
+        try {
+            long startNanos = System.nanoTime();
+            snapshot.write(dir);
+            log.info("Journal snapshot written", "sequence", snapshot.getSequence(),
+                    "ms", (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (IOException e) {
+            log.error("Could not write journal snapshot", e, "sequence", snapshot.getSequence());
+        }
+    }
+
+    /**
+     * Writes the last events to disk, closes the segment and writes a final snapshot so that the
+     * next start does not replay anything.
+     */
+    @Override
+    public void close() throws IOException {
+        JournalState last;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            segment.close();
+            last = state.copy();
+        }
+        background.shutdown();
+        try {
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        last.write(dir);
+    }
+
+    // ---------------------------------------------------------------- reading
+
+    /**
+     * Reads the journal in order.
+     * @param dir           The journal directory.
+     * @param afterSequence Only events with a higher sequence number are passed on.
+     * @param consumer      Receives the events.
+     * @return The sequence number of the last event read (afterSequence if none).
+     * @throws IOException if a segment cannot be read.
+     */
+    public static long replay(Path dir, long afterSequence, Consumer<JournalEntry> consumer) throws IOException {
+        List<Path> segments = segments(dir);
+        long last = afterSequence;
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && JournalSegment.sequenceOf(segments.get(i + 1)) <= afterSequence + 1) {
+                continue; // every event of this segment is before afterSequence
+            }
+            long[] lastRead = { last };
+            try (JournalSegment segment = JournalSegment.open(segments.get(i), false, entry -> {
+                if (entry.getSequence() > afterSequence) {
+                    consumer.accept(entry);
+                    lastRead[0] = entry.getSequence();
+                }
+            })) {
+                last = lastRead[0];
+                if (segment.isTorn() && i + 1 < segments.size()) {
+                    log.warn("Journal segment is damaged, ignoring the later segments", "file", segment.getPath(),
+                            "lastSequence", segment.getLastSequence());
+                    break;
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Checks every segment of a journal.
+     * @param dir The journal directory.
+     * @return One entry per segment, in order.
+     * @throws IOException if a segment cannot be read.
+     */
+    public static List<SegmentInfo> inspect(Path dir) throws IOException {
+        List<SegmentInfo> list = new ArrayList<>();
+        for (Path path : segments(dir)) {
+            try (JournalSegment segment = JournalSegment.open(path, false, null)) {
+                list.add(new SegmentInfo(path, segment.getFirstSequence(), segment.getLastSequence(),
+                        segment.getRecords(), segment.getPosition(), Files.size(path), segment.isTorn()));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * @return The segment files of the directory, oldest first.
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> list = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return list;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + JournalSegment.SUFFIX)) {
+            files.forEach(list::add);
+        }
+        Collections.sort(list);
+        return list;
+    }
+}
@@ -0,0 +1,32 @@
+package journal;
+
+import jdbc.ParkingEvent;
+
+/**
+ * JournalEntry is one event read back from the EventJournal, with its position in the journal.
+ */
+public final class JournalEntry {
+
+    private final long sequence;
+    private final ParkingEvent event;
+
+    JournalEntry(long sequence, ParkingEvent event) {
+        this.sequence = sequence;
+        this.event = event;
+    }
+
+    /** @return The sequence number (1 for the first event ever written, then consecutive). */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** @return The parking state transition. */
+    public ParkingEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public String toString() {
+        return sequence + " " + event.getOccurredAt() + " " + event;
+    }
+}
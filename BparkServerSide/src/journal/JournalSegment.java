@@ -0,0 +1,242 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * JournalSegment is one file of the EventJournal, mapped into memory in full.
+ *
+ * The file is created at its final size (filled with zeros) and holds records back to back:
+ *
+ *   int length   payload length in bytes (0 = end of the written data)
+ *   int crc      CRC-32C of the payload
+ *   payload      see EventCodec
+ *
+ * A record is written payload first and length last, so a record cut short by a crash either
+ * has length 0 (not written) or fails its checksum; the scan stops there, and a segment opened
+ * for writing clears the rest of the file and continues from that point.
+ *
+ * The file is named after the sequence number of its first record, so the segments sort in
+ * journal order.
+ */
+final class JournalSegment implements Closeable {
+
+    static final String SUFFIX = ".journal";
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    private final long firstSequence;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    private int position;
+    private long lastSequence;
+    private int records;
+    private boolean torn;
+    private boolean closed;
+
+    private JournalSegment(Path path, long firstSequence, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    /**
+     * Creates an empty segment.
+     * @param dir           The journal directory.
+     * @param firstSequence The sequence number of the first record it will hold.
+     * @param size          The file size in bytes.
+     * @return The segment, open for appending.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    static JournalSegment create(Path dir, long firstSequence, int size) throws IOException {
+        Path path = dir.resolve(fileName(firstSequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            return new JournalSegment(path, firstSequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing segment and finds the end of its valid records.
+     * @param path     The segment file.
+     * @param writable true to continue appending (a partial last record is cleared).
+     * @param consumer Receives every valid record in order (may be null).
+     * @return The segment.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    static JournalSegment open(Path path, boolean writable, Consumer<JournalEntry> consumer) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        JournalSegment segment;
+        try {
+            MappedByteBuffer buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+            segment = new JournalSegment(path, sequenceOf(path), channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        segment.scan(consumer);
+        if (writable && segment.torn) {
+            segment.clearTail();
+        }
+        return segment;
+    }
+
+    /**
+     * Reads the records from the start, stopping at the end of the data or at the first damaged record.
+     */
+    private void scan(Consumer<JournalEntry> consumer) {
+        int pos = 0;
+        int capacity = buffer.capacity();
+        while (pos + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(pos);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > EventCodec.MAX_PAYLOAD_BYTES || pos + HEADER_BYTES + length > capacity) {
+                torn = true;
+                break;
+            }
+            ByteBuffer payload = buffer.slice(pos + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                torn = true;
+                break;
+            }
+            JournalEntry entry;
+            try {
+                entry = EventCodec.decode(payload);
+            } catch (IllegalArgumentException e) {
+                torn = true;
+                break;
+            }
+            if (entry.getSequence() != lastSequence + 1) {
+                torn = true;
+                break;
+            }
+            lastSequence = entry.getSequence();
+            records++;
+            if (consumer != null) {
+                consumer.accept(entry);
+            }
+            pos += HEADER_BYTES + length;
+        }
+        position = pos;
+    }
+
+    /**
+     * Zeroes everything after the last valid record, so that records written after the damaged
+     * one (which may still pass their checksum) cannot be read back after the new appends.
+     */
+    private void clearTail() {
+        byte[] zeros = new byte[64 * 1024];
+        for (int i = position; i < buffer.capacity(); i += zeros.length) {
+            buffer.put(i, zeros, 0, Math.min(zeros.length, buffer.capacity() - i));
+        }
+        buffer.force();
+        torn = false;
+    }
+
+    /**
+     * Appends one record.
+     * @param sequence The record's sequence number (the next one of this segment).
+     * @param payload  The encoded event (position to limit).
+     * @return false if the segment has no room left for it.
+     */
+    boolean append(long sequence, ByteBuffer payload) {
+        int length = payload.remaining();
+        if (position + HEADER_BYTES + length > buffer.capacity()) {
+            return false;
+        }
+        crc.reset();
+        crc.update(payload.duplicate());
+        buffer.put(position + HEADER_BYTES, payload, payload.position(), length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        // The length goes last: until it is written the record does not exist
+        buffer.putInt(position, length);
+        position += HEADER_BYTES + length;
+        lastSequence = sequence;
+        records++;
+        return true;
+    }
+
+    /** Writes the mapped pages to disk. */
+    synchronized void force() {
+        if (!closed) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Writes the mapped pages of the bytes [from, to) to disk. Safe while another thread appends
+     * after {@code to}; does nothing once the segment is closed (it is forced in full before that).
+     * @param from The first byte.
+     * @param to   The end of the range (exclusive), at most getPosition().
+     */
+    synchronized void force(int from, int to) {
+        if (!closed && to > from) {
+            buffer.force(from, to - from);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /** @return The sequence number of the last valid record (firstSequence - 1 if empty). */
+    long getLastSequence() {
+        return lastSequence;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    /** @return The bytes written. */
+    int getPosition() {
+        return position;
+    }
+
+    /** @return true if the scan stopped at a damaged record rather than at the end of the data. */
+    boolean isTorn() {
+        return torn;
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%020d%s", firstSequence, SUFFIX);
+    }
+
+    static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,392 @@
+package journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import entities.Reservation;
+import jdbc.ParkingEvent;
+import logging.Log;
+import logging.Logger;
+
+/**
+ * JournalState is the parking lot state rebuilt from the EventJournal: the cars in the lot,
+ * the open reservations, the towed vehicles not yet collected and the number of events of
+ * each type since the journal started.
+ *
+ * apply(...) folds one event into the state, in journal order. write(...) stores the state
+ * as a snapshot file (snapshot-<sequence>.snap, checksummed) so that a restart only replays
+ * the events written after it; recover(...) loads the newest valid snapshot and replays the rest.
+ *
+ * Not thread-safe: the EventJournal updates its state under its own lock and hands copies to
+ * other threads.
+ */
+public final class JournalState {
+
+    private static final Logger log = Log.getLogger(JournalState.class);
+
+    static final String SNAPSHOT_PREFIX = "snapshot-";
+    static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int SNAPSHOT_MAGIC = 0x42504a53; // "BPJS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOTS_KEPT = 2;
+
+    /**
+     * A car in the lot, or a towed car (towedAt is set).
+     */
+    public static final class Parking {
+        private final String parkingCode;
+        private final String subscriberId;
+        private final int parkingSpot;
+        private final LocalDateTime entry;
+        private final LocalDateTime expectedExit;
+        private final boolean extended;
+        private final LocalDateTime towedAt;
+
+        Parking(String parkingCode, String subscriberId, int parkingSpot, LocalDateTime entry,
+                LocalDateTime expectedExit, boolean extended, LocalDateTime towedAt) {
+            this.parkingCode = parkingCode;
+            this.subscriberId = subscriberId;
+            this.parkingSpot = parkingSpot;
+            this.entry = entry;
+            this.expectedExit = expectedExit;
+            this.extended = extended;
+            this.towedAt = towedAt;
+        }
+
+        public String getParkingCode() {
+            return parkingCode;
+        }
+
+        public String getSubscriberId() {
+            return subscriberId;
+        }
+
+        public int getParkingSpot() {
+            return parkingSpot;
+        }
+
+        public LocalDateTime getEntry() {
+            return entry;
+        }
+
+        public LocalDateTime getExpectedExit() {
+            return expectedExit;
+        }
+
+        public boolean isExtended() {
+            return extended;
+        }
+
+        /** @return The time of the tow, or null for a car still in the lot. */
+        public LocalDateTime getTowedAt() {
+            return towedAt;
+        }
+    }
+
+    private long sequence;
+    private final Map<String, Parking> active = new HashMap<>();
+    private final Map<Integer, Reservation> reservations = new HashMap<>();
+    private final Map<String, Integer> reservationIdByCode = new HashMap<>();
+    private final Map<String, Parking> towed = new HashMap<>();
+    private final Map<ParkingEvent.Type, Long> totals = new EnumMap<>(ParkingEvent.Type.class);
+
+    /** Creates the state of an empty journal. */
+    public JournalState() {
+    }
+
+    /**
+     * Applies one event.
+     * @param entry The next event of the journal.
+     */
+    public void apply(JournalEntry entry) {
+        ParkingEvent e = entry.getEvent();
+        sequence = entry.getSequence();
+        totals.merge(e.getType(), 1L, Long::sum);
+        switch (e.getType()) {
+            case DROPOFF ->
+                active.put(e.getParkingCode(), new Parking(e.getParkingCode(), e.getSubscriberId(), e.getParkingSpot(),
+                        e.getStart(), e.getEnd(), false, null));
+            case RESERVATION_ACTIVATED -> {
+                Integer id = reservationIdByCode.remove(e.getParkingCode());
+                if (id != null) {
+                    reservations.remove(id);
+                }
+                active.put(e.getParkingCode(), new Parking(e.getParkingCode(), e.getSubscriberId(), e.getParkingSpot(),
+                        e.getStart(), e.getEnd(), false, null));
+            }
+            case EXTENDED -> {
+                Parking p = active.get(e.getParkingCode());
+                if (p != null) {
+                    active.put(p.parkingCode, new Parking(p.parkingCode, p.subscriberId, p.parkingSpot, p.entry,
+                            e.getEnd(), true, null));
+                }
+            }
+            case PICKUP -> active.remove(e.getParkingCode());
+            case TOWED -> {
+                Parking p = active.remove(e.getParkingCode());
+                towed.put(e.getParkingCode(), new Parking(e.getParkingCode(), e.getSubscriberId(), e.getParkingSpot(),
+                        e.getStart(), p != null ? p.expectedExit : null, p != null && p.extended, e.getOccurredAt()));
+            }
+            case TOWED_PICKUP, TOW_FINALIZED -> towed.remove(e.getParkingCode());
+            case RESERVATION_CREATED -> {
+                reservations.put(e.getReservationId(), new Reservation(e.getReservationId(), e.getSubscriberId(),
+                        e.getParkingCode(), e.getStart().toLocalDate(), e.getStart().toLocalTime(),
+                        e.getEnd().toLocalDate(), e.getEnd().toLocalTime(), e.getParkingSpot()));
+                reservationIdByCode.put(e.getParkingCode(), e.getReservationId());
+            }
+            case RESERVATION_RESCHEDULED -> {
+                Reservation r = reservations.get(e.getReservationId());
+                if (r != null) {
+                    reservations.put(r.getReservationId(), new Reservation(r.getReservationId(), r.getSubscriberId(),
+                            r.getParkingCode(), e.getStart().toLocalDate(), e.getStart().toLocalTime(),
+                            e.getEnd().toLocalDate(), e.getEnd().toLocalTime(), r.getParkingSpot()));
+                }
+            }
+            case RESERVATION_CANCELLED, RESERVATION_EXPIRED -> {
+                Integer id = e.getReservationId() != 0 ? Integer.valueOf(e.getReservationId())
+                        : reservationIdByCode.get(e.getParkingCode());
+                Reservation r = id == null ? null : reservations.remove(id);
+                if (r != null) {
+                    reservationIdByCode.remove(r.getParkingCode());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A copy that can be read or written while this state keeps changing.
+     */
+    public JournalState copy() {
+        JournalState copy = new JournalState();
+        copy.sequence = sequence;
+        copy.active.putAll(active);
+        copy.reservations.putAll(reservations);
+        copy.reservationIdByCode.putAll(reservationIdByCode);
+        copy.towed.putAll(towed);
+        copy.totals.putAll(totals);
+        return copy;
+    }
+
+    /** @return The sequence number of the last event applied (0 if none). */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /** @return The cars in the lot. */
+    public Collection<Parking> getActiveParkings() {
+        return Collections.unmodifiableCollection(active.values());
+    }
+
+    /** @return The reservations that were neither activated, cancelled nor expired. */
+    public Collection<Reservation> getReservations() {
+        return Collections.unmodifiableCollection(reservations.values());
+    }
+
+    /** @return The towed vehicles that were not collected or finalized yet. */
+    public Collection<Parking> getTowedVehicles() {
+        return Collections.unmodifiableCollection(towed.values());
+    }
+
+    /**
+     * @param type An event type.
+     * @return How many events of the type the journal holds.
+     */
+    public long getTotal(ParkingEvent.Type type) {
+        return totals.getOrDefault(type, 0L);
+    }
+
+    // ---------------------------------------------------------------- snapshots
+
+    /**
+     * Writes the state as a snapshot (through a temporary file, so a crash never leaves a
+     * partial snapshot) and deletes all but the newest snapshots.
+     * @param dir The journal directory.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public void write(Path dir) throws IOException {
+        Path target = dir.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream file = Files.newOutputStream(temp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), crc);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            writeParkings(out, active.values());
+            writeParkings(out, towed.values());
+            out.writeInt(reservations.size());
+            for (Reservation r : reservations.values()) {
+                out.writeInt(r.getReservationId());
+                writeString(out, r.getSubscriberId());
+                writeString(out, r.getParkingCode());
+                writeTime(out, LocalDateTime.of(r.getEntryDate(), r.getEntryTime()));
+                writeTime(out, LocalDateTime.of(r.getExitDate(), r.getExitTime()));
+                out.writeInt(r.getParkingSpot());
+            }
+            out.writeInt(totals.size());
+            for (Map.Entry<ParkingEvent.Type, Long> total : totals.entrySet()) {
+                writeString(out, total.getKey().name());
+                out.writeLong(total.getValue());
+            }
+            out.flush();
+            // The checksum covers everything before it
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.flush();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        List<Path> snapshots = snapshots(dir);
+        for (int i = 0; i < snapshots.size() - SNAPSHOTS_KEPT; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    /**
+     * Reads a snapshot file.
+     * @param path The snapshot.
+     * @return The state it holds.
+     * @throws IOException if the file cannot be read or fails its checksum.
+     */
+    static JournalState read(Path path) throws IOException {
+        CRC32C crc = new CRC32C();
+        JournalState state = new JournalState();
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path));
+             CheckedInputStream checked = new CheckedInputStream(file, crc)) {
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a journal snapshot: " + path);
+            }
+            state.sequence = in.readLong();
+            for (Parking p : readParkings(in)) {
+                state.active.put(p.parkingCode, p);
+            }
+            for (Parking p : readParkings(in)) {
+                state.towed.put(p.parkingCode, p);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                String subscriberId = readString(in);
+                String code = readString(in);
+                LocalDateTime entry = readTime(in);
+                LocalDateTime exit = readTime(in);
+                int spot = in.readInt();
+                state.reservations.put(id, new Reservation(id, subscriberId, code, entry.toLocalDate(), entry.toLocalTime(),
+                        exit.toLocalDate(), exit.toLocalTime(), spot));
+                state.reservationIdByCode.put(code, id);
+            }
+            count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                state.totals.put(ParkingEvent.Type.valueOf(readString(in)), in.readLong());
+            }
+            long expected = crc.getValue();
+            if (new DataInputStream(file).readLong() != expected) {
+                throw new IOException("Checksum mismatch in " + path);
+            }
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IOException("Invalid journal snapshot " + path, e);
+        }
+        return state;
+    }
+
+    /**
+     * Rebuilds the state: the newest readable snapshot plus the events written after it.
+     * @param dir The journal directory.
+     * @return The state at the end of the journal.
+     * @throws IOException if the journal cannot be read.
+     */
+    public static JournalState recover(Path dir) throws IOException {
+        JournalState state = new JournalState();
+        List<Path> snapshots = snapshots(dir);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                state = read(snapshots.get(i));
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable journal snapshot", "file", snapshots.get(i), "error", e.getMessage());
+            }
+        }
+        EventJournal.replay(dir, state.sequence, state::apply);
+        return state;
+    }
+
+    /**
+     * @return The snapshot files of the directory, oldest first.
+     */
+    static List<Path> snapshots(Path dir) throws IOException {
+        List<Path> list = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return list;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            files.forEach(list::add);
+        }
+        Collections.sort(list);
+        return list;
+    }
+
+    private static void writeParkings(DataOutputStream out, Collection<Parking> parkings) throws IOException {
+        out.writeInt(parkings.size());
+        for (Parking p : parkings) {
+            writeString(out, p.parkingCode);
+            writeString(out, p.subscriberId);
+            out.writeInt(p.parkingSpot);
+            writeTime(out, p.entry);
+            writeTime(out, p.expectedExit);
+            out.writeBoolean(p.extended);
+            writeTime(out, p.towedAt);
+        }
+    }
+
+    private static List<Parking> readParkings(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Parking> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(new Parking(readString(in), readString(in), in.readInt(), readTime(in), readTime(in),
+                    in.readBoolean(), readTime(in)));
+        }
+        return list;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time == null ? Long.MIN_VALUE : time.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long millis = in.readLong();
+        return millis == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,29 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count (e.g. requests served), safe to update from any thread.
+ */
+public class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    /** Adds one. */
+    public void inc() {
+        value.increment();
+    }
+
+    /**
+     * Adds the given amount.
+     * @param amount The amount to add (must not be negative).
+     */
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    /** @return The current count. */
+    public long get() {
+        return value.sum();
+    }
+}
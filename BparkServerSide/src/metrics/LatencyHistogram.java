@@ -0,0 +1,101 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram records durations in microseconds with about 1.5% precision
+ * (HDR-style log buckets): exact buckets up to 127 µs, then 64 sub-buckets per power of two.
+ * Recording is lock-free and costs one atomic increment, so it can be used on every request.
+ * Values above ~2^47 µs (4 years) are counted in the last bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int LINEAR = 128;
+    private static final int SUB_BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + 40 * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Adds one measurement.
+     * @param micros The duration in microseconds (negative values count as 0).
+     */
+    public void record(long micros) {
+        long v = Math.max(0, micros);
+        counts.incrementAndGet(Math.min(index(v), counts.length() - 1));
+        count.increment();
+        sum.add(v);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * Adds one measurement given in nanoseconds.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * Returns the value at the given percentile, rounded down to its bucket.
+     * @param p The percentile (0-100).
+     * @return The value in microseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double p) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(lowerBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** @return The number of measurements. */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** @return The sum of all measurements in microseconds. */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /** @return The largest measurement in microseconds. */
+    public long getMax() {
+        return max.get();
+    }
+
+    private static int index(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) ((v >> (magnitude - 6)) & (SUB_BUCKETS - 1));
+        return LINEAR + (magnitude - 7) * SUB_BUCKETS + sub;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int magnitude = (index - LINEAR) / SUB_BUCKETS + 7;
+        int sub = (index - LINEAR) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (magnitude - 6);
+    }
+}
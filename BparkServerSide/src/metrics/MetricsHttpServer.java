@@ -0,0 +1,141 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jdbc.SlowQueryLog;
+import tracing.TraceRecorder;
+
+/**
+ * MetricsHttpServer exposes the MetricsRegistry over HTTP for Prometheus:
+ * GET /metrics returns every metric in the Prometheus text format.
+ * GET /traces returns the recorded request timelines (see tracing.TraceRecorder), with the
+ * optional parameters limit (default 20), min (milliseconds, default 0) and order (slowest or recent).
+ * GET /queries returns the SQL statements with the highest total execution time (see jdbc.SlowQueryLog),
+ * with the optional parameter limit (default 20).
+ * It uses the JDK's built-in HTTP server on a single daemon thread, so it adds no dependency
+ * and never competes with the OCSF request threads. By default it only listens on 127.0.0.1.
+ */
+public class MetricsHttpServer {
+
+    /** Default port (the one commonly used by Prometheus exporters for Java applications). */
+    public static final int DEFAULT_PORT = 9404;
+
+    private final HttpServer server;
+
+    private MetricsHttpServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Starts the metrics endpoint.
+     * @param bindAddress The address to listen on (e.g. 127.0.0.1, or 0.0.0.0 for all interfaces).
+     * @param port        The port to listen on.
+     * @return The running endpoint.
+     * @throws IOException if the port cannot be opened.
+     */
+    public static MetricsHttpServer start(String bindAddress, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.createContext("/metrics", MetricsHttpServer::handleMetrics);
+        server.createContext("/traces", MetricsHttpServer::handleTraces);
+        server.createContext("/queries", MetricsHttpServer::handleQueries);
+        server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metrics-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        server.start();
+        System.out.println("[Metrics] Serving http://" + bindAddress + ":" + server.getAddress().getPort() + "/metrics");
+        return new MetricsHttpServer(server);
+    }
+
+    /**
+     * Starts the endpoint, logging (instead of throwing) if the port cannot be opened,
+     * since the server is useful without metrics.
+     * @param bindAddress The address to listen on.
+     * @param port        The port to listen on.
+     * @return The running endpoint, or null if it could not be started.
+     */
+    public static MetricsHttpServer startQuietly(String bindAddress, int port) {
+        try {
+            return start(bindAddress, port);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("[Metrics] Could not start metrics endpoint on " + bindAddress + ":" + port + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Stops the endpoint. */
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        respond(exchange, "text/plain; version=0.0.4; charset=utf-8", () -> MetricsRegistry.getInstance().scrape());
+    }
+
+    private static void handleTraces(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parameters(exchange);
+        respond(exchange, "text/plain; charset=utf-8", () -> {
+            int limit = Integer.parseInt(params.getOrDefault("limit", "20"));
+            double minMillis = Double.parseDouble(params.getOrDefault("min", "0"));
+            boolean slowest = !"recent".equals(params.get("order"));
+            return TraceRecorder.getInstance().dumpTimeline(limit, minMillis, slowest);
+        });
+    }
+
+    private static void handleQueries(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parameters(exchange);
+        respond(exchange, "text/plain; charset=utf-8",
+                () -> SlowQueryLog.report(Integer.parseInt(params.getOrDefault("limit", "20"))));
+    }
+
+    private static Map<String, String> parameters(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    params.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> content) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try {
+                body = content.get().getBytes(StandardCharsets.UTF_8);
+            } catch (NumberFormatException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
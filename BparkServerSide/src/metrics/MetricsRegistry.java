@@ -0,0 +1,171 @@
+package metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * MetricsRegistry is the in-process store of the server metrics.
+ * Metrics are grouped in families (one name, help text and type) whose members are told apart
+ * by labels, e.g. bpark_requests_total{command="GET_HISTORY"}. Members are created on first use,
+ * so instrumented code simply asks for the metric every time it needs it:
+ *
+ *   MetricsRegistry.getInstance().counter("bpark_requests_total", "Requests handled", "command", name).inc();
+ *
+ * scrape() renders every metric in the Prometheus text format (see MetricsHttpServer).
+ * Latency histograms are exported as summaries (quantiles 0.5 / 0.9 / 0.99 / 0.999, in seconds).
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry instance = new MetricsRegistry();
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    /** Families sorted by name, so the output is stable between scrapes. */
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private static final class Family {
+        final String name;
+        final String help;
+        final String type;
+        // Members keyed by their rendered label text (e.g. command="GET_HISTORY")
+        final Map<String, Object> members = new ConcurrentSkipListMap<>();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * Returns the singleton instance of the registry.
+     * @return The registry.
+     */
+    public static MetricsRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns (creating it if needed) a counter.
+     * @param name   The metric name (e.g. bpark_requests_total).
+     * @param help   A one-line description.
+     * @param labels Label names and values, alternating (name1, value1, name2, value2...).
+     * @return The counter for these labels.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, "counter").members.computeIfAbsent(labelText(labels), k -> new Counter());
+    }
+
+    /**
+     * Returns (creating it if needed) a latency histogram, exported as a summary in seconds.
+     * @param name   The metric name (e.g. bpark_request_duration_seconds).
+     * @param help   A one-line description.
+     * @param labels Label names and values, alternating.
+     * @return The histogram for these labels.
+     */
+    public LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, "summary").members.computeIfAbsent(labelText(labels),
+                k -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers (or replaces) a gauge whose value is read at scrape time.
+     * The supplier must be cheap and must not block (it runs on the HTTP thread).
+     * @param name   The metric name (e.g. bpark_connected_clients).
+     * @param help   A one-line description.
+     * @param value  Supplies the current value.
+     * @param labels Label names and values, alternating.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge").members.put(labelText(labels), value);
+    }
+
+    private Family family(String name, String help, String type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, k -> new Family(name, help, type));
+        }
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is a " + family.type + ", not a " + type);
+        }
+        return family;
+    }
+
+    private static String labelText(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(labels[i]).append("=\"");
+            String value = labels[i + 1] == null ? "" : labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                switch (c) {
+                    case '\\' -> text.append("\\\\");
+                    case '"' -> text.append("\\\"");
+                    case '\n' -> text.append("\\n");
+                    default -> text.append(c);
+                }
+            }
+            text.append('"');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format (version 0.0.4).
+     * @return The metrics text.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+        for (Family family : families.values()) {
+            out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> member : family.members.entrySet()) {
+                String labels = member.getKey();
+                Object metric = member.getValue();
+                if (metric instanceof Counter counter) {
+                    sample(out, family.name, labels, counter.get());
+                } else if (metric instanceof DoubleSupplier gauge) {
+                    double value;
+                    try {
+                        value = gauge.getAsDouble();
+                    } catch (RuntimeException e) {
+                        value = Double.NaN;
+                    }
+                    sample(out, family.name, labels, value);
+                } else if (metric instanceof LatencyHistogram histogram) {
+                    String prefix = labels.isEmpty() ? "" : labels + ",";
+                    for (double q : QUANTILES) {
+                        sample(out, family.name, prefix + "quantile=\"" + q + "\"", histogram.percentile(q * 100) / 1e6);
+                    }
+                    sample(out, family.name + "_sum", labels, histogram.getSum() / 1e6);
+                    sample(out, family.name + "_count", labels, histogram.getCount());
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,141 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ServerMetrics defines the metrics recorded by the server and the calls that record them,
+ * so the instrumented classes (EchoServer, DBExecutor, SchedulerController, NotificationController)
+ * stay one line each and every metric name is declared in one place.
+ *
+ * Requests:   bpark_requests_total, bpark_request_errors_total, bpark_request_duration_seconds,
+ *             bpark_requests_replayed_total (by command)
+ * Database:   bpark_db_operations_total, bpark_db_errors_total, bpark_db_connection_wait_seconds,
+ *             bpark_db_operation_duration_seconds
+ * Group commit: bpark_group_commits_total, bpark_group_commit_operations_total, bpark_group_commit_fallbacks_total,
+ *             bpark_group_commit_wait_seconds, bpark_group_commit_duration_seconds
+ * Scheduler:  bpark_job_runs_total, bpark_job_errors_total, bpark_job_duration_seconds,
+ *             bpark_job_last_success_timestamp_seconds (by job)
+ * E-mail:     bpark_emails_total, bpark_email_errors_total, bpark_email_send_duration_seconds (by type)
+ * JVM:        bpark_jvm_heap_used_bytes, bpark_jvm_threads
+ */
+public final class ServerMetrics {
+
+    /** Commands beyond this many distinct names are counted as "OTHER" (protects against unbounded labels). */
+    private static final int MAX_COMMANDS = 200;
+
+    private static final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private static final Set<String> knownCommands = ConcurrentHashMap.newKeySet();
+
+    static {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("bpark_jvm_heap_used_bytes", "Heap memory in use", () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("bpark_jvm_threads", "Live JVM threads", threads::getThreadCount);
+    }
+
+    private ServerMetrics() {
+    }
+
+    /**
+     * Records one client request handled by EchoServer.
+     * @param command The command name (string command before '|', or the request class name).
+     * @param nanos   The time spent handling it, including sending the reply.
+     * @param failed  True if handling ended with an exception.
+     */
+    public static void requestCompleted(String command, long nanos, boolean failed) {
+        if (!knownCommands.contains(command)) {
+            command = knownCommands.size() < MAX_COMMANDS && knownCommands.add(command) ? command : "OTHER";
+        }
+        registry.counter("bpark_requests_total", "Client requests handled", "command", command).inc();
+        if (failed) {
+            registry.counter("bpark_request_errors_total", "Client requests that ended with an exception", "command", command).inc();
+        }
+        registry.histogram("bpark_request_duration_seconds", "Time to handle a client request", "command", command)
+                .recordNanos(nanos);
+    }
+
+    /**
+     * Records a resent request answered from the idempotency cache instead of being processed again.
+     * @param command The command name of the wrapped request.
+     */
+    public static void requestReplayed(String command) {
+        if (!knownCommands.contains(command)) {
+            command = "OTHER";
+        }
+        registry.counter("bpark_requests_replayed_total", "Resent requests answered with the first reply", "command", command).inc();
+    }
+
+    /**
+     * Records one DBExecutor operation.
+     * @param waitNanos The time spent getting a connection from the pool.
+     * @param nanos     The time spent running the operation on the connection.
+     * @param failed    True if the operation threw.
+     */
+    public static void dbOperationCompleted(long waitNanos, long nanos, boolean failed) {
+        registry.counter("bpark_db_operations_total", "Database operations run through DBExecutor").inc();
+        if (failed) {
+            registry.counter("bpark_db_errors_total", "Database operations that threw").inc();
+        }
+        registry.histogram("bpark_db_connection_wait_seconds", "Time to get a connection from the pool").recordNanos(waitNanos);
+        registry.histogram("bpark_db_operation_duration_seconds", "Time a database operation held its connection")
+                .recordNanos(nanos);
+    }
+
+    /**
+     * Records one batch committed by jdbc.GroupCommitter.
+     * @param operations The gate operations in the batch.
+     * @param nanos      The time from the first statement of the batch to the end of its commit.
+     * @param fallback   True if the shared commit failed and the operations were retried one by one.
+     */
+    public static void groupCommitCompleted(int operations, long nanos, boolean fallback) {
+        registry.counter("bpark_group_commits_total", "Batched gate transactions").inc();
+        registry.counter("bpark_group_commit_operations_total", "Gate operations committed in batches").add(operations);
+        if (fallback) {
+            registry.counter("bpark_group_commit_fallbacks_total", "Batches retried one operation at a time").inc();
+        }
+        registry.histogram("bpark_group_commit_duration_seconds", "Time to run and commit a batch").recordNanos(nanos);
+    }
+
+    /**
+     * Records how long a gate operation waited for its batch to be committed.
+     * @param nanos The time from submission to the commit.
+     */
+    public static void groupCommitWaited(long nanos) {
+        registry.histogram("bpark_group_commit_wait_seconds", "Time a gate operation waited for its batch").recordNanos(nanos);
+    }
+
+    /**
+     * Records one run of a scheduled job.
+     * @param job    The job name (e.g. towing_check).
+     * @param nanos  The run time.
+     * @param failed True if the run threw.
+     */
+    public static void jobCompleted(String job, long nanos, boolean failed) {
+        registry.counter("bpark_job_runs_total", "Scheduled job runs", "job", job).inc();
+        if (failed) {
+            registry.counter("bpark_job_errors_total", "Scheduled job runs that threw", "job", job).inc();
+        } else {
+            double now = System.currentTimeMillis() / 1000.0;
+            registry.gauge("bpark_job_last_success_timestamp_seconds", "Unix time of the last successful run", () -> now, "job", job);
+        }
+        registry.histogram("bpark_job_duration_seconds", "Scheduled job run time", "job", job).recordNanos(nanos);
+    }
+
+    /**
+     * Records one e-mail sent (or attempted) by NotificationController.
+     * @param type   The kind of e-mail (e.g. password, towing_notice).
+     * @param nanos  The time spent in the SMTP send.
+     * @param failed True if sending failed.
+     */
+    public static void emailCompleted(String type, long nanos, boolean failed) {
+        registry.counter("bpark_emails_total", "E-mails sent or attempted", "type", type).inc();
+        if (failed) {
+            registry.counter("bpark_email_errors_total", "E-mails that could not be sent", "type", type).inc();
+        }
+        registry.histogram("bpark_email_send_duration_seconds", "SMTP send time", "type", type).recordNanos(nanos);
+    }
+}
@@ -0,0 +1,158 @@
+package policy;
+
+/**
+ * ParkingPolicy holds the business rules of the lot that used to be hard-coded in
+ * mysqlConnection, InMemoryParkingRepository and EchoServer:
+ *
+ * - sessionMinutes:       how long a parking (walk-in or reservation) lasts (240).
+ * - extensionMinutes:     how much one extension adds; a parking can be extended once (240).
+ * - arrivalWindowMinutes: how early a reserved car may arrive, and how late before the
+ *                         reservation expires (15).
+ * - reservationCap:       a new reservation is refused when the reservations overlapping its
+ *                         window exceed this share of the lot (0.6).
+ * - capWindowHours:       the window checked for the cap: the reservation plus a possible
+ *                         extension (8).
+ * - towGraceMinutes:      a car is towed this long after its time (and extension) ran out (1,
+ *                         i.e. after 241 / 481 minutes).
+ *
+ * The server reads the rules from getCurrent(), set at startup from the policy.* settings of
+ * server.properties (see ServerConfig.getParkingPolicy). The instances are immutable; the
+ * with... methods return a copy with one rule changed, which tools.CapacitySimulator uses to
+ * compare settings side by side.
+ */
+public final class ParkingPolicy {
+
+    /** The rules the lot has always used. */
+    public static final ParkingPolicy DEFAULT = new ParkingPolicy(240, 240, 15, 0.6, 8, 1);
+
+    private static volatile ParkingPolicy current = DEFAULT;
+
+    private final int sessionMinutes;
+    private final int extensionMinutes;
+    private final int arrivalWindowMinutes;
+    private final double reservationCap;
+    private final int capWindowHours;
+    private final int towGraceMinutes;
+
+    /**
+     * Creates a policy.
+     * @param sessionMinutes       The length of a parking.
+     * @param extensionMinutes     The time added by an extension.
+     * @param arrivalWindowMinutes The arrival window around a reservation's entry time.
+     * @param reservationCap       The largest share of the lot that may be reserved (0..1).
+     * @param capWindowHours       The window checked against the cap.
+     * @param towGraceMinutes      The delay between the end of a parking and the tow.
+     */
+    public ParkingPolicy(int sessionMinutes, int extensionMinutes, int arrivalWindowMinutes, double reservationCap,
+            int capWindowHours, int towGraceMinutes) {
+        if (sessionMinutes <= 0 || extensionMinutes < 0 || arrivalWindowMinutes < 0 || capWindowHours <= 0
+                || towGraceMinutes < 0 || reservationCap < 0 || reservationCap > 1) {
+            throw new IllegalArgumentException("Invalid parking policy: session=" + sessionMinutes + " extension="
+                    + extensionMinutes + " arrival=" + arrivalWindowMinutes + " cap=" + reservationCap
+                    + " capWindow=" + capWindowHours + " towGrace=" + towGraceMinutes);
+        }
+        this.sessionMinutes = sessionMinutes;
+        this.extensionMinutes = extensionMinutes;
+        this.arrivalWindowMinutes = arrivalWindowMinutes;
+        this.reservationCap = reservationCap;
+        this.capWindowHours = capWindowHours;
+        this.towGraceMinutes = towGraceMinutes;
+    }
+
+    /** @return The policy the server applies. */
+    public static ParkingPolicy getCurrent() {
+        return current;
+    }
+
+    /**
+     * Replaces the policy the server applies.
+     * @param policy The new rules.
+     */
+    public static void setCurrent(ParkingPolicy policy) {
+        current = policy;
+    }
+
+    /** @return The length of a parking in minutes. */
+    public int getSessionMinutes() {
+        return sessionMinutes;
+    }
+
+    /** @return The minutes added by the (single) extension. */
+    public int getExtensionMinutes() {
+        return extensionMinutes;
+    }
+
+    /** @return How many minutes before (and after) its entry time a reservation can be activated. */
+    public int getArrivalWindowMinutes() {
+        return arrivalWindowMinutes;
+    }
+
+    /** @return The largest share of the lot that may be reserved at once. */
+    public double getReservationCap() {
+        return reservationCap;
+    }
+
+    /** @return The hours after a requested entry time counted against the cap. */
+    public int getCapWindowHours() {
+        return capWindowHours;
+    }
+
+    /** @return The minutes between the end of a parking and the tow. */
+    public int getTowGraceMinutes() {
+        return towGraceMinutes;
+    }
+
+    /**
+     * @param extended Whether the parking was extended.
+     * @return How many minutes after entry a car is towed.
+     */
+    public int towAfterMinutes(boolean extended) {
+        return sessionMinutes + (extended ? extensionMinutes : 0) + towGraceMinutes;
+    }
+
+    /**
+     * Applies the reservation cap.
+     * @param overlapping The reservations overlapping the requested window.
+     * @param totalSpots  The number of spots in the lot.
+     * @return true if one more reservation may be accepted.
+     */
+    public boolean acceptsReservation(int overlapping, int totalSpots) {
+        return totalSpots > 0 && (double) overlapping / totalSpots <= reservationCap;
+    }
+
+    /** @return A copy of this policy with another session length. */
+    public ParkingPolicy withSessionMinutes(int minutes) {
+        return new ParkingPolicy(minutes, extensionMinutes, arrivalWindowMinutes, reservationCap, capWindowHours, towGraceMinutes);
+    }
+
+    /** @return A copy of this policy with another extension length. */
+    public ParkingPolicy withExtensionMinutes(int minutes) {
+        return new ParkingPolicy(sessionMinutes, minutes, arrivalWindowMinutes, reservationCap, capWindowHours, towGraceMinutes);
+    }
+
+    /** @return A copy of this policy with another arrival window. */
+    public ParkingPolicy withArrivalWindowMinutes(int minutes) {
+        return new ParkingPolicy(sessionMinutes, extensionMinutes, minutes, reservationCap, capWindowHours, towGraceMinutes);
+    }
+
+    /** @return A copy of this policy with another reservation cap. */
+    public ParkingPolicy withReservationCap(double cap) {
+        return new ParkingPolicy(sessionMinutes, extensionMinutes, arrivalWindowMinutes, cap, capWindowHours, towGraceMinutes);
+    }
+
+    /** @return A copy of this policy with another cap window. */
+    public ParkingPolicy withCapWindowHours(int hours) {
+        return new ParkingPolicy(sessionMinutes, extensionMinutes, arrivalWindowMinutes, reservationCap, hours, towGraceMinutes);
+    }
+
+    /** @return A copy of this policy with another tow grace period. */
+    public ParkingPolicy withTowGraceMinutes(int minutes) {
+        return new ParkingPolicy(sessionMinutes, extensionMinutes, arrivalWindowMinutes, reservationCap, capWindowHours, minutes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cap=%.2f capWindow=%dh session=%dm extension=%dm arrival=%dm towGrace=%dm",
+                reservationCap, capWindowHours, sessionMinutes, extensionMinutes, arrivalWindowMinutes, towGraceMinutes);
+    }
+}
@@ -0,0 +1,901 @@
+package repository;
+
+import java.sql.Time;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import clock.TimeSource;
+import entities.ActiveParking;
+import entities.ParkingHistory;
+import entities.Reservation;
+import entities.Subscriber;
+import jdbc.DailyRollups;
+import jdbc.ParkingEvent;
+import jdbc.ParkingEvents;
+import jdbc.SiteActivitySnapshot;
+import jdbc.SpotSelector;
+import jdbc.mysqlConnection;
+import journal.JournalState;
+import policy.ParkingPolicy;
+import response.DailyReportRow;
+import response.DailySubscriberCount;
+import response.GetSiteActivityResponse;
+import response.ParkingDurationRecord;
+
+/**
+ * InMemoryParkingRepository keeps the whole parking lot in memory, so the EchoServer
+ * can be load-tested and benchmarked without a database.
+ *
+ * How it works:
+ * - Every table has a concurrent map (subscribers, spots, active parkings, reservations,
+ *   towed vehicles, history) plus the indexes the hot requests need (active parkings per
+ *   subscriber and per spot, reservations per code, per spot and by entry time).
+ * - Lookups read the concurrent maps without locking.
+ * - Every change that touches more than one map (drop-off, pickup, activation, towing,
+ *   reservation changes) runs under one lock, which plays the role of a database
+ *   transaction; those sections are short and never do I/O.
+ * - The business rules (4-hour sessions, 15-minute arrival window, towing after 241 / 481
+ *   minutes, late-count handling, report durations) and the result strings are the same
+ *   as in mysqlConnection, and the same ParkingEvents are published. The rules come from a
+ *   ParkingPolicy and the time from TimeSource, unless the constructor is given its own.
+ * - No e-mails are sent; towing only updates the state.
+ *
+ * Use addParkingSpots, addSubscriber and addEmployee to seed the lot before a test.
+ */
+public class InMemoryParkingRepository implements ParkingRepository {
+
+    private final ParkingPolicy policy;
+    private final Clock clock;
+
+    /**
+     * A vehicle currently in the lot (a row of active_parkings).
+     */
+    private static final class Session {
+        final String parkingCode;
+        final String subscriberId;
+        final int spot;
+        final LocalDateTime entry;
+        volatile LocalDateTime expectedExit;
+        volatile boolean extended;
+
+        Session(String parkingCode, String subscriberId, int spot, LocalDateTime entry, LocalDateTime expectedExit) {
+            this.parkingCode = parkingCode;
+            this.subscriberId = subscriberId;
+            this.spot = spot;
+            this.entry = entry;
+            this.expectedExit = expectedExit;
+        }
+    }
+
+    /**
+     * A towed vehicle waiting to be picked up (a row of towed_vehicles).
+     */
+    private static final class Towed {
+        final Session session;
+        final String vehicleNumber;
+        final LocalDateTime towedAt;
+
+        Towed(Session session, String vehicleNumber, LocalDateTime towedAt) {
+            this.session = session;
+            this.vehicleNumber = vehicleNumber;
+            this.towedAt = towedAt;
+        }
+    }
+
+    /**
+     * Report totals of one entry day (a row of parking_daily_rollups).
+     */
+    private static final class DayTotals {
+        long duration;
+        long lateDuration;
+        long extendedDuration;
+        int sessions;
+        final Set<String> subscribers = new HashSet<>();
+    }
+
+    // Guards every change that spans more than one map
+    private final Object writeLock = new Object();
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<String, String[]> employees = new ConcurrentHashMap<>(); // username -> {password, role, email}
+
+    private final Map<Integer, String> spotStatus = new ConcurrentHashMap<>();
+    private final NavigableSet<Integer> availableSpots = new ConcurrentSkipListSet<>();
+    private final AtomicInteger availableCount = new AtomicInteger();
+
+    private final Map<String, Session> activeByCode = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> activeCodesBySubscriber = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<String>> activeCodesBySpot = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Reservation> reservationsById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> reservationIdByCode = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> reservationIdsBySpot = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDateTime, Set<Integer>> reservationIdsByEntry = new ConcurrentSkipListMap<>();
+    private final AtomicLong longestReservationMinutes = new AtomicLong();
+
+    private final Map<String, Towed> towedByCode = new ConcurrentHashMap<>();
+
+    private final Map<String, Queue<ParkingHistory>> historyBySubscriber = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, DayTotals> dailyTotals = new ConcurrentSkipListMap<>();
+
+    private final AtomicInteger nextReservationId = new AtomicInteger(1);
+    private final AtomicInteger nextHistoryId = new AtomicInteger(1);
+
+    // Site activity response, rebuilt when the data changed or a listed reservation started
+    private final AtomicLong dataVersion = new AtomicLong();
+    private GetSiteActivityResponse siteActivity;
+    private long siteActivityDataVersion = -1;
+    private LocalDateTime siteActivityValidUntil;
+    private long siteActivityVersion = SiteActivitySnapshot.initialVersion();
+
+    /**
+     * Creates an empty lot that follows the server's rules (ParkingPolicy.getCurrent()) and clock (TimeSource).
+     */
+    public InMemoryParkingRepository() {
+        this(ParkingPolicy.getCurrent(), null);
+    }
+
+    /**
+     * Creates an empty lot with its own rules and clock, so that several lots can be simulated
+     * side by side (see tools.CapacitySimulator).
+     * @param policy The business rules.
+     * @param clock  The clock, or null to read TimeSource.
+     */
+    public InMemoryParkingRepository(ParkingPolicy policy, Clock clock) {
+        this.policy = policy;
+        this.clock = clock;
+        longestReservationMinutes.set(policy.getSessionMinutes());
+    }
+
+    // ---------------------------------------------------------------- seeding
+
+    /**
+     * Adds available parking spots numbered 1..count (existing spots are kept).
+     * @param count The number of spots in the lot.
+     */
+    public void addParkingSpots(int count) {
+        synchronized (writeLock) {
+            for (int spot = 1; spot <= count; spot++) {
+                if (spotStatus.putIfAbsent(spot, "available") == null) {
+                    availableSpots.add(spot);
+                    availableCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds (or replaces) a subscriber with a known subscription code.
+     * @param subscriber The subscriber to store.
+     */
+    public void addSubscriber(Subscriber subscriber) {
+        subscribers.put(subscriber.getSubscriber_id(), subscriber);
+    }
+
+    /**
+     * Adds (or replaces) an employee account.
+     * @param username The login name.
+     * @param password The password.
+     * @param role     "manager" or "attendant".
+     * @param email    The e-mail used for password resets.
+     */
+    public void addEmployee(String username, String password, String role, String email) {
+        employees.put(username, new String[] { password, role, email });
+    }
+
+    /**
+     * Loads the state rebuilt from the event journal: the cars in the lot (their spots become
+     * occupied), the open reservations and the towed vehicles. Call after seeding the spots
+     * and subscribers and before serving requests.
+     * @param state The state at the end of the journal.
+     */
+    public void restore(JournalState state) {
+        synchronized (writeLock) {
+            for (JournalState.Parking p : state.getActiveParkings()) {
+                Session session = new Session(p.getParkingCode(), p.getSubscriberId(), p.getParkingSpot(),
+                        p.getEntry(), p.getExpectedExit());
+                session.extended = p.isExtended();
+                addSession(session);
+                setSpotStatus(session.spot, "occupied");
+            }
+            for (Reservation r : state.getReservations()) {
+                addReservation(r);
+                nextReservationId.accumulateAndGet(r.getReservationId() + 1, Math::max);
+            }
+            for (JournalState.Parking p : state.getTowedVehicles()) {
+                Subscriber owner = subscribers.get(p.getSubscriberId());
+                Session session = new Session(p.getParkingCode(), p.getSubscriberId(), p.getParkingSpot(),
+                        p.getEntry(), p.getExpectedExit());
+                towedByCode.put(p.getParkingCode(), new Towed(session, owner != null ? owner.getVehicle_number1() : null,
+                        p.getTowedAt()));
+            }
+        }
+    }
+
+    /**
+     * Nothing to prepare; the repository is ready as soon as it is constructed.
+     */
+    @Override
+    public boolean initialize() {
+        return true;
+    }
+
+    // ---------------------------------------------------------------- subscribers
+
+    @Override
+    public boolean doesSubscriberExist(String idNumber) {
+        return subscribers.containsKey(idNumber);
+    }
+
+    @Override
+    public boolean registerSubscriber(String firstName, String lastName, String idNumber, String email,
+            String phone, String vehicleNumber1, String creditCard) {
+        String code = "SUB" + String.format("%06d", (int) (Math.random() * 1_000_000));
+        Subscriber subscriber = new Subscriber(idNumber, firstName + " " + lastName, email, phone,
+                vehicleNumber1, code, 0, creditCard);
+        return subscribers.putIfAbsent(idNumber, subscriber) == null;
+    }
+
+    @Override
+    public String getSubscriberInfo(String subscriberId) {
+        Subscriber s = subscribers.get(subscriberId);
+        if (s == null) {
+            return "Subscriber not found.";
+        }
+        return "Subscriber ID: " + s.getSubscriber_id() + "\n"
+                + "Full Name: " + s.getFull_name() + "\n"
+                + "Email: " + s.getEmail() + "\n"
+                + "Phone: " + s.getPhone() + "\n"
+                + "Vehicle #1: " + s.getVehicle_number1() + "\n"
+                + "Subscription Code: " + s.getSubscription_code() + "\n"
+                + "Late Count: " + s.getLateCount() + "\n"
+                + "Credit Card: " + s.getCredit_card() + "\n";
+    }
+
+    @Override
+    public Subscriber getSubscriberById(String id) {
+        return subscribers.get(id);
+    }
+
+    @Override
+    public boolean updateSubscriberContactInfo(String id, String email, String phone) {
+        return subscribers.computeIfPresent(id, (key, s) -> new Subscriber(s.getSubscriber_id(), s.getFull_name(),
+                email, phone, s.getVehicle_number1(), s.getSubscription_code(), s.getLateCount(), s.getCredit_card())) != null;
+    }
+
+    @Override
+    public boolean checkLogin(String id, String code) {
+        Subscriber s = subscribers.get(id);
+        return s != null && code != null && code.equalsIgnoreCase(s.getSubscription_code());
+    }
+
+    @Override
+    public String checkLoginManagement(String username, String password) {
+        String[] employee = employees.get(username);
+        if (employee == null || !employee[0].equals(password)) {
+            return null;
+        }
+        return employee[1].toLowerCase();
+    }
+
+    @Override
+    public String getPasswordForEmail(String email) {
+        for (String[] employee : employees.values()) {
+            if (email != null && email.equals(employee[2])) {
+                return employee[0];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String subscriptionCodeForEmail(String email) {
+        Subscriber s = findSubscriberByEmail(email);
+        return s == null ? null : s.getSubscription_code();
+    }
+
+    @Override
+    public String parkingCodeForEmail(String email) {
+        Subscriber s = findSubscriberByEmail(email);
+        if (s == null) {
+            return null;
+        }
+        Set<String> codes = activeCodesBySubscriber.get(s.getSubscriber_id());
+        if (codes == null) {
+            return null;
+        }
+        for (String code : codes) {
+            return code;
+        }
+        return null;
+    }
+
+    private Subscriber findSubscriberByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        for (Subscriber s : subscribers.values()) {
+            if (email.equals(s.getEmail())) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- parking spots
+
+    @Override
+    public List<String> getAvailableSpots() {
+        List<String> list = new ArrayList<>();
+        for (Integer spot : availableSpots) {
+            list.add("Parking Spot #" + spot + " is available.");
+        }
+        return list;
+    }
+
+    @Override
+    public int getTotalParkingSpots() {
+        return spotStatus.size();
+    }
+
+    @Override
+    public int getAvailableSpotsCount() {
+        return availableCount.get();
+    }
+
+    @Override
+    public int findAvailableSpot() {
+        Integer spot = availableSpots.isEmpty() ? null : availableSpots.first();
+        if (spot == null) {
+            throw new RuntimeException("No available parking spots found.");
+        }
+        return spot;
+    }
+
+    /**
+     * Changes the status of a spot and keeps the available set and counter in step. Called under the write lock.
+     */
+    private void setSpotStatus(int spot, String status) {
+        String old = spotStatus.replace(spot, status);
+        if (old == null) {
+            return;
+        }
+        boolean wasAvailable = "available".equals(old);
+        boolean isAvailable = "available".equals(status);
+        if (isAvailable && !wasAvailable) {
+            availableSpots.add(spot);
+            availableCount.incrementAndGet();
+        } else if (!isAvailable && wasAvailable) {
+            availableSpots.remove(spot);
+            availableCount.decrementAndGet();
+        }
+    }
+
+    // ---------------------------------------------------------------- active parkings
+
+    @Override
+    public String isSubscriberInActiveParking(String subscriberId) {
+        Set<String> codes = activeCodesBySubscriber.get(subscriberId);
+        return codes != null && !codes.isEmpty() ? "HAS ACTIVE PARKING" : "NO ACTIVE PARKING";
+    }
+
+    @Override
+    public String createNewActiveParking(Subscriber subscriber) {
+        String subscriberId = subscriber.getSubscriber_id();
+        Session session;
+        synchronized (writeLock) {
+            if (!"NO ACTIVE PARKING".equals(isSubscriberInActiveParking(subscriberId))) {
+                return "CAR_ALREADY_PARKED";
+            }
+            // Skip spots with a reservation starting within the maximum stay plus the grace period
+            int parkingSpot = SpotSelector.selectDropoffSpot(availableSpots, this::reservationStarts, policy, now());
+            if (parkingSpot == -1) {
+                return "NO_SPOTS_AVAILABLE";
+            }
+            String code = generateUniqueParkingCode(subscriberId, parkingSpot);
+            LocalDateTime entry = now();
+            session = new Session(code, subscriberId, parkingSpot, entry, entry.plusMinutes(policy.getSessionMinutes()));
+            addSession(session);
+            setSpotStatus(parkingSpot, "occupied");
+        }
+        ParkingEvents.publish(ParkingEvent.dropoff(session.parkingCode, subscriberId, session.spot,
+                session.entry, session.expectedExit));
+        return "SUCSESSFUL_PARKING" + session.parkingCode;
+    }
+
+    private List<LocalDateTime> reservationStarts(int spot) {
+        Set<Integer> ids = reservationIdsBySpot.get(spot);
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+        List<LocalDateTime> starts = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Reservation r = reservationsById.get(id);
+            if (r != null) {
+                starts.add(LocalDateTime.of(r.getEntryDate(), r.getEntryTime()));
+            }
+        }
+        return starts;
+    }
+
+    @Override
+    public String moveReservationToActive(String parkingCode) {
+        Session session;
+        synchronized (writeLock) {
+            Integer id = reservationIdByCode.get(parkingCode);
+            Reservation r = id == null ? null : reservationsById.get(id);
+            if (r == null) {
+                return "INVALID_CODE";
+            }
+            LocalDateTime reservationTime = LocalDateTime.of(r.getEntryDate(), r.getEntryTime());
+            if (Duration.between(now(), reservationTime).toMinutes() > policy.getArrivalWindowMinutes()) {
+                return "ARRIVE_EARLY";
+            }
+            LocalDateTime entry = now();
+            session = new Session(parkingCode, r.getSubscriberId(), r.getParkingSpot(), entry, entry.plusMinutes(policy.getSessionMinutes()));
+            addSession(session);
+            setSpotStatus(session.spot, "occupied");
+            removeReservation(r);
+        }
+        ParkingEvents.publish(ParkingEvent.reservationActivated(parkingCode, session.subscriberId, session.spot,
+                session.entry, session.expectedExit));
+        return "SUCCESS";
+    }
+
+    @Override
+    public String processPickupRequest(String parkingCode) {
+        LocalDateTime exit = now();
+        ParkingEvent event;
+        String result;
+        synchronized (writeLock) {
+            Session session = activeByCode.get(parkingCode);
+            if (session != null) {
+                int extendedDuration = 0;
+                if (session.extended) {
+                    long minutesTotal = ChronoUnit.MINUTES.between(session.entry, exit);
+                    extendedDuration = (int) Math.max(minutesTotal - policy.getSessionMinutes(), 0);
+                }
+                Subscriber owner = subscribers.get(session.subscriberId);
+                addHistory(session, owner == null ? null : owner.getVehicle_number1(), exit, 0, extendedDuration);
+                removeSession(session);
+                setSpotStatus(session.spot, "available");
+                event = ParkingEvent.pickup(parkingCode, session.subscriberId, session.spot, session.entry, exit);
+                result = "SUCCESS";
+            } else {
+                Towed towed = towedByCode.remove(parkingCode);
+                if (towed == null) {
+                    return "FATAL_ERROR";
+                }
+                int lateDuration = (int) Math.max(ChronoUnit.MINUTES.between(towed.towedAt, exit), 1);
+                addHistory(towed.session, towed.vehicleNumber, exit, lateDuration, 0);
+                event = ParkingEvent.towedPickup(parkingCode, towed.session.subscriberId,
+                        towed.session.spot, towed.session.entry, exit);
+                result = "SENT_TOWED_VEHICLE_MSG";
+            }
+        }
+        ParkingEvents.publish(event);
+        return result;
+    }
+
+    @Override
+    public List<ActiveParking> searchActiveParkingByMemberId(int subscriberId) {
+        return toActiveParkings(activeCodesBySubscriber.get(String.valueOf(subscriberId)));
+    }
+
+    @Override
+    public List<ActiveParking> searchActiveParkingBySpot(String spot) {
+        try {
+            return toActiveParkings(activeCodesBySpot.get(Integer.parseInt(spot.trim())));
+        } catch (NumberFormatException e) {
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public boolean extendParkingTime(ActiveParking ap) {
+        LocalDateTime newExit;
+        synchronized (writeLock) {
+            Session session = activeByCode.get(ap.getParkingCode());
+            if (session == null) {
+                return false;
+            }
+            newExit = session.expectedExit.plusMinutes(policy.getExtensionMinutes());
+            session.expectedExit = newExit;
+            session.extended = true;
+            dataVersion.incrementAndGet();
+        }
+        ap.setExtended(true);
+        ap.setExpectedExitDate(newExit.toLocalDate().toString());
+        ap.setExpectedExitTime(newExit.toLocalTime().toString());
+        ParkingEvents.publish(ParkingEvent.extended(ap.getParkingCode(), newExit));
+        return true;
+    }
+
+    @Override
+    public List<ActiveParking> getActiveParkings() {
+        List<ActiveParking> list = new ArrayList<>();
+        for (Session session : activeByCode.values()) {
+            list.add(toActiveParking(session));
+        }
+        return list;
+    }
+
+    private void addSession(Session session) {
+        dataVersion.incrementAndGet();
+        activeByCode.put(session.parkingCode, session);
+        activeCodesBySubscriber.computeIfAbsent(session.subscriberId, k -> ConcurrentHashMap.newKeySet()).add(session.parkingCode);
+        activeCodesBySpot.computeIfAbsent(session.spot, k -> ConcurrentHashMap.newKeySet()).add(session.parkingCode);
+    }
+
+    private void removeSession(Session session) {
+        dataVersion.incrementAndGet();
+        activeByCode.remove(session.parkingCode);
+        removeFromIndex(activeCodesBySubscriber, session.subscriberId, session.parkingCode);
+        removeFromIndex(activeCodesBySpot, session.spot, session.parkingCode);
+    }
+
+    private List<ActiveParking> toActiveParkings(Set<String> codes) {
+        List<ActiveParking> list = new ArrayList<>();
+        if (codes != null) {
+            for (String code : codes) {
+                Session session = activeByCode.get(code);
+                if (session != null) {
+                    list.add(toActiveParking(session));
+                }
+            }
+        }
+        return list;
+    }
+
+    private static ActiveParking toActiveParking(Session s) {
+        int subscriberId;
+        try {
+            subscriberId = Integer.parseInt(s.subscriberId);
+        } catch (NumberFormatException e) {
+            subscriberId = 0;
+        }
+        return new ActiveParking(s.parkingCode, subscriberId,
+                s.entry.toLocalDate().toString(), Time.valueOf(s.entry.toLocalTime()).toString(),
+                s.expectedExit.toLocalDate().toString(), Time.valueOf(s.expectedExit.toLocalTime()).toString(),
+                String.valueOf(s.spot), s.extended);
+    }
+
+    // ---------------------------------------------------------------- reservations
+
+    @Override
+    public List<Reservation> getReservationsForSubscriber(String subscriberId) {
+        List<Reservation> list = new ArrayList<>();
+        for (Reservation r : reservationsById.values()) {
+            if (r.getSubscriberId().equals(subscriberId)) {
+                list.add(r);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public boolean reservationExists(String subscriberId, LocalDate entryDate, LocalTime entryTime) {
+        Set<Integer> ids = reservationIdsByEntry.get(LocalDateTime.of(entryDate, entryTime).truncatedTo(ChronoUnit.SECONDS));
+        if (ids != null) {
+            for (Integer id : ids) {
+                Reservation r = reservationsById.get(id);
+                if (r != null && r.getSubscriberId().equals(subscriberId)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String generateUniqueParkingCode(String subscriberId, int parkingSpot) {
+        String code;
+        do {
+            code = mysqlConnection.generateParkingCode(subscriberId, parkingSpot);
+        } while (reservationIdByCode.containsKey(code) || activeByCode.containsKey(code));
+        return code;
+    }
+
+    @Override
+    public void insertReservationAndUpdateSpot(String subscriberId, String code, LocalDate entryDate, LocalTime entryTime,
+            LocalDate exitDate, LocalTime exitTime, int spotNumber) {
+        Reservation r = new Reservation(nextReservationId.getAndIncrement(), subscriberId, code,
+                entryDate, seconds(entryTime), exitDate, seconds(exitTime), spotNumber);
+        synchronized (writeLock) {
+            addReservation(r);
+        }
+        ParkingEvents.publish(ParkingEvent.reservationCreated(r.getReservationId(), code, subscriberId, spotNumber,
+                LocalDateTime.of(r.getEntryDate(), r.getEntryTime()), LocalDateTime.of(r.getExitDate(), r.getExitTime())));
+    }
+
+    @Override
+    public boolean updateReservationDateTime(int reservationId, LocalDate newDate, LocalTime newTime) {
+        LocalDateTime entry = LocalDateTime.of(newDate, seconds(newTime));
+        LocalDateTime exit = entry.plusMinutes(policy.getSessionMinutes());
+        synchronized (writeLock) {
+            Reservation old = reservationsById.get(reservationId);
+            if (old == null) {
+                return false;
+            }
+            removeReservation(old);
+            addReservation(new Reservation(reservationId, old.getSubscriberId(), old.getParkingCode(),
+                    entry.toLocalDate(), entry.toLocalTime(), exit.toLocalDate(), exit.toLocalTime(), old.getParkingSpot()));
+        }
+        ParkingEvents.publish(ParkingEvent.reservationRescheduled(reservationId, entry, exit));
+        return true;
+    }
+
+    @Override
+    public boolean cancelReservationById(int reservationId) {
+        int spot;
+        synchronized (writeLock) {
+            Reservation r = reservationsById.get(reservationId);
+            if (r == null) {
+                return false;
+            }
+            removeReservation(r);
+            spot = r.getParkingSpot();
+            setSpotStatus(spot, "available");
+        }
+        ParkingEvents.publish(ParkingEvent.reservationCancelled(reservationId, null, spot));
+        return true;
+    }
+
+    @Override
+    public List<Reservation> getFutureReservations() {
+        List<Reservation> list = new ArrayList<>();
+        for (Set<Integer> ids : reservationIdsByEntry.tailMap(now(), false).values()) {
+            for (Integer id : ids) {
+                Reservation r = reservationsById.get(id);
+                if (r != null) {
+                    list.add(r);
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public int getOverlappingReservationCount(LocalDate date, LocalTime startTime, int durationHours) {
+        LocalDateTime start = LocalDateTime.of(date, startTime);
+        LocalDateTime end = start.plusHours(durationHours);
+        // Same predicate as the SQL version: entry < end AND exit > start - extension
+        LocalDateTime exitAfter = start.minusMinutes(policy.getExtensionMinutes());
+        LocalDateTime earliestEntry = exitAfter.minusMinutes(longestReservationMinutes.get());
+        int count = 0;
+        for (Set<Integer> ids : reservationIdsByEntry.subMap(earliestEntry, false, end, false).values()) {
+            for (Integer id : ids) {
+                Reservation r = reservationsById.get(id);
+                if (r != null && LocalDateTime.of(r.getExitDate(), r.getExitTime()).isAfter(exitAfter)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Builds the site activity from the maps. Like SiteActivitySnapshot, the response is reused
+     * (with the same version) until the data changes or the earliest listed reservation starts.
+     */
+    @Override
+    public synchronized GetSiteActivityResponse getSiteActivity() {
+        LocalDateTime now = now();
+        long current = dataVersion.get();
+        if (siteActivity == null || siteActivityDataVersion != current
+                || (siteActivityValidUntil != null && !now.isBefore(siteActivityValidUntil))) {
+            List<Reservation> future = getFutureReservations();
+            siteActivityValidUntil = future.isEmpty() ? null
+                    : LocalDateTime.of(future.get(0).getEntryDate(), future.get(0).getEntryTime());
+            siteActivityDataVersion = current;
+            siteActivity = new GetSiteActivityResponse(future, getActiveParkings(), ++siteActivityVersion);
+        }
+        return siteActivity;
+    }
+
+    private void addReservation(Reservation r) {
+        dataVersion.incrementAndGet();
+        reservationsById.put(r.getReservationId(), r);
+        reservationIdByCode.put(r.getParkingCode(), r.getReservationId());
+        reservationIdsBySpot.computeIfAbsent(r.getParkingSpot(), k -> ConcurrentHashMap.newKeySet()).add(r.getReservationId());
+        LocalDateTime entry = LocalDateTime.of(r.getEntryDate(), r.getEntryTime());
+        reservationIdsByEntry.computeIfAbsent(entry, k -> ConcurrentHashMap.newKeySet()).add(r.getReservationId());
+        long minutes = ChronoUnit.MINUTES.between(entry, LocalDateTime.of(r.getExitDate(), r.getExitTime()));
+        longestReservationMinutes.accumulateAndGet(minutes, Math::max);
+    }
+
+    private void removeReservation(Reservation r) {
+        dataVersion.incrementAndGet();
+        reservationsById.remove(r.getReservationId());
+        reservationIdByCode.remove(r.getParkingCode(), r.getReservationId());
+        removeFromIndex(reservationIdsBySpot, r.getParkingSpot(), r.getReservationId());
+        removeFromIndex(reservationIdsByEntry, LocalDateTime.of(r.getEntryDate(), r.getEntryTime()), r.getReservationId());
+    }
+
+    // ---------------------------------------------------------------- history and reports
+
+    @Override
+    public List<ParkingHistory> getHistoryForSubscriber(String subscriberId) {
+        List<ParkingHistory> list = new ArrayList<>();
+        Queue<ParkingHistory> history = historyBySubscriber.get(subscriberId);
+        if (history != null) {
+            list.addAll(history);
+        }
+        return list;
+    }
+
+    @Override
+    public List<ParkingDurationRecord> loadParkingDurationReport(int year, int month) {
+        YearMonth ym = YearMonth.of(year, month);
+        List<ParkingDurationRecord> records = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Map.Entry<LocalDate, DayTotals> e : dailyTotals.subMap(ym.atDay(1), ym.plusMonths(1).atDay(1)).entrySet()) {
+                DayTotals t = e.getValue();
+                records.add(new ParkingDurationRecord(e.getKey().getDayOfMonth(),
+                        (int) t.duration, (int) t.lateDuration, (int) t.extendedDuration));
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<DailySubscriberCount> loadMemberStatusReport(int year, int month) {
+        YearMonth ym = YearMonth.of(year, month);
+        List<DailySubscriberCount> report = new ArrayList<>();
+        synchronized (writeLock) {
+            for (int day = 1; day <= ym.lengthOfMonth(); day++) {
+                DayTotals t = dailyTotals.get(ym.atDay(day));
+                report.add(new DailySubscriberCount(day, t == null ? 0 : t.subscribers.size()));
+            }
+        }
+        return report;
+    }
+
+    @Override
+    public List<DailyReportRow> generateRangeReport(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            return null;
+        }
+        List<DailyReportRow> rows = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Map.Entry<LocalDate, DayTotals> e : dailyTotals.subMap(from, true, to, true).entrySet()) {
+                DayTotals t = e.getValue();
+                rows.add(new DailyReportRow(e.getKey(), t.duration, t.lateDuration, t.extendedDuration,
+                        t.sessions, t.subscribers.size()));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Records a finished session in the history and in the daily totals. Called under the write lock.
+     */
+    private void addHistory(Session session, String vehicleNumber, LocalDateTime exit, int lateDuration, int extendedDuration) {
+        LocalDateTime exitSeconds = exit.truncatedTo(ChronoUnit.SECONDS);
+        ParkingHistory record = new ParkingHistory(nextHistoryId.getAndIncrement(), session.subscriberId, vehicleNumber,
+                session.entry.toLocalDate(), session.entry.toLocalTime(), exitSeconds.toLocalDate(), exitSeconds.toLocalTime());
+        historyBySubscriber.computeIfAbsent(session.subscriberId, k -> new ConcurrentLinkedQueue<>()).add(record);
+
+        DayTotals totals = dailyTotals.computeIfAbsent(session.entry.toLocalDate(), k -> new DayTotals());
+        totals.duration += DailyRollups.reportDuration(session.entry.toLocalTime(), exitSeconds.toLocalTime());
+        totals.lateDuration += lateDuration;
+        totals.extendedDuration += extendedDuration;
+        totals.sessions++;
+        totals.subscribers.add(session.subscriberId);
+    }
+
+    // ---------------------------------------------------------------- scheduled jobs
+
+    @Override
+    public void checkAndTowVehicles() {
+        LocalDateTime now = now();
+        LocalDateTime towBefore = now.minusMinutes(policy.towAfterMinutes(false));
+        LocalDateTime towExtendedBefore = now.minusMinutes(policy.towAfterMinutes(true));
+        List<Session> towedSessions = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Session session : activeByCode.values()) {
+                if (session.entry.isAfter(towBefore) || (session.extended && session.entry.isAfter(towExtendedBefore))) {
+                    continue;
+                }
+                Subscriber owner = subscribers.get(session.subscriberId);
+                if (owner == null) {
+                    continue; // the SQL version joins with subscribers
+                }
+                towedByCode.put(session.parkingCode, new Towed(session, owner.getVehicle_number1(), now));
+                removeSession(session);
+                setSpotStatus(session.spot, "available");
+                // Third late event resets the counter (the combined towing / late-charge notice)
+                int lateCount = owner.getLateCount() == 2 ? 0 : owner.getLateCount() + 1;
+                subscribers.put(owner.getSubscriber_id(), new Subscriber(owner.getSubscriber_id(), owner.getFull_name(),
+                        owner.getEmail(), owner.getPhone(), owner.getVehicle_number1(), owner.getSubscription_code(),
+                        lateCount, owner.getCredit_card()));
+                towedSessions.add(session);
+            }
+        }
+        for (Session session : towedSessions) {
+            ParkingEvents.publish(ParkingEvent.towed(session.parkingCode, session.subscriberId, session.spot, session.entry));
+        }
+    }
+
+    @Override
+    public void finalizeTowedVehiclesLateTime() {
+        LocalDateTime cutoff = now().minusHours(24);
+        List<ParkingEvent> events = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Towed towed : towedByCode.values()) {
+                if (!towed.towedAt.isBefore(cutoff)) {
+                    continue;
+                }
+                LocalDateTime exit = now();
+                towedByCode.remove(towed.session.parkingCode);
+                addHistory(towed.session, towed.vehicleNumber, exit, 1440, 0);
+                events.add(ParkingEvent.towFinalized(towed.session.parkingCode, towed.session.subscriberId,
+                        towed.session.spot, towed.session.entry, exit));
+            }
+        }
+        for (ParkingEvent event : events) {
+            ParkingEvents.publish(event);
+        }
+    }
+
+    @Override
+    public void removeExpiredReservations() {
+        LocalDateTime cutoff = now().minusMinutes(policy.getArrivalWindowMinutes());
+        List<Reservation> expired = new ArrayList<>();
+        synchronized (writeLock) {
+            for (Set<Integer> ids : reservationIdsByEntry.headMap(cutoff, false).values()) {
+                for (Integer id : ids) {
+                    Reservation r = reservationsById.get(id);
+                    if (r != null) {
+                        expired.add(r);
+                    }
+                }
+            }
+            for (Reservation r : expired) {
+                removeReservation(r);
+            }
+        }
+        for (Reservation r : expired) {
+            ParkingEvents.publish(ParkingEvent.reservationExpired(r.getReservationId(), r.getParkingSpot()));
+        }
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    /**
+     * The current time at the precision of the MySQL DATE / TIME columns.
+     */
+    private LocalDateTime now() {
+        return (clock != null ? LocalDateTime.now(clock) : TimeSource.now()).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static LocalTime seconds(LocalTime time) {
+        return time.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    private static <K, V> void removeFromIndex(Map<K, Set<V>> index, K key, V value) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(value);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
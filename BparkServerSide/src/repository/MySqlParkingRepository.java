@@ -0,0 +1,235 @@
+package repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import entities.ActiveParking;
+import entities.ParkingHistory;
+import entities.Reservation;
+import entities.Subscriber;
+import jdbc.RangeReportGenerator;
+import jdbc.SchemaMigrator;
+import jdbc.SiteActivitySnapshot;
+import jdbc.mysqlConnection;
+import response.DailyReportRow;
+import response.DailySubscriberCount;
+import response.GetSiteActivityResponse;
+import response.ParkingDurationRecord;
+
+/**
+ * MySqlParkingRepository is the production ParkingRepository.
+ * Every call is delegated to the matching static method of mysqlConnection
+ * (or to the snapshot / report helpers of the jdbc package), so the server
+ * keeps the exact behavior it had before the repository was introduced.
+ */
+public class MySqlParkingRepository implements ParkingRepository {
+
+    /**
+     * Brings the database schema up to date (see SchemaMigrator).
+     */
+    @Override
+    public boolean initialize() {
+        return SchemaMigrator.migrate();
+    }
+
+    @Override
+    public boolean doesSubscriberExist(String idNumber) {
+        return mysqlConnection.doesSubscriberExist(idNumber);
+    }
+
+    @Override
+    public boolean registerSubscriber(String firstName, String lastName, String idNumber, String email,
+            String phone, String vehicleNumber1, String creditCard) {
+        return mysqlConnection.registerSubscriber(firstName, lastName, idNumber, email, phone, vehicleNumber1, creditCard);
+    }
+
+    @Override
+    public String getSubscriberInfo(String subscriberId) {
+        return mysqlConnection.getSubscriberInfo(subscriberId);
+    }
+
+    @Override
+    public Subscriber getSubscriberById(String id) {
+        return mysqlConnection.getSubscriberById(id);
+    }
+
+    @Override
+    public boolean updateSubscriberContactInfo(String id, String email, String phone) {
+        return mysqlConnection.updateSubscriberContactInfo(id, email, phone);
+    }
+
+    @Override
+    public boolean checkLogin(String id, String code) {
+        return mysqlConnection.checkLogin(id, code);
+    }
+
+    @Override
+    public String checkLoginManagement(String username, String password) {
+        return mysqlConnection.checkLoginManagement(username, password);
+    }
+
+    @Override
+    public String getPasswordForEmail(String email) {
+        return mysqlConnection.getPasswordForEmail(email);
+    }
+
+    @Override
+    public String subscriptionCodeForEmail(String email) {
+        return mysqlConnection.subscriptionCodeForEmail(email);
+    }
+
+    @Override
+    public String parkingCodeForEmail(String email) {
+        return mysqlConnection.parkingCodeForEmail(email);
+    }
+
+    @Override
+    public List<String> getAvailableSpots() {
+        return mysqlConnection.getAvailableSpots();
+    }
+
+    @Override
+    public int getTotalParkingSpots() {
+        return mysqlConnection.getTotalParkingSpots();
+    }
+
+    @Override
+    public int getAvailableSpotsCount() {
+        return mysqlConnection.getAvailableSpotsCount();
+    }
+
+    @Override
+    public int findAvailableSpot() {
+        return mysqlConnection.findAvailableSpot();
+    }
+
+    @Override
+    public String isSubscriberInActiveParking(String subscriberId) {
+        return mysqlConnection.isSubscriberInActiveParking(subscriberId);
+    }
+
+    @Override
+    public String createNewActiveParking(Subscriber subscriber) {
+        return mysqlConnection.createNewActiveParking(subscriber);
+    }
+
+    @Override
+    public String moveReservationToActive(String parkingCode) {
+        return mysqlConnection.moveReservationToActive(parkingCode);
+    }
+
+    @Override
+    public String processPickupRequest(String parkingCode) {
+        return mysqlConnection.processPickupRequest(parkingCode);
+    }
+
+    @Override
+    public List<ActiveParking> searchActiveParkingByMemberId(int subscriberId) {
+        return mysqlConnection.searchActiveParkingByMemberId(subscriberId);
+    }
+
+    @Override
+    public List<ActiveParking> searchActiveParkingBySpot(String spot) {
+        return mysqlConnection.searchActiveParkingBySpot(spot);
+    }
+
+    @Override
+    public boolean extendParkingTime(ActiveParking ap) {
+        return mysqlConnection.extendParkingTime(ap);
+    }
+
+    @Override
+    public List<ActiveParking> getActiveParkings() {
+        return mysqlConnection.getActiveParkings();
+    }
+
+    @Override
+    public List<Reservation> getReservationsForSubscriber(String subscriberId) {
+        return mysqlConnection.getReservationsForSubscriber(subscriberId);
+    }
+
+    @Override
+    public boolean reservationExists(String subscriberId, LocalDate entryDate, LocalTime entryTime) {
+        return mysqlConnection.reservationExists(subscriberId, entryDate, entryTime);
+    }
+
+    @Override
+    public String generateUniqueParkingCode(String subscriberId, int parkingSpot) {
+        return mysqlConnection.generateUniqueParkingCode(subscriberId, parkingSpot);
+    }
+
+    @Override
+    public void insertReservationAndUpdateSpot(String subscriberId, String code, LocalDate entryDate, LocalTime entryTime,
+            LocalDate exitDate, LocalTime exitTime, int spotNumber) {
+        mysqlConnection.insertReservationAndUpdateSpot(subscriberId, code, entryDate, entryTime, exitDate, exitTime, spotNumber);
+    }
+
+    @Override
+    public boolean updateReservationDateTime(int reservationId, LocalDate newDate, LocalTime newTime) {
+        return mysqlConnection.updateReservationDateTime(reservationId, newDate, newTime);
+    }
+
+    @Override
+    public boolean cancelReservationById(int reservationId) {
+        return mysqlConnection.cancelReservationById(reservationId);
+    }
+
+    @Override
+    public List<Reservation> getFutureReservations() {
+        return mysqlConnection.getFutureReservations();
+    }
+
+    @Override
+    public int getOverlappingReservationCount(LocalDate date, LocalTime startTime, int durationHours) {
+        return mysqlConnection.getOverlappingReservationCount(date, startTime, durationHours);
+    }
+
+    /**
+     * Serves the site activity from the in-memory SiteActivitySnapshot and falls back
+     * to reading both tables if the snapshot cannot be loaded.
+     */
+    @Override
+    public GetSiteActivityResponse getSiteActivity() {
+        GetSiteActivityResponse response = SiteActivitySnapshot.getInstance().getResponse();
+        if (response == null) {
+            response = new GetSiteActivityResponse(mysqlConnection.getFutureReservations(), mysqlConnection.getActiveParkings());
+        }
+        return response;
+    }
+
+    @Override
+    public List<ParkingHistory> getHistoryForSubscriber(String subscriberId) {
+        return mysqlConnection.getHistoryForSubscriber(subscriberId);
+    }
+
+    @Override
+    public List<ParkingDurationRecord> loadParkingDurationReport(int year, int month) {
+        return mysqlConnection.loadParkingDurationReport(year, month);
+    }
+
+    @Override
+    public List<DailySubscriberCount> loadMemberStatusReport(int year, int month) {
+        return mysqlConnection.loadMemberStatusReport(year, month);
+    }
+
+    @Override
+    public List<DailyReportRow> generateRangeReport(LocalDate from, LocalDate to) {
+        return RangeReportGenerator.generate(from, to);
+    }
+
+    @Override
+    public void checkAndTowVehicles() {
+        mysqlConnection.checkAndTowVehicles();
+    }
+
+    @Override
+    public void finalizeTowedVehiclesLateTime() {
+        mysqlConnection.finalizeTowedVehiclesLateTime();
+    }
+
+    @Override
+    public void removeExpiredReservations() {
+        mysqlConnection.removeExpiredReservations();
+    }
+}
@@ -0,0 +1,185 @@
+package repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import entities.ActiveParking;
+import entities.ParkingHistory;
+import entities.Reservation;
+import entities.Subscriber;
+import response.DailyReportRow;
+import response.DailySubscriberCount;
+import response.GetSiteActivityResponse;
+import response.ParkingDurationRecord;
+
+/**
+ * ParkingRepository is the storage used by the EchoServer to handle client requests.
+ *
+ * Every method has the same contract (arguments, return values and result strings)
+ * as the matching static method of jdbc.mysqlConnection, so the server behaves the
+ * same whichever implementation is plugged in:
+ * - MySqlParkingRepository: the production storage (MySQL through mysqlConnection).
+ * - InMemoryParkingRepository: thread-safe maps, for load tests and benchmarks of the
+ *   server without a database.
+ */
+public interface ParkingRepository {
+
+    /**
+     * Prepares the storage before the first request is served (e.g. migrates the schema).
+     * @return true if the storage is ready, false otherwise.
+     */
+    boolean initialize();
+
+    // ---------------------------------------------------------------- subscribers
+
+    /** @return true if a subscriber with the given ID exists. */
+    boolean doesSubscriberExist(String idNumber);
+
+    /**
+     * Registers a new subscriber with a generated subscription code.
+     * @return true if the subscriber was added.
+     */
+    boolean registerSubscriber(String firstName, String lastName, String idNumber, String email,
+            String phone, String vehicleNumber1, String creditCard);
+
+    /** @return A formatted description of the subscriber, or a "not found" / error message. */
+    String getSubscriberInfo(String subscriberId);
+
+    /** @return The subscriber, or null if there is none. */
+    Subscriber getSubscriberById(String id);
+
+    /** @return true if the email and phone of the subscriber were updated. */
+    boolean updateSubscriberContactInfo(String id, String email, String phone);
+
+    /** @return true if the subscription code matches the subscriber. */
+    boolean checkLogin(String id, String code);
+
+    /** @return The lower-case role of the employee, or null if the credentials are wrong. */
+    String checkLoginManagement(String username, String password);
+
+    /** @return The password of the employee with that email, or null. */
+    String getPasswordForEmail(String email);
+
+    /** @return The subscription code of the subscriber with that email, or null. */
+    String subscriptionCodeForEmail(String email);
+
+    /** @return The parking code of the active parking of the subscriber with that email, or null. */
+    String parkingCodeForEmail(String email);
+
+    // ---------------------------------------------------------------- parking spots
+
+    /** @return One "Parking Spot #n is available." line per free spot. */
+    List<String> getAvailableSpots();
+
+    /** @return The number of parking spots in the lot. */
+    int getTotalParkingSpots();
+
+    /** @return The number of available spots. */
+    int getAvailableSpotsCount();
+
+    /**
+     * Returns the first available spot.
+     * @throws RuntimeException if no spot is available.
+     */
+    int findAvailableSpot();
+
+    // ---------------------------------------------------------------- active parkings
+
+    /** @return "HAS ACTIVE PARKING" or "NO ACTIVE PARKING". */
+    String isSubscriberInActiveParking(String subscriberId);
+
+    /**
+     * Parks a subscriber who arrives without a reservation.
+     * @return "SUCSESSFUL_PARKING" + code, "CAR_ALREADY_PARKED", "NO_SPOTS_AVAILABLE" or "ERROR".
+     */
+    String createNewActiveParking(Subscriber subscriber);
+
+    /**
+     * Activates the reservation with the given code.
+     * @return "SUCCESS", "ARRIVE_EARLY", "INVALID_CODE" or "ERROR".
+     */
+    String moveReservationToActive(String parkingCode);
+
+    /**
+     * Ends the parking (or towed vehicle) with the given code and records it in the history.
+     * @return "SUCCESS", "SENT_TOWED_VEHICLE_MSG", "FATAL_ERROR" or "FAILURE".
+     */
+    String processPickupRequest(String parkingCode);
+
+    /** @return The active parkings of the subscriber. */
+    List<ActiveParking> searchActiveParkingByMemberId(int subscriberId);
+
+    /** @return The active parkings on the given spot. */
+    List<ActiveParking> searchActiveParkingBySpot(String spot);
+
+    /**
+     * Extends an active parking by 4 hours and updates the given object.
+     * @return true if the parking was extended.
+     */
+    boolean extendParkingTime(ActiveParking ap);
+
+    /** @return All active parkings. */
+    List<ActiveParking> getActiveParkings();
+
+    // ---------------------------------------------------------------- reservations
+
+    /** @return The reservations of the subscriber. */
+    List<Reservation> getReservationsForSubscriber(String subscriberId);
+
+    /** @return true if the subscriber already has a reservation starting at that date and time. */
+    boolean reservationExists(String subscriberId, LocalDate entryDate, LocalTime entryTime);
+
+    /** @return A parking code not used by any reservation or active parking. */
+    String generateUniqueParkingCode(String subscriberId, int parkingSpot);
+
+    /** Stores a new reservation. */
+    void insertReservationAndUpdateSpot(String subscriberId, String code, LocalDate entryDate, LocalTime entryTime,
+            LocalDate exitDate, LocalTime exitTime, int spotNumber);
+
+    /** @return true if the reservation was moved to the new start (ending 4 hours later). */
+    boolean updateReservationDateTime(int reservationId, LocalDate newDate, LocalTime newTime);
+
+    /** @return true if the reservation was cancelled. */
+    boolean cancelReservationById(int reservationId);
+
+    /** @return The reservations that start after now. */
+    List<Reservation> getFutureReservations();
+
+    /**
+     * Counts reservations overlapping the window [start, start + durationHours),
+     * counting each reservation as occupying its spot for 4 more hours after its exit.
+     */
+    int getOverlappingReservationCount(LocalDate date, LocalTime startTime, int durationHours);
+
+    /**
+     * Returns the data of the manager's site activity screen.
+     * @return The response, or null if it could not be built.
+     */
+    GetSiteActivityResponse getSiteActivity();
+
+    // ---------------------------------------------------------------- history and reports
+
+    /** @return The parking history of the subscriber within the retention period. */
+    List<ParkingHistory> getHistoryForSubscriber(String subscriberId);
+
+    /** @return The parking duration report of the month, or null if it could not be loaded. */
+    List<ParkingDurationRecord> loadParkingDurationReport(int year, int month);
+
+    /** @return The member status report of the month, or null if it could not be loaded. */
+    List<DailySubscriberCount> loadMemberStatusReport(int year, int month);
+
+    /** @return One row per day of the inclusive range, or null if the range is invalid. */
+    List<DailyReportRow> generateRangeReport(LocalDate from, LocalDate to);
+
+    // ---------------------------------------------------------------- scheduled jobs
+
+    /** Tows vehicles parked past their allowed time. */
+    void checkAndTowVehicles();
+
+    /** Records towed vehicles not picked up within 24 hours in the history. */
+    void finalizeTowedVehiclesLateTime();
+
+    /** Deletes reservations whose start passed more than 15 minutes ago. */
+    void removeExpiredReservations();
+}
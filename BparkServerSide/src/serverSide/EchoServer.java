@@ -1,32 +1,50 @@
 package serverSide;
 
 import java.io.*;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import controller.NotificationController;
 import entities.ActiveParking;
 import entities.ParkingHistory;
 import entities.Reservation;
 import entities.Subscriber;
-import jdbc.mysqlConnection;
+import jfr.FlightEvents;
+import jfr.GateOperationEvent;
+import jfr.ReportGenerationEvent;
+import logging.Log;
+import logging.Logger;
+import metrics.MetricsRegistry;
+import metrics.ServerMetrics;
+import policy.ParkingPolicy;
 import ocsf.server.*;
+import repository.MySqlParkingRepository;
+import repository.ParkingRepository;
+import tracing.Span;
+import tracing.Tracer;
+import request.IdempotentRequest;
 import request.LoginManagementRequest;
 import request.LoginRequest;
 import request.MemberStatusReportRequest;
 import request.ParkingDurationRequest;
 import request.PasswordResetRequest;
 import request.RegisterMemberRequest;
+import request.ReportRangeRequest;
 import request.UpdateReservationRequest;
 import request.UpdateSubscriberDetailsRequest;
+import response.DailyReportRow;
 import response.DailySubscriberCount;
 import response.GetSiteActivityResponse;
+import response.IdempotentReply;
 import response.MemberStatusReportResponse;
 import response.ParkingDurationRecord;
 import response.ParkingDurationResponse;
 import response.PasswordResetResponse;
+import response.RangeReportResponse;
 
   
 /**
@@ -36,15 +54,58 @@ import response.PasswordResetResponse;
  */
 public class EchoServer extends AbstractServer {
 
+    private static final Logger log = Log.getLogger(EchoServer.class);
+
     /** Default port to listen on. */
     final public static int DEFAULT_PORT = 5555;
-    final int RESERVATION_DURATION_HOURS = 4;
+
+    /** The storage every request is served from. */
+    private final ParkingRepository repository;
+
+    /** How long a resent request waits for the reply of the first one, in seconds. */
+    private static final int REPLAY_WAIT_SECONDS = 30;
+
+    /** Whether initializeStorage() has run (successfully or not). */
+    private volatile boolean storageInitialized = false;
+
+    /** Whether the storage is ready, as reported by repository.initialize(). */
+    private boolean storageReady = false;
+
+    /** The replies of the requests with an idempotency key. */
+    private volatile IdempotencyCache idempotency =
+            new IdempotencyCache(IdempotencyCache.DEFAULT_CAPACITY, IdempotencyCache.DEFAULT_TTL_MINUTES);
+
+    /**
+     * The reply recorded by reply(...) while an IdempotentRequest is processed on this thread:
+     * {reply, connection it was sent on (null until the send succeeded), idempotency key}.
+     */
+    private static final ThreadLocal<Object[]> RECORDED_REPLY = new ThreadLocal<>();
+
     /**
-     * Constructs an EchoServer on the specified port.
+     * Constructs an EchoServer on the specified port, backed by the MySQL database.
      * @param port The port number to listen on.
      */
     public EchoServer(int port) {
+        this(port, new MySqlParkingRepository());
+    }
+
+    /**
+     * Constructs an EchoServer on the specified port with the given storage
+     * (e.g. an InMemoryParkingRepository for load tests).
+     * @param port       The port number to listen on.
+     * @param repository The storage used to serve requests.
+     */
+    public EchoServer(int port, ParkingRepository repository) {
         super(port);
+        this.repository = repository;
+    }
+
+    /**
+     * Returns the storage this server is using.
+     * @return The repository.
+     */
+    public ParkingRepository getRepository() {
+        return repository;
     }
  
     /**
@@ -57,61 +118,195 @@ public class EchoServer extends AbstractServer {
      */
     @Override
     public void handleMessageFromClient(Object msg, ConnectionToClient client) {
-        System.out.println("Message received: " + msg + " from " + client);
+        String requestName = commandName(msg);
+        log.debug("Message received", "command", requestName, "client", client);
+        Span trace = Tracer.startTrace("request", requestName);
+        long startNanos = System.nanoTime();
+        boolean failed = false;
 
         try {
-            if (msg instanceof PasswordResetRequest req) {
-            	if(req.getPWtype().equals("sub"))
-            	{
-            		handleSubscriptionCodeReset(req,client);
-            	}
-            	else if(req.getPWtype().equals("pcode")) {
-                    handleParkingCodeReset(req, client);
-            	}
-            	else {
-            		   handlePasswordReset(req, client);
-            	}
+            if (!storageInitialized) {
+                initializeStorage(); // nobody prepared the storage yet, or it is still being prepared
             }
-            if (msg instanceof String command) {
-                handleStringCommand(command, client);
-            } else if (msg instanceof LoginRequest request) {
-                handleLoginRequest(request, client);
-            } else if (msg instanceof LoginManagementRequest management) {
-                handleManagementLogin(management, client);
-            } else if (msg instanceof UpdateSubscriberDetailsRequest update) {
-                handleSubscriberUpdate(update, client);
-            } else if (msg instanceof RegisterMemberRequest request) {
-                handleRegisterMember(request, client);
-            } else if (msg instanceof Reservation req && req.getReservationId() == 0) { //new reservation
-                handleNewReservationRequest(req, client);
-            } else if (msg instanceof Subscriber subscriber) {
-            	  handleNewSubscriberDropoffNoReserv(subscriber, client);
-            } else if (msg instanceof UpdateReservationRequest) {
-                UpdateReservationRequest req = (UpdateReservationRequest) msg;
-                boolean updated = mysqlConnection.updateReservationDateTime(
-                    req.getReservationId(), req.getNewDate(), req.getNewTime());
-                if (updated)
-                    client.sendToClient("UPDATE_SUCCESS");
-                else
-                    client.sendToClient("UPDATE_FAILED");
-
-            }  else if (msg instanceof ParkingDurationRequest request) {
-                handleParkingDurationRequest(request, client);
-            } else if (msg instanceof MemberStatusReportRequest request) {
-                handleMemberStatusReportRequest(request, client);
+            if (msg instanceof IdempotentRequest request) {
+                handleIdempotentRequest(request, client);
+            } else {
+                dispatch(msg, client);
             }
-
-            else {
-                client.sendToClient("Unsupported message format.");
-            	 }
-            
-
         } catch (IOException e) {
+            failed = true;
             e.printStackTrace();
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            ServerMetrics.requestCompleted(requestName, System.nanoTime() - startNanos, failed);
+            if (trace != null) {
+                if (failed) {
+                    trace.fail();
+                }
+                trace.end();
+            }
         }
         
     }
 
+    /**
+     * Passes a request to the handler for its type.
+     * @param msg    The request (not wrapped in an IdempotentRequest).
+     * @param client The client connection that sent it.
+     * @throws IOException if sending the reply fails.
+     */
+    private void dispatch(Object msg, ConnectionToClient client) throws IOException {
+        if (msg instanceof PasswordResetRequest req) {
+        	if(req.getPWtype().equals("sub"))
+        	{
+        		handleSubscriptionCodeReset(req,client);
+        	}
+        	else if(req.getPWtype().equals("pcode")) {
+                handleParkingCodeReset(req, client);
+        	}
+        	else {
+        		   handlePasswordReset(req, client);
+        	}
+        }
+        if (msg instanceof String command) {
+            handleStringCommand(command, client);
+        } else if (msg instanceof LoginRequest request) {
+            handleLoginRequest(request, client);
+        } else if (msg instanceof LoginManagementRequest management) {
+            handleManagementLogin(management, client);
+        } else if (msg instanceof UpdateSubscriberDetailsRequest update) {
+            handleSubscriberUpdate(update, client);
+        } else if (msg instanceof RegisterMemberRequest request) {
+            handleRegisterMember(request, client);
+        } else if (msg instanceof Reservation req && req.getReservationId() == 0) { //new reservation
+            handleNewReservationRequest(req, client);
+        } else if (msg instanceof Subscriber subscriber) {
+        	  handleNewSubscriberDropoffNoReserv(subscriber, client);
+        } else if (msg instanceof UpdateReservationRequest) {
+            UpdateReservationRequest req = (UpdateReservationRequest) msg;
+            boolean updated = repository.updateReservationDateTime(
+                req.getReservationId(), req.getNewDate(), req.getNewTime());
+            if (updated)
+                reply(client, "UPDATE_SUCCESS");
+            else
+                reply(client, "UPDATE_FAILED");
+
+        }  else if (msg instanceof ParkingDurationRequest request) {
+            handleParkingDurationRequest(request, client);
+        } else if (msg instanceof MemberStatusReportRequest request) {
+            handleMemberStatusReportRequest(request, client);
+        } else if (msg instanceof ReportRangeRequest request) {
+            handleReportRangeRequest(request, client);
+        }
+
+        else {
+            reply(client, "Unsupported message format.");
+        	 }
+    }
+
+    /**
+     * Processes a request carrying an idempotency key at most once. A resent request (same key) is
+     * answered with the reply of the first one, waiting for it if the first is still being processed;
+     * only the replies sent through reply(...) by the state-changing handlers are recorded.
+     * A resend on the connection that already got the first reply is not answered again (the client
+     * resends a slow request before its reply arrives, and would otherwise get it twice).
+     * @param request The wrapped request.
+     * @param client  The client connection that sent it.
+     * @throws IOException if sending the reply fails.
+     */
+    private void handleIdempotentRequest(IdempotentRequest request, ConnectionToClient client) throws IOException {
+        CompletableFuture<IdempotencyCache.Reply> first = idempotency.claim(request.getKey());
+        if (first != null) {
+            IdempotencyCache.Reply reply;
+            try {
+                reply = first.get(REPLAY_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                reply = null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            String command = commandName(request.getPayload());
+            if (reply == null || reply.wasDeliveredTo(client)) {
+                log.info("Dropped resent request", "command", command, "answered", reply != null, "client", client);
+                return;
+            }
+            ServerMetrics.requestReplayed(command);
+            log.info("Replayed request", "command", command, "client", client);
+            client.sendToClient(new IdempotentReply(request.getKey(), reply.getMessage()));
+            return;
+        }
+        Object[] recorded = { null, null, request.getKey() };
+        RECORDED_REPLY.set(recorded);
+        try {
+            dispatch(request.getPayload(), client);
+        } finally {
+            RECORDED_REPLY.remove();
+            if (recorded[0] != null) {
+                idempotency.complete(request.getKey(), recorded[0], recorded[1]);
+            } else {
+                idempotency.abandon(request.getKey());
+            }
+        }
+    }
+
+    /**
+     * Sends the reply of a request that changes the lot's state. Inside an IdempotentRequest the reply
+     * is recorded first, so a resent request gets it even if this send fails, it is sent wrapped in an
+     * IdempotentReply with the request's key, and the connection is recorded once the send succeeded.
+     * @param client The client connection.
+     * @param reply  The reply.
+     * @throws IOException if sending fails.
+     */
+    private static void reply(ConnectionToClient client, Object reply) throws IOException {
+        Object[] recorded = RECORDED_REPLY.get();
+        if (recorded == null) {
+            client.sendToClient(reply);
+            return;
+        }
+        recorded[0] = reply;
+        client.sendToClient(new IdempotentReply((String) recorded[2], reply));
+        recorded[1] = client;
+    }
+
+    /**
+     * Replaces the cache of idempotency keys (e.g. with the size and time-to-live from ServerConfig).
+     * @param cache The cache to use.
+     */
+    public void setIdempotencyCache(IdempotencyCache cache) {
+        this.idempotency = cache;
+    }
+
+    /**
+     * Returns the name a request is counted under in the metrics and traces: the command part of a
+     * string command (before '|'), or the class name of a request object.
+     * Strings that do not look like a command are counted as "OTHER".
+     * @param msg The message received from the client.
+     * @return The command name.
+     */
+    private static String commandName(Object msg) {
+        if (msg instanceof IdempotentRequest request) {
+            return commandName(request.getPayload());
+        }
+        if (msg instanceof String command) {
+            int end = command.indexOf('|');
+            end = end >= 0 ? end : command.length();
+            if (end == 0 || end > 40) {
+                return "OTHER";
+            }
+            for (int i = 0; i < end; i++) {
+                char c = command.charAt(i);
+                if (!(c >= 'A' && c <= 'Z') && c != '_') {
+                    return "OTHER";
+                }
+            }
+            return command.substring(0, end);
+        }
+        return msg == null ? "null" : msg.getClass().getSimpleName();
+    }
+
  
     
     /**
@@ -125,45 +320,47 @@ public class EchoServer extends AbstractServer {
     private void handleStringCommand(String command, ConnectionToClient client) throws IOException {
         if (command.startsWith("REQUEST_ID_DETAILS|")) {
             String id = command.split("\\|")[1];
-            client.sendToClient("SUBSCRIBER_INFO:" + mysqlConnection.getSubscriberInfo(id));
+            client.sendToClient("SUBSCRIBER_INFO:" + repository.getSubscriberInfo(id));
         } else if (command.startsWith("GET_HISTORY|")) {
             String id = command.split("\\|")[1];
-            client.sendToClient(mysqlConnection.getHistoryForSubscriber(id));
+            client.sendToClient(repository.getHistoryForSubscriber(id));
         }
         else if (command.startsWith("GET_PARKING_HISTORY|")) {
             String id = command.split("\\|")[1];
-            List<ParkingHistory> history = mysqlConnection.getHistoryForSubscriber(id);
+            List<ParkingHistory> history = repository.getHistoryForSubscriber(id);
             client.sendToClient(history);
         }
     	  else if (command.startsWith("CHECK_IF_ACTIVE_PARKING|")) {
 	        String id = command.split("\\|")[1];
-            String result1 = mysqlConnection.isSubscriberInActiveParking(id);
+            String result1 = repository.isSubscriberInActiveParking(id);
             client.sendToClient(result1);
  
         }  else if (command.startsWith("GET_RESERVATIONS|")) {
             String id = command.split("\\|")[1];
-            client.sendToClient(mysqlConnection.getReservationsForSubscriber(id));
+            client.sendToClient(repository.getReservationsForSubscriber(id));
         } else if (command.equals("REQUEST_AVAILABLE_SPOTS")) {
-            client.sendToClient(mysqlConnection.getAvailableSpots());
+            client.sendToClient(repository.getAvailableSpots());
             
         }
         else if (command.startsWith("CHECK_PICKUP_CODE|")) {
             String pickupCode = command.split("\\|")[1].trim();
-            String pickupResult = mysqlConnection.processPickupRequest(pickupCode);
-            System.out.println(" my test" + pickupResult);
-            client.sendToClient("PICKUP_RESULT|" + pickupResult);
+            GateOperationEvent gate = FlightEvents.beginGate("PICKUP", null);
+            String pickupResult = repository.processPickupRequest(pickupCode);
+            reply(client, "PICKUP_RESULT|" + pickupResult);
+            FlightEvents.endGate(gate, pickupResult);
         }
         else if (command.startsWith("ACTIVATE_RESERVATION_CODE|")) {
             String reservationCode = command.split("\\|")[1].trim();
-            String result = mysqlConnection.moveReservationToActive(reservationCode);
-            System.out.println("Reservation activation result from MySQL: " + result);
+            GateOperationEvent gate = FlightEvents.beginGate("ACTIVATE_RESERVATION", null);
+            String result = repository.moveReservationToActive(reservationCode);
+            log.debug("Reservation activation", "result", result);
 
-            client.sendToClient("ACTIVATION_RESULT|" + result);
+            reply(client, "ACTIVATION_RESULT|" + result);
+            FlightEvents.endGate(gate, result);
         }
 
         else if (command.equals("CHECK_PARKING_AVAILABILITY")) {
-            List<String> availableSpots = mysqlConnection.getAvailableSpots();
-            if (availableSpots.isEmpty()) {
+            if (repository.getAvailableSpotsCount() == 0) {
                 client.sendToClient("NO_SPOTS_AVAILABLE");
             }
             
@@ -178,12 +375,12 @@ public class EchoServer extends AbstractServer {
             // Try to interpret the value as a subscriber ID (most common case)
             try {
                 int subscriberId = Integer.parseInt(value);
-                results = mysqlConnection.searchActiveParkingByMemberId(subscriberId);
+                results = repository.searchActiveParkingByMemberId(subscriberId);
             } catch (NumberFormatException ignored) {}
 
             // If no results found, try interpreting the value as a parking spot
             if (results.isEmpty()) {
-                results = mysqlConnection.searchActiveParkingBySpot(value);
+                results = repository.searchActiveParkingBySpot(value);
             }
 
             // Send appropriate response based on search results
@@ -196,83 +393,36 @@ public class EchoServer extends AbstractServer {
         } else if (command.contains("EXTEND_PARKING")) {
             String subscriberIdStr = command.split("\\|")[1];
             String currentCommand = command.split("\\|")[0];
-            if (currentCommand.contains("TERMINAL")) {
-            	try {
-                    int subscriberId = Integer.parseInt(subscriberIdStr);
+            // Terminal replies carry a _TERMINAL suffix so the kiosk can tell them apart
+            String suffix = currentCommand.contains("TERMINAL") ? "_TERMINAL" : "";
+            GateOperationEvent gate = FlightEvents.beginGate("EXTEND" + suffix, subscriberIdStr);
+            String reply = extendParking(subscriberIdStr, suffix);
+            reply(client, reply);
+            FlightEvents.endGate(gate, reply);
 
-                    List<ActiveParking> list = mysqlConnection.searchActiveParkingByMemberId(subscriberId);
-
-                    if (list == null || list.isEmpty()) {
-                        client.sendToClient("EXTEND_FAILED_NO_ACTIVE_PARKING_TERMINAL");
-                        return;
-                    }
-
-                    ActiveParking ap = list.get(0);
-
-                    if (ap.isExtended()) {
-                        client.sendToClient("EXTEND_ALREADY_DONE_TERMINAL");
-                        return;
-                    }
-                    boolean success = mysqlConnection.extendParkingTime(ap);
-                    if (success) {
-                        client.sendToClient("EXTEND_SUCCESS_TERMINAL|" + ap.getExpectedExitTime());
-                    } else {
-                        client.sendToClient("EXTEND_FAILED_DB_TERMINAL");
-                    }
-
-                }  catch (Exception e) {
-                    e.printStackTrace();
-                    client.sendToClient("EXTEND_FAILED_UNKNOWN_TERMINAL");
-                }
-            }
-            else
-            {
-            	try {
-                    int subscriberId = Integer.parseInt(subscriberIdStr);
-
-                    List<ActiveParking> list = mysqlConnection.searchActiveParkingByMemberId(subscriberId);
-
-                    if (list == null || list.isEmpty()) {
-                        client.sendToClient("EXTEND_FAILED_NO_ACTIVE_PARKING");
-                        return;
-                    }
-
-                    ActiveParking ap = list.get(0);
-
-                    if (ap.isExtended()) {
-                        client.sendToClient("EXTEND_ALREADY_DONE");
-                        return;
-                    }
-
-                    boolean success = mysqlConnection.extendParkingTime(ap);
-                    if (success) {
-                        client.sendToClient("EXTEND_SUCCESS|" + ap.getExpectedExitTime());
-                    } else {
-                        client.sendToClient("EXTEND_FAILED_DB");
-                    }
-
-                }  catch (Exception e) {
-                    e.printStackTrace();
-                    client.sendToClient("EXTEND_FAILED_UNKNOWN");
-                }
-            }
-            
-        
         } else if (command.startsWith("CANCEL_RESERVATION|")) {
         	int reservationId = Integer.parseInt(command.split("\\|")[1]);
-            boolean success = mysqlConnection.cancelReservationById(reservationId);
+            boolean success = repository.cancelReservationById(reservationId);
             if (success)
-                client.sendToClient("CANCEL_SUCCESS");
+                reply(client, "CANCEL_SUCCESS");
             else
-                client.sendToClient("CANCEL_FAILED");
-        } else if (command.equals("GET_SITE_ACTIVITY")) {
-            	handleSiteActivityRequest(client);
+                reply(client, "CANCEL_FAILED");
+        } else if (command.equals("GET_SITE_ACTIVITY") || command.startsWith("GET_SITE_ACTIVITY|")) {
+            	long knownVersion = -1;
+            	if (command.contains("|")) {
+            	    try {
+            	        knownVersion = Long.parseLong(command.split("\\|")[1].trim());
+            	    } catch (NumberFormatException e) {
+            	        knownVersion = -1;
+            	    }
+            	}
+            	handleSiteActivityRequest(client, knownVersion);
     }else if (command.equals("GET_ALL_ACTIVE_PARKINGS")) {
-        List<ActiveParking> allActive = mysqlConnection.getActiveParkings();
+        List<ActiveParking> allActive = repository.getActiveParkings();
         client.sendToClient(allActive);
     }
         else {
-        client.sendToClient("Unrecognized command.");
+        reply(client, "Unrecognized command.");
     }
         
 }
@@ -287,14 +437,14 @@ public class EchoServer extends AbstractServer {
      * @throws IOException if sending a login result or subscriber object fails
      */
     private void handleLoginRequest(LoginRequest request, ConnectionToClient client) throws IOException {
-        boolean success = mysqlConnection.checkLogin(request.getID(), request.getSubscriptionCode());
-        System.out.println("LoginRequest received from source: " + request.getSource());
+        boolean success = repository.checkLogin(request.getID(), request.getSubscriptionCode());
+        log.debug("Login request", "source", request.getSource(), "success", success);
 
         switch (request.getSource()) {
             case "terminal" -> client.sendToClient(success ? "TERMINAL_LOGIN_SUCCESS" : "TERMINAL_LOGIN_FAILURE");
             case "app" -> {
                 if (success) {
-                    Subscriber sub = mysqlConnection.getSubscriberById(request.getID());
+                    Subscriber sub = repository.getSubscriberById(request.getID());
                     if (sub != null) {
                        // client.sendToClient("APP_LOGIN_SUCCESS");
                         client.sendToClient(sub);
@@ -318,7 +468,7 @@ public class EchoServer extends AbstractServer {
      * @throws IOException if sending the login result to the client fails
      */
     private void handleManagementLogin(LoginManagementRequest login, ConnectionToClient client) throws IOException {
-        String role = mysqlConnection.checkLoginManagement(login.getUsername(), login.getPassword());
+        String role = repository.checkLoginManagement(login.getUsername(), login.getPassword());
 
         if (role != null) {
             client.sendToClient("LOGIN_Management_SUCCESS|" + role);
@@ -337,7 +487,7 @@ public class EchoServer extends AbstractServer {
      * @throws IOException if sending the update result to the client fails
      */
     private void handleSubscriberUpdate(UpdateSubscriberDetailsRequest update, ConnectionToClient client) throws IOException {
-        boolean success = mysqlConnection.updateSubscriberContactInfo(update.getSubscriberId(), update.getNewEmail(), update.getNewPhone());
+        boolean success = repository.updateSubscriberContactInfo(update.getSubscriberId(), update.getNewEmail(), update.getNewPhone());
         client.sendToClient(success ? "SUBSCRIBER_UPDATE_SUCCESS" : "SUBSCRIBER_UPDATE_FAILURE");
     }
 
@@ -350,11 +500,11 @@ public class EchoServer extends AbstractServer {
         try {
             String id = request.getIdNumber();
 
-            if (mysqlConnection.doesSubscriberExist(id)) {
+            if (repository.doesSubscriberExist(id)) {
                 client.sendToClient("register_result: Subscriber with this ID already exists.");
                 return;
             }
-            boolean success = mysqlConnection.registerSubscriber(
+            boolean success = repository.registerSubscriber(
                 request.getFirstName(),
                 request.getLastName(),
                 request.getIdNumber(),
@@ -377,6 +527,41 @@ public class EchoServer extends AbstractServer {
         }
     }
     
+    /**
+     * Extends the active parking of a subscriber by 4 hours, if it was not extended yet.
+     *
+     * @param subscriberIdStr The subscriber ID from the request.
+     * @param suffix          "_TERMINAL" for requests from the terminal, otherwise "".
+     * @return The reply for the client: EXTEND_SUCCESS|newExitTime or one of the EXTEND_FAILED / EXTEND_ALREADY_DONE codes, with the suffix.
+     */
+    private String extendParking(String subscriberIdStr, String suffix) {
+        try {
+            int subscriberId = Integer.parseInt(subscriberIdStr);
+
+            List<ActiveParking> list = repository.searchActiveParkingByMemberId(subscriberId);
+
+            if (list == null || list.isEmpty()) {
+                return "EXTEND_FAILED_NO_ACTIVE_PARKING" + suffix;
+            }
+
+            ActiveParking ap = list.get(0);
+
+            if (ap.isExtended()) {
+                return "EXTEND_ALREADY_DONE" + suffix;
+            }
+
+            boolean success = repository.extendParkingTime(ap);
+            if (success) {
+                return "EXTEND_SUCCESS" + suffix + "|" + ap.getExpectedExitTime();
+            }
+            return "EXTEND_FAILED_DB" + suffix;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return "EXTEND_FAILED_UNKNOWN" + suffix;
+        }
+    }
+
     /**
      * Handles drop-off requests from subscribers who do not have an existing reservation.
      * 
@@ -388,9 +573,13 @@ public class EchoServer extends AbstractServer {
      */
     private void handleNewSubscriberDropoffNoReserv(Subscriber subscriber,ConnectionToClient client)
     {
+    	GateOperationEvent gate = FlightEvents.beginGate("DROPOFF", subscriber.getSubscriber_id());
     	try 
     	{
-			client.sendToClient(mysqlConnection.createNewActiveParking(subscriber));
+			String result = repository.createNewActiveParking(subscriber);
+			reply(client, result);
+			// The success reply carries the new parking code, which is not recorded
+			FlightEvents.endGate(gate, result.startsWith("SUCSESSFUL_PARKING") ? "SUCSESSFUL_PARKING" : result);
 		} 
     	catch (IOException e) 
     	{
@@ -402,75 +591,21 @@ public class EchoServer extends AbstractServer {
     /**
      * Handles a new reservation request sent by a subscriber from the client side.
      * 
-     * The method performs the following steps:
-     * 1. Calculates the extended time window (reservation duration + possible extension).
-     * 2. Checks how many overlapping reservations exist in that time range.
-     * 3. If the occupancy rate exceeds 60%, the reservation is denied.
-     * 4. If a reservation already exists for the subscriber at the requested time, it is also denied.
-     * 5. If valid, finds the next available spot and inserts the reservation into the database.
-     * 6. Returns a confirmed Reservation object to the client.
+     * The reservation is booked by ReservationBooking.book (cap check, duplicate check, spot
+     * selection and insert), and its result is sent back to the client: the confirmed Reservation,
+     * or "RESERVATION_FAILED" / "RESERVATION_ALREADY_EXIST" if it was refused.
      * 
      * @param req    The reservation request containing subscriber ID, entry date, and time.
      * @param client The client that initiated the reservation request.
      */
     private void handleNewReservationRequest(Reservation req, ConnectionToClient client) {
         try {
-            int totalSpots = mysqlConnection.getTotalParkingSpots();
-
-            // Step 1: Calculate extended window (reservation + possible 4-hour extension)
-            LocalTime entryTime = req.getEntryTime();
-            LocalDate date = req.getEntryDate();
-
-            // Step 2: Check how many overlapping reservations exist in the extended time frame
-            int overlappingCount = mysqlConnection.getOverlappingReservationCount(date, entryTime, 8);
-            double occupancyRate = (double) overlappingCount / totalSpots;
-
-            // Step 3: Deny the reservation if more than 60% of the lot is occupied
-            if (occupancyRate > 0.6) {
-                client.sendToClient("RESERVATION_FAILED");
-                return;
-            }
-
-            // Step 4: Check if the subscriber already has a reservation at the same time
-            if (mysqlConnection.reservationExists(req.getSubscriberId(), req.getEntryDate(), req.getEntryTime())) {
-                client.sendToClient("RESERVATION_ALREADY_EXIST");
-                return;
-            }
-
-            // Step 5: Find a free parking spot and register the new reservation
-            int spot = mysqlConnection.findAvailableSpot();
-            String code = mysqlConnection.generateUniqueParkingCode(req.getSubscriberId(), spot);
-
-            LocalTime exitTime = entryTime.plusHours(RESERVATION_DURATION_HOURS);
-            LocalDate exitDate = date;
-            if (exitTime.isBefore(entryTime)) {
-                exitDate = exitDate.plusDays(1);
-            }
-
-            mysqlConnection.insertReservationAndUpdateSpot(
-                req.getSubscriberId(), code,
-                date, entryTime,
-                exitDate, exitTime, spot
-            );
-
-            // Step 6: Send the confirmed reservation back to the client
-            Reservation confirmed = new Reservation(
-                0,
-                req.getSubscriberId(),
-                code,
-                date,
-                entryTime,
-                exitDate,
-                exitTime,
-                spot
-            );
-
-            client.sendToClient(confirmed);
-
+            reply(client, ReservationBooking.book(repository, ParkingPolicy.getCurrent(),
+                    req.getSubscriberId(), req.getEntryDate(), req.getEntryTime()));
         } catch (Exception e) {
             e.printStackTrace();
             try {
-                client.sendToClient("RESERVATION_FAILED_SERVER_ERROR");
+                reply(client, "RESERVATION_FAILED_SERVER_ERROR");
             } catch (IOException ioException) {
                 ioException.printStackTrace();
             }
@@ -514,18 +649,41 @@ public class EchoServer extends AbstractServer {
         return statusBuilder.toString();
     }
     
+    /**
+     * Prepares the storage; for MySQL this opens the connection pool and brings the schema up to
+     * date (see SchemaMigrator), which on an up-to-date schema is a single query.
+     * The launchers call it after listen() on a thread of their own, so the accept loop is not held
+     * up by the migrations; requests arriving before it is done wait for it, and if no launcher
+     * called it the first request runs it. Later calls return immediately.
+     * @return true if the storage is ready.
+     */
+    public synchronized boolean initializeStorage() {
+        if (!storageInitialized) {
+            long startNanos = System.nanoTime();
+            storageReady = repository.initialize();
+            storageInitialized = true;
+            if (storageReady) {
+                log.info("Storage ready", "ms", (System.nanoTime() - startNanos) / 1_000_000);
+            } else {
+                log.error("Storage could not be initialized; some requests may fail");
+            }
+        }
+        return storageReady;
+    }
+
     /**
      * Called when the server starts listening for connections.
      */
     protected void serverStarted() {
-        System.out.println("Server listening for connections on port " + getPort());
+        MetricsRegistry.getInstance().gauge("bpark_connected_clients", "Clients currently connected", this::getNumberOfClients);
+        log.info("Server listening for connections", "port", getPort());
     }
     
     /**
      * Called when the server stops listening for connections.
      */
     protected void serverStopped() {
-        System.out.println("Server has stopped listening for connections.");
+        log.info("Server has stopped listening for connections");
     }
 
     /**
@@ -544,8 +702,10 @@ public class EchoServer extends AbstractServer {
         try {
             sv.listen();
         } catch (Exception ex) {
-            System.out.println("ERROR - Could not listen for clients!");
+            log.error("Could not listen for clients", ex, "port", port);
+            return;
         }
+        sv.initializeStorage();
     }
     
     /**
@@ -560,18 +720,16 @@ public class EchoServer extends AbstractServer {
      *               to whom the response should be sent.
      */
     private void handlePasswordReset(PasswordResetRequest req, ConnectionToClient client) {
-        System.out.println("[EchoServer] → Got PasswordResetRequest for: " + req.getEmail());
+        log.info("Password reset request", "email", req.getEmail());
         String email = req.getEmail();
 
         try {
-            String password = mysqlConnection.getPasswordForEmail(email); 
+            String password = repository.getPasswordForEmail(email); 
 
             if (password == null) {
                 client.sendToClient(new PasswordResetResponse(false, "No account found for that email."));
             } else {
-                System.out.println("[EchoServer] → About to call sendPasswordEmail()");
                 new NotificationController().sendPasswordEmail(email, password);
-                System.out.println("[EchoServer] → sendPasswordEmail() completed successfully");
                 client.sendToClient(new PasswordResetResponse(true,
                         "Your password has been sent to " + email));
             }
@@ -595,18 +753,16 @@ public class EchoServer extends AbstractServer {
      * @param client The ConnectionToClient instance representing the connected client.
      */
     private void handleSubscriptionCodeReset(PasswordResetRequest req, ConnectionToClient client) {
-        System.out.println("[EchoServer] → Got SubscriptionCodeResetRequest for: " + req.getEmail());
+        log.info("Subscription code reset request", "email", req.getEmail());
         String email = req.getEmail();
 
         try {
-            String subscriptionCode = mysqlConnection.subscriptionCodeForEmail(email);
+            String subscriptionCode = repository.subscriptionCodeForEmail(email);
 
             if (subscriptionCode == null) {
                 client.sendToClient(new PasswordResetResponse(false, "No account found for that email."));
             } else {
-                System.out.println("[EchoServer] → About to call sendPasswordEmail()");
                 new NotificationController().sendPasswordEmail(email, subscriptionCode);
-                System.out.println("[EchoServer] → sendPasswordEmail() completed successfully");
                 client.sendToClient(new PasswordResetResponse(true,
                         "Your subscription code has been sent to " + email));
             }
@@ -631,18 +787,16 @@ public class EchoServer extends AbstractServer {
      * @param client The ConnectionToClient instance representing the connected client.
      */
     private void handleParkingCodeReset(PasswordResetRequest req, ConnectionToClient client) {
-        System.out.println("[EchoServer] → Got ParkingCodeResetRequest for: " + req.getEmail());
+        log.info("Parking code reset request", "email", req.getEmail());
         String email = req.getEmail();
 
         try {
-            String parkingCode = mysqlConnection.parkingCodeForEmail(email);
+            String parkingCode = repository.parkingCodeForEmail(email);
 
             if (parkingCode == null) {
                 client.sendToClient(new PasswordResetResponse(false, "No active parking found for that email."));
             } else {
-                System.out.println("[EchoServer] → About to call sendParkingCodeEmail()");
                 new NotificationController().sendParkingCodeEmail(email, parkingCode);
-                System.out.println("[EchoServer] → sendParkingCodeEmail() completed successfully");
                 client.sendToClient(new PasswordResetResponse(true,
                         "Your parking code has been sent to " + email));
             }
@@ -660,20 +814,27 @@ public class EchoServer extends AbstractServer {
     
     /**
      * Handles a site activity request from the client.
-     * This method retrieves the list of future reservations and currently active parkings
-     * from the database via  mysqlConnection, and sends them back to the client
-     * wrapped in a GetSiteActivityResponse object.
+     * The list of future reservations and currently active parkings comes from the repository
+     * (for MySQL, the in-memory SiteActivitySnapshot kept up to date by parking events).
+     * If the client already holds the current version, only "SITE_ACTIVITY_UNCHANGED|version"
+     * is sent; otherwise the full GetSiteActivityResponse is sent.
      *
      * If an error occurs during the process, a failure message ("SITE_ACTIVITY_FAILED") is sent instead.
      *
-     * @param client The client that requested the site activity data.
+     * @param client       The client that requested the site activity data.
+     * @param knownVersion The version the client already has, or -1 if none.
      */
-    private void handleSiteActivityRequest(ConnectionToClient client) {
+    private void handleSiteActivityRequest(ConnectionToClient client, long knownVersion) {
         try {
-            List<Reservation> futureReservations = mysqlConnection.getFutureReservations();
-            List<ActiveParking> activeParkings = mysqlConnection.getActiveParkings();
-
-            GetSiteActivityResponse response = new GetSiteActivityResponse(futureReservations, activeParkings);
+            GetSiteActivityResponse response = repository.getSiteActivity();
+            if (response == null) {
+                client.sendToClient("SITE_ACTIVITY_FAILED");
+                return;
+            }
+            if (knownVersion >= 0 && response.getVersion() == knownVersion) {
+                client.sendToClient("SITE_ACTIVITY_UNCHANGED|" + knownVersion);
+                return;
+            }
             client.sendToClient(response);
         } catch (Exception e) {
             e.printStackTrace();
@@ -684,6 +845,30 @@ public class EchoServer extends AbstractServer {
             }
         }
     }
+    /**
+     * Handles a ReportRangeRequest from a client by generating the report for the
+     * requested date range on demand (for MySQL, see RangeReportGenerator) and returning it
+     * as a RangeReportResponse.
+     * If the range is invalid or the report cannot be generated, "REPORT_RANGE_FAILED" is sent.
+     *
+     * @param req    The request containing the first and last day of the range.
+     * @param client The client connection that sent the request.
+     */
+    private void handleReportRangeRequest(ReportRangeRequest req, ConnectionToClient client) {
+        ReportGenerationEvent event = FlightEvents.beginReport("RANGE", req.getFrom() + ".." + req.getTo());
+        List<DailyReportRow> rows = repository.generateRangeReport(req.getFrom(), req.getTo());
+        FlightEvents.endReport(event, rows == null ? -1 : rows.size());
+        try {
+            if (rows == null) {
+                client.sendToClient("REPORT_RANGE_FAILED");
+            } else {
+                client.sendToClient(new RangeReportResponse(req.getFrom(), req.getTo(), rows));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Handles a ParkingDurationRequest from a client by querying the database
      * and returning a ParkingDurationResponse with detailed duration records.
@@ -695,7 +880,9 @@ public class EchoServer extends AbstractServer {
         int year = req.getYear();
         int month = req.getMonth();
 
-        List<ParkingDurationRecord> records = mysqlConnection.loadParkingDurationReport(year, month);
+        ReportGenerationEvent event = FlightEvents.beginReport("PARKING_DURATION", String.format("%04d-%02d", year, month));
+        List<ParkingDurationRecord> records = repository.loadParkingDurationReport(year, month);
+        FlightEvents.endReport(event, records == null ? -1 : records.size());
         ParkingDurationResponse response = new ParkingDurationResponse(records);
 
         try {
@@ -718,7 +905,9 @@ public class EchoServer extends AbstractServer {
         int year = req.getYear();
         int month = req.getMonth();
 
-        List<DailySubscriberCount> records = mysqlConnection.loadMemberStatusReport(year, month);
+        ReportGenerationEvent event = FlightEvents.beginReport("MEMBER_STATUS", String.format("%04d-%02d", year, month));
+        List<DailySubscriberCount> records = repository.loadMemberStatusReport(year, month);
+        FlightEvents.endReport(event, records == null ? -1 : records.size());
         MemberStatusReportResponse response = new MemberStatusReportResponse(records);
 
         try {
@@ -0,0 +1,215 @@
+package serverSide;
+
+import java.io.IOException;
+
+import clock.TimeSource;
+import clock.VirtualClock;
+import controller.SchedulerController;
+import jdbc.ConnectionPool;
+import jdbc.GroupCommitter;
+import jdbc.HistoryPartitionManager;
+import jdbc.ParkingEvents;
+import jdbc.SlowQueryLog;
+import jdbc.SubscriberCache;
+import journal.EventJournal;
+import logging.Log;
+import entities.Subscriber;
+import metrics.MetricsHttpServer;
+import policy.ParkingPolicy;
+import repository.InMemoryParkingRepository;
+import tracing.TraceRecorder;
+import tracing.Tracer;
+import tools.DatasetGenerator;
+
+/**
+ * HeadlessServerMain starts the BPARK server without the JavaFX GUI.
+ * It is intended for running the server as a service (no display required).
+ *
+ * Startup order is chosen so the server accepts clients as early as possible:
+ * 1. Settings are read from server.properties / command-line arguments.
+ * 2. The EchoServer starts listening immediately.
+ * 3. The connection pool is warmed up in the background (connections are opened in parallel),
+ *    then the schema is migrated on the same thread (requests wait for it, the accept loop does not).
+ * 4. The scheduled tasks (towing, expired reservations, monthly reports) are started.
+ * The Prometheus metrics endpoint (metrics.*, which also serves the request traces) is started
+ * before the server listens.
+ *
+ * With storage.backend=memory the server runs on an InMemoryParkingRepository instead
+ * (no database is needed), which is meant for load tests and benchmarks.
+ *
+ * With journal.enabled=true every parking state transition is also appended to the
+ * journal.EventJournal; the in-memory lot is rebuilt from it on startup.
+ *
+ * Example: java serverSide.HeadlessServerMain --config=/etc/bpark/server.properties --server.port=5555
+ */
+public class HeadlessServerMain {
+
+    /**
+     * Entry point of the headless server.
+     * @param args Command-line arguments (--config=path and any --key=value overrides).
+     */
+    public static void main(String[] args) {
+        long startNanos = System.nanoTime();
+
+        ServerConfig config;
+        try {
+            config = ServerConfig.fromArgs(args);
+        } catch (Exception e) {
+            System.err.println("[HeadlessServerMain] Failed to read configuration: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        try {
+            Log.configure(config.getLogLevel(), config.getLogFile(), config.isLogConsoleEnabled(), config.getLogBufferSize());
+        } catch (IOException e) {
+            System.err.println("[HeadlessServerMain] Could not open the log file, logging to the console: " + e.getMessage());
+        }
+        VirtualClock virtualClock = config.getVirtualClock();
+        if (virtualClock != null) {
+            TimeSource.setClock(virtualClock);
+            System.out.println("[HeadlessServerMain] Running on " + virtualClock);
+        }
+        ParkingPolicy.setCurrent(config.getParkingPolicy());
+        System.out.println("[HeadlessServerMain] Parking policy: " + ParkingPolicy.getCurrent());
+        Tracer.setEnabled(config.isTracingEnabled());
+        TraceRecorder.getInstance().setCapacity(config.getTracingBufferSpans());
+        if (config.isMetricsEnabled()) {
+            MetricsHttpServer.startQuietly(config.getMetricsBindAddress(), config.getMetricsPort());
+        }
+
+        EventJournal journal = config.isJournalEnabled() ? openJournal(config) : null;
+
+        if (config.isInMemoryStorage()) {
+            startInMemory(config, journal);
+            return;
+        }
+        if (journal != null) {
+            ParkingEvents.addListener(journal);
+        }
+
+        ConnectionPool.configure(config.getDbUrl(), config.getDbUser(), config.getDbPassword(),
+                config.getPoolInitialSize(), config.getPoolMaxSize());
+        HistoryPartitionManager.configure(config.getHistoryRetentionMonths(), config.getHistoryPartitionsAhead());
+        SlowQueryLog.configure(config.getSlowQueryMillis());
+        SubscriberCache.configure(config.getSubscriberCacheSize(), config.getSubscriberCacheTtlSeconds());
+        GroupCommitter.configure(config.getGroupCommitMillis(), config.getGroupCommitMaxBatch());
+
+        EchoServer server = new EchoServer(config.getPort());
+        server.setIdempotencyCache(new IdempotencyCache(config.getIdempotencyCacheSize(), config.getIdempotencyTtlMinutes()));
+        try {
+            server.listen();
+        } catch (Exception e) {
+            System.err.println("[HeadlessServerMain] Could not listen on port " + config.getPort() + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long listeningMs = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.println("[HeadlessServerMain] Listening on port " + config.getPort() + " after " + listeningMs + " ms");
+
+        // Warm up the pool off the startup path so the first client request finds open connections
+        Thread warmUp = new Thread(() -> {
+            long warmStart = System.nanoTime();
+            ConnectionPool.getInstance();
+            System.out.println("[HeadlessServerMain] Connection pool ready after "
+                    + (System.nanoTime() - warmStart) / 1_000_000 + " ms");
+            if (server.initializeStorage()) {
+                System.out.println("[HeadlessServerMain] Schema up to date after "
+                        + (System.nanoTime() - warmStart) / 1_000_000 + " ms");
+            }
+        }, "pool-warmup");
+        warmUp.setDaemon(true);
+        warmUp.start();
+
+        if (config.isSchedulerEnabled()) {
+            System.out.println("[HeadlessServerMain] Starting scheduled tasks...");
+            SchedulerController.startAll();
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("[HeadlessServerMain] Shutting down...");
+            try {
+                server.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            ConnectionPool.getInstance().closeAllConnections();
+            closeJournal(journal);
+        }, "server-shutdown"));
+    }
+
+    /**
+     * Opens the event journal (journal.* settings). The server also runs without it, so a
+     * journal that cannot be opened is reported and skipped.
+     */
+    private static EventJournal openJournal(ServerConfig config) {
+        try {
+            EventJournal journal = EventJournal.open(config.getJournalDir(), config.getJournalSegmentBytes(),
+                    config.getJournalSnapshotEvents(), config.getJournalFlushMillis());
+            System.out.println("[HeadlessServerMain] Event journal " + config.getJournalDir().toAbsolutePath()
+                    + " at event " + journal.getLastSequence());
+            return journal;
+        } catch (IOException e) {
+            System.err.println("[HeadlessServerMain] Could not open the event journal, running without it: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void closeJournal(EventJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        ParkingEvents.removeListener(journal);
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts the server on an in-memory repository with storage.memory.spots free spots and
+     * storage.memory.subscribers subscribers that tools.LoadGenerator can log in as. With the
+     * event journal the cars, reservations and towed vehicles of the previous run are restored.
+     */
+    private static void startInMemory(ServerConfig config, EventJournal journal) {
+        InMemoryParkingRepository repository = new InMemoryParkingRepository();
+        repository.addParkingSpots(config.getMemorySpots());
+        for (int i = 0; i < config.getMemorySubscribers(); i++) {
+            repository.addSubscriber(new Subscriber(DatasetGenerator.subscriberId(i), "Subscriber " + i,
+                    "user" + i + "@bpark.test", "0500000000", String.format("%08d", i),
+                    DatasetGenerator.subscriptionCode(i), 0, "4580000000000000"));
+        }
+        if (journal != null) {
+            repository.restore(journal.snapshotState());
+            ParkingEvents.addListener(journal);
+        }
+
+        EchoServer server = new EchoServer(config.getPort(), repository);
+        server.setIdempotencyCache(new IdempotencyCache(config.getIdempotencyCacheSize(), config.getIdempotencyTtlMinutes()));
+        server.initializeStorage();
+        try {
+            server.listen();
+        } catch (Exception e) {
+            System.err.println("[HeadlessServerMain] Could not listen on port " + config.getPort() + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println("[HeadlessServerMain] Listening on port " + config.getPort()
+                + " with in-memory storage (" + config.getMemorySpots() + " spots, "
+                + config.getMemorySubscribers() + " subscribers)");
+
+        if (config.isSchedulerEnabled()) {
+            SchedulerController.startRepositoryTasks(repository);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            closeJournal(journal);
+        }, "server-shutdown"));
+    }
+}
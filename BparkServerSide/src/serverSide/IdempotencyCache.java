@@ -0,0 +1,129 @@
+package serverSide;
+
+import java.lang.ref.WeakReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdempotencyCache remembers the reply sent for each idempotency key (request.IdempotentRequest),
+ * so that a request resent by a terminal after a timeout is answered without being processed again.
+ *
+ * - claim(key) is called when a request arrives. The first request with a key gets null and
+ *   processes it; a later one gets the reply of the first (a future that completes when the first
+ *   request has sent its reply).
+ * - complete(key, reply, deliveredTo) stores the reply and the connection it was sent on, so that
+ *   a retry arriving on that same connection is not answered twice; abandon(key) forgets a key
+ *   whose request sent no reply (it failed before answering), so that a retry is processed again.
+ * - The cache is bounded: at most `capacity` keys are kept (least recently used evicted first) and
+ *   a key older than the time-to-live is treated as new.
+ */
+public class IdempotencyCache {
+
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_TTL_MINUTES = 10;
+
+    /**
+     * The reply sent for a key.
+     */
+    public static final class Reply {
+        private final Object message;
+        private final WeakReference<Object> deliveredTo;
+
+        Reply(Object message, Object deliveredTo) {
+            this.message = message;
+            this.deliveredTo = new WeakReference<>(deliveredTo);
+        }
+
+        /** @return The reply sent to the client. */
+        public Object getMessage() {
+            return message;
+        }
+
+        /**
+         * @param connection A client connection.
+         * @return true if the reply was sent successfully on this connection.
+         */
+        public boolean wasDeliveredTo(Object connection) {
+            return connection != null && deliveredTo.get() == connection;
+        }
+    }
+
+    /**
+     * The reply of one key, pending until the first request has answered.
+     */
+    private static final class Entry {
+        final long createdNanos = System.nanoTime();
+        final CompletableFuture<Reply> reply = new CompletableFuture<>();
+    }
+
+    private final long ttlNanos;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an empty cache.
+     * @param capacity   The largest number of keys kept.
+     * @param ttlMinutes How long a reply is kept for replays.
+     */
+    public IdempotencyCache(int capacity, int ttlMinutes) {
+        int max = Math.max(1, capacity);
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(Math.max(1, ttlMinutes));
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    /**
+     * Registers a key.
+     * @param key The idempotency key of the request.
+     * @return null if the key is new (the caller processes the request and must then call
+     *         complete or abandon), otherwise the reply of the first request with this key.
+     */
+    public synchronized CompletableFuture<Reply> claim(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.createdNanos < ttlNanos) {
+            return entry.reply;
+        }
+        entries.put(key, new Entry());
+        return null;
+    }
+
+    /**
+     * Stores the reply sent for a key and releases the replays waiting for it.
+     * @param key         The idempotency key.
+     * @param reply       The reply sent to the client.
+     * @param deliveredTo The connection the reply was sent on (null if sending it failed).
+     */
+    public void complete(String key, Object reply, Object deliveredTo) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            entry.reply.complete(new Reply(reply, deliveredTo));
+        }
+    }
+
+    /**
+     * Forgets a key whose request ended without a reply; waiting replays get no reply either.
+     * @param key The idempotency key.
+     */
+    public void abandon(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+        }
+        if (entry != null) {
+            entry.reply.complete(null);
+        }
+    }
+
+    /** @return The number of keys kept. */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,61 @@
+package serverSide;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import entities.Reservation;
+import policy.ParkingPolicy;
+import repository.ParkingRepository;
+
+/**
+ * ReservationBooking books a new reservation: the steps of EchoServer's new-reservation request,
+ * shared with tools.SimulationRunner (and through it tools.CapacitySimulator) so that simulated
+ * reservations are accepted or refused exactly like real ones.
+ *
+ * The steps:
+ * 1. Counts the reservations overlapping the cap window (policy.getCapWindowHours()) from the entry time.
+ * 2. Refuses the reservation if the lot is over the reservation cap.
+ * 3. Refuses it if the subscriber already has a reservation at the same time.
+ * 4. Otherwise picks a free spot, generates the parking code and stores the reservation
+ *    for one session (policy.getSessionMinutes()).
+ */
+public final class ReservationBooking {
+
+    /** Result string: the lot is over the reservation cap at the requested time. */
+    public static final String CAP_REACHED = "RESERVATION_FAILED";
+
+    /** Result string: the subscriber already has a reservation at the requested time. */
+    public static final String ALREADY_EXISTS = "RESERVATION_ALREADY_EXIST";
+
+    private ReservationBooking() {
+    }
+
+    /**
+     * Books a reservation for the subscriber.
+     *
+     * @param repository   The storage to book in.
+     * @param policy       The rules to apply (reservation cap, session length).
+     * @param subscriberId The subscriber making the reservation.
+     * @param date         The entry date.
+     * @param entryTime    The entry time.
+     * @return The confirmed Reservation, or CAP_REACHED / ALREADY_EXISTS if it was refused.
+     */
+    public static Object book(ParkingRepository repository, ParkingPolicy policy, String subscriberId,
+            LocalDate date, LocalTime entryTime) {
+        int overlapping = repository.getOverlappingReservationCount(date, entryTime, policy.getCapWindowHours());
+        if (!policy.acceptsReservation(overlapping, repository.getTotalParkingSpots())) {
+            return CAP_REACHED;
+        }
+        if (repository.reservationExists(subscriberId, date, entryTime)) {
+            return ALREADY_EXISTS;
+        }
+
+        int spot = repository.findAvailableSpot();
+        String code = repository.generateUniqueParkingCode(subscriberId, spot);
+        LocalDateTime exit = LocalDateTime.of(date, entryTime).plusMinutes(policy.getSessionMinutes());
+        repository.insertReservationAndUpdateSpot(subscriberId, code, date, entryTime,
+                exit.toLocalDate(), exit.toLocalTime(), spot);
+        return new Reservation(0, subscriberId, code, date, entryTime, exit.toLocalDate(), exit.toLocalTime(), spot);
+    }
+}
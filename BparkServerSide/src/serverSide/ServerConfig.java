@@ -0,0 +1,392 @@
+package serverSide;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Properties;
+
+import clock.VirtualClock;
+import jdbc.GroupCommitter;
+import jdbc.SlowQueryLog;
+import jdbc.SubscriberCache;
+import journal.EventJournal;
+import logging.Level;
+import logging.Log;
+import metrics.MetricsHttpServer;
+import policy.ParkingPolicy;
+import tracing.TraceRecorder;
+
+/**
+ * ServerConfig holds the settings used to start the BPARK server without the GUI.
+ * Values are read from a properties file (server.properties by default) and can be
+ * overridden on the command line using the form --key=value, for example:
+ * --server.port=5556 --db.url=jdbc:mysql://db-host:3306/bpark
+ * Any setting that is not provided keeps the same default the GUI server uses.
+ */
+public class ServerConfig {
+
+    /** Default location of the configuration file, relative to the working directory. */
+    public static final String DEFAULT_CONFIG_FILE = "server.properties";
+
+    private final Properties properties = new Properties();
+
+    /**
+     * Constructs a configuration filled with the built-in defaults.
+     */
+    public ServerConfig() {
+        properties.setProperty("server.port", String.valueOf(EchoServer.DEFAULT_PORT));
+        properties.setProperty("db.url", "jdbc:mysql://localhost:3306/bpark?serverTimezone=Asia/Jerusalem&useSSL=false");
+        properties.setProperty("db.user", "root");
+        properties.setProperty("db.password", "Aa123456");
+        properties.setProperty("db.pool.initial", "5");
+        properties.setProperty("db.pool.max", "6");
+        properties.setProperty("db.slow.query.millis", String.valueOf(SlowQueryLog.DEFAULT_THRESHOLD_MILLIS));
+        properties.setProperty("scheduler.enabled", "true");
+        properties.setProperty("metrics.enabled", "true");
+        properties.setProperty("metrics.bind", "127.0.0.1");
+        properties.setProperty("metrics.port", String.valueOf(MetricsHttpServer.DEFAULT_PORT));
+        properties.setProperty("tracing.enabled", "true");
+        properties.setProperty("log.level", "INFO");
+        properties.setProperty("log.file", "");
+        properties.setProperty("log.console", "true");
+        properties.setProperty("log.buffer", String.valueOf(Log.DEFAULT_BUFFER_SIZE));
+        properties.setProperty("tracing.buffer.spans", String.valueOf(TraceRecorder.DEFAULT_CAPACITY));
+        properties.setProperty("history.retention.months", "24");
+        properties.setProperty("history.partitions.ahead", "3");
+        properties.setProperty("storage.backend", "mysql");
+        properties.setProperty("storage.memory.spots", "100");
+        properties.setProperty("storage.memory.subscribers", "0");
+        properties.setProperty("clock.start", "");
+        properties.setProperty("clock.speed", "1");
+    }
+
+    /**
+     * Builds the configuration from the command-line arguments.
+     * The file given by --config=path (or server.properties if it exists) is loaded first,
+     * and every other --key=value argument overrides the value read from the file.
+     *
+     * @param args The command-line arguments passed to the launcher.
+     * @return The resolved configuration.
+     * @throws IOException if an explicitly requested configuration file cannot be read.
+     */
+    public static ServerConfig fromArgs(String[] args) throws IOException {
+        ServerConfig config = new ServerConfig();
+
+        String configFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--config=")) {
+                configFile = arg.substring("--config=".length());
+            }
+        }
+
+        if (configFile != null) {
+            config.load(Paths.get(configFile));
+        } else if (Files.exists(Paths.get(DEFAULT_CONFIG_FILE))) {
+            config.load(Paths.get(DEFAULT_CONFIG_FILE));
+        }
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.startsWith("--config=")) {
+                continue;
+            }
+            int eq = arg.indexOf('=');
+            if (eq > 2) {
+                config.properties.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+            } else {
+                System.err.println("[ServerConfig] Ignoring malformed argument: " + arg);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Loads settings from a properties file on top of the current values.
+     *
+     * @param file The properties file to read.
+     * @throws IOException if the file cannot be read.
+     */
+    public void load(Path file) throws IOException {
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            properties.load(in);
+        }
+        System.out.println("[ServerConfig] Loaded settings from " + file.toAbsolutePath());
+    }
+
+    /**
+     * Returns a setting as a string.
+     *
+     * @param key The setting name.
+     * @return The setting value, or null if it is not defined.
+     */
+    public String get(String key) {
+        return properties.getProperty(key);
+    }
+
+    /**
+     * Returns a setting as a string, or the given fallback if it is not defined.
+     *
+     * @param key      The setting name.
+     * @param fallback The value returned when the setting is missing.
+     * @return The setting value or the fallback.
+     */
+    public String get(String key, String fallback) {
+        return properties.getProperty(key, fallback);
+    }
+
+    /**
+     * Returns a setting as an int.
+     *
+     * @param key      The setting name.
+     * @param fallback The value returned when the setting is missing or not a number.
+     * @return The parsed value or the fallback.
+     */
+    public int getInt(String key, int fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[ServerConfig] Invalid number for " + key + ": " + value);
+            return fallback;
+        }
+    }
+
+    /**
+     * Returns a setting as a boolean.
+     *
+     * @param key      The setting name.
+     * @param fallback The value returned when the setting is missing.
+     * @return The parsed value or the fallback.
+     */
+    public boolean getBoolean(String key, boolean fallback) {
+        String value = properties.getProperty(key);
+        return value == null ? fallback : Boolean.parseBoolean(value.trim());
+    }
+
+    /** @return The port the server listens on. */
+    public int getPort() {
+        return getInt("server.port", EchoServer.DEFAULT_PORT);
+    }
+
+    /** @return The JDBC URL of the database. */
+    public String getDbUrl() {
+        return get("db.url");
+    }
+
+    /** @return The database user name. */
+    public String getDbUser() {
+        return get("db.user");
+    }
+
+    /** @return The database password. */
+    public String getDbPassword() {
+        return get("db.password");
+    }
+
+    /** @return The number of connections opened when the pool starts. */
+    public int getPoolInitialSize() {
+        return getInt("db.pool.initial", 5);
+    }
+
+    /** @return The maximum number of idle connections kept in the pool. */
+    public int getPoolMaxSize() {
+        return getInt("db.pool.max", 6);
+    }
+
+    /** @return The execution time above which a statement is logged by the SlowQueryLog (-1 = never). */
+    public int getSlowQueryMillis() {
+        return getInt("db.slow.query.millis", (int) SlowQueryLog.DEFAULT_THRESHOLD_MILLIS);
+    }
+
+    /** @return How long a gate operation waits for others to share its commit, in milliseconds (0 = no group commit). */
+    public int getGroupCommitMillis() {
+        return getInt("db.group.commit.millis", 0);
+    }
+
+    /** @return The largest number of gate operations committed in one transaction. */
+    public int getGroupCommitMaxBatch() {
+        return getInt("db.group.commit.max", GroupCommitter.DEFAULT_MAX_BATCH);
+    }
+
+    /** @return The number of idempotency keys whose replies are kept for resent requests. */
+    public int getIdempotencyCacheSize() {
+        return getInt("idempotency.cache.size", IdempotencyCache.DEFAULT_CAPACITY);
+    }
+
+    /** @return How long the reply of an idempotent request is kept, in minutes. */
+    public int getIdempotencyTtlMinutes() {
+        return getInt("idempotency.ttl.minutes", IdempotencyCache.DEFAULT_TTL_MINUTES);
+    }
+
+    /** @return The number of subscribers kept in the subscriber cache. */
+    public int getSubscriberCacheSize() {
+        return getInt("subscriber.cache.size", SubscriberCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    /** @return How long a cached subscriber stays valid, in seconds. */
+    public int getSubscriberCacheTtlSeconds() {
+        return getInt("subscriber.cache.ttl.seconds", SubscriberCache.DEFAULT_TTL_SECONDS);
+    }
+
+    /** @return true if the background scheduler (towing, expiry, reports) should run. */
+    public boolean isSchedulerEnabled() {
+        return getBoolean("scheduler.enabled", true);
+    }
+
+    /** @return true if the Prometheus metrics endpoint should be started. */
+    public boolean isMetricsEnabled() {
+        return getBoolean("metrics.enabled", true);
+    }
+
+    /** @return The address the metrics endpoint listens on (loopback by default). */
+    public String getMetricsBindAddress() {
+        return get("metrics.bind", "127.0.0.1").trim();
+    }
+
+    /** @return The port of the metrics endpoint. */
+    public int getMetricsPort() {
+        return getInt("metrics.port", MetricsHttpServer.DEFAULT_PORT);
+    }
+
+    /** @return The lowest level written by the server log. */
+    public Level getLogLevel() {
+        return Log.parseLevel(get("log.level"), Level.INFO);
+    }
+
+    /** @return The JSON lines log file, or null if the log is only written to the console. */
+    public Path getLogFile() {
+        String file = get("log.file", "").trim();
+        return file.isEmpty() ? null : Path.of(file);
+    }
+
+    /** @return true if log records are also written to the console as text. */
+    public boolean isLogConsoleEnabled() {
+        return getBoolean("log.console", true);
+    }
+
+    /** @return The number of log records buffered before they are dropped. */
+    public int getLogBufferSize() {
+        return getInt("log.buffer", Log.DEFAULT_BUFFER_SIZE);
+    }
+
+    /** @return true if client requests and scheduled jobs should be traced. */
+    public boolean isTracingEnabled() {
+        return getBoolean("tracing.enabled", true);
+    }
+
+    /** @return The number of finished spans kept for the trace timelines. */
+    public int getTracingBufferSpans() {
+        return getInt("tracing.buffer.spans", TraceRecorder.DEFAULT_CAPACITY);
+    }
+
+    /** @return The number of months of history kept in parking_history before archival. */
+    public int getHistoryRetentionMonths() {
+        return getInt("history.retention.months", 24);
+    }
+
+    /** @return The number of future monthly history partitions created in advance. */
+    public int getHistoryPartitionsAhead() {
+        return getInt("history.partitions.ahead", 3);
+    }
+
+    /** @return true if the server should keep its data in memory instead of MySQL (storage.backend=memory). */
+    public boolean isInMemoryStorage() {
+        return "memory".equalsIgnoreCase(get("storage.backend", "mysql").trim());
+    }
+
+    /** @return The number of parking spots created when the in-memory storage is used. */
+    public int getMemorySpots() {
+        return getInt("storage.memory.spots", 100);
+    }
+
+    /** @return The number of subscribers seeded (with DatasetGenerator IDs and codes) when the in-memory storage is used. */
+    public int getMemorySubscribers() {
+        return getInt("storage.memory.subscribers", 0);
+    }
+
+    /** @return true if parking state transitions are written to the event journal (journal.*). */
+    public boolean isJournalEnabled() {
+        return getBoolean("journal.enabled", false);
+    }
+
+    /** @return The directory of the journal segments and snapshots. */
+    public Path getJournalDir() {
+        return Path.of(get("journal.dir", "journal").trim());
+    }
+
+    /** @return The size of each journal segment file in bytes (journal.segment.mb). */
+    public int getJournalSegmentBytes() {
+        return getInt("journal.segment.mb", EventJournal.DEFAULT_SEGMENT_BYTES >> 20) << 20;
+    }
+
+    /** @return The number of journaled events between two state snapshots. */
+    public int getJournalSnapshotEvents() {
+        return getInt("journal.snapshot.events", EventJournal.DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    /** @return How often the journal is written to disk in milliseconds (0 = after every event). */
+    public int getJournalFlushMillis() {
+        return getInt("journal.flush.millis", (int) EventJournal.DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Returns the clock the server should run on. With the defaults (clock.start empty, clock.speed=1)
+     * this is null and the server uses the system clock; otherwise it is a VirtualClock starting at
+     * clock.start (ISO date-time, default now) and running clock.speed times faster than real time.
+     *
+     * @return The virtual clock, or null for the system clock.
+     */
+    public VirtualClock getVirtualClock() {
+        String start = get("clock.start", "").trim();
+        double speed = 1;
+        try {
+            speed = Double.parseDouble(get("clock.speed", "1").trim());
+        } catch (NumberFormatException e) {
+            System.err.println("[ServerConfig] Invalid number for clock.speed: " + get("clock.speed"));
+        }
+        if (start.isEmpty() && speed == 1) {
+            return null;
+        }
+        try {
+            return new VirtualClock(start.isEmpty() ? LocalDateTime.now() : LocalDateTime.parse(start), speed);
+        } catch (RuntimeException e) {
+            System.err.println("[ServerConfig] Invalid clock settings (" + e.getMessage() + "), using the system clock");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the business rules of the lot (policy.* settings); missing settings keep the
+     * values of ParkingPolicy.DEFAULT.
+     *
+     * @return The policy, or ParkingPolicy.DEFAULT if the settings are invalid.
+     */
+    public ParkingPolicy getParkingPolicy() {
+        ParkingPolicy d = ParkingPolicy.DEFAULT;
+        double cap = d.getReservationCap();
+        String capValue = get("policy.reservation.cap");
+        if (capValue != null) {
+            try {
+                cap = Double.parseDouble(capValue.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("[ServerConfig] Invalid number for policy.reservation.cap: " + capValue);
+            }
+        }
+        try {
+            return new ParkingPolicy(getInt("policy.session.minutes", d.getSessionMinutes()),
+                    getInt("policy.extension.minutes", d.getExtensionMinutes()),
+                    getInt("policy.arrival.window.minutes", d.getArrivalWindowMinutes()), cap,
+                    getInt("policy.reservation.cap.window.hours", d.getCapWindowHours()),
+                    getInt("policy.tow.grace.minutes", d.getTowGraceMinutes()));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[ServerConfig] " + e.getMessage() + ", using the default policy");
+            return d;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package tools;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * ArrivalProfile describes the traffic the simulations replay: how many visits a day brings
+ * (per day of the week), when during the day cars arrive, how long a regular stay lasts and
+ * which share of the visits extend their parking or overstay it.
+ *
+ * synthetic() uses the same distributions as DatasetGenerator. fromHistory() measures them in
+ * parking_history over a date range; since the history only holds the visits that were served,
+ * a lot that was often full under-reports its demand, which scaled() corrects for.
+ */
+final class ArrivalProfile {
+
+    /** Regular stays are kept in buckets of this many minutes. */
+    private static final int STAY_BUCKET_MINUTES = 5;
+
+    private final String source;
+    private final double[] visitsByWeekday; // index DayOfWeek.getValue() - 1
+    private final long[] hourWeights;       // 24 relative weights
+    private final long[] stayBuckets;       // regular stays per 5 minutes, null = DatasetGenerator.sessionMinutes
+    private final double extendedShare;
+    private final double overstayShare;
+
+    private ArrivalProfile(String source, double[] visitsByWeekday, long[] hourWeights, long[] stayBuckets,
+            double extendedShare, double overstayShare) {
+        this.source = source;
+        this.visitsByWeekday = visitsByWeekday;
+        this.hourWeights = hourWeights;
+        this.stayBuckets = stayBuckets;
+        this.extendedShare = extendedShare;
+        this.overstayShare = overstayShare;
+    }
+
+    /**
+     * The distributions of DatasetGenerator: peaks at 07–09 and 16–18, Fridays and Saturdays at
+     * 60% of a weekday, 10% extended and 4% late visits.
+     * @param weekdayVisits The visits of a weekday (Sunday–Thursday).
+     * @return The profile.
+     */
+    static ArrivalProfile synthetic(double weekdayVisits) {
+        double[] visits = new double[7];
+        for (DayOfWeek dow : DayOfWeek.values()) {
+            visits[dow.getValue() - 1] = (dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) ? 0.6 * weekdayVisits : weekdayVisits;
+        }
+        long[] hours = Arrays.stream(DatasetGenerator.HOUR_WEIGHTS).asLongStream().toArray();
+        return new ArrivalProfile("synthetic", visits, hours, null, 0.10, 0.04);
+    }
+
+    /**
+     * Measures the profile in parking_history.
+     * @param conn The database connection.
+     * @param from The first entry date (inclusive).
+     * @param to   The last entry date (exclusive).
+     * @return The profile.
+     * @throws SQLException if a query fails or the range holds no history.
+     */
+    static ArrivalProfile fromHistory(Connection conn, LocalDate from, LocalDate to) throws SQLException {
+        // Days with traffic per weekday (DAYOFWEEK: 1 = Sunday ... 7 = Saturday)
+        long[] days = new long[7];
+        String daysQuery = """
+            SELECT DAYOFWEEK(entry_date) AS dow, COUNT(DISTINCT entry_date) AS days
+            FROM parking_history
+            WHERE entry_date >= ? AND entry_date < ?
+            GROUP BY dow""";
+        try (PreparedStatement stmt = range(conn, daysQuery, from, to); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                days[weekdayIndex(rs.getInt("dow"))] = rs.getLong("days");
+            }
+        }
+
+        long[] sessionsByWeekday = new long[7];
+        long[] hours = new long[24];
+        long sessions = 0, extended = 0, late = 0;
+        String sessionsQuery = """
+            SELECT DAYOFWEEK(entry_date) AS dow, HOUR(entry_time) AS hour, COUNT(*) AS sessions,
+                   SUM(extended_duration > 0) AS extended, SUM(late_duration > 0) AS late
+            FROM parking_history
+            WHERE entry_date >= ? AND entry_date < ?
+            GROUP BY dow, hour""";
+        try (PreparedStatement stmt = range(conn, sessionsQuery, from, to); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long n = rs.getLong("sessions");
+                sessionsByWeekday[weekdayIndex(rs.getInt("dow"))] += n;
+                hours[rs.getInt("hour")] += n;
+                sessions += n;
+                extended += rs.getLong("extended");
+                late += rs.getLong("late");
+            }
+        }
+        if (sessions == 0) {
+            throw new SQLException("parking_history has no visits between " + from + " and " + to);
+        }
+
+        long[] stays = new long[240 / STAY_BUCKET_MINUTES + 1];
+        String staysQuery = """
+            SELECT LEAST(TIMESTAMPDIFF(MINUTE, TIMESTAMP(entry_date, entry_time), TIMESTAMP(exit_date, exit_time)), 240) DIV 5 AS bucket,
+                   COUNT(*) AS sessions
+            FROM parking_history
+            WHERE entry_date >= ? AND entry_date < ? AND extended_duration = 0 AND late_duration = 0
+            GROUP BY bucket""";
+        try (PreparedStatement stmt = range(conn, staysQuery, from, to); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                int bucket = rs.getInt("bucket");
+                if (bucket >= 0 && bucket < stays.length) {
+                    stays[bucket] += rs.getLong("sessions");
+                }
+            }
+        }
+
+        double[] visits = new double[7];
+        double total = (double) sessions / Math.max(1, Arrays.stream(days).sum());
+        for (int i = 0; i < 7; i++) {
+            // Weekdays missing from a short range get the overall average
+            visits[i] = days[i] > 0 ? (double) sessionsByWeekday[i] / days[i] : total;
+        }
+        return new ArrivalProfile("parking_history " + from + ".." + to.minusDays(1), visits, hours,
+                Arrays.stream(stays).sum() > 0 ? stays : null, (double) extended / sessions, (double) late / sessions);
+    }
+
+    private static PreparedStatement range(Connection conn, String sql, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        stmt.setDate(1, Date.valueOf(from));
+        stmt.setDate(2, Date.valueOf(to));
+        return stmt;
+    }
+
+    private static int weekdayIndex(int mysqlDayOfWeek) {
+        return mysqlDayOfWeek == 1 ? 6 : mysqlDayOfWeek - 2;
+    }
+
+    /**
+     * @param demand The factor applied to the number of visits (e.g. 1.2 for 20% more cars).
+     * @return A copy with the number of visits scaled.
+     */
+    ArrivalProfile scaled(double demand) {
+        double[] visits = visitsByWeekday.clone();
+        for (int i = 0; i < visits.length; i++) {
+            visits[i] *= demand;
+        }
+        return new ArrivalProfile(source + (demand != 1 ? " x" + demand : ""), visits, hourWeights, stayBuckets,
+                extendedShare, overstayShare);
+    }
+
+    /**
+     * @param extended The share of visits that extend their parking (0..1).
+     * @param overstay The share of visits that stay past their time without extending (0..1).
+     * @return A copy with other extension / overstay shares.
+     */
+    ArrivalProfile withBehaviour(double extended, double overstay) {
+        return new ArrivalProfile(source, visitsByWeekday, hourWeights, stayBuckets, extended, overstay);
+    }
+
+    /**
+     * Draws the number of visits of a day (normally distributed around the weekday's mean, like a Poisson count).
+     */
+    int visits(LocalDate date, Random random) {
+        double mean = visitsByWeekday[date.getDayOfWeek().getValue() - 1];
+        return (int) Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+    }
+
+    /**
+     * Draws an arrival time (whole minutes).
+     */
+    LocalTime arrivalTime(Random random) {
+        long pick = (long) (random.nextDouble() * Arrays.stream(hourWeights).sum());
+        int hour = 0;
+        while (hour < 23 && pick >= hourWeights[hour]) {
+            pick -= hourWeights[hour];
+            hour++;
+        }
+        return LocalTime.of(hour, random.nextInt(60));
+    }
+
+    /**
+     * Draws the length of a regular (not extended, not late) stay in minutes.
+     */
+    int regularStay(Random random) {
+        if (stayBuckets == null) {
+            return DatasetGenerator.sessionMinutes(random);
+        }
+        long pick = (long) (random.nextDouble() * Arrays.stream(stayBuckets).sum());
+        int bucket = 0;
+        while (bucket < stayBuckets.length - 1 && pick >= stayBuckets[bucket]) {
+            pick -= stayBuckets[bucket];
+            bucket++;
+        }
+        return Math.max(1, Math.min(240, bucket * STAY_BUCKET_MINUTES + random.nextInt(STAY_BUCKET_MINUTES)));
+    }
+
+    double extendedShare() {
+        return extendedShare;
+    }
+
+    double overstayShare() {
+        return overstayShare;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.0f visits on a Sunday, %.0f on a Saturday, %.1f%% extended, %.1f%% late", source,
+                visitsByWeekday[6], visitsByWeekday[5], extendedShare * 100, overstayShare * 100);
+    }
+}
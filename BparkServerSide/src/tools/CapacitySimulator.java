@@ -0,0 +1,329 @@
+package tools;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+
+import clock.VirtualClock;
+import jdbc.ConnectionPool;
+import jdbc.ParkingEvent;
+import policy.ParkingPolicy;
+import repository.InMemoryParkingRepository;
+import serverSide.ServerConfig;
+
+/**
+ * CapacitySimulator compares lot policies offline. For every combination of the policy values
+ * given on the command line it runs --trials independent Monte-Carlo days and reports the
+ * utilization, the rejected drop-offs and reservations and the towing rate, so that the
+ * reservation cap (or any other rule in policy.ParkingPolicy) can be tuned without trying it on
+ * customers.
+ *
+ * How it works:
+ * - A trial is one day of traffic (SimulationRunner) on a fresh InMemoryParkingRepository with
+ *   the policy under test and its own VirtualClock, so the real allocation logic (spot
+ *   selection, reservation cap, activation window, towing, expiry) decides every outcome.
+ *   The lot starts empty at midnight and the run continues until the day's cars have left.
+ * - Trial i simulates --start + i days (so the weekdays rotate) with a seed derived from --seed
+ *   and i; the results do not depend on how the trials are split between threads.
+ * - The trials of a policy run on a ForkJoinPool (--parallelism, default: all cores): the
+ *   range of trials is split in halves until it is small, and the totals are merged back.
+ * - The traffic is the synthetic DatasetGenerator profile (--visits per weekday), or with
+ *   --history=N the arrivals, stays, extensions and late pickups measured in the last N months
+ *   of parking_history (database settings as for the server). --demand scales the number of
+ *   visits; the history only holds the visits that were served.
+ *
+ * Policy values: --cap=0.5,0.6,0.7 --cap-window=8 --session=240 --extension=240
+ * --arrival-window=15 --tow-grace=1 (comma lists; unspecified rules keep the policy.* settings).
+ *
+ * Usage: java tools.CapacitySimulator [--trials=1000] [--spots=100] [--subscribers=2000] [--visits=300]
+ *        [--demand=1.0] [--reserved=30] [--no-show=5] [--extended=10] [--overstay=4] [--history=3]
+ *        [--start=2025-12-07] [--seed=42] [--parallelism=8] [policy values] [ServerConfig options]
+ */
+public class CapacitySimulator {
+
+    /** Trials per leaf task of the fork-join split. */
+    private static final int TRIALS_PER_TASK = 4;
+
+    private final ArrivalProfile profile;
+    private final LocalDate firstDay;
+    private final long seed;
+    private final int spots;
+    private final int subscribers;
+    private final double reservedShare;
+    private final double noShowShare;
+
+    /**
+     * The totals of a number of trials.
+     */
+    static final class Totals {
+        long trials;
+        long visits;
+        long served;
+        long servedSquares;
+        long walkIns;
+        long walkInsRejected;
+        long reservations;
+        long reservationsRefused;
+        long towed;
+        long expired;
+        double occupiedSpots;
+        int peakOccupied;
+
+        void add(SimulationRunner run) {
+            long servedToday = run.transitions(ParkingEvent.Type.DROPOFF) + run.transitions(ParkingEvent.Type.RESERVATION_ACTIVATED);
+            trials++;
+            visits += run.visits();
+            served += servedToday;
+            servedSquares += servedToday * servedToday;
+            walkIns += run.attempts("dropoff");
+            walkInsRejected += run.outcome("dropoff", "NO_SPOTS_AVAILABLE");
+            reservations += run.attempts("reserve");
+            reservationsRefused += run.outcome("reserve", "RESERVATION_FAILED")
+                    + run.outcome("reserve", "RESERVATION_FAILED_SERVER_ERROR");
+            towed += run.transitions(ParkingEvent.Type.TOWED);
+            expired += run.transitions(ParkingEvent.Type.RESERVATION_EXPIRED);
+            occupiedSpots += run.averageOccupied();
+            peakOccupied = Math.max(peakOccupied, run.peakOccupied());
+        }
+
+        Totals merge(Totals other) {
+            trials += other.trials;
+            visits += other.visits;
+            served += other.served;
+            servedSquares += other.servedSquares;
+            walkIns += other.walkIns;
+            walkInsRejected += other.walkInsRejected;
+            reservations += other.reservations;
+            reservationsRefused += other.reservationsRefused;
+            towed += other.towed;
+            expired += other.expired;
+            occupiedSpots += other.occupiedSpots;
+            peakOccupied = Math.max(peakOccupied, other.peakOccupied);
+            return this;
+        }
+    }
+
+    /**
+     * Runs the trials [from, to) of one policy, splitting the range while it is large.
+     */
+    private final class TrialRange extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final ParkingPolicy policy;
+        private final int from;
+        private final int to;
+
+        TrialRange(ParkingPolicy policy, int from, int to) {
+            this.policy = policy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= TRIALS_PER_TASK) {
+                Totals totals = new Totals();
+                for (int trial = from; trial < to; trial++) {
+                    totals.add(runTrial(policy, trial));
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            TrialRange left = new TrialRange(policy, from, middle);
+            left.fork();
+            Totals right = new TrialRange(policy, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    CapacitySimulator(ArrivalProfile profile, LocalDate firstDay, long seed, int spots, int subscribers,
+            double reservedShare, double noShowShare) {
+        this.profile = profile;
+        this.firstDay = firstDay;
+        this.seed = seed;
+        this.spots = spots;
+        this.subscribers = subscribers;
+        this.reservedShare = reservedShare;
+        this.noShowShare = noShowShare;
+    }
+
+    /**
+     * Entry point of the simulator.
+     * @param args Simulator options, policy values and any ServerConfig option (see the class comment).
+     */
+    public static void main(String[] args) {
+        int trials = 1000, spots = 100, subscribers = 2000, visits = 300, reserved = 30, noShow = 5;
+        int extended = -1, overstay = -1, historyMonths = 0;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        double demand = 1.0;
+        long seed = 42;
+        LocalDate start = LocalDate.now().plusDays(1);
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--trials=")) trials = Integer.parseInt(value);
+            else if (arg.startsWith("--spots=")) spots = Integer.parseInt(value);
+            else if (arg.startsWith("--subscribers=")) subscribers = Integer.parseInt(value);
+            else if (arg.startsWith("--visits=")) visits = Integer.parseInt(value);
+            else if (arg.startsWith("--demand=")) demand = Double.parseDouble(value);
+            else if (arg.startsWith("--reserved=")) reserved = Integer.parseInt(value);
+            else if (arg.startsWith("--no-show=")) noShow = Integer.parseInt(value);
+            else if (arg.startsWith("--extended=")) extended = Integer.parseInt(value);
+            else if (arg.startsWith("--overstay=")) overstay = Integer.parseInt(value);
+            else if (arg.startsWith("--history=")) historyMonths = Integer.parseInt(value);
+            else if (arg.startsWith("--start=")) start = LocalDate.parse(value);
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--parallelism=")) parallelism = Integer.parseInt(value);
+        }
+
+        ServerConfig config;
+        try {
+            config = ServerConfig.fromArgs(args);
+        } catch (IOException e) {
+            System.err.println("[CapacitySimulator] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ArrivalProfile profile;
+        if (historyMonths > 0) {
+            try {
+                profile = loadHistory(config, historyMonths);
+            } catch (SQLException e) {
+                System.err.println("[CapacitySimulator] Could not read parking_history: " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+        } else {
+            profile = ArrivalProfile.synthetic(visits);
+        }
+        if (extended >= 0 || overstay >= 0) {
+            profile = profile.withBehaviour(extended >= 0 ? extended / 100.0 : profile.extendedShare(),
+                    overstay >= 0 ? overstay / 100.0 : profile.overstayShare());
+        }
+        profile = profile.scaled(demand);
+
+        // The policies: every combination of the listed values
+        List<ParkingPolicy> policies = new ArrayList<>(List.of(config.getParkingPolicy()));
+        List<String> labels = new ArrayList<>(List.of(""));
+        try {
+            vary(args, "--cap=", policies, labels, (p, v) -> p.withReservationCap(Double.parseDouble(v)));
+            vary(args, "--cap-window=", policies, labels, (p, v) -> p.withCapWindowHours(Integer.parseInt(v)));
+            vary(args, "--session=", policies, labels, (p, v) -> p.withSessionMinutes(Integer.parseInt(v)));
+            vary(args, "--extension=", policies, labels, (p, v) -> p.withExtensionMinutes(Integer.parseInt(v)));
+            vary(args, "--arrival-window=", policies, labels, (p, v) -> p.withArrivalWindowMinutes(Integer.parseInt(v)));
+            vary(args, "--tow-grace=", policies, labels, (p, v) -> p.withTowGraceMinutes(Integer.parseInt(v)));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[CapacitySimulator] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        System.out.println("[CapacitySimulator] " + policies.size() + " policies x " + trials + " days from " + start
+                + ", " + spots + " spots, " + reserved + "% reserved, " + noShow + "% no-show, seed " + seed
+                + ", parallelism " + parallelism);
+        System.out.println("[CapacitySimulator] Traffic: " + profile);
+        System.out.println("[CapacitySimulator] Base policy: " + config.getParkingPolicy());
+
+        CapacitySimulator simulator = new CapacitySimulator(profile, start, seed, spots, subscribers,
+                reserved / 100.0, noShow / 100.0);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long startNanos = System.nanoTime();
+        System.out.println();
+        System.out.printf("%-34s %9s %7s %7s %5s %8s %8s %8s %7s %7s%n", "policy", "served/d", "ci95", "util",
+                "peak", "visits/d", "walk-in", "reserve", "towed", "expired");
+        System.out.printf("%-34s %9s %7s %7s %5s %8s %8s %8s %7s %7s%n", "", "", "", "", "", "",
+                "rejected", "refused", "", "");
+        try {
+            for (int i = 0; i < policies.size(); i++) {
+                Totals t = pool.invoke(simulator.new TrialRange(policies.get(i), 0, trials));
+                printRow(labels.get(i).isEmpty() ? "policy.* settings" : labels.get(i).strip(), t, spots);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long ms = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("%n%d simulated days in %.1f s%n", (long) policies.size() * trials, ms / 1000.0);
+    }
+
+    /**
+     * Replaces every policy by one copy per listed value of an option.
+     */
+    private static void vary(String[] args, String option, List<ParkingPolicy> policies, List<String> labels,
+            BiFunction<ParkingPolicy, String, ParkingPolicy> with) {
+        for (String arg : args) {
+            if (!arg.startsWith(option)) {
+                continue;
+            }
+            String[] values = arg.substring(option.length()).split(",");
+            List<ParkingPolicy> nextPolicies = new ArrayList<>();
+            List<String> nextLabels = new ArrayList<>();
+            for (int i = 0; i < policies.size(); i++) {
+                for (String value : values) {
+                    nextPolicies.add(with.apply(policies.get(i), value.trim()));
+                    nextLabels.add(values.length > 1 ? labels.get(i) + " " + option.substring(2) + value.trim() : labels.get(i));
+                }
+            }
+            policies.clear();
+            policies.addAll(nextPolicies);
+            labels.clear();
+            labels.addAll(nextLabels);
+        }
+    }
+
+    private static ArrivalProfile loadHistory(ServerConfig config, int months) throws SQLException {
+        ConnectionPool.configure(config.getDbUrl(), config.getDbUser(), config.getDbPassword(), 1, 1);
+        ConnectionPool pool = ConnectionPool.getInstance();
+        Connection conn = pool.getConnection();
+        if (conn == null) {
+            throw new SQLException("no database connection");
+        }
+        try {
+            LocalDate to = LocalDate.now();
+            return ArrivalProfile.fromHistory(conn, to.minusMonths(months), to);
+        } finally {
+            pool.releaseConnection(conn);
+            pool.closeAllConnections();
+        }
+    }
+
+    /**
+     * Simulates one day of traffic on an empty lot.
+     * @param policy The rules under test.
+     * @param trial  The trial number (decides the day and the seed).
+     * @return The finished run.
+     */
+    SimulationRunner runTrial(ParkingPolicy policy, int trial) {
+        LocalDateTime start = firstDay.plusDays(trial).atStartOfDay();
+        VirtualClock clock = new VirtualClock(start, 0);
+        InMemoryParkingRepository lot = SimulationRunner.memoryLot(policy, clock, spots, subscribers);
+        lot.initialize();
+        SimulationRunner run = new SimulationRunner(lot, clock, policy, profile, seed * 1_000_003L + trial,
+                subscribers, reservedShare, noShowShare);
+        // Keep going until the last cars of the day have left or been towed
+        run.run(start, start.plusDays(1), Duration.ofMinutes(policy.towAfterMinutes(true) + 240L), 0);
+        return run;
+    }
+
+    private static void printRow(String label, Totals t, int spots) {
+        long trials = Math.max(1, t.trials);
+        double mean = (double) t.served / trials;
+        double variance = Math.max(0, (double) t.servedSquares / trials - mean * mean);
+        double ci = 1.96 * Math.sqrt(variance / trials);
+        System.out.printf("%-34s %9.1f %7.1f %6.1f%% %5d %8.1f %7.2f%% %7.2f%% %6.2f%% %6.2f%%%n", label, mean, ci,
+                100.0 * t.occupiedSpots / trials / spots, t.peakOccupied, (double) t.visits / trials,
+                percent(t.walkInsRejected, t.walkIns), percent(t.reservationsRefused, t.reservations),
+                percent(t.towed, t.served), percent(t.expired, t.reservations - t.reservationsRefused));
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+}
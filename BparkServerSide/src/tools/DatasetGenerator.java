@@ -0,0 +1,480 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Random;
+
+import clock.TimeSource;
+import clock.VirtualClock;
+import jdbc.ConnectionPool;
+import jdbc.HistoryPartitionManager;
+import jdbc.SchemaMigrator;
+import serverSide.ServerConfig;
+
+/**
+ * DatasetGenerator fills the BPARK database with a reproducible, production-sized dataset
+ * for performance tests.
+ *
+ * What is generated (all values derive from --seed, so the same arguments give the same data):
+ * - parking_spots: --spots spots; the ones holding a current session are 'occupied'.
+ * - subscribers: --subscribers subscribers with IDs 100000000, 100000001, ..., e-mail
+ *   user{n}@bpark.test and subscription code SUB + the last 6 digits of n, so load tools can
+ *   log in as any generated subscriber (see subscriberId / subscriptionCode).
+ * - employees: one manager (manager / manager) and one attendant (attendant / attendant).
+ * - parking_history: --history sessions spread over the last --months months, following a
+ *   daily curve (morning and evening peaks, quieter weekends). About 10% of the sessions are
+ *   extended and about 4% end late (towed), with the matching extended / late durations.
+ * - reservations: the next --reservation-days days; each spot gets at most one reservation a
+ *   day, at an hour drawn from the same curve, so reservations of a spot never overlap.
+ * - active_parkings: --occupancy percent of the spots hold a session that started within the
+ *   last 4 hours.
+ * Generated parking codes use the form BPARK + 7 digits, so they never collide with the
+ * 4-digit codes the server creates.
+ *
+ * Loading:
+ * - Default: multi-row INSERT statements of --batch rows, committed per statement, with
+ *   unique and foreign key checks switched off for the session.
+ * - --infile=dir: the rows are written to tab-separated files in dir and loaded with
+ *   LOAD DATA LOCAL INFILE (the fastest path; the server must allow local_infile).
+ * The report rollups are cleared afterwards, so monthly reports are rebuilt from the new history.
+ * --truncate empties the tables first; without it the tables are expected to be empty.
+ *
+ * Usage: java tools.DatasetGenerator [--truncate] [--seed=42] [--spots=2000] [--subscribers=200000]
+ *        [--history=10000000] [--months=24] [--reservation-days=14] [--occupancy=60]
+ *        [--batch=1000] [--infile=dir] [server options such as --db.url=...]
+ */
+public class DatasetGenerator {
+
+    private static final long FIRST_SUBSCRIBER_ID = 100_000_000L;
+
+    // Relative arrival weight per hour of the day (peaks at 07–09 and 16–18); also used by ArrivalProfile
+    static final int[] HOUR_WEIGHTS = {
+        1, 1, 1, 1, 1, 2, 6, 14, 16, 12, 8, 7, 8, 7, 7, 9, 13, 14, 10, 6, 4, 3, 2, 1
+    };
+    private static final int HOUR_WEIGHT_TOTAL = Arrays.stream(HOUR_WEIGHTS).sum();
+
+    private final Random random;
+    private final Connection conn;
+    private final int batchSize;
+    private final Path infileDir;
+    private long codeSequence = 0;
+
+    /**
+     * Destination of the generated rows of one table.
+     */
+    private interface RowSink extends AutoCloseable {
+        void add(Object... values) throws SQLException, IOException;
+
+        @Override
+        void close() throws SQLException, IOException;
+    }
+
+    private DatasetGenerator(Connection conn, long seed, int batchSize, Path infileDir) {
+        this.conn = conn;
+        this.random = new Random(seed);
+        this.batchSize = batchSize;
+        this.infileDir = infileDir;
+    }
+
+    /**
+     * Entry point of the generator.
+     * @param args Dataset options and any ServerConfig option (see the class comment).
+     */
+    public static void main(String[] args) {
+        long seed = 42;
+        int spots = 2000, subscribers = 200_000, months = 24, reservationDays = 14, occupancy = 60, batch = 1000;
+        long history = 10_000_000L;
+        boolean truncate = false;
+        Path infileDir = null;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--spots=")) spots = Integer.parseInt(value);
+            else if (arg.startsWith("--subscribers=")) subscribers = Integer.parseInt(value);
+            else if (arg.startsWith("--history=")) history = Long.parseLong(value);
+            else if (arg.startsWith("--months=")) months = Integer.parseInt(value);
+            else if (arg.startsWith("--reservation-days=")) reservationDays = Integer.parseInt(value);
+            else if (arg.startsWith("--occupancy=")) occupancy = Integer.parseInt(value);
+            else if (arg.startsWith("--batch=")) batch = Integer.parseInt(value);
+            else if (arg.startsWith("--infile=")) infileDir = Paths.get(value);
+            else if (arg.equals("--truncate")) truncate = true;
+        }
+
+        ServerConfig config;
+        try {
+            config = ServerConfig.fromArgs(args);
+        } catch (IOException e) {
+            System.err.println("[DatasetGenerator] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        VirtualClock virtualClock = config.getVirtualClock();
+        if (virtualClock != null) {
+            // The generated dates follow the clock the server will run on
+            TimeSource.setClock(virtualClock);
+        }
+        ConnectionPool.configure(config.getDbUrl(), config.getDbUser(), config.getDbPassword(), 1, 1);
+        if (!SchemaMigrator.migrate()) {
+            System.err.println("[DatasetGenerator] Could not migrate the schema");
+            System.exit(2);
+            return;
+        }
+        ConnectionPool.getInstance().closeAllConnections();
+
+        String url = config.getDbUrl();
+        if (infileDir != null && !url.contains("allowLoadLocalInfile")) {
+            url += (url.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true";
+        }
+        long start = System.nanoTime();
+        try (Connection conn = DriverManager.getConnection(url, config.getDbUser(), config.getDbPassword())) {
+            if (infileDir != null) {
+                Files.createDirectories(infileDir);
+            }
+            DatasetGenerator generator = new DatasetGenerator(conn, seed, batch, infileDir);
+            generator.prepareSession(truncate);
+            generator.generateSpotsAndActiveParkings(spots, subscribers, occupancy);
+            generator.generateSubscribers(subscribers);
+            generator.generateEmployees();
+            generator.generateHistory(history, months, subscribers, spots);
+            generator.generateReservations(reservationDays, spots, subscribers);
+            generator.clearRollups();
+        } catch (SQLException | IOException e) {
+            System.err.println("[DatasetGenerator] Generation failed: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+            return;
+        }
+        System.out.println("[DatasetGenerator] Done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void prepareSession(boolean truncate) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET unique_checks = 0");
+            stmt.execute("SET foreign_key_checks = 0");
+            if (truncate) {
+                for (String table : new String[] { "active_parkings", "reservations", "towed_vehicles", "parking_history",
+                        "parking_history_archive", "parking_spots", "subscribers", "employees", "monthly_reports" }) {
+                    stmt.execute("TRUNCATE TABLE " + table);
+                }
+                System.out.println("[DatasetGenerator] Truncated the existing data");
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- tables
+
+    private void generateSpotsAndActiveParkings(int spots, int subscribers, int occupancyPercent)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        boolean[] occupied = new boolean[spots + 1];
+        int active = 0;
+        LocalDateTime now = TimeSource.now().truncatedTo(ChronoUnit.SECONDS);
+        try (RowSink sink = sink("active_parkings", "parking_code", "subscriber_id", "entry_date", "entry_time",
+                "expected_exit_date", "expected_exit_time", "parking_spot", "extended")) {
+            // Distinct subscribers: stride through the ID range
+            long stride = Math.max(1, subscribers / Math.max(1, spots));
+            for (int spot = 1; spot <= spots; spot++) {
+                if (random.nextInt(100) >= occupancyPercent) {
+                    continue;
+                }
+                occupied[spot] = true;
+                LocalDateTime entry = now.minusMinutes(random.nextInt(230));
+                LocalDateTime exit = entry.plusHours(4);
+                sink.add(nextCode(), subscriberId((spot * stride) % subscribers), entry.toLocalDate(), entry.toLocalTime(),
+                        exit.toLocalDate(), exit.toLocalTime(), spot, 0);
+                active++;
+            }
+        }
+        try (RowSink sink = sink("parking_spots", "spot_number", "status")) {
+            for (int spot = 1; spot <= spots; spot++) {
+                sink.add(spot, occupied[spot] ? "occupied" : "available");
+            }
+        }
+        report("parking_spots / active_parkings", spots + active, start);
+    }
+
+    private void generateSubscribers(int count) throws SQLException, IOException {
+        long start = System.nanoTime();
+        try (RowSink sink = sink("subscribers", "subscriber_id", "full_name", "email", "phone", "vehicle_number1",
+                "subscription_code", "late_count", "credit_card")) {
+            for (int i = 0; i < count; i++) {
+                sink.add(subscriberId(i), "Subscriber " + i, "user" + i + "@bpark.test",
+                        String.format("05%08d", random.nextInt(100_000_000)),
+                        String.format("%08d", random.nextInt(100_000_000)),
+                        subscriptionCode(i),
+                        random.nextInt(10) == 0 ? 1 + random.nextInt(2) : 0,
+                        String.format("4580%012d", Math.abs(random.nextLong()) % 1_000_000_000_000L));
+            }
+        }
+        report("subscribers", count, start);
+    }
+
+    private void generateEmployees() throws SQLException, IOException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM employees WHERE username IN ('manager', 'attendant')");
+        }
+        try (RowSink sink = sink("employees", "username", "password", "role", "email")) {
+            sink.add("manager", "manager", "manager", "manager@bpark.test");
+            sink.add("attendant", "attendant", "attendant", "attendant@bpark.test");
+        }
+    }
+
+    private void generateHistory(long count, int months, int subscribers, int spots) throws SQLException, IOException {
+        long start = System.nanoTime();
+        LocalDate first = TimeSource.today().withDayOfMonth(1).minusMonths(months - 1L);
+        LocalDate yesterday = TimeSource.today().minusDays(1);
+        // The migration partitioned the empty table from the current month on
+        HistoryPartitionManager.addPastPartitions(conn, YearMonth.from(first));
+        int days = (int) Math.max(1, ChronoUnit.DAYS.between(first, yesterday) + 1);
+
+        // Weekends get ~60% of a weekday's sessions
+        double[] dayWeights = new double[days];
+        double totalWeight = 0;
+        for (int d = 0; d < days; d++) {
+            DayOfWeek dow = first.plusDays(d).getDayOfWeek();
+            dayWeights[d] = (dow == DayOfWeek.FRIDAY || dow == DayOfWeek.SATURDAY) ? 0.6 : 1.0;
+            totalWeight += dayWeights[d];
+        }
+
+        long written = 0;
+        try (RowSink sink = sink("parking_history", "subscriber_id", "vehicle_number", "entry_date", "entry_time",
+                "exit_date", "exit_time", "parking_spot", "late_duration", "extended_duration")) {
+            for (int d = 0; d < days && written < count; d++) {
+                long sessions = d == days - 1 ? count - written : Math.round(count * dayWeights[d] / totalWeight);
+                LocalDate date = first.plusDays(d);
+                for (long s = 0; s < sessions && written < count; s++, written++) {
+                    LocalDateTime entry = LocalDateTime.of(date, randomTimeOfDay(random));
+                    int kind = random.nextInt(100);
+                    int minutes;
+                    int late = 0;
+                    int extended = 0;
+                    if (kind < 4) {
+                        // Towed: picked up some time after the tow at 4 hours
+                        minutes = 241 + random.nextInt(600);
+                        late = minutes - 240;
+                    } else if (kind < 14) {
+                        minutes = 240 + 1 + random.nextInt(239);
+                        extended = minutes - 240;
+                    } else {
+                        minutes = sessionMinutes(random);
+                    }
+                    LocalDateTime exit = entry.plusMinutes(minutes);
+                    sink.add(subscriberId(random.nextInt(subscribers)), String.format("%08d", random.nextInt(100_000_000)),
+                            entry.toLocalDate(), entry.toLocalTime(), exit.toLocalDate(), exit.toLocalTime(),
+                            1 + random.nextInt(spots), late, extended);
+                    if (written % 1_000_000 == 0 && written > 0) {
+                        System.out.println("[DatasetGenerator] parking_history: " + written + " rows...");
+                    }
+                }
+            }
+        }
+        report("parking_history", written, start);
+    }
+
+    private void generateReservations(int days, int spots, int subscribers) throws SQLException, IOException {
+        long start = System.nanoTime();
+        long count = 0;
+        LocalDate today = TimeSource.today();
+        try (RowSink sink = sink("reservations", "subscriber_id", "parking_code", "entry_date", "entry_time",
+                "exit_date", "exit_time", "parking_spot")) {
+            for (int d = 1; d <= days; d++) {
+                LocalDate date = today.plusDays(d);
+                // Bookings thin out the further ahead the day is
+                int percent = Math.max(5, 40 - d * 2);
+                for (int spot = 1; spot <= spots; spot++) {
+                    if (random.nextInt(100) >= percent) {
+                        continue;
+                    }
+                    LocalDateTime entry = LocalDateTime.of(date, randomTimeOfDay(random).withSecond(0));
+                    LocalDateTime exit = entry.plusHours(4);
+                    sink.add(subscriberId(random.nextInt(subscribers)), nextCode(), entry.toLocalDate(), entry.toLocalTime(),
+                            exit.toLocalDate(), exit.toLocalTime(), spot);
+                    count++;
+                }
+            }
+        }
+        report("reservations", count, start);
+    }
+
+    /**
+     * Clears the report rollups so every month is rebuilt from the generated history on first use.
+     */
+    private void clearRollups() throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE parking_daily_rollups");
+            stmt.execute("TRUNCATE TABLE parking_daily_subscribers");
+            stmt.execute("TRUNCATE TABLE parking_rollup_months");
+        }
+    }
+
+    // ---------------------------------------------------------------- value helpers
+
+    /**
+     * Returns the ID of the n-th generated subscriber.
+     * @param index The subscriber number (0-based).
+     * @return The subscriber ID.
+     */
+    public static String subscriberId(long index) {
+        return String.valueOf(FIRST_SUBSCRIBER_ID + index);
+    }
+
+    /**
+     * Returns the subscription code of the n-th generated subscriber.
+     * @param index The subscriber number (0-based).
+     * @return The subscription code.
+     */
+    public static String subscriptionCode(long index) {
+        return String.format("SUB%06d", index % 1_000_000);
+    }
+
+    private String nextCode() {
+        return String.format("BPARK%07d", ++codeSequence);
+    }
+
+    /**
+     * A time of day drawn from the hourly arrival profile (also used by SimulationRunner).
+     */
+    static LocalTime randomTimeOfDay(Random random) {
+        int pick = random.nextInt(HOUR_WEIGHT_TOTAL);
+        int hour = 0;
+        while (pick >= HOUR_WEIGHTS[hour]) {
+            pick -= HOUR_WEIGHTS[hour];
+            hour++;
+        }
+        return LocalTime.of(hour, random.nextInt(60), random.nextInt(60));
+    }
+
+    /**
+     * A regular (not extended, not late) stay: mostly 1–3 hours, never over 4.
+     */
+    static int sessionMinutes(Random random) {
+        double hours = Math.exp(0.7 + 0.5 * random.nextGaussian());
+        return (int) Math.max(10, Math.min(240, Math.round(hours * 60)));
+    }
+
+    private static void report(String what, long rows, long startNanos) {
+        long ms = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.println("[DatasetGenerator] " + what + ": " + rows + " rows in " + ms + " ms ("
+                + rows * 1000 / ms + " rows/s)");
+    }
+
+    // ---------------------------------------------------------------- loading
+
+    private RowSink sink(String table, String... columns) throws IOException {
+        return infileDir == null ? new InsertSink(table, columns) : new InfileSink(table, columns);
+    }
+
+    /**
+     * Loads rows with multi-row INSERT statements of batchSize rows, one commit per statement.
+     */
+    private final class InsertSink implements RowSink {
+        private final String table;
+        private final String[] columns;
+        private final Object[] buffer;
+        private int rows = 0;
+        private PreparedStatement full;
+
+        InsertSink(String table, String[] columns) {
+            this.table = table;
+            this.columns = columns;
+            this.buffer = new Object[batchSize * columns.length];
+        }
+
+        @Override
+        public void add(Object... values) throws SQLException {
+            System.arraycopy(values, 0, buffer, rows * columns.length, columns.length);
+            if (++rows == batchSize) {
+                if (full == null) {
+                    full = conn.prepareStatement(insertSql(batchSize));
+                }
+                execute(full, rows);
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (rows > 0) {
+                    try (PreparedStatement tail = conn.prepareStatement(insertSql(rows))) {
+                        execute(tail, rows);
+                    }
+                }
+            } finally {
+                if (full != null) {
+                    full.close();
+                }
+            }
+        }
+
+        private void execute(PreparedStatement stmt, int count) throws SQLException {
+            for (int i = 0; i < count * columns.length; i++) {
+                stmt.setObject(i + 1, buffer[i]);
+            }
+            stmt.executeUpdate();
+            rows = 0;
+        }
+
+        private String insertSql(int count) {
+            String row = "(" + "?,".repeat(columns.length - 1) + "?)";
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            for (int i = 0; i < count; i++) {
+                sql.append(i == 0 ? "" : ",").append(row);
+            }
+            return sql.toString();
+        }
+    }
+
+    /**
+     * Writes rows to a tab-separated file and loads it with LOAD DATA LOCAL INFILE on close.
+     */
+    private final class InfileSink implements RowSink {
+        private final String table;
+        private final String[] columns;
+        private final Path file;
+        private final BufferedWriter out;
+
+        InfileSink(String table, String[] columns) throws IOException {
+            this.table = table;
+            this.columns = columns;
+            this.file = infileDir.resolve(table + ".tsv");
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void add(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write('\t');
+                }
+                out.write(values[i] == null ? "\\N" : values[i].toString());
+            }
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws SQLException, IOException {
+            out.close();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("LOAD DATA LOCAL INFILE '" + file.toAbsolutePath().toString().replace("\\", "/")
+                        + "' INTO TABLE " + table + " CHARACTER SET utf8mb4 (" + String.join(", ", columns) + ")");
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import entities.Reservation;
+import jdbc.ParkingEvent;
+import journal.EventJournal;
+import journal.JournalState;
+
+/**
+ * JournalTool reads the event journal written by the server (journal.EventJournal) offline,
+ * while the server runs or after it stopped.
+ *
+ * Commands:
+ * - verify   checks every segment (checksums, consecutive sequence numbers) and that the state
+ *            can be rebuilt; exits with code 1 if the journal is damaged.
+ * - summary  prints per day the transitions of each type and the average stay of the cars picked
+ *            up, between --from and --to (dates, inclusive).
+ * - state    prints the state at the end of the journal (cars in the lot, open reservations, towed
+ *            vehicles); --list prints them one by one.
+ * - dump     prints the events from sequence --from (default 1), at most --limit of them.
+ *
+ * Usage: java tools.JournalTool verify|summary|state|dump [--dir=journal] [--from=...] [--to=...]
+ *        [--limit=100] [--list]
+ */
+public class JournalTool {
+
+    private static final ParkingEvent.Type[] SUMMARY_COLUMNS = {
+            ParkingEvent.Type.DROPOFF, ParkingEvent.Type.RESERVATION_ACTIVATED, ParkingEvent.Type.EXTENDED,
+            ParkingEvent.Type.PICKUP, ParkingEvent.Type.TOWED, ParkingEvent.Type.RESERVATION_CREATED,
+            ParkingEvent.Type.RESERVATION_CANCELLED, ParkingEvent.Type.RESERVATION_EXPIRED };
+
+    /**
+     * Entry point of the tool.
+     * @param args The command followed by its options.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java tools.JournalTool verify|summary|state|dump [--dir=journal] [--from=...] "
+                    + "[--to=...] [--limit=100] [--list]");
+            System.exit(2);
+            return;
+        }
+        Path dir = Path.of("journal");
+        String from = null, to = null;
+        int limit = 100;
+        boolean list = false;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--dir=")) dir = Path.of(value);
+            else if (arg.startsWith("--from=")) from = value;
+            else if (arg.startsWith("--to=")) to = value;
+            else if (arg.startsWith("--limit=")) limit = Integer.parseInt(value);
+            else if (arg.equals("--list")) list = true;
+        }
+
+        try {
+            switch (args[0]) {
+                case "verify" -> System.exit(verify(dir) ? 0 : 1);
+                case "summary" -> summary(dir, from == null ? LocalDate.MIN : LocalDate.parse(from),
+                        to == null ? LocalDate.MAX : LocalDate.parse(to));
+                case "state" -> state(dir, list);
+                case "dump" -> dump(dir, from == null ? 1 : Long.parseLong(from), limit);
+                default -> {
+                    System.err.println("[JournalTool] Unknown command: " + args[0]);
+                    System.exit(2);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[JournalTool] " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static boolean verify(Path dir) throws IOException {
+        List<EventJournal.SegmentInfo> segments = EventJournal.inspect(dir);
+        if (segments.isEmpty()) {
+            System.out.println("No journal segments in " + dir.toAbsolutePath());
+            return true;
+        }
+        boolean ok = true;
+        long expected = segments.get(0).getFirstSequence();
+        System.out.printf("%-28s %12s %12s %10s %10s  %s%n", "Segment", "First", "Last", "Records", "Used MB", "Status");
+        for (int i = 0; i < segments.size(); i++) {
+            EventJournal.SegmentInfo s = segments.get(i);
+            String status = "ok";
+            if (s.isDamaged()) {
+                // The last record of the last segment may be cut short by a crash; it is dropped on the next start
+                status = i == segments.size() - 1 ? "torn tail" : "DAMAGED";
+                ok &= i == segments.size() - 1;
+            }
+            if (s.getFirstSequence() != expected) {
+                status += s.getFirstSequence() > expected ? ", GAP before" : ", OVERLAP";
+                ok = false;
+            }
+            System.out.printf("%-28s %12d %12d %10d %10.1f  %s%n", s.getPath().getFileName(), s.getFirstSequence(),
+                    s.getLastSequence(), s.getRecords(), s.getBytesUsed() / 1048576.0, status);
+            expected = Math.max(expected, s.getLastSequence() + 1);
+        }
+        long startNanos = System.nanoTime();
+        JournalState state = JournalState.recover(dir);
+        System.out.printf("%nState rebuilt at event %d in %d ms: %d parked, %d reservations, %d towed%n",
+                state.getSequence(), (System.nanoTime() - startNanos) / 1_000_000, state.getActiveParkings().size(),
+                state.getReservations().size(), state.getTowedVehicles().size());
+        System.out.println(ok ? "Journal OK" : "Journal DAMAGED");
+        return ok;
+    }
+
+    private static void summary(Path dir, LocalDate from, LocalDate to) throws IOException {
+        Map<LocalDate, Map<ParkingEvent.Type, Integer>> counts = new TreeMap<>();
+        Map<LocalDate, long[]> stays = new TreeMap<>(); // {minutes, pickups}
+        EventJournal.replay(dir, 0, entry -> {
+            ParkingEvent e = entry.getEvent();
+            LocalDate day = e.getOccurredAt().toLocalDate();
+            if (day.isBefore(from) || day.isAfter(to)) {
+                return;
+            }
+            counts.computeIfAbsent(day, d -> new EnumMap<>(ParkingEvent.Type.class)).merge(e.getType(), 1, Integer::sum);
+            if (e.getType() == ParkingEvent.Type.PICKUP && e.getStart() != null && e.getEnd() != null) {
+                long[] stay = stays.computeIfAbsent(day, d -> new long[2]);
+                stay[0] += Duration.between(e.getStart(), e.getEnd()).toMinutes();
+                stay[1]++;
+            }
+        });
+        System.out.printf("%-10s", "Day");
+        for (ParkingEvent.Type type : SUMMARY_COLUMNS) {
+            System.out.printf(" %9.9s", type.name().toLowerCase().replace("reservation_", "res_"));
+        }
+        System.out.printf(" %9s%n", "avg stay");
+        for (Map.Entry<LocalDate, Map<ParkingEvent.Type, Integer>> day : counts.entrySet()) {
+            System.out.printf("%-10s", day.getKey());
+            for (ParkingEvent.Type type : SUMMARY_COLUMNS) {
+                System.out.printf(" %9d", day.getValue().getOrDefault(type, 0));
+            }
+            long[] stay = stays.get(day.getKey());
+            System.out.printf(" %9s%n", stay == null ? "-" : stay[0] / stay[1] + " min");
+        }
+    }
+
+    private static void state(Path dir, boolean list) throws IOException {
+        JournalState state = JournalState.recover(dir);
+        System.out.println("State at event " + state.getSequence() + ": " + state.getActiveParkings().size() + " parked, "
+                + state.getReservations().size() + " reservations, " + state.getTowedVehicles().size() + " towed");
+        for (ParkingEvent.Type type : ParkingEvent.Type.values()) {
+            System.out.printf("  %-24s %d%n", type, state.getTotal(type));
+        }
+        if (!list) {
+            return;
+        }
+        System.out.println("\nParked:");
+        for (JournalState.Parking p : state.getActiveParkings()) {
+            System.out.println("  " + p.getParkingCode() + " spot " + p.getParkingSpot() + " subscriber " + p.getSubscriberId()
+                    + " " + p.getEntry() + " -> " + p.getExpectedExit() + (p.isExtended() ? " (extended)" : ""));
+        }
+        System.out.println("Reservations:");
+        for (Reservation r : state.getReservations()) {
+            System.out.println("  " + r);
+        }
+        System.out.println("Towed:");
+        for (JournalState.Parking p : state.getTowedVehicles()) {
+            System.out.println("  " + p.getParkingCode() + " subscriber " + p.getSubscriberId() + " towed " + p.getTowedAt());
+        }
+    }
+
+    private static void dump(Path dir, long fromSequence, int limit) throws IOException {
+        int[] printed = { 0 };
+        EventJournal.replay(dir, fromSequence - 1, entry -> {
+            if (printed[0] < limit) {
+                System.out.println(entry);
+                printed[0]++;
+            }
+        });
+    }
+}
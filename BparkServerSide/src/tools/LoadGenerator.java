@@ -0,0 +1,362 @@
+package tools;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import entities.Reservation;
+import entities.Subscriber;
+import metrics.LatencyHistogram;
+import ocsf.client.AbstractClient;
+import request.LoginRequest;
+
+/**
+ * LoadGenerator measures how much traffic one EchoServer can sustain by driving it with
+ * many simulated kiosks, mobile apps and manager screens over the normal OCSF protocol.
+ *
+ * How it works:
+ * - --clients connections are opened; each is used by one worker thread that sends one
+ *   request at a time and waits for its reply (the protocol answers every request with
+ *   exactly one message, in order).
+ * - Arrivals are open-loop: a scheduler thread creates requests at --rate per second with
+ *   exponential (Poisson) gaps and a command drawn from --mix, whether or not the server
+ *   keeps up. Latency is measured from the scheduled arrival time, so time spent waiting for
+ *   a free connection counts (a slow server cannot hide its queueing).
+ * - Drop-off replies and confirmed reservations feed pools of parking codes that later
+ *   pickups and activations use, so the flows exercise real state changes.
+ * - After --warmup seconds the statistics are reset; after --duration seconds the run stops
+ *   and prints throughput, latency percentiles and reply counts per command.
+ *
+ * Subscribers are the ones created by DatasetGenerator (or by the in-memory server with
+ * storage.memory.subscribers): index 0..--subscribers-1, with their derived IDs and codes.
+ *
+ * Commands (for --mix=name:weight,...): login-app, login-terminal, dropoff, activate, pickup,
+ * reserve, extend, extend-terminal, availability, site-activity, history, reservations.
+ *
+ * Usage: java tools.LoadGenerator [--host=localhost] [--port=5555] [--clients=100] [--rate=500]
+ *        [--duration=60] [--warmup=10] [--subscribers=10000] [--timeout=10] [--mix=...]
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_MIX = "login-terminal:20,login-app:10,dropoff:15,pickup:12,activate:6,"
+            + "reserve:8,extend:4,extend-terminal:3,availability:10,site-activity:4,history:4,reservations:4";
+
+    private final String host;
+    private final int port;
+    private final int subscribers;
+    private final long timeoutMillis;
+
+    // Commands and their cumulative weights, for drawing the mix
+    private final List<String> commands = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight = 0;
+
+    private final BlockingQueue<Operation> pending = new LinkedBlockingQueue<>();
+    private final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> parkedCodes = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> reservedCodes = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    private volatile long statsStartNanos;
+
+    /**
+     * One request to send, with the time it was scheduled to arrive.
+     */
+    private static final class Operation {
+        final String command;
+        final long intendedNanos;
+
+        Operation(String command, long intendedNanos) {
+            this.command = command;
+            this.intendedNanos = intendedNanos;
+        }
+    }
+
+    /**
+     * Statistics of one command.
+     */
+    private static final class CommandStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final Map<String, AtomicLong> replies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * An OCSF connection that hands every reply to the waiting worker.
+     */
+    private static final class SimClient extends AbstractClient {
+        private final SynchronousQueue<Object> replies = new SynchronousQueue<>();
+
+        SimClient(String host, int port) {
+            super(host, port);
+        }
+
+        @Override
+        protected void handleMessageFromServer(Object msg) {
+            try {
+                // Drop replies nobody waits for (e.g. a late answer to a timed-out request)
+                replies.offer(msg, 1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        Object request(Object msg, long timeoutMillis) throws IOException, InterruptedException {
+            sendToServer(msg);
+            return replies.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private LoadGenerator(String host, int port, int subscribers, long timeoutMillis, String mix) {
+        this.host = host;
+        this.port = port;
+        this.subscribers = subscribers;
+        this.timeoutMillis = timeoutMillis;
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            int weight = Integer.parseInt(kv[1].trim());
+            if (weight <= 0) {
+                continue;
+            }
+            totalWeight += weight;
+            commands.add(kv[0].trim());
+            cumulativeWeights.add(totalWeight);
+        }
+    }
+
+    /**
+     * Entry point of the load generator.
+     * @param args Options (see the class comment).
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "localhost", mix = DEFAULT_MIX;
+        int port = 5555, clients = 100, subscribers = 10_000;
+        double rate = 500;
+        long duration = 60, warmup = 10, timeout = 10;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--host=")) host = value;
+            else if (arg.startsWith("--port=")) port = Integer.parseInt(value);
+            else if (arg.startsWith("--clients=")) clients = Integer.parseInt(value);
+            else if (arg.startsWith("--rate=")) rate = Double.parseDouble(value);
+            else if (arg.startsWith("--duration=")) duration = Long.parseLong(value);
+            else if (arg.startsWith("--warmup=")) warmup = Long.parseLong(value);
+            else if (arg.startsWith("--subscribers=")) subscribers = Integer.parseInt(value);
+            else if (arg.startsWith("--timeout=")) timeout = Long.parseLong(value);
+            else if (arg.startsWith("--mix=")) mix = value;
+        }
+        new LoadGenerator(host, port, subscribers, timeout * 1000, mix).run(clients, rate, warmup, duration);
+    }
+
+    private void run(int clients, double rate, long warmupSeconds, long durationSeconds) throws InterruptedException {
+        System.out.println("[LoadGenerator] " + clients + " clients, " + rate + " req/s, mix " + commands);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Thread worker = new Thread(this::workerLoop, "load-client-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        long start = System.nanoTime();
+        statsStartNanos = start;
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        boolean warm = warmupSeconds == 0;
+        double meanGapNanos = 1e9 / rate;
+        long next = start;
+        Random random = new Random();
+
+        // Open-loop arrivals: enqueue every request whose scheduled time has come
+        while (true) {
+            long now = System.nanoTime();
+            if (!warm && now >= warmupEnd) {
+                stats.clear();
+                statsStartNanos = now;
+                warm = true;
+                System.out.println("[LoadGenerator] Warm-up done, measuring for " + durationSeconds + " s");
+            }
+            if (now >= end) {
+                break;
+            }
+            while (next <= now) {
+                pending.add(new Operation(drawCommand(random), next));
+                next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+            }
+            LockSupport.parkNanos(Math.min(next - now, 1_000_000));
+        }
+        long measuredNanos = System.nanoTime() - statsStartNanos;
+        running = false;
+        int backlog = pending.size();
+        pending.clear();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        printReport(measuredNanos, backlog);
+    }
+
+    private String drawCommand(Random random) {
+        int pick = random.nextInt(totalWeight);
+        for (int i = 0; i < commands.size(); i++) {
+            if (pick < cumulativeWeights.get(i)) {
+                return commands.get(i);
+            }
+        }
+        return commands.get(commands.size() - 1);
+    }
+
+    private void workerLoop() {
+        SimClient client = null;
+        while (running) {
+            try {
+                if (client == null) {
+                    client = new SimClient(host, port);
+                    client.openConnection();
+                }
+                Operation op = pending.poll(100, TimeUnit.MILLISECONDS);
+                if (op == null) {
+                    continue;
+                }
+                CommandStats s = stats.computeIfAbsent(op.command, k -> new CommandStats());
+                Object reply = client.request(buildMessage(op.command), timeoutMillis);
+                long micros = (System.nanoTime() - op.intendedNanos) / 1000;
+                if (op.intendedNanos < statsStartNanos) {
+                    continue; // scheduled during warm-up
+                }
+                s.count.incrementAndGet();
+                s.latency.record(micros);
+                if (reply == null) {
+                    s.errors.incrementAndGet();
+                    count(s, "TIMEOUT");
+                    // The reply may still arrive; start over on a fresh connection so replies stay in order
+                    client.closeConnection();
+                    client = null;
+                } else {
+                    count(s, label(reply));
+                    collectCodes(op.command, reply);
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("[LoadGenerator] Connection error: " + e.getMessage());
+                }
+                client = null;
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(500));
+            }
+        }
+        if (client != null) {
+            try {
+                client.closeConnection();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Builds the message a real client would send for the command.
+     */
+    private Object buildMessage(String command) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long index = random.nextInt(subscribers);
+        String id = DatasetGenerator.subscriberId(index);
+        return switch (command) {
+            case "login-app" -> new LoginRequest(id, DatasetGenerator.subscriptionCode(index), "app");
+            case "login-terminal" -> new LoginRequest(id, DatasetGenerator.subscriptionCode(index), "terminal");
+            case "dropoff" -> new Subscriber(id, DatasetGenerator.subscriptionCode(index));
+            case "pickup" -> "CHECK_PICKUP_CODE|" + takeOrRandom(parkedCodes);
+            case "activate" -> "ACTIVATE_RESERVATION_CODE|" + takeOrRandom(reservedCodes);
+            case "reserve" -> {
+                // Close enough to now that the reservation can be activated by a later request
+                LocalDateTime at = LocalDateTime.now().plusMinutes(5 + random.nextInt(10)).withNano(0);
+                yield new Reservation(id, at.toLocalDate(), at.toLocalTime());
+            }
+            case "extend" -> "EXTEND_PARKING|" + id;
+            case "extend-terminal" -> "EXTEND_PARKING_TERMINAL|" + id;
+            case "availability" -> "CHECK_PARKING_AVAILABILITY";
+            case "site-activity" -> "GET_SITE_ACTIVITY|-1";
+            case "history" -> "GET_PARKING_HISTORY|" + id;
+            case "reservations" -> "GET_RESERVATIONS|" + id;
+            default -> throw new IllegalArgumentException("Unknown command: " + command);
+        };
+    }
+
+    private static String takeOrRandom(ConcurrentLinkedQueue<String> codes) {
+        String code = codes.poll();
+        return code != null ? code : String.format("BPARK%04d", ThreadLocalRandom.current().nextInt(10000));
+    }
+
+    private void collectCodes(String command, Object reply) {
+        if (command.equals("dropoff") && reply instanceof String s && s.startsWith("SUCSESSFUL_PARKING")) {
+            parkedCodes.add(s.substring("SUCSESSFUL_PARKING".length()));
+        } else if (command.equals("reserve") && reply instanceof Reservation r && r.getParkingCode() != null) {
+            reservedCodes.add(r.getParkingCode());
+        }
+    }
+
+    /**
+     * Short name of a reply for the outcome counters: a string reply without its parking code
+     * (the pickup / activation results keep their outcome text), or the class name of an object reply.
+     */
+    private static String label(Object reply) {
+        if (reply instanceof String s) {
+            String head = s;
+            if (s.startsWith("SUCSESSFUL_PARKING")) {
+                head = "SUCSESSFUL_PARKING";
+            } else if (!s.startsWith("PICKUP_RESULT|") && !s.startsWith("ACTIVATION_RESULT|") && s.indexOf('|') >= 0) {
+                head = s.substring(0, s.indexOf('|'));
+            }
+            return head.length() > 40 ? head.substring(0, 40) : head;
+        }
+        return reply.getClass().getSimpleName();
+    }
+
+    private static void count(CommandStats s, String label) {
+        s.replies.computeIfAbsent(label, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void printReport(long measuredNanos, int backlog) {
+        double seconds = measuredNanos / 1e9;
+        long total = 0;
+        System.out.println();
+        System.out.printf("%-16s %9s %9s %7s %9s %9s %9s %9s %9s%n",
+                "command", "count", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Map<String, CommandStats> sorted = new TreeMap<>(stats);
+        Map<String, Map<String, AtomicLong>> replies = new LinkedHashMap<>();
+        for (Map.Entry<String, CommandStats> e : sorted.entrySet()) {
+            CommandStats s = e.getValue();
+            long n = s.count.get();
+            total += n;
+            System.out.printf("%-16s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    e.getKey(), n, n / seconds, s.errors.get(),
+                    s.latency.percentile(50) / 1000.0, s.latency.percentile(90) / 1000.0,
+                    s.latency.percentile(99) / 1000.0, s.latency.percentile(99.9) / 1000.0,
+                    s.latency.getMax() / 1000.0);
+            replies.put(e.getKey(), s.replies);
+        }
+        System.out.printf("%-16s %9d %9.1f%n", "total", total, total / seconds);
+        if (backlog > 0) {
+            System.out.println("[LoadGenerator] " + backlog + " requests were still queued at the end: "
+                    + "the server (or --clients) did not keep up with the offered rate");
+        }
+        System.out.println();
+        System.out.println("Replies per command:");
+        for (Map.Entry<String, Map<String, AtomicLong>> e : replies.entrySet()) {
+            System.out.println("  " + e.getKey() + " " + new TreeMap<>(e.getValue()));
+        }
+    }
+}
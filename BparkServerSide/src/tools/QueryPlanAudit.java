@@ -0,0 +1,328 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jdbc.ConnectionPool;
+import jdbc.SchemaMigrator;
+import jdbc.mysqlConnection;
+import serverSide.ServerConfig;
+
+/**
+ * QueryPlanAudit checks the execution plans of the SQL statements used by jdbc.mysqlConnection.
+ *
+ * How it works:
+ * - The SQL string literals (including text blocks and "a" + "b" concatenations) are extracted
+ *   from mysqlConnection.java, together with the name of the method they appear in.
+ * - Every SELECT, UPDATE and DELETE is run through EXPLAIN against the configured database,
+ *   with sample values bound to its placeholders (chosen from the column name in front of each "?").
+ * - A plan row is a problem if it does a full table scan (type=ALL) or a filesort
+ *   on more than the row threshold.
+ * - Problems in hot-path methods (gate operations and scheduler jobs) fail the audit;
+ *   problems elsewhere are reported as warnings.
+ *
+ * The database should be seeded with a realistic amount of data (see the dataset generator),
+ * otherwise the optimizer may prefer scans of tiny tables and nothing exceeds the threshold.
+ * The schema is migrated first, so the audit sees the same indexes as the server.
+ *
+ * Usage: java tools.QueryPlanAudit [--source=path/to/mysqlConnection.java] [--rows=1000] [server options]
+ * Exit code: 0 = no failures, 1 = hot-path plan problems, 2 = the audit could not run.
+ */
+public class QueryPlanAudit {
+
+    private static final String DEFAULT_SOURCE = "src/jdbc/mysqlConnection.java";
+    private static final int DEFAULT_ROW_THRESHOLD = 1000;
+
+    // Methods on the gate / scheduler paths, where a scan or filesort fails the audit
+    private static final Set<String> HOT_METHODS = Set.of(
+            "doesSubscriberExist", "getSubscriberById", "checkLogin", "isSubscriberInActiveParking",
+            "getHistoryForSubscriber", "getReservationsForSubscriber",
+            "processPickupRequest", "pickupInTransaction", "moveReservationToActive", "updateParkingSpotStatus",
+            "cancelReservation", "findAvailableSpot", "insertReservationAndUpdateSpot", "searchActiveParkingByMemberId",
+            "searchActiveParkingBySpot", "extendParkingTime", "reservationExists", "createNewActiveParking",
+            "insertActiveParking", "reservationCodeExists", "activeParkingCodeExists", "updateReservationDateTime",
+            "cancelReservationById", "getFutureReservations", "checkAndTowVehicles",
+            "finalizeTowedVehiclesLateTime", "getOverlappingReservationCount", "removeExpiredReservations");
+
+    private static final Pattern METHOD = Pattern.compile(
+            "\\b(?:public|private|protected)\\s+static\\s+[\\w<>\\[\\], ?]+?\\s+(\\w+)\\s*\\(");
+    private static final Pattern COLUMN_BEFORE_PLACEHOLDER = Pattern.compile(
+            "(\\w+)\\s*(?:=|<=|>=|<>|!=|<|>|LIKE)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * One SQL statement found in the source.
+     */
+    static final class Statement {
+        final String method;
+        final int line;
+        final String sql;
+
+        Statement(String method, int line, String sql) {
+            this.method = method;
+            this.line = line;
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Entry point of the audit.
+     * @param args --source=..., --rows=... and any ServerConfig option (e.g. --db.url=...).
+     */
+    public static void main(String[] args) {
+        String source = DEFAULT_SOURCE;
+        int threshold = DEFAULT_ROW_THRESHOLD;
+        for (String arg : args) {
+            if (arg.startsWith("--source=")) {
+                source = arg.substring("--source=".length());
+            } else if (arg.startsWith("--rows=")) {
+                threshold = Integer.parseInt(arg.substring("--rows=".length()));
+            }
+        }
+
+        List<Statement> statements;
+        ServerConfig config;
+        try {
+            statements = extractStatements(Paths.get(source));
+            config = ServerConfig.fromArgs(args);
+        } catch (IOException e) {
+            System.err.println("[QueryPlanAudit] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        ConnectionPool.configure(config.getDbUrl(), config.getDbUser(), config.getDbPassword(), 1, 1);
+        if (!SchemaMigrator.migrate()) {
+            System.err.println("[QueryPlanAudit] Could not migrate the schema");
+            System.exit(2);
+            return;
+        }
+
+        int failures = 0, warnings = 0, skipped = 0;
+        Connection conn = mysqlConnection.connectToDB();
+        if (conn == null) {
+            System.err.println("[QueryPlanAudit] No database connection");
+            System.exit(2);
+            return;
+        }
+        try {
+            for (Statement st : statements) {
+                boolean hot = HOT_METHODS.contains(st.method);
+                List<String> problems;
+                try {
+                    problems = explain(conn, st.sql, threshold);
+                } catch (SQLException e) {
+                    skipped++;
+                    System.out.printf("SKIP %-32s line %-5d %s%n", st.method, st.line, e.getMessage());
+                    continue;
+                }
+                if (problems.isEmpty()) {
+                    System.out.printf("OK   %-32s line %d%n", st.method, st.line);
+                    continue;
+                }
+                if (hot) {
+                    failures++;
+                } else {
+                    warnings++;
+                }
+                System.out.printf("%s %-32s line %d%n", hot ? "FAIL" : "WARN", st.method, st.line);
+                System.out.println("     " + oneLine(st.sql));
+                for (String p : problems) {
+                    System.out.println("     -> " + p);
+                }
+            }
+        } finally {
+            ConnectionPool.getInstance().releaseConnection(conn);
+            ConnectionPool.getInstance().closeAllConnections();
+        }
+
+        System.out.println();
+        System.out.println("[QueryPlanAudit] " + statements.size() + " statements, " + failures + " failures, "
+                + warnings + " warnings, " + skipped + " skipped (row threshold " + threshold + ")");
+        System.exit(failures > 0 ? 1 : 0);
+    }
+
+    /**
+     * Runs EXPLAIN for one statement and returns the plan problems found.
+     */
+    static List<String> explain(Connection conn, String sql, int threshold) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            bindSamples(stmt, sql);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    long rows = rs.getLong("rows");
+                    String extra = rs.getString("Extra");
+                    if ("ALL".equalsIgnoreCase(type) && rows > threshold) {
+                        problems.add("full scan of " + table + " (~" + rows + " rows)");
+                    }
+                    if (extra != null && extra.contains("Using filesort") && rows > threshold) {
+                        problems.add("filesort on " + table + " (~" + rows + " rows)");
+                    }
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Binds a plausible sample value to every placeholder, based on the column compared to it.
+     */
+    private static void bindSamples(PreparedStatement stmt, String sql) throws SQLException {
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) != '?') {
+                continue;
+            }
+            index++;
+            String before = sql.substring(0, i);
+            if (before.trim().toUpperCase(Locale.ROOT).endsWith("LIMIT")) {
+                stmt.setInt(index, 10);
+                continue;
+            }
+            Matcher m = COLUMN_BEFORE_PLACEHOLDER.matcher(before);
+            stmt.setString(index, sampleFor(m.find() ? m.group(1).toLowerCase(Locale.ROOT) : ""));
+        }
+    }
+
+    private static String sampleFor(String column) {
+        if (column.endsWith("_ts") || column.equals("towed_at")) return "2025-06-15 10:00:00";
+        if (column.contains("date")) return "2025-06-15";
+        if (column.contains("time")) return "10:00:00";
+        if (column.equals("year")) return "2025";
+        if (column.equals("month")) return "6";
+        if (column.equals("subscriber_id")) return "100000001";
+        if (column.endsWith("_id") || column.contains("spot")) return "1";
+        if (column.contains("code")) return "P1000001";
+        if (column.contains("email")) return "user@example.com";
+        if (column.equals("status")) return "available";
+        return "1";
+    }
+
+    /**
+     * Extracts the SELECT / UPDATE / DELETE statements from a Java source file.
+     */
+    static List<Statement> extractStatements(Path source) throws IOException {
+        String src = new String(Files.readAllBytes(source), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        List<Statement> result = new ArrayList<>();
+        StringBuilder code = new StringBuilder();
+        StringBuilder group = null;   // literals joined by '+'
+        int groupLine = 0;
+        boolean expectMore = false;   // a '+' followed the last literal
+        int line = 1;
+        int i = 0;
+        while (i < src.length()) {
+            char c = src.charAt(i);
+            if (src.startsWith("//", i)) {
+                int end = src.indexOf('\n', i);
+                i = end < 0 ? src.length() : end;
+                continue;
+            }
+            if (src.startsWith("/*", i)) {
+                int end = src.indexOf("*/", i + 2);
+                end = end < 0 ? src.length() : end + 2;
+                line += count(src, i, end);
+                i = end;
+                continue;
+            }
+            if (c == '"') {
+                String literal;
+                int start = i;
+                if (src.startsWith("\"\"\"", i)) {
+                    int end = src.indexOf("\"\"\"", i + 3);
+                    literal = src.substring(i + 3, end);
+                    i = end + 3;
+                } else {
+                    StringBuilder sb = new StringBuilder();
+                    i++;
+                    while (src.charAt(i) != '"') {
+                        if (src.charAt(i) == '\\') {
+                            char n = src.charAt(i + 1);
+                            sb.append(n == 'n' ? '\n' : n == 't' ? '\t' : n);
+                            i += 2;
+                        } else {
+                            sb.append(src.charAt(i++));
+                        }
+                    }
+                    i++;
+                    literal = sb.toString();
+                }
+                if (group != null && expectMore) {
+                    group.append(literal);
+                } else {
+                    flush(result, code, group, groupLine);
+                    group = new StringBuilder(literal);
+                    groupLine = line;
+                }
+                expectMore = false;
+                line += count(src, start, i);
+                continue;
+            }
+            if (c == '\'') {
+                // char literal such as '"'
+                int end = src.indexOf('\'', i + (src.charAt(i + 1) == '\\' ? 3 : 2));
+                code.append(src, i, end + 1);
+                i = end + 1;
+                continue;
+            }
+            if (group != null && !Character.isWhitespace(c)) {
+                if (c == '+') {
+                    expectMore = true;
+                } else {
+                    flush(result, code, group, groupLine);
+                    group = null;
+                    expectMore = false;
+                }
+            }
+            if (c == '\n') {
+                line++;
+            }
+            code.append(c);
+            i++;
+        }
+        flush(result, code, group, groupLine);
+        return result;
+    }
+
+    private static void flush(List<Statement> result, StringBuilder code, StringBuilder group, int line) {
+        if (group == null) {
+            return;
+        }
+        String sql = group.toString().trim();
+        String head = sql.toUpperCase(Locale.ROOT);
+        if (head.startsWith("SELECT") || head.startsWith("UPDATE") || head.startsWith("DELETE")) {
+            String method = "?";
+            Matcher m = METHOD.matcher(code);
+            while (m.find()) {
+                method = m.group(1);
+            }
+            result.add(new Statement(method, line, sql));
+        }
+    }
+
+    private static int count(String s, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to && i < s.length(); i++) {
+            if (s.charAt(i) == '\n') n++;
+        }
+        return n;
+    }
+
+    private static String oneLine(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,584 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.locks.LockSupport;
+
+import clock.TimeSource;
+import clock.VirtualClock;
+import entities.ActiveParking;
+import entities.Reservation;
+import entities.Subscriber;
+import jdbc.ConnectionPool;
+import jdbc.ParkingEvent;
+import jdbc.ParkingEvents;
+import journal.EventJournal;
+import policy.ParkingPolicy;
+import repository.InMemoryParkingRepository;
+import repository.MySqlParkingRepository;
+import repository.ParkingRepository;
+import serverSide.ReservationBooking;
+import serverSide.ServerConfig;
+
+/**
+ * SimulationRunner replays days or months of synthetic parking traffic against the server's
+ * business logic on a VirtualClock, so towing, reservation expiry, peak occupancy and the
+ * monthly reports can be checked without waiting for real time to pass.
+ *
+ * How it works:
+ * - The clock (clock.TimeSource) is a VirtualClock that only moves when the runner advances it.
+ *   Every action runs at its planned time on one thread, and all randomness comes from --seed,
+ *   so two runs with the same options produce the same report.
+ * - The traffic follows an ArrivalProfile: about --visits visits per weekday (60% of that on
+ *   Fridays and Saturdays) at times drawn from the same hourly profile as DatasetGenerator. A
+ *   visit is a walk-in (drop-off, then pickup after a 1–4 hour stay) or, for --reserved percent
+ *   of them, a reservation made 1–20 hours ahead and activated around the reserved time. Of all
+ *   visits, --extended percent extend their parking, --overstay percent stay past their time
+ *   without extending (and get towed), and --no-show percent of the reservations are never
+ *   used (and expire).
+ * - The rules (session length, reservation cap, towing, ...) are the ParkingPolicy from the
+ *   policy.* settings.
+ * - The towing check and the expired reservation cleanup run every simulated minute, as in
+ *   SchedulerController; at the start of each month the previous month's reports are produced.
+ * - With --speed=1000 the run is paced so that one simulated minute takes 60 ms; --speed=0
+ *   runs as fast as possible.
+ *
+ * The repository is in memory by default (--spots free spots, --subscribers subscribers with
+ * DatasetGenerator IDs and codes). With --storage.backend=mysql the simulation runs against the
+ * database from server.properties / --db.* options, which must hold a DatasetGenerator dataset;
+ * it changes that database.
+ *
+ * With --journal=dir the transitions are also appended to an EventJournal in that directory,
+ * which tools.JournalTool can then summarize.
+ *
+ * CapacitySimulator runs many of these simulations in parallel; each runner keeps its own clock
+ * and only counts the ParkingEvents published on its own thread.
+ *
+ * Usage: java tools.SimulationRunner [--start=2025-12-01T00:00] [--days=1] [--visits=300]
+ *        [--spots=100] [--subscribers=2000] [--reserved=30] [--extended=10] [--overstay=4]
+ *        [--no-show=5] [--seed=42] [--speed=1000] [--journal=dir] [--storage.backend=memory|mysql]
+ *        [ServerConfig options]
+ */
+public class SimulationRunner {
+
+    /** The runner simulating on the current thread, which receives the ParkingEvents published there. */
+    private static final ThreadLocal<SimulationRunner> RUNNING = new ThreadLocal<>();
+
+    static {
+        ParkingEvents.addListener(event -> {
+            SimulationRunner runner = RUNNING.get();
+            if (runner != null) {
+                runner.day(runner.now().toLocalDate()).transitions.merge(event.getType(), 1, Integer::sum);
+            }
+        });
+    }
+
+    private final ParkingRepository repository;
+    private final VirtualClock clock;
+    private final ParkingPolicy policy;
+    private final ArrivalProfile profile;
+    private final Random random;
+    private final int subscribers;
+    private final double reservedShare;
+    private final double noShowShare;
+
+    private final PriorityQueue<Action> queue = new PriorityQueue<>();
+    private long sequence = 0;
+
+    // Results
+    private final Map<String, Map<String, Long>> outcomes = new TreeMap<>();
+    private final Map<LocalDate, DayStats> days = new TreeMap<>();
+    private final Map<String, Integer> reportRows = new TreeMap<>();
+
+    /**
+     * One thing that happens at a simulated time. Actions at the same time run in the order they were planned.
+     */
+    private static final class Action implements Comparable<Action> {
+        final LocalDateTime at;
+        final long sequence;
+        final Runnable body;
+
+        Action(LocalDateTime at, long sequence, Runnable body) {
+            this.at = at;
+            this.sequence = sequence;
+            this.body = body;
+        }
+
+        @Override
+        public int compareTo(Action other) {
+            int byTime = at.compareTo(other.at);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Totals of one simulated day.
+     */
+    private static final class DayStats {
+        int visits;
+        int peakOccupied;
+        long occupiedSum;
+        int samples;
+        final Map<ParkingEvent.Type, Integer> transitions = new EnumMap<>(ParkingEvent.Type.class);
+
+        int count(ParkingEvent.Type type) {
+            return transitions.getOrDefault(type, 0);
+        }
+    }
+
+    /**
+     * Creates a runner.
+     * @param repository    The lot to simulate.
+     * @param clock         The clock the repository reads (TimeSource's or the repository's own).
+     * @param policy        The rules the repository applies.
+     * @param profile       The traffic.
+     * @param seed          The seed of all random choices.
+     * @param subscribers   The number of subscribers (DatasetGenerator index 0..subscribers-1).
+     * @param reservedShare The share of visits that book a reservation (0..1).
+     * @param noShowShare   The share of reservations that are never used (0..1).
+     */
+    SimulationRunner(ParkingRepository repository, VirtualClock clock, ParkingPolicy policy, ArrivalProfile profile,
+            long seed, int subscribers, double reservedShare, double noShowShare) {
+        this.repository = repository;
+        this.clock = clock;
+        this.policy = policy;
+        this.profile = profile;
+        this.random = new Random(seed);
+        this.subscribers = subscribers;
+        this.reservedShare = reservedShare;
+        this.noShowShare = noShowShare;
+    }
+
+    /**
+     * Entry point of the simulation.
+     * @param args Simulation options and any ServerConfig option (see the class comment).
+     */
+    public static void main(String[] args) {
+        LocalDateTime start = LocalDate.now().plusDays(1).atStartOfDay();
+        int days = 1, visits = 300, spots = 100, subscribers = 2000;
+        int reserved = 30, noShow = 5;
+        int extended = -1, overstay = -1;
+        long seed = 42;
+        double speed = 1000;
+        Path journalDir = null;
+        for (String arg : args) {
+            String value = arg.contains("=") ? arg.substring(arg.indexOf('=') + 1) : "";
+            if (arg.startsWith("--start=")) start = LocalDateTime.parse(value);
+            else if (arg.startsWith("--days=")) days = Integer.parseInt(value);
+            else if (arg.startsWith("--visits=")) visits = Integer.parseInt(value);
+            else if (arg.startsWith("--spots=")) spots = Integer.parseInt(value);
+            else if (arg.startsWith("--subscribers=")) subscribers = Integer.parseInt(value);
+            else if (arg.startsWith("--reserved=")) reserved = Integer.parseInt(value);
+            else if (arg.startsWith("--extended=")) extended = Integer.parseInt(value);
+            else if (arg.startsWith("--overstay=")) overstay = Integer.parseInt(value);
+            else if (arg.startsWith("--no-show=")) noShow = Integer.parseInt(value);
+            else if (arg.startsWith("--seed=")) seed = Long.parseLong(value);
+            else if (arg.startsWith("--speed=")) speed = Double.parseDouble(value);
+            else if (arg.startsWith("--journal=")) journalDir = Path.of(value);
+        }
+
+        ServerConfig config;
+        try {
+            config = ServerConfig.fromArgs(args);
+        } catch (IOException e) {
+            System.err.println("[SimulationRunner] " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        ParkingPolicy policy = config.getParkingPolicy();
+        ParkingPolicy.setCurrent(policy);
+        ArrivalProfile profile = ArrivalProfile.synthetic(visits);
+        if (extended >= 0 || overstay >= 0) {
+            profile = profile.withBehaviour(extended >= 0 ? extended / 100.0 : profile.extendedShare(),
+                    overstay >= 0 ? overstay / 100.0 : profile.overstayShare());
+        }
+
+        // The clock is installed before the repository is created, so nothing reads the real time
+        VirtualClock clock = new VirtualClock(start, 0);
+        TimeSource.setClock(clock);
+
+        ParkingRepository repository;
+        String storage;
+        if (config.isInMemoryStorage() || !arrayContains(args, "--storage.backend=")) {
+            repository = memoryLot(policy, null, spots, subscribers);
+            storage = "memory";
+        } else {
+            ConnectionPool.configure(config.getDbUrl(), config.getDbUser(), config.getDbPassword(),
+                    config.getPoolInitialSize(), config.getPoolMaxSize());
+            repository = new MySqlParkingRepository();
+            storage = "mysql";
+        }
+        if (!repository.initialize()) {
+            System.err.println("[SimulationRunner] Storage could not be initialized");
+            System.exit(2);
+            return;
+        }
+
+        System.out.println("[SimulationRunner] " + start + " + " + days + " days, " + repository.getTotalParkingSpots()
+                + " spots, " + storage + " storage, seed " + seed + (speed > 0 ? ", " + speed + "x" : ", unpaced"));
+        System.out.println("[SimulationRunner] Traffic: " + profile + ", " + reserved + "% reserved, " + noShow + "% no-show");
+        System.out.println("[SimulationRunner] Policy: " + policy);
+        EventJournal journal = null;
+        if (journalDir != null) {
+            try {
+                journal = EventJournal.open(journalDir, config.getJournalSegmentBytes(), config.getJournalSnapshotEvents(),
+                        config.getJournalFlushMillis());
+                ParkingEvents.addListener(journal);
+            } catch (IOException e) {
+                System.err.println("[SimulationRunner] Could not open the journal: " + e.getMessage());
+                System.exit(2);
+                return;
+            }
+        }
+        SimulationRunner runner = new SimulationRunner(repository, clock, policy, profile, seed, subscribers,
+                reserved / 100.0, noShow / 100.0);
+        long startNanos = System.nanoTime();
+        runner.run(start, start.plusDays(days), Duration.ZERO, speed);
+        long ms = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        runner.printReport();
+        System.out.printf("%nSimulated %d days in %.1f s (%.0fx real time)%n", days, ms / 1000.0,
+                Duration.ofDays(days).toMillis() / (double) ms);
+        if (journal != null) {
+            ParkingEvents.removeListener(journal);
+            try {
+                journal.close();
+                System.out.println("Journaled up to event " + journal.getLastSequence() + " in " + journalDir);
+            } catch (IOException e) {
+                System.err.println("[SimulationRunner] Could not close the journal: " + e.getMessage());
+            }
+        }
+        if ("mysql".equals(storage)) {
+            ConnectionPool.getInstance().closeAllConnections();
+        }
+    }
+
+    private static boolean arrayContains(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds an in-memory lot seeded like HeadlessServerMain's memory storage.
+     * @param policy      The rules of the lot.
+     * @param clock       The lot's own clock, or null to read TimeSource.
+     * @param spots       The number of free spots.
+     * @param subscribers The number of subscribers (DatasetGenerator IDs and codes).
+     * @return The repository, not yet initialized.
+     */
+    static InMemoryParkingRepository memoryLot(ParkingPolicy policy, Clock clock, int spots, int subscribers) {
+        InMemoryParkingRepository memory = new InMemoryParkingRepository(policy, clock);
+        memory.addParkingSpots(spots);
+        for (int i = 0; i < subscribers; i++) {
+            memory.addSubscriber(new Subscriber(DatasetGenerator.subscriberId(i), "Subscriber " + i,
+                    "user" + i + "@bpark.test", "0500000000", String.format("%08d", i),
+                    DatasetGenerator.subscriptionCode(i), 0, "4580000000000000"));
+        }
+        return memory;
+    }
+
+    // ---------------------------------------------------------------- engine
+
+    /**
+     * Runs the simulation from start to end.
+     * @param start The simulated start time (the clock already shows it).
+     * @param end   The end of the simulated traffic: no visits are planned after it.
+     * @param drain How long to keep running after end, so that the last visits can leave.
+     * @param speed Simulated seconds per real second (0 = as fast as possible).
+     */
+    void run(LocalDateTime start, LocalDateTime end, Duration drain, double speed) {
+        RUNNING.set(this);
+        try {
+            planDay(start.toLocalDate(), start);
+            at(start.toLocalDate().plusDays(1).atStartOfDay(), () -> planDays(end));
+            at(start, this::runJobs);
+
+            LocalDateTime stop = end.plus(drain);
+            long realStart = System.nanoTime();
+            while (!queue.isEmpty() && queue.peek().at.isBefore(stop)) {
+                Action action = queue.poll();
+                if (speed > 0) {
+                    long due = realStart + (long) (Duration.between(start, action.at).toNanos() / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                clock.advanceTo(action.at);
+                action.body.run();
+            }
+            clock.advanceTo(stop);
+        } finally {
+            RUNNING.remove();
+        }
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private void at(LocalDateTime time, Runnable body) {
+        queue.add(new Action(time, sequence++, body));
+    }
+
+    /**
+     * At midnight: plans the coming day and produces last month's reports on the 1st.
+     */
+    private void planDays(LocalDateTime end) {
+        LocalDateTime now = now();
+        if (now.getDayOfMonth() == 1) {
+            produceMonthlyReports(YearMonth.from(now).minusMonths(1));
+        }
+        if (now.isBefore(end)) {
+            planDay(now.toLocalDate(), now);
+            at(now.plusDays(1), () -> planDays(end));
+        }
+    }
+
+    /**
+     * The scheduler jobs of SchedulerController, once per simulated minute, plus an occupancy sample.
+     */
+    private void runJobs() {
+        repository.checkAndTowVehicles();
+        repository.removeExpiredReservations();
+        LocalDateTime now = now();
+        DayStats stats = day(now.toLocalDate());
+        int occupied = repository.getTotalParkingSpots() - repository.getAvailableSpotsCount();
+        stats.peakOccupied = Math.max(stats.peakOccupied, occupied);
+        stats.occupiedSum += occupied;
+        stats.samples++;
+        at(now.plusMinutes(1), this::runJobs);
+    }
+
+    private void produceMonthlyReports(YearMonth month) {
+        List<?> durations = repository.loadParkingDurationReport(month.getYear(), month.getMonthValue());
+        List<?> members = repository.loadMemberStatusReport(month.getYear(), month.getMonthValue());
+        reportRows.put(month + " parking duration", durations == null ? -1 : durations.size());
+        reportRows.put(month + " member status", members == null ? -1 : members.size());
+    }
+
+    // ---------------------------------------------------------------- traffic
+
+    /**
+     * Plans the visits of one day. Visits whose time has already passed (when the simulation
+     * starts in the middle of a day) are skipped.
+     */
+    private void planDay(LocalDate date, LocalDateTime notBefore) {
+        int session = policy.getSessionMinutes();
+        int extension = policy.getExtensionMinutes();
+        // Reserved cars arrive within the arrival window, at least 5 minutes before it closes
+        int arrivalSpread = Math.max(0, policy.getArrivalWindowMinutes() - 5);
+        int visits = profile.visits(date, random);
+        for (int i = 0; i < visits; i++) {
+            LocalDateTime arrival = LocalDateTime.of(date, profile.arrivalTime(random));
+            long index = random.nextInt(subscribers);
+            double kind = random.nextDouble();
+            boolean reservedVisit = random.nextDouble() < reservedShare;
+            boolean noShow = reservedVisit && random.nextDouble() < noShowShare;
+            int stayMinutes;
+            int extendAfter = -1;
+            if (kind < profile.overstayShare()) {
+                // Stays past its time without extending: towed by the next towing check
+                stayMinutes = policy.towAfterMinutes(false) + 30 + random.nextInt(180);
+            } else if (kind < profile.overstayShare() + profile.extendedShare()) {
+                // Extends during the last hour and leaves before the extension runs out
+                extendAfter = Math.max(0, session - 60) + random.nextInt(55);
+                stayMinutes = session + 15 + random.nextInt(Math.max(1, extension - 20));
+            } else {
+                stayMinutes = profile.regularStay(random);
+            }
+            if (arrival.isBefore(notBefore)) {
+                continue;
+            }
+            day(date).visits++;
+            String id = DatasetGenerator.subscriberId(index);
+            Subscriber subscriber = new Subscriber(id, DatasetGenerator.subscriptionCode(index));
+            int stay = stayMinutes;
+            int extend = extendAfter;
+            if (reservedVisit) {
+                LocalDateTime bookedAt = arrival.minusMinutes(60 + random.nextInt(19 * 60));
+                int offset = random.nextInt(2 * arrivalSpread + 1) - arrivalSpread;
+                at(bookedAt.isBefore(notBefore) ? notBefore : bookedAt, () -> {
+                    String code = reserve(id, arrival);
+                    if (code != null && !noShow) {
+                        at(arrival.plusMinutes(offset), () -> activate(id, code, stay, extend));
+                    }
+                });
+            } else {
+                at(arrival, () -> dropoff(subscriber, stay, extend));
+            }
+        }
+    }
+
+    private void dropoff(Subscriber subscriber, int stayMinutes, int extendAfter) {
+        String result = repository.createNewActiveParking(subscriber);
+        if (result != null && result.startsWith("SUCSESSFUL_PARKING")) {
+            count("dropoff", "SUCSESSFUL_PARKING");
+            parked(subscriber.getSubscriber_id(), result.substring("SUCSESSFUL_PARKING".length()), stayMinutes, extendAfter);
+        } else {
+            count("dropoff", String.valueOf(result));
+        }
+    }
+
+    private void activate(String subscriberId, String code, int stayMinutes, int extendAfter) {
+        String result = repository.moveReservationToActive(code);
+        count("activate", String.valueOf(result));
+        if ("SUCCESS".equals(result)) {
+            parked(subscriberId, code, stayMinutes, extendAfter);
+        }
+    }
+
+    /**
+     * Plans the extension and the pickup of a car that was just parked.
+     */
+    private void parked(String subscriberId, String code, int stayMinutes, int extendAfter) {
+        LocalDateTime now = now();
+        if (extendAfter >= 0) {
+            at(now.plusMinutes(extendAfter), () -> extend(subscriberId));
+        }
+        at(now.plusMinutes(stayMinutes), () -> count("pickup", String.valueOf(repository.processPickupRequest(code))));
+    }
+
+    /**
+     * Extends the subscriber's active parking, with the same checks as EchoServer.
+     */
+    private void extend(String subscriberId) {
+        List<ActiveParking> list = repository.searchActiveParkingByMemberId(Integer.parseInt(subscriberId));
+        if (list == null || list.isEmpty()) {
+            count("extend", "EXTEND_FAILED_NO_ACTIVE_PARKING");
+        } else if (list.get(0).isExtended()) {
+            count("extend", "EXTEND_ALREADY_DONE");
+        } else {
+            count("extend", repository.extendParkingTime(list.get(0)) ? "EXTEND_SUCCESS" : "EXTEND_FAILED_DB");
+        }
+    }
+
+    /**
+     * Books a reservation through ReservationBooking, like EchoServer's new-reservation request.
+     * @return The reservation code, or null if the reservation was refused.
+     */
+    private String reserve(String subscriberId, LocalDateTime entry) {
+        try {
+            Object result = ReservationBooking.book(repository, policy, subscriberId,
+                    entry.toLocalDate(), entry.toLocalTime());
+            if (result instanceof Reservation reservation) {
+                count("reserve", "CONFIRMED");
+                return reservation.getParkingCode();
+            }
+            count("reserve", (String) result);
+            return null;
+        } catch (RuntimeException e) {
+            count("reserve", "RESERVATION_FAILED_SERVER_ERROR");
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------- results
+
+    private DayStats day(LocalDate date) {
+        return days.computeIfAbsent(date, d -> new DayStats());
+    }
+
+    private void count(String action, String outcome) {
+        outcomes.computeIfAbsent(action, k -> new TreeMap<>()).merge(outcome, 1L, Long::sum);
+    }
+
+    /**
+     * @return How often the action had the outcome (e.g. "dropoff", "NO_SPOTS_AVAILABLE").
+     */
+    long outcome(String action, String result) {
+        return outcomes.getOrDefault(action, Map.of()).getOrDefault(result, 0L);
+    }
+
+    /**
+     * @return How often the action was attempted.
+     */
+    long attempts(String action) {
+        return outcomes.getOrDefault(action, Map.of()).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return How many transitions of the type were published during the run.
+     */
+    long transitions(ParkingEvent.Type type) {
+        return days.values().stream().mapToLong(d -> d.count(type)).sum();
+    }
+
+    /**
+     * @return The number of planned visits.
+     */
+    long visits() {
+        return days.values().stream().mapToLong(d -> d.visits).sum();
+    }
+
+    /**
+     * @return The average number of occupied spots over the sampled minutes of the days with traffic.
+     */
+    double averageOccupied() {
+        long sum = 0, samples = 0;
+        for (DayStats d : days.values()) {
+            if (d.visits > 0) {
+                sum += d.occupiedSum;
+                samples += d.samples;
+            }
+        }
+        return samples == 0 ? 0 : (double) sum / samples;
+    }
+
+    /**
+     * @return The most spots occupied at once.
+     */
+    int peakOccupied() {
+        return days.values().stream().mapToInt(d -> d.peakOccupied).max().orElse(0);
+    }
+
+    void printReport() {
+        int spots = repository.getTotalParkingSpots();
+        System.out.println();
+        System.out.printf("%-12s %7s %9s %8s %9s %9s %9s %9s %9s %9s%n", "day", "visits", "peak occ", "avg occ",
+                "drop-offs", "activated", "extended", "pickups", "towed", "expired");
+        for (Map.Entry<LocalDate, DayStats> entry : days.entrySet()) {
+            DayStats s = entry.getValue();
+            System.out.printf("%-12s %7d %5d/%-3d %7.1f%% %9d %9d %9d %9d %9d %9d%n", entry.getKey(), s.visits, s.peakOccupied,
+                    spots, s.samples == 0 ? 0 : 100.0 * s.occupiedSum / s.samples / spots,
+                    s.count(ParkingEvent.Type.DROPOFF), s.count(ParkingEvent.Type.RESERVATION_ACTIVATED),
+                    s.count(ParkingEvent.Type.EXTENDED),
+                    s.count(ParkingEvent.Type.PICKUP) + s.count(ParkingEvent.Type.TOWED_PICKUP),
+                    s.count(ParkingEvent.Type.TOWED), s.count(ParkingEvent.Type.RESERVATION_EXPIRED));
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %-36s %9s%n", "action", "outcome", "count");
+        for (Map.Entry<String, Map<String, Long>> action : outcomes.entrySet()) {
+            for (Map.Entry<String, Long> outcome : action.getValue().entrySet()) {
+                System.out.printf("%-10s %-36s %9d%n", action.getKey(), outcome.getKey(), outcome.getValue());
+            }
+        }
+
+        if (!reportRows.isEmpty()) {
+            System.out.println();
+            for (Map.Entry<String, Integer> report : reportRows.entrySet()) {
+                System.out.println("Report " + report.getKey() + ": "
+                        + (report.getValue() < 0 ? "FAILED" : report.getValue() + " rows"));
+            }
+        }
+        System.out.println();
+        System.out.println("At the end: " + repository.getActiveParkings().size() + " cars parked, "
+                + repository.getFutureReservations().size() + " future reservations, "
+                + repository.getAvailableSpotsCount() + "/" + spots + " spots available");
+    }
+}
@@ -0,0 +1,115 @@
+package tracing;
+
+/**
+ * A Span is one timed step of a traced request (the request itself, a pool wait, one SQL
+ * statement, an SMTP send...). Spans of the same request share a trace ID and point to their
+ * parent, so the request can be shown as a timeline (see TraceRecorder).
+ *
+ * Spans are created by Tracer and closed with end() / close(), normally in a
+ * try-with-resources block. A span is only used by the thread that created it.
+ */
+public final class Span implements AutoCloseable {
+
+    private final long traceId;
+    private final long spanId;
+    private final long parentId;
+    private final Span parent;
+    private final String name;
+    private final String thread;
+    private final long startNanos;
+    private String detail;
+    private long endNanos;
+    private boolean error;
+
+    Span(long traceId, long spanId, Span parent, String name, String detail) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parent = parent;
+        this.parentId = parent == null ? 0 : parent.spanId;
+        this.name = name;
+        this.detail = detail;
+        this.thread = Thread.currentThread().getName();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks the step as failed.
+     */
+    public void fail() {
+        error = true;
+    }
+
+    /**
+     * Replaces the detail text (e.g. to add the outcome of the step).
+     * @param detail The new detail.
+     */
+    public void setDetail(String detail) {
+        this.detail = detail;
+    }
+
+    /**
+     * Ends the span and records it. Ending a span twice has no effect.
+     */
+    public void end() {
+        if (endNanos != 0) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        Tracer.ended(this);
+    }
+
+    /** Same as end(), for try-with-resources. */
+    @Override
+    public void close() {
+        end();
+    }
+
+    Span getParent() {
+        return parent;
+    }
+
+    /** @return The ID shared by every span of the request. */
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /** @return The ID of this span. */
+    public long getSpanId() {
+        return spanId;
+    }
+
+    /** @return The ID of the parent span, or 0 for the root span of a trace. */
+    public long getParentId() {
+        return parentId;
+    }
+
+    /** @return The kind of step (e.g. request, db.acquire, sql, smtp). */
+    public String getName() {
+        return name;
+    }
+
+    /** @return What the step worked on (command, SQL text, e-mail type...), may be null. */
+    public String getDetail() {
+        return detail;
+    }
+
+    /** @return The name of the thread that ran the step. */
+    public String getThread() {
+        return thread;
+    }
+
+    /** @return The System.nanoTime() at which the step started. */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /** @return The duration in nanoseconds (0 while the span is open). */
+    public long getDurationNanos() {
+        return endNanos == 0 ? 0 : endNanos - startNanos;
+    }
+
+    /** @return true if the step failed. */
+    public boolean isError() {
+        return error;
+    }
+}
@@ -0,0 +1,130 @@
+package tracing;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * TraceRecorder keeps the most recent finished spans in a fixed-size ring buffer
+ * (old spans are overwritten, so memory use is bounded) and renders them as timelines.
+ *
+ * A timeline shows one request with every step it went through, indented under its parent,
+ * with the offset from the start of the request and the step duration:
+ *
+ *   trace 812  request CHECK_PICKUP_CODE  14.210 ms  10:22:01.123  [pool-1-thread-3]
+ *     +0.000 ms   14.210 ms  request CHECK_PICKUP_CODE
+ *     +0.012 ms    0.180 ms    db.acquire
+ *     +0.201 ms    3.950 ms    sql SELECT ... FROM active_parkings WHERE parking_code = ?
+ */
+public class TraceRecorder {
+
+    /** Default number of spans kept. */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    private static final TraceRecorder instance = new TraceRecorder();
+
+    /** Converts System.nanoTime() values to wall-clock time. */
+    private static final long EPOCH_OFFSET_NANOS = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private volatile AtomicReferenceArray<Span> spans = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+    private final AtomicLong cursor = new AtomicLong();
+
+    private TraceRecorder() {
+    }
+
+    /**
+     * Returns the singleton instance of the recorder.
+     * @return The recorder.
+     */
+    public static TraceRecorder getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the buffer with an empty one of the given size.
+     * @param capacity The number of spans to keep.
+     */
+    public void setCapacity(int capacity) {
+        spans = new AtomicReferenceArray<>(Math.max(16, capacity));
+    }
+
+    void record(Span span) {
+        AtomicReferenceArray<Span> buffer = spans;
+        buffer.set((int) (cursor.getAndIncrement() % buffer.length()), span);
+    }
+
+    /**
+     * @return Every span currently in the buffer, in no particular order.
+     */
+    public List<Span> snapshot() {
+        AtomicReferenceArray<Span> buffer = spans;
+        List<Span> list = new ArrayList<>(buffer.length());
+        for (int i = 0; i < buffer.length(); i++) {
+            Span span = buffer.get(i);
+            if (span != null) {
+                list.add(span);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Renders the recorded traces as timelines.
+     * Only traces whose root span is still in the buffer are shown.
+     * @param maxTraces    The maximum number of traces to show.
+     * @param minMillis    Only show traces that took at least this long.
+     * @param slowestFirst true to show the slowest traces first, false for the most recent first.
+     * @return The timelines as text.
+     */
+    public String dumpTimeline(int maxTraces, double minMillis, boolean slowestFirst) {
+        Map<Long, List<Span>> byTrace = new HashMap<>();
+        List<Span> roots = new ArrayList<>();
+        for (Span span : snapshot()) {
+            byTrace.computeIfAbsent(span.getTraceId(), k -> new ArrayList<>()).add(span);
+            if (span.getParentId() == 0 && span.getDurationNanos() >= minMillis * 1_000_000) {
+                roots.add(span);
+            }
+        }
+        roots.sort(slowestFirst ? Comparator.comparingLong(Span::getDurationNanos).reversed()
+                : Comparator.comparingLong(Span::getStartNanos).reversed());
+
+        StringBuilder out = new StringBuilder();
+        for (Span root : roots.subList(0, Math.min(maxTraces, roots.size()))) {
+            appendTrace(out, root, byTrace.get(root.getTraceId()));
+            out.append('\n');
+        }
+        if (roots.isEmpty()) {
+            out.append("No traces recorded").append(minMillis > 0 ? " above " + minMillis + " ms" : "").append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendTrace(StringBuilder out, Span root, List<Span> spans) {
+        LocalDateTime started = LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(0, root.getStartNanos() + EPOCH_OFFSET_NANOS), ZoneId.systemDefault());
+        out.append(String.format("trace %d  %s %s  %.3f ms  %s  [%s]%n", root.getTraceId(), root.getName(),
+                root.getDetail() == null ? "" : root.getDetail(), root.getDurationNanos() / 1e6,
+                TIME.format(started), root.getThread()));
+
+        Map<Long, Integer> depth = new HashMap<>();
+        spans.sort(Comparator.comparingLong(Span::getStartNanos));
+        for (Span span : spans) {
+            // Parents start before their children, so their depth is already known
+            int level = span.getParentId() == 0 ? 0 : depth.getOrDefault(span.getParentId(), 0) + 1;
+            depth.put(span.getSpanId(), level);
+            out.append(String.format("  +%.3f ms %9.3f ms  %s%s %s%s%n",
+                    (span.getStartNanos() - root.getStartNanos()) / 1e6, span.getDurationNanos() / 1e6,
+                    "  ".repeat(level), span.getName(), span.getDetail() == null ? "" : span.getDetail(),
+                    span.isError() ? "  [ERROR]" : ""));
+        }
+    }
+}
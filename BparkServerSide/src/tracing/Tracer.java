@@ -0,0 +1,115 @@
+package tracing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracer creates the spans of the request being handled on the current thread.
+ *
+ * EchoServer starts a trace for every client request (startTrace) and the layers below
+ * (DBExecutor, the JDBC statements, NotificationController) add child spans (startSpan).
+ * The current span is kept in a ThreadLocal, so nothing has to be passed through the
+ * method signatures. startSpan returns null when no trace is active on the thread, and
+ * try-with-resources accepts a null resource, so callers need no special case:
+ *
+ *   try (Span span = Tracer.startSpan("smtp", type)) { ... }
+ *
+ * Finished spans are stored in the TraceRecorder ring buffer.
+ */
+public final class Tracer {
+
+    private static final ThreadLocal<Span> current = new ThreadLocal<>();
+    private static final AtomicLong ids = new AtomicLong();
+    private static volatile boolean enabled = true;
+
+    private Tracer() {
+    }
+
+    /**
+     * Turns tracing on or off (when off, no spans are created).
+     * @param on true to trace requests.
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Starts a new trace with its root span, or a child span if a trace is already active
+     * on this thread.
+     * @param name   The kind of work (e.g. request, job).
+     * @param detail What is being done (e.g. the command name).
+     * @return The span, or null if tracing is disabled.
+     */
+    public static Span startTrace(String name, String detail) {
+        if (!enabled) {
+            return null;
+        }
+        Span parent = current.get();
+        long traceId = parent == null ? ids.incrementAndGet() : parent.getTraceId();
+        Span span = new Span(traceId, ids.incrementAndGet(), parent, name, detail);
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Starts a child span of the current span.
+     * @param name   The kind of step (e.g. sql).
+     * @param detail What the step works on (e.g. the SQL text).
+     * @return The span, or null if no trace is active on this thread.
+     */
+    public static Span startSpan(String name, String detail) {
+        Span parent = current.get();
+        if (parent == null) {
+            return null;
+        }
+        Span span = new Span(parent.getTraceId(), ids.incrementAndGet(), parent, name, detail);
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * @return true if a trace is active on this thread.
+     */
+    public static boolean isTracing() {
+        return current.get() != null;
+    }
+
+    /**
+     * @return The current span of this thread, or null.
+     */
+    public static Span currentSpan() {
+        return current.get();
+    }
+
+    /**
+     * Makes a span current on this thread, so that work done here on behalf of another thread
+     * (e.g. a batched operation on the group-commit thread) is traced under that thread's request.
+     * @param span The span to continue (null to leave every trace).
+     * @return The span that was current before, to pass back to resume() once the work is done.
+     */
+    public static Span resume(Span span) {
+        Span previous = current.get();
+        if (span == null) {
+            current.remove();
+        } else {
+            current.set(span);
+        }
+        return previous;
+    }
+
+    static void ended(Span span) {
+        // The parent becomes current again. A child left open by mistake is abandoned with it,
+        // so one missing end() cannot leave the thread stuck inside an old trace.
+        for (Span open = current.get(); open != null; open = open.getParent()) {
+            if (open == span) {
+                Span parent = span.getParent();
+                if (parent == null) {
+                    current.remove();
+                } else {
+                    current.set(parent);
+                }
+                break;
+            }
+        }
+        TraceRecorder.getInstance().record(span);
+    }
+}
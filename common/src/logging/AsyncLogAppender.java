@@ -0,0 +1,146 @@
+package logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsyncLogAppender moves log output off the threads that produce it.
+ *
+ * Records go into a bounded ring buffer and a single daemon thread writes them in batches:
+ * as JSON lines to the log file (if one is configured) and as text lines to the console
+ * (if enabled). Request threads never wait for I/O or for the System.out lock. When the buffer
+ * is full the record is dropped and counted; the writer reports the number of dropped records
+ * in the next line it writes.
+ */
+final class AsyncLogAppender {
+
+    private static final int BATCH_SIZE = 512;
+
+    private final BlockingQueue<LogRecord> buffer;
+    private final BufferedWriter file;
+    private final PrintStream console;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the appender and starts its writer thread.
+     * @param capacity The number of records the ring buffer holds.
+     * @param file     The JSON lines file to append to, or null.
+     * @param console  The console stream for text lines, or null.
+     * @throws IOException if the file cannot be opened.
+     */
+    AsyncLogAppender(int capacity, Path file, PrintStream console) throws IOException {
+        this.buffer = new ArrayBlockingQueue<>(Math.max(capacity, 16));
+        if (file != null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.file = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } else {
+            this.file = null;
+        }
+        this.console = console;
+        this.writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a record without blocking; drops it if the buffer is full.
+     * @param record The record.
+     */
+    void append(LogRecord record) {
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /** @return The number of records dropped because the buffer was full. */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes the records still in the buffer, closes the file and stops the writer thread.
+     * @param timeoutMillis How long to wait for the writer.
+     */
+    void close(long timeoutMillis) {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        List<LogRecord> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder(256);
+        long reportedDrops = 0;
+        while (running || !buffer.isEmpty()) {
+            try {
+                LogRecord first = running ? buffer.poll(1, TimeUnit.SECONDS) : buffer.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e) {
+                // close() was called: drain what is left
+                buffer.drainTo(batch);
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                batch.add(new LogRecord(System.currentTimeMillis(), Level.WARN, "logging", "log-writer",
+                        "Log buffer full, records dropped", new Object[] { "dropped", drops - reportedDrops }, null));
+                reportedDrops = drops;
+            }
+            write(batch, line);
+            batch.clear();
+        }
+        try {
+            if (file != null) {
+                file.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void write(List<LogRecord> batch, StringBuilder line) {
+        try {
+            for (LogRecord record : batch) {
+                if (file != null) {
+                    line.setLength(0);
+                    record.appendJson(line);
+                    file.append(line).append('\n');
+                }
+                if (console != null) {
+                    line.setLength(0);
+                    record.appendText(line);
+                    console.println(line);
+                }
+            }
+            if (file != null) {
+                file.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("[logging] Could not write the log file: " + e.getMessage());
+        }
+    }
+}
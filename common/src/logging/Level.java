@@ -0,0 +1,15 @@
+package logging;
+
+/**
+ * The severity of a log record, lowest first.
+ */
+public enum Level {
+    /** Per-request detail (messages received, pool get/release); off by default. */
+    DEBUG,
+    /** Normal operation (startup, jobs, reports). */
+    INFO,
+    /** Something unexpected that the server recovered from. */
+    WARN,
+    /** An operation failed. */
+    ERROR
+}
@@ -0,0 +1,138 @@
+package logging;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Log is the entry point of the logging facility shared by the server and the client.
+ *
+ *   private static final Logger log = Log.getLogger(ConnectionPool.class);
+ *
+ * All loggers write through one AsyncLogAppender. Until configure(...) is called the settings
+ * come from system properties:
+ *
+ *   bpark.log.level   DEBUG, INFO (default), WARN or ERROR
+ *   bpark.log.file    JSON lines file to append to (default: none)
+ *   bpark.log.console true (default) to also write text lines to System.out
+ *   bpark.log.buffer  ring buffer size in records (default 8192)
+ *
+ * The server calls configure(...) at startup with the log.* keys of server.properties.
+ */
+public final class Log {
+
+    /** Default ring buffer size. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static volatile Level level = parseLevel(System.getProperty("bpark.log.level"), Level.INFO);
+    private static volatile AsyncLogAppender appender;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::shutdown, "log-shutdown"));
+    }
+
+    private Log() {
+    }
+
+    /**
+     * @param type The class that logs.
+     * @return A logger named after the class.
+     */
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    /**
+     * @param name The logger name.
+     * @return A logger with that name.
+     */
+    public static Logger getLogger(String name) {
+        return new Logger(name);
+    }
+
+    /** @return The lowest level that is written. */
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Changes the lowest level that is written; takes effect immediately.
+     * @param newLevel The level.
+     */
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * Replaces the appender. Records already queued are written by the old appender first.
+     * @param newLevel   The lowest level to write.
+     * @param file       The JSON lines file, or null for none.
+     * @param console    true to also write text lines to System.out.
+     * @param bufferSize The ring buffer size in records.
+     * @throws IOException if the file cannot be opened.
+     */
+    public static synchronized void configure(Level newLevel, Path file, boolean console, int bufferSize) throws IOException {
+        AsyncLogAppender old = appender;
+        appender = new AsyncLogAppender(bufferSize, file, console ? System.out : null);
+        level = newLevel;
+        if (old != null) {
+            old.close(1000);
+        }
+    }
+
+    /**
+     * @param value A level name (case-insensitive), or null.
+     * @param defaultLevel The level to use if value is null or unknown.
+     * @return The level.
+     */
+    public static Level parseLevel(String value, Level defaultLevel) {
+        if (value != null) {
+            try {
+                return Level.valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                System.err.println("[logging] Unknown log level " + value + ", using " + defaultLevel);
+            }
+        }
+        return defaultLevel;
+    }
+
+    /** @return The number of records dropped because the ring buffer was full. */
+    public static long getDroppedRecords() {
+        AsyncLogAppender current = appender;
+        return current == null ? 0 : current.getDropped();
+    }
+
+    /**
+     * Writes the queued records and closes the log file. Called by a shutdown hook.
+     */
+    public static synchronized void shutdown() {
+        if (appender != null) {
+            appender.close(2000);
+            appender = null;
+        }
+    }
+
+    static AsyncLogAppender appender() {
+        AsyncLogAppender current = appender;
+        if (current != null) {
+            return current;
+        }
+        synchronized (Log.class) {
+            if (appender == null) {
+                String file = System.getProperty("bpark.log.file");
+                boolean console = !"false".equalsIgnoreCase(System.getProperty("bpark.log.console"));
+                int size = Integer.getInteger("bpark.log.buffer", DEFAULT_BUFFER_SIZE);
+                try {
+                    appender = new AsyncLogAppender(size, file == null || file.isBlank() ? null : Path.of(file), console ? System.out : null);
+                } catch (IOException e) {
+                    System.err.println("[logging] Could not open " + file + ", logging to the console: " + e.getMessage());
+                    try {
+                        appender = new AsyncLogAppender(size, null, System.out);
+                    } catch (IOException impossible) {
+                        throw new IllegalStateException(impossible);
+                    }
+                }
+            }
+            return appender;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package logging;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+
+/**
+ * One log record waiting in the appender's ring buffer. Formatting to JSON happens on the
+ * writer thread.
+ */
+final class LogRecord {
+
+    private final long timestamp;
+    private final Level level;
+    private final String logger;
+    private final String thread;
+    private final String message;
+    private final Object[] fields;
+    private final Throwable error;
+
+    LogRecord(long timestamp, Level level, String logger, String thread, String message, Object[] fields, Throwable error) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.logger = logger;
+        this.thread = thread;
+        this.message = message;
+        this.fields = fields;
+        this.error = error;
+    }
+
+    Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Appends the record as one JSON object (without the line break).
+     * @param out The buffer to append to.
+     */
+    void appendJson(StringBuilder out) {
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(timestamp)).append('"');
+        field(out, "level", level.name());
+        field(out, "logger", logger);
+        field(out, "thread", thread);
+        field(out, "msg", message);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            field(out, String.valueOf(fields[i]), fields[i + 1]);
+        }
+        if (fields.length % 2 != 0) {
+            field(out, "extra", fields[fields.length - 1]);
+        }
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            field(out, "error", trace.toString());
+        }
+        out.append('}');
+    }
+
+    /**
+     * Appends the record as a plain text line (for the console).
+     * @param out The buffer to append to.
+     */
+    void appendText(StringBuilder out) {
+        out.append(Instant.ofEpochMilli(timestamp)).append(' ').append(level).append(" [").append(logger).append("] ")
+                .append(message);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            out.append(' ').append(fields[i]).append('=').append(fields[i + 1]);
+        }
+        if (error != null) {
+            StringWriter trace = new StringWriter();
+            error.printStackTrace(new PrintWriter(trace));
+            out.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+    }
+
+    private static void field(StringBuilder out, String name, Object value) {
+        out.append(",\"");
+        escape(out, name);
+        out.append("\":");
+        if (value instanceof Boolean || value instanceof Integer || value instanceof Long) {
+            out.append(value);
+        } else if (value instanceof Number number && Double.isFinite(number.doubleValue())) {
+            out.append(number);
+        } else {
+            out.append('"');
+            escape(out, String.valueOf(value));
+            out.append('"');
+        }
+    }
+
+    private static void escape(StringBuilder out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
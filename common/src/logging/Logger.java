@@ -0,0 +1,109 @@
+package logging;
+
+/**
+ * Logger writes structured log records for one class through the shared AsyncLogAppender.
+ *
+ * A record is a message plus optional key/value fields, e.g.
+ *
+ *   log.debug("Message received", "command", requestName, "client", client);
+ *
+ * becomes one JSON line: {"ts":"...","level":"DEBUG","logger":"EchoServer","thread":"...",
+ * "msg":"Message received","command":"LOGIN","client":"..."}.
+ *
+ * A disabled level costs one comparison. For an enabled level the field values are turned into
+ * strings on the calling thread (so later changes to the objects are not logged; numbers and
+ * booleans are kept and written as JSON numbers / booleans), and the record is handed to the
+ * appender without waiting for any I/O.
+ */
+public final class Logger {
+
+    private final String name;
+
+    Logger(String name) {
+        this.name = name;
+    }
+
+    /** @return The logger name (the simple class name). */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param level The level to test.
+     * @return true if records of this level are written.
+     */
+    public boolean isEnabled(Level level) {
+        return level.compareTo(Log.getLevel()) >= 0;
+    }
+
+    /** @return true if DEBUG records are written; use it to guard expensive fields. */
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    /**
+     * Logs a DEBUG record.
+     * @param message The message.
+     * @param fields  Alternating field names and values.
+     */
+    public void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, null, fields);
+    }
+
+    /**
+     * Logs an INFO record.
+     * @param message The message.
+     * @param fields  Alternating field names and values.
+     */
+    public void info(String message, Object... fields) {
+        log(Level.INFO, message, null, fields);
+    }
+
+    /**
+     * Logs a WARN record.
+     * @param message The message.
+     * @param fields  Alternating field names and values.
+     */
+    public void warn(String message, Object... fields) {
+        log(Level.WARN, message, null, fields);
+    }
+
+    /**
+     * Logs an ERROR record.
+     * @param message The message.
+     * @param fields  Alternating field names and values.
+     */
+    public void error(String message, Object... fields) {
+        log(Level.ERROR, message, null, fields);
+    }
+
+    /**
+     * Logs an ERROR record with the stack trace of an exception.
+     * @param message The message.
+     * @param error   The exception.
+     * @param fields  Alternating field names and values.
+     */
+    public void error(String message, Throwable error, Object... fields) {
+        log(Level.ERROR, message, error, fields);
+    }
+
+    /**
+     * Logs a record.
+     * @param level   The level.
+     * @param message The message.
+     * @param error   An exception to include, or null.
+     * @param fields  Alternating field names and values.
+     */
+    public void log(Level level, String message, Throwable error, Object... fields) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object value = fields[i];
+            values[i] = value instanceof Number || value instanceof Boolean ? value : String.valueOf(value);
+        }
+        Log.appender().append(new LogRecord(System.currentTimeMillis(), level, name,
+                Thread.currentThread().getName(), message, values, error));
+    }
+}
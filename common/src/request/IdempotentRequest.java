@@ -0,0 +1,57 @@
+package request;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Wraps a request that changes the server's state (a drop-off, a new reservation, a pickup,
+ * a cancellation, ...) with an idempotency key.
+ *
+ * The client creates one IdempotentRequest per user action and sends the same instance again
+ * if it gets no answer in time. The server processes a key only once: a resent request is
+ * answered with the reply of the first one (or waits for it if it is still running).
+ */
+public class IdempotentRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+    private final Object payload;
+
+    /**
+     * Constructs a request with a new random key.
+     *
+     * @param payload The request itself (a Subscriber, a Reservation, a String command, ...).
+     */
+    public IdempotentRequest(Object payload) {
+        this(UUID.randomUUID().toString(), payload);
+    }
+
+    /**
+     * Constructs a request with a known key.
+     *
+     * @param key     The idempotency key (unique per user action).
+     * @param payload The request itself.
+     */
+    public IdempotentRequest(String key, Object payload) {
+        this.key = key;
+        this.payload = payload;
+    }
+
+    /**
+     * Returns the idempotency key.
+     *
+     * @return The key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the wrapped request.
+     *
+     * @return The request object.
+     */
+    public Object getPayload() {
+        return payload;
+    }
+}
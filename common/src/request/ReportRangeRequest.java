@@ -0,0 +1,46 @@
+package request;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * A request sent from the client to the server, asking for a report over an arbitrary
+ * date range (for example a quarter or a full year).
+ * Unlike ParkingDurationRequest and MemberStatusReportRequest, which return a stored
+ * monthly report, this report is generated on demand from the daily totals.
+ */
+public class ReportRangeRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate from;
+    private LocalDate to;
+
+    /**
+     * Constructs a {@code ReportRangeRequest} for the given range of entry dates.
+     *
+     * @param from The first day of the report (inclusive).
+     * @param to   The last day of the report (inclusive).
+     */
+    public ReportRangeRequest(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Returns the first day of the report.
+     *
+     * @return The first day (inclusive).
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the last day of the report.
+     *
+     * @return The last day (inclusive).
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,69 @@
+package response;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One day of an on-demand range report: the totals of all parking sessions that
+ * entered on that date.
+ */
+public class DailyReportRow implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate date;
+    private long duration;          // in minutes
+    private long lateDuration;      // in minutes
+    private long extendedDuration;  // in minutes
+    private int sessions;
+    private int distinctSubscribers;
+
+    /**
+     * Constructs a DailyReportRow.
+     *
+     * @param date                The entry date.
+     * @param duration            Total parking duration in minutes.
+     * @param lateDuration        Total late duration in minutes.
+     * @param extendedDuration    Total extended duration in minutes.
+     * @param sessions            Number of parking sessions.
+     * @param distinctSubscribers Number of distinct subscribers that parked.
+     */
+    public DailyReportRow(LocalDate date, long duration, long lateDuration, long extendedDuration,
+                          int sessions, int distinctSubscribers) {
+        this.date = date;
+        this.duration = duration;
+        this.lateDuration = lateDuration;
+        this.extendedDuration = extendedDuration;
+        this.sessions = sessions;
+        this.distinctSubscribers = distinctSubscribers;
+    }
+
+    /** @return The entry date. */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /** @return Total parking duration in minutes. */
+    public long getDuration() {
+        return duration;
+    }
+
+    /** @return Total late duration in minutes. */
+    public long getLateDuration() {
+        return lateDuration;
+    }
+
+    /** @return Total extended duration in minutes. */
+    public long getExtendedDuration() {
+        return extendedDuration;
+    }
+
+    /** @return Number of parking sessions. */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /** @return Number of distinct subscribers that parked. */
+    public int getDistinctSubscribers() {
+        return distinctSubscribers;
+    }
+}
@@ -18,6 +18,7 @@ public class GetSiteActivityResponse implements Serializable {
 
     private List<Reservation> futureReservations;
     private List<ActiveParking> activeParkings;
+    private long version;
 
     /**
      * Constructs a {@code GetSiteActivityResponse} with the given lists of future reservations
@@ -31,6 +32,19 @@ public class GetSiteActivityResponse implements Serializable {
         this.activeParkings = activeParkings;
     }
 
+    /**
+     * Constructs a {@code GetSiteActivityResponse} tagged with the version of the server-side
+     * snapshot it was built from. Clients send this version back to learn whether anything changed.
+     *
+     * @param futureReservations A list of upcoming Reservation objects.
+     * @param activeParkings     A list of currently active ActiveParking objects.
+     * @param version            The snapshot version this response reflects.
+     */
+    public GetSiteActivityResponse(List<Reservation> futureReservations, List<ActiveParking> activeParkings, long version) {
+        this(futureReservations, activeParkings);
+        this.version = version;
+    }
+
     /**
      * Returns the list of future reservations.
      *
@@ -48,4 +62,13 @@ public class GetSiteActivityResponse implements Serializable {
     public List<ActiveParking> getActiveParkings() {
         return activeParkings;
     }
+
+    /**
+     * Returns the snapshot version this response reflects (0 if unversioned).
+     *
+     * @return The snapshot version.
+     */
+    public long getVersion() {
+        return version;
+    }
 }
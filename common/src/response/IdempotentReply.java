@@ -0,0 +1,45 @@
+package response;
+
+import java.io.Serializable;
+
+/**
+ * Wraps the server's reply to a request.IdempotentRequest with the request's idempotency key.
+ *
+ * The client keeps a state-changing request pending (and resends it after a reconnect) until a
+ * reply carrying the same key arrives; any other message from the server does not answer it.
+ */
+public class IdempotentReply implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String key;
+    private final Object payload;
+
+    /**
+     * Constructs a reply to the request with the given key.
+     *
+     * @param key     The idempotency key of the request.
+     * @param payload The reply itself (a String result, a Reservation, ...).
+     */
+    public IdempotentReply(String key, Object payload) {
+        this.key = key;
+        this.payload = payload;
+    }
+
+    /**
+     * Returns the idempotency key of the request this reply answers.
+     *
+     * @return The key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the wrapped reply.
+     *
+     * @return The reply object.
+     */
+    public Object getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,45 @@
+package response;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A response sent from the server to the client with an on-demand report over a date range.
+ * It contains one DailyReportRow per day that had at least one parking session, ordered by date.
+ */
+public class RangeReportResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private LocalDate from;
+    private LocalDate to;
+    private List<DailyReportRow> rows;
+
+    /**
+     * Constructs a RangeReportResponse.
+     *
+     * @param from The first day of the report (inclusive).
+     * @param to   The last day of the report (inclusive).
+     * @param rows The daily rows, ordered by date.
+     */
+    public RangeReportResponse(LocalDate from, LocalDate to, List<DailyReportRow> rows) {
+        this.from = from;
+        this.to = to;
+        this.rows = rows;
+    }
+
+    /** @return The first day of the report (inclusive). */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /** @return The last day of the report (inclusive). */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /** @return The daily rows, ordered by date. */
+    public List<DailyReportRow> getRows() {
+        return rows;
+    }
+}